@@ -2,8 +2,11 @@ package com.ryanshiun.seniorscare.activity.controller;
 
 import com.ryanshiun.seniorscare.activity.dto.ActivityRequest;
 import com.ryanshiun.seniorscare.activity.dto.ActivityForm;
+import com.ryanshiun.seniorscare.activity.dto.ActivityQueryParams;
+import com.ryanshiun.seniorscare.activity.dto.TagRewriteResult;
 import com.ryanshiun.seniorscare.activity.model.Activity;
 import com.ryanshiun.seniorscare.activity.service.ActivityService;
+import com.ryanshiun.seniorscare.activity.service.Impl.ActivityCatalog;
 
 import jakarta.validation.Valid;
 
@@ -11,9 +14,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/activities")
@@ -22,6 +27,8 @@ public class ActivityController {
 
     @Autowired
     private ActivityService activityService;
+    @Autowired
+    private ActivityCatalog activityCatalog;
 
     // ===== Read 操作 =====
 
@@ -31,6 +38,24 @@ public class ActivityController {
         return activityService.getAllActivities();
     }
 
+    /**
+     * 依條件查活動（記憶體目錄，不查 DB）
+     * name 模糊比對；tags 多個標籤以逗號分隔，match=all 全部符合（預設）、any 任一符合
+     */
+    @GetMapping("/search")
+    public List<Activity> searchActivities(@ModelAttribute ActivityQueryParams params,
+                                           @RequestParam(required = false) List<String> tags,
+                                           @RequestParam(defaultValue = "all") String match) {
+        return activityService.searchActivities(params, tags, !"any".equalsIgnoreCase(match));
+    }
+
+    /** 活動目錄狀態（活動數、標籤數、分類數） */
+    @GetMapping("/catalog-stats")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public Map<String, Object> catalogStats() {
+        return activityCatalog.stats();
+    }
+
     /** 查詢單筆活動 */
     @GetMapping("/{id}")
     public ResponseEntity<Activity> getActivityById(@PathVariable Integer id) {
@@ -140,12 +165,26 @@ public class ActivityController {
         return ResponseEntity.ok().build();
     }
 
+    /** 批次覆蓋多個活動的標籤（後台匯入）：body 為 { 活動ID: [標籤...] } */
+    @PutMapping("/tags")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public ResponseEntity<TagRewriteResult> retagActivities(@RequestBody Map<Integer, List<String>> tagsByActivity) {
+        return ResponseEntity.ok(activityService.retagActivities(tagsByActivity));
+    }
+
     /** 依單一標籤查活動 */
     @GetMapping("/tags/{tag}")
     public List<Activity> byTag(@PathVariable String tag) {
         return activityService.getActivitiesByTag(tag);
     }
 
+    /** 依多個標籤查活動：match=all 全部符合（預設）、any 任一符合 */
+    @GetMapping("/tags")
+    public List<Activity> byTags(@RequestParam List<String> names,
+                                 @RequestParam(defaultValue = "all") String match) {
+        return activityService.getActivitiesByTags(names, !"any".equalsIgnoreCase(match));
+    }
+
     // ===== 其他操作 =====
 
     /** 結束活動報名 */
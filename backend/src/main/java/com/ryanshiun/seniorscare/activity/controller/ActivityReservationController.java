@@ -1,17 +1,32 @@
 package com.ryanshiun.seniorscare.activity.controller;
 
+import com.ryanshiun.seniorscare.activity.dto.RegistrationPageDto;
+import com.ryanshiun.seniorscare.activity.dto.RegistrationQueryDto;
 import com.ryanshiun.seniorscare.activity.dto.ReservationCreateDto;
 import com.ryanshiun.seniorscare.activity.dto.ReservationQueryDto;
 import com.ryanshiun.seniorscare.activity.dto.ReservationResponse;
+import com.ryanshiun.seniorscare.activity.dto.ReservationReviewItem;
+import com.ryanshiun.seniorscare.activity.dto.ReservationReviewResult;
 import com.ryanshiun.seniorscare.activity.dto.ReservationUpdateDto;
 import com.ryanshiun.seniorscare.activity.model.ActivityRegistration;
+import com.ryanshiun.seniorscare.activity.model.ActivityWaitlist;
 import com.ryanshiun.seniorscare.activity.service.ActivityReservationService;
+import com.ryanshiun.seniorscare.activity.service.ActivityWaitlistService;
+import com.ryanshiun.seniorscare.activity.service.Impl.ActivitySeatEngine;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/activities/reservation")
@@ -19,6 +34,10 @@ public class ActivityReservationController {
 
     @Autowired
     private ActivityReservationService activityReservationService;
+    @Autowired
+    private ActivitySeatEngine seatEngine;
+    @Autowired
+    private ActivityWaitlistService activityWaitlistService;
 
     /** 查詢自己的預約
      * @return 自己的預約清單
@@ -46,6 +65,35 @@ public class ActivityReservationController {
         boolean success = activityReservationService.createReservation(registration);
         if (success) {
             return ResponseEntity.status(201).build();
+        }
+        // 額滿：改排入候補
+        Integer position = activityWaitlistService.joinWaitlist(registration);
+        if (position != null) {
+            return ResponseEntity.status(202).body(Map.of("waitlisted", true, "position", position));
+        }
+        return ResponseEntity.status(400).build();
+    }
+
+    /** 查詢自己的候補
+     * @return 候補中的清單
+     */
+    @GetMapping("/waitlist/me")
+    public ResponseEntity<List<ActivityWaitlist>> getMyWaitlist(Authentication authentication) {
+        Integer memberId = Integer.parseInt(authentication.getName());
+        return ResponseEntity.status(200).body(activityWaitlistService.getMyWaitlist(memberId));
+    }
+
+    /** 取消候補
+     * @param waitlistId 候補ID
+     */
+    @DeleteMapping("/waitlist/{waitlistId}")
+    public ResponseEntity<?> leaveWaitlist(
+            @PathVariable Long waitlistId,
+            Authentication authentication) {
+        Integer memberId = Integer.parseInt(authentication.getName());
+        boolean success = activityWaitlistService.leaveWaitlist(waitlistId, memberId);
+        if (success) {
+            return ResponseEntity.status(200).build();
         } else {
             return ResponseEntity.status(400).build();
         }
@@ -85,6 +133,15 @@ public class ActivityReservationController {
         }
     }
 
+    /** 批次審核預約（同一交易，一次 batch 更新），回傳每筆結果
+     * @param items 報名ID 與審核後狀態
+     */
+    @PutMapping("/status/bulk")
+    @PreAuthorize("hasAnyRole('EMPLOYEE', 'MANAGER', 'ADMIN')")
+    public ResponseEntity<List<ReservationReviewResult>> reviewReservations(@RequestBody List<ReservationReviewItem> items) {
+        return ResponseEntity.status(200).body(activityReservationService.reviewReservations(items));
+    }
+
     /** 客製化查詢活動預約
      * 不傳參數回傳全部預約
      *
@@ -106,4 +163,45 @@ public class ActivityReservationController {
             return ResponseEntity.status(404).build();
         }
     }
+
+    /** 後台活動報名分頁查詢（依報名時間新到舊，cursor 分頁，附各狀態筆數）
+     * @param query 活動ID / 名稱關鍵字 / 分類、會員ID、狀態、報名時間區間、cursor、每頁筆數
+     */
+    @GetMapping("/page")
+    @PreAuthorize("hasAnyRole('EMPLOYEE', 'MANAGER', 'ADMIN')")
+    public ResponseEntity<RegistrationPageDto> getRegistrations(@ModelAttribute RegistrationQueryDto query) {
+        return ResponseEntity.status(200).body(activityReservationService.getRegistrations(query));
+    }
+
+    /** 依相同條件匯出報名名單 CSV（報到用）
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('EMPLOYEE', 'MANAGER', 'ADMIN')")
+    public void exportRegistrations(@ModelAttribute RegistrationQueryDto query, HttpServletResponse response) throws IOException {
+        response.setContentType("text/csv; charset=UTF-8");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=activity_registrations.csv");
+
+        OutputStream out = response.getOutputStream();
+        // UTF-8 BOM（Excel 防亂碼）
+        out.write(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF});
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        activityReservationService.exportToCSV(query, writer);
+    }
+
+    /** 活動名額引擎狀態（佔用 / 拒絕 / 寫回次數、尚未寫回的名額）
+     */
+    @GetMapping("/seat-stats")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public ResponseEntity<Map<String, Object>> seatStats() {
+        return ResponseEntity.ok(seatEngine.stats());
+    }
+
+    /** 活動候補狀態（各活動候補人數、遞補次數與等待時間、遞補耗時）
+     */
+    @GetMapping("/waitlist-stats")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public ResponseEntity<Map<String, Object>> waitlistStats() {
+        return ResponseEntity.ok(activityWaitlistService.stats());
+    }
 }
@@ -4,6 +4,7 @@ import com.ryanshiun.seniorscare.activity.dto.ActivityQueryParams;
 import com.ryanshiun.seniorscare.activity.model.Activity;
 
 import java.util.List;
+import java.util.Map;
 
 public interface ActivityDao {
 
@@ -11,7 +12,7 @@ public interface ActivityDao {
 
     List<Activity> getAllActivities();
 
-    void addActivity(Activity activity);
+    Integer addActivity(Activity activity);
 
     void updateActivity(Integer id, Activity activity);
 
@@ -23,6 +24,19 @@ public interface ActivityDao {
 
     int adjustSeats(Integer activityId, int delta, java.time.LocalDate today);
 
+    /**
+     * 座位引擎寫回：把累積的名額增減一次以 batch 套用到 activity.[current]
+     * （上下限已由座位引擎檢查過，這裡不再加條件）
+     * @param deltas 活動 ID → 名額增減
+     */
+    void applySeatDeltas(Map<Integer, Integer> deltas);
+
+    /**
+     * 依 activity_registration 中仍佔名額的報名重算 activity.[current]
+     * @return 被修正的活動數
+     */
+    int reconcileSeats();
+
 
     void endRegistration(Integer id);
 }
\ No newline at end of file
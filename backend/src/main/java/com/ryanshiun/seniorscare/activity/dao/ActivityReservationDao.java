@@ -1,10 +1,15 @@
 package com.ryanshiun.seniorscare.activity.dao;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
+import com.ryanshiun.seniorscare.activity.dto.RegistrationPageDto;
+import com.ryanshiun.seniorscare.activity.dto.RegistrationQueryDto;
 import com.ryanshiun.seniorscare.activity.dto.ReservationCreateDto;
 import com.ryanshiun.seniorscare.activity.dto.ReservationQueryDto;
 import com.ryanshiun.seniorscare.activity.dto.ReservationResponse;
+import com.ryanshiun.seniorscare.activity.dto.ReservationReviewItem;
 import com.ryanshiun.seniorscare.activity.dto.ReservationUpdateDto;
 import com.ryanshiun.seniorscare.activity.model.ActivityRegistration;
 
@@ -15,9 +20,50 @@ public interface ActivityReservationDao {
 
     boolean createReservation(ReservationCreateDto registration);
 
+    /**
+     * 一次 batch 建立多筆預約（候補遞補用），狀態為預約審核中
+     */
+    void createReservations(List<ReservationCreateDto> registrations);
+
     boolean cancelReservation(Integer registrationId, Integer memberId);
 
+    /**
+     * 取消預約並回傳被取消的那筆（status 為取消前的狀態）；已取消或不存在時回傳 null
+     */
+    ActivityRegistration cancelReservationAndGet(Integer registrationId, Integer memberId);
+
     boolean reviewReservation(ReservationUpdateDto reservationUpdateDto);
 
+    /**
+     * 審核預約並回傳被更新的報名（status 為審核前的狀態），供呼叫端計算名額增減
+     */
+    List<ActivityRegistration> reviewReservationAndGet(ReservationUpdateDto reservationUpdateDto);
+
+    /**
+     * 依報名ID 取出報名並加上更新鎖（須在交易內呼叫），交易結束前其他審核 / 取消會等待
+     */
+    List<ActivityRegistration> lockRegistrations(Collection<Integer> registrationIds);
+
+    /**
+     * 一次 batch 更新多筆報名狀態
+     * @return 每筆影響的列數（與 items 順序相同）
+     */
+    int[] updateStatuses(List<ReservationReviewItem> items);
+
     List<ReservationResponse> getAllReservations(ReservationQueryDto queryDto);
+
+    // 建立後台報名查詢用索引（不存在時）
+    void ensureIndexes();
+
+    /**
+     * 後台報名分頁查詢：依報名時間新到舊，接在 cursorId 那筆之後；同時算出符合條件的各狀態筆數
+     * @param activityIds 限定的活動 ID；null 表示不限
+     * @param limit 最多回傳筆數（呼叫端多抓一筆判斷是否有下一頁）
+     */
+    RegistrationPageDto getRegistrations(RegistrationQueryDto query, Collection<Integer> activityIds,
+                                         Long cursorId, int limit);
+
+    // 依相同條件逐筆串流出報名名單（匯出 CSV 用，不整批載入記憶體）
+    void exportRegistrations(RegistrationQueryDto query, Collection<Integer> activityIds,
+                             Consumer<ReservationResponse> consumer);
 }
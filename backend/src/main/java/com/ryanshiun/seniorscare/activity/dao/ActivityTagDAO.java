@@ -1,11 +1,22 @@
 package com.ryanshiun.seniorscare.activity.dao;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
+import java.util.Map;
 import com.ryanshiun.seniorscare.activity.model.ActivityTag;
 public interface ActivityTagDAO {
     Optional<ActivityTag> findByName(String name);
 
     Integer insertTag(String name);
 
+    // 一次查出多個標籤名稱對應的標籤（不存在的不回傳）
+    List<ActivityTag> findByNames(Collection<String> names);
+
+    // 一次 batch 新增多個標籤（已存在的略過），回傳實際新增的筆數
+    int insertTags(Collection<String> names);
+
     List<ActivityTag> findByActivityId(int activityId);
+
+    // 所有活動的標籤名稱（活動 ID → 標籤名稱），建立記憶體標籤索引用
+    Map<Integer, List<String>> findAllTagNamesByActivity();
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.ryanshiun.seniorscare.activity.dao;
+
+import com.ryanshiun.seniorscare.activity.model.ActivityWaitlist;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ActivityWaitlistDao {
+
+    /** 建立 activity_waitlist 表與索引（不存在時） */
+    void ensureTable();
+
+    /**
+     * 加入候補
+     * @return 候補 ID；同一會員已在該活動候補中時回傳 null
+     */
+    Long insert(Integer activityId, Integer memberId, int num, LocalDateTime now);
+
+    /** 所有候補中的紀錄，依活動、加入順序排序（啟動時載入記憶體） */
+    List<ActivityWaitlist> findAllWaiting();
+
+    /** 會員自己的候補中紀錄 */
+    List<ActivityWaitlist> findWaitingByMember(Integer memberId);
+
+    /**
+     * 把候補中的紀錄標記為已遞補（同一批一次 batch）；已被其他交易遞補或取消的不會更新
+     * @return 實際遞補成功的 ID
+     */
+    List<Long> markPromoted(Collection<Long> ids, LocalDateTime now);
+
+    /**
+     * 會員取消候補
+     * @return 被取消的那筆；不存在或已不在候補中時回傳 null
+     */
+    ActivityWaitlist cancel(Long id, Integer memberId);
+}
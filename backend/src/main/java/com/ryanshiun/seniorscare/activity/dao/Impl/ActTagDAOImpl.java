@@ -1,12 +1,16 @@
 package com.ryanshiun.seniorscare.activity.dao.Impl;
 
 import com.ryanshiun.seniorscare.activity.dao.ActTagDAO;
+import com.ryanshiun.seniorscare.activity.model.ActTag;
 import com.ryanshiun.seniorscare.activity.model.Activity;
 import com.ryanshiun.seniorscare.activity.rowmapper.ActivityRowMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -27,6 +31,47 @@ public class ActTagDAOImpl implements ActTagDAO {
                 Map.of("aid", activityId, "tid", tagId));
     }
 
+    @Override
+    public List<ActTag> findByActivityIds(Collection<Integer> activityIds) {
+        List<ActTag> out = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>(activityIds);
+        // SQL Server 單一語句參數上限約 2100 個，分段查
+        for (int i = 0; i < ids.size(); i += 1000) {
+            out.addAll(namedParameterJdbcTemplate.query(
+                    "SELECT activity_id, tag_id FROM act_tag WHERE activity_id IN (:ids)",
+                    Map.of("ids", ids.subList(i, Math.min(i + 1000, ids.size()))),
+                    (rs, rowNum) -> {
+                        ActTag link = new ActTag();
+                        link.setActivityId(rs.getInt("activity_id"));
+                        link.setTagId(rs.getInt("tag_id"));
+                        return link;
+                    }));
+        }
+        return out;
+    }
+
+    @Override
+    public void insertBatch(List<ActTag> links) {
+        if (links.isEmpty()) return;
+        namedParameterJdbcTemplate.batchUpdate("INSERT INTO act_tag(activity_id, tag_id) VALUES(:aid,:tid)",
+                toParams(links));
+    }
+
+    @Override
+    public void deleteBatch(List<ActTag> links) {
+        if (links.isEmpty()) return;
+        namedParameterJdbcTemplate.batchUpdate("DELETE FROM act_tag WHERE activity_id=:aid AND tag_id=:tid",
+                toParams(links));
+    }
+
+    private static MapSqlParameterSource[] toParams(List<ActTag> links) {
+        return links.stream()
+                .map(l -> new MapSqlParameterSource()
+                        .addValue("aid", l.getActivityId())
+                        .addValue("tid", l.getTagId()))
+                .toArray(MapSqlParameterSource[]::new);
+    }
+
     @Override
     public List<Activity> findActivitiesBySingleTag(String tag) {
         String sql = """
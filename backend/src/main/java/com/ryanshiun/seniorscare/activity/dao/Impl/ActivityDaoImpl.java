@@ -7,6 +7,8 @@ import com.ryanshiun.seniorscare.activity.rowmapper.ActivityRowMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
 import java.util.HashMap;
@@ -80,7 +82,7 @@ public class ActivityDaoImpl implements ActivityDao {
 
     // 新增活動
     @Override
-    public void addActivity(Activity activity) {
+    public Integer addActivity(Activity activity) {
     	String sql = "INSERT INTO Activity(" +
                 "name, category, limit, [current], date, [end], time, " +
                 "registration_start, registration_end, location, " +
@@ -107,7 +109,10 @@ public class ActivityDaoImpl implements ActivityDao {
         params.addValue("description", activity.getDescription());
         params.addValue("image", activity.getImage());
 
-        jdbcTemplate.update(sql, params);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(sql, params, keyHolder, new String[]{"id"});
+        Number key = keyHolder.getKey();
+        return key == null ? null : key.intValue();
     }
 
     // 修改活動
@@ -199,6 +204,36 @@ public class ActivityDaoImpl implements ActivityDao {
         return jdbcTemplate.update(sql, p);
     }
 
+    @Override
+    public void applySeatDeltas(Map<Integer, Integer> deltas) {
+        if (deltas.isEmpty()) return;
+        final String sql = "UPDATE activity SET [current] = [current] + :delta WHERE id = :id";
+        MapSqlParameterSource[] batch = deltas.entrySet().stream()
+                .map(e -> new MapSqlParameterSource()
+                        .addValue("id", e.getKey())
+                        .addValue("delta", e.getValue()))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(sql, batch);
+    }
+
+    @Override
+    public int reconcileSeats() {
+        // 已取消 / 已拒絕 的報名不佔名額
+        final String sql = """
+        UPDATE a
+        SET [current] = COALESCE(r.seats, 0)
+        FROM activity a
+        LEFT JOIN (
+            SELECT activity_id, SUM(COALESCE(num, 1)) AS seats
+            FROM activity_registration
+            WHERE status NOT IN (N'已取消', N'已拒絕')
+            GROUP BY activity_id
+        ) r ON r.activity_id = a.id
+        WHERE COALESCE(a.[current], -1) <> COALESCE(r.seats, 0)
+        """;
+        return jdbcTemplate.update(sql, new MapSqlParameterSource());
+    }
+
     @Override
     public void endRegistration(Integer id) {
         final String sql = "UPDATE activity SET status = 0 WHERE id = :id";
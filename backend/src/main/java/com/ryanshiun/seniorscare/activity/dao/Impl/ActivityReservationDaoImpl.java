@@ -4,22 +4,34 @@ import com.ryanshiun.seniorscare.activity.dao.ActivityReservationDao;
 import com.ryanshiun.seniorscare.activity.dto.ReservationCreateDto;
 import com.ryanshiun.seniorscare.activity.dto.ReservationQueryDto;
 import com.ryanshiun.seniorscare.activity.dto.ReservationResponse;
+import com.ryanshiun.seniorscare.activity.dto.ReservationReviewItem;
 import com.ryanshiun.seniorscare.activity.dto.ReservationUpdateDto;
 import com.ryanshiun.seniorscare.activity.model.ActivityRegistration;
 import com.ryanshiun.seniorscare.activity.rowmapper.ActivityRegistrationMapper;
 import com.ryanshiun.seniorscare.activity.rowmapper.ActivityReservationResponse;
+import com.ryanshiun.seniorscare.activity.dto.RegistrationPageDto;
+import com.ryanshiun.seniorscare.activity.dto.RegistrationQueryDto;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Repository
 public class ActivityReservationDaoImpl implements ActivityReservationDao {
+    // 匯出時每次從 DB 取回的筆數
+    private static final int EXPORT_FETCH_SIZE = 500;
+
     @Autowired
     private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
@@ -32,7 +44,12 @@ public class ActivityReservationDaoImpl implements ActivityReservationDao {
      */
     @Override
     public List<ActivityRegistration> getMyReservations(Integer memberId) {
-        final String sql = "SELECT * FROM activity_registration WHERE member_id = :memberId";
+        final String sql = """
+                SELECT id, activity_id, member_id, num, scheduled_at, status
+                FROM activity_registration
+                WHERE member_id = :memberId
+                ORDER BY scheduled_at DESC, id DESC
+                """;
         Map<String,Object> map = new HashMap<>();
         map.put("memberId",memberId);
         return namedParameterJdbcTemplate.query(sql, map, new ActivityRegistrationMapper());
@@ -60,6 +77,25 @@ public class ActivityReservationDaoImpl implements ActivityReservationDao {
         return namedParameterJdbcTemplate.update(sql, map) > 0;
     }
 
+    @Override
+    public void createReservations(List<ReservationCreateDto> registrations) {
+        if (registrations.isEmpty()) return;
+        final String sql = """
+                INSERT INTO activity_registration (activity_id, member_id,num, scheduled_at, status)
+                VALUES (:activityId, :memberId, :num, :scheduledAt, :status)
+                """;
+        LocalDateTime scheduledAt = LocalDateTime.now();
+        MapSqlParameterSource[] batch = registrations.stream()
+                .map(r -> new MapSqlParameterSource()
+                        .addValue("activityId", r.getActivityId())
+                        .addValue("memberId", r.getMemberId())
+                        .addValue("num", r.getNum())
+                        .addValue("scheduledAt", scheduledAt)
+                        .addValue("status", "預約審核中"))
+                .toArray(MapSqlParameterSource[]::new);
+        namedParameterJdbcTemplate.batchUpdate(sql, batch);
+    }
+
     /**
      * 取消活動預約
      * 將活動狀態修改為"已取消"
@@ -69,17 +105,27 @@ public class ActivityReservationDaoImpl implements ActivityReservationDao {
      */
     @Override
     public boolean cancelReservation(Integer registrationId, Integer memberId) {
+        return cancelReservationAndGet(registrationId, memberId) != null;
+    }
+
+    @Override
+    public ActivityRegistration cancelReservationAndGet(Integer registrationId, Integer memberId) {
+        // 已取消的不再更新，避免重複釋放名額
         final String sql = """
                 UPDATE activity_registration
                 SET status = :status
-                WHERE id = :registrationId AND member_id = :memberId
+                OUTPUT deleted.id, deleted.activity_id, deleted.member_id, deleted.num,
+                       deleted.scheduled_at, deleted.status
+                WHERE id = :registrationId AND member_id = :memberId AND status <> :status
                 """;
         final String status = "已取消";
         Map<String,Object> map = new HashMap<>();
         map.put("registrationId", registrationId);
         map.put("memberId", memberId);
         map.put("status", status);
-        return namedParameterJdbcTemplate.update(sql, map) > 0;
+        List<ActivityRegistration> list =
+                namedParameterJdbcTemplate.query(sql, map, new ActivityRegistrationMapper());
+        return list.isEmpty() ? null : list.get(0);
     }
 
     /**
@@ -90,16 +136,46 @@ public class ActivityReservationDaoImpl implements ActivityReservationDao {
      */
     @Override
     public boolean reviewReservation(ReservationUpdateDto reservationUpdateDto) {
+        return !reviewReservationAndGet(reservationUpdateDto).isEmpty();
+    }
+
+    @Override
+    public List<ActivityRegistration> reviewReservationAndGet(ReservationUpdateDto reservationUpdateDto) {
         final String sql = """
                 UPDATE activity_registration
                 SET status = :status
+                OUTPUT deleted.id, deleted.activity_id, deleted.member_id, deleted.num,
+                       deleted.scheduled_at, deleted.status
                 WHERE activity_id = :registrationId AND member_id = :memberId
                 """;
         Map<String ,Object> map = new HashMap<>();
         map.put("registrationId", reservationUpdateDto.getActivityId());
         map.put("memberId", reservationUpdateDto.getMemberId());
         map.put("status", reservationUpdateDto.getStatus());
-        return namedParameterJdbcTemplate.update(sql, map) > 0;
+        return namedParameterJdbcTemplate.query(sql, map, new ActivityRegistrationMapper());
+    }
+
+    @Override
+    public List<ActivityRegistration> lockRegistrations(Collection<Integer> registrationIds) {
+        if (registrationIds.isEmpty()) return List.of();
+        final String sql = """
+                SELECT id, activity_id, member_id, num, scheduled_at, status
+                FROM activity_registration WITH (UPDLOCK, ROWLOCK)
+                WHERE id IN (:ids)
+                """;
+        return namedParameterJdbcTemplate.query(sql, Map.of("ids", registrationIds), new ActivityRegistrationMapper());
+    }
+
+    @Override
+    public int[] updateStatuses(List<ReservationReviewItem> items) {
+        if (items.isEmpty()) return new int[0];
+        final String sql = "UPDATE activity_registration SET status = :status WHERE id = :registrationId";
+        MapSqlParameterSource[] batch = items.stream()
+                .map(i -> new MapSqlParameterSource()
+                        .addValue("registrationId", i.getRegistrationId())
+                        .addValue("status", i.getStatus()))
+                .toArray(MapSqlParameterSource[]::new);
+        return namedParameterJdbcTemplate.batchUpdate(sql, batch);
     }
 
     /**
@@ -111,6 +187,7 @@ public class ActivityReservationDaoImpl implements ActivityReservationDao {
     public List<ReservationResponse> getAllReservations(ReservationQueryDto queryDto) {
         StringBuilder sql = new StringBuilder("""
         SELECT
+            r.id                                    AS registrationId,    -- 報名ID
             r.activity_id                           AS activityId,        -- 活動ID
             r.member_id                             AS memberId,          -- 會員ID
             COALESCE(a.name,       N'未知活動')    AS activityName,      -- 活動資訊：名稱
@@ -147,8 +224,161 @@ public class ActivityReservationDaoImpl implements ActivityReservationDao {
 
         return namedParameterJdbcTemplate.query(sql.toString(), params, new ActivityReservationResponse());
     }
-}
 
+    /**
+     * 後台報名查詢用索引：依活動或會員篩選後直接照報名時間新到舊取出
+     */
+    @Override
+    public void ensureIndexes() {
+        final String sql = """
+                IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_activity_registration_activity_sched'
+                               AND object_id = OBJECT_ID('activity_registration'))
+                    CREATE INDEX IX_activity_registration_activity_sched
+                        ON activity_registration (activity_id, scheduled_at DESC, id DESC) INCLUDE (member_id, num, status);
+                IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_activity_registration_member_sched'
+                               AND object_id = OBJECT_ID('activity_registration'))
+                    CREATE INDEX IX_activity_registration_member_sched
+                        ON activity_registration (member_id, scheduled_at DESC, id DESC) INCLUDE (activity_id, num, status);
+                IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_activity_registration_sched'
+                               AND object_id = OBJECT_ID('activity_registration'))
+                    CREATE INDEX IX_activity_registration_sched
+                        ON activity_registration (scheduled_at DESC, id DESC) INCLUDE (activity_id, member_id, num, status);
+                """;
+        namedParameterJdbcTemplate.getJdbcTemplate().execute(sql);
+    }
+
+    /**
+     * 一次查詢同時取得：符合條件的各狀態筆數（c）與接在 cursor 之後的一頁（p）
+     * c LEFT JOIN p 讓沒有資料的頁面也會回傳一列筆數；活動與會員只 join 這一頁
+     */
+    @Override
+    public RegistrationPageDto getRegistrations(RegistrationQueryDto query, Collection<Integer> activityIds,
+                                                Long cursorId, int limit) {
+        StringBuilder filtered = new StringBuilder("""
+                SELECT r.id, r.activity_id, r.member_id, r.num, r.scheduled_at, r.status
+                FROM activity_registration r
+                WHERE 1 = 1
+                """);
+        Map<String, Object> params = new HashMap<>();
+        params.put("limit", limit);
+        appendFilters(filtered, params, query, activityIds);
+
+        // keyset：時間直接取自 cursor 那筆，避免 datetime 精度在應用端來回轉換後比對不準
+        String cursorFilter = "";
+        if (cursorId != null) {
+            final String cursorAt = "(SELECT scheduled_at FROM activity_registration WHERE id = :cursorId)";
+            cursorFilter = " WHERE f.scheduled_at < " + cursorAt
+                    + " OR (f.scheduled_at = " + cursorAt + " AND f.id < :cursorId)";
+            params.put("cursorId", cursorId);
+        }
 
+        String sql = "WITH f AS (" + filtered + "),\n" + """
+                c AS (
+                    SELECT COUNT(*) AS total,
+                           SUM(CASE WHEN status = N'預約審核中' THEN 1 ELSE 0 END) AS pendingCount,
+                           SUM(CASE WHEN status = N'報名成功' THEN 1 ELSE 0 END) AS approvedCount,
+                           SUM(CASE WHEN status = N'已取消' THEN 1 ELSE 0 END) AS cancelledCount,
+                           SUM(CASE WHEN status = N'已拒絕' THEN 1 ELSE 0 END) AS rejectedCount
+                    FROM f
+                ),
+                p AS (
+                    SELECT TOP (:limit) f.* FROM f""" + cursorFilter + """
 
+                    ORDER BY f.scheduled_at DESC, f.id DESC
+                )
+                SELECT c.total, c.pendingCount, c.approvedCount, c.cancelledCount, c.rejectedCount,
+                    p.id                                    AS registrationId,
+                    p.activity_id                           AS activityId,
+                    p.member_id                             AS memberId,
+                    COALESCE(a.name,       N'未知活動')    AS activityName,
+                    COALESCE(a.category,   N'未分類')      AS activityCategory,
+                    COALESCE(m.member_name,N'未知會員')    AS memberName,
+                    COALESCE(m.main_phone, N'N/A')         AS memberPhone,
+                    p.num                                   AS people,
+                    p.scheduled_at                          AS scheduledAt,
+                    p.status                                AS status
+                FROM c
+                LEFT JOIN p ON 1 = 1
+                LEFT JOIN activity a ON a.id = p.activity_id
+                LEFT JOIN member  m ON m.member_id = p.member_id
+                ORDER BY p.scheduled_at DESC, p.id DESC
+                """;
+
+        RegistrationPageDto page = new RegistrationPageDto();
+        ActivityReservationResponse mapper = new ActivityReservationResponse();
+        namedParameterJdbcTemplate.query(sql, params, (RowCallbackHandler) rs -> {
+            if (page.getStatusCounts().isEmpty()) {
+                page.setTotal(rs.getLong("total"));
+                long pending = rs.getLong("pendingCount");
+                long approved = rs.getLong("approvedCount");
+                long cancelled = rs.getLong("cancelledCount");
+                long rejected = rs.getLong("rejectedCount");
+                page.getStatusCounts().put("預約審核中", pending);
+                page.getStatusCounts().put("報名成功", approved);
+                page.getStatusCounts().put("已取消", cancelled);
+                page.getStatusCounts().put("已拒絕", rejected);
+                page.getStatusCounts().put("其他", page.getTotal() - pending - approved - cancelled - rejected);
+            }
+            rs.getInt("registrationId");
+            if (!rs.wasNull()) page.getItems().add(mapper.mapRow(rs, 0));
+        });
+        return page;
+    }
 
+    @Override
+    public void exportRegistrations(RegistrationQueryDto query, Collection<Integer> activityIds,
+                                    Consumer<ReservationResponse> consumer) {
+        StringBuilder sql = new StringBuilder("""
+                SELECT
+                    r.id                                    AS registrationId,
+                    r.activity_id                           AS activityId,
+                    r.member_id                             AS memberId,
+                    COALESCE(a.name,       N'未知活動')    AS activityName,
+                    COALESCE(a.category,   N'未分類')      AS activityCategory,
+                    COALESCE(m.member_name,N'未知會員')    AS memberName,
+                    COALESCE(m.main_phone, N'N/A')         AS memberPhone,
+                    r.num                                   AS people,
+                    r.scheduled_at                          AS scheduledAt,
+                    r.status                                AS status
+                FROM activity_registration r
+                LEFT JOIN activity a ON a.id = r.activity_id
+                LEFT JOIN member  m ON m.member_id = r.member_id
+                WHERE 1 = 1
+                """);
+        Map<String, Object> params = new HashMap<>();
+        appendFilters(sql, params, query, activityIds);
+        sql.append(" ORDER BY r.activity_id, r.scheduled_at, r.id");
+
+        JdbcTemplate jdbc = new JdbcTemplate(namedParameterJdbcTemplate.getJdbcTemplate().getDataSource());
+        jdbc.setFetchSize(EXPORT_FETCH_SIZE);
+        ActivityReservationResponse mapper = new ActivityReservationResponse();
+        new NamedParameterJdbcTemplate(jdbc).query(sql.toString(), params,
+                (RowCallbackHandler) rs -> consumer.accept(mapper.mapRow(rs, 0)));
+    }
+
+    // activityIds 為 null 表示不限活動；名稱 / 分類已由呼叫端先換成活動 ID
+    private static void appendFilters(StringBuilder sql, Map<String, Object> params,
+                                      RegistrationQueryDto query, Collection<Integer> activityIds) {
+        if (activityIds != null) {
+            // 以單一逗號分隔字串帶入，活動再多也只佔一個參數（SQL Server 上限 2100 個）
+            sql.append(" AND r.activity_id IN (SELECT CAST(value AS INT) FROM STRING_SPLIT(:activityIds, ','))");
+            params.put("activityIds", activityIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        }
+        if (query.getMemberId() != null) {
+            sql.append(" AND r.member_id = :memberId");
+            params.put("memberId", query.getMemberId());
+        }
+        if (StringUtils.hasText(query.getStatus())) {
+            sql.append(" AND r.status = :status");
+            params.put("status", query.getStatus().trim());
+        }
+        if (query.getFrom() != null) {
+            sql.append(" AND r.scheduled_at >= :from");
+            params.put("from", query.getFrom());
+        }
+        if (query.getTo() != null) {
+            sql.append(" AND r.scheduled_at < :to");
+            params.put("to", query.getTo());
+        }
+    }
+}
@@ -9,6 +9,9 @@ import org.springframework.jdbc.core.namedparam.*;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -41,6 +44,37 @@ public class ActivityTagDAOImpl implements ActivityTagDAO {
         }
     }
 
+    @Override
+    public List<ActivityTag> findByNames(Collection<String> names) {
+        List<ActivityTag> out = new ArrayList<>();
+        // SQL Server 單一語句參數上限約 2100 個，分段查
+        for (List<String> chunk : chunks(new ArrayList<>(names))) {
+            out.addAll(namedParameterJdbcTemplate.query(
+                    "SELECT id, name FROM activity_tag WHERE name IN (:names)",
+                    Map.of("names", chunk), new BeanPropertyRowMapper<>(ActivityTag.class)));
+        }
+        return out;
+    }
+
+    @Override
+    public int insertTags(Collection<String> names) {
+        if (names.isEmpty()) return 0;
+        // UPDLOCK + HOLDLOCK：同時有人新增同名標籤時排隊，不會違反唯一性
+        String sql = """
+          INSERT INTO activity_tag(name)
+          SELECT :name
+          WHERE NOT EXISTS (SELECT 1 FROM activity_tag WITH (UPDLOCK, HOLDLOCK) WHERE name = :name)
+        """;
+        MapSqlParameterSource[] batch = names.stream()
+                .map(n -> new MapSqlParameterSource("name", n))
+                .toArray(MapSqlParameterSource[]::new);
+        int created = 0;
+        for (int n : namedParameterJdbcTemplate.batchUpdate(sql, batch)) {
+            if (n > 0) created += n;
+        }
+        return created;
+    }
+
     @Override
     public List<ActivityTag> findByActivityId(int activityId) {
         String sql = """
@@ -52,4 +86,25 @@ public class ActivityTagDAOImpl implements ActivityTagDAO {
         return namedParameterJdbcTemplate.query(sql, Map.of("id", activityId),
                 new BeanPropertyRowMapper<>(ActivityTag.class));
     }
+
+    @Override
+    public Map<Integer, List<String>> findAllTagNamesByActivity() {
+        String sql = """
+          SELECT at.activity_id, t.name
+          FROM act_tag at
+          JOIN activity_tag t ON t.id = at.tag_id
+          ORDER BY at.activity_id, t.name
+        """;
+        Map<Integer, List<String>> out = new HashMap<>();
+        namedParameterJdbcTemplate.query(sql, Map.of(), rs -> {
+            out.computeIfAbsent(rs.getInt("activity_id"), k -> new ArrayList<>()).add(rs.getString("name"));
+        });
+        return out;
+    }
+
+    private static <T> List<List<T>> chunks(List<T> all) {
+        List<List<T>> out = new ArrayList<>();
+        for (int i = 0; i < all.size(); i += 1000) out.add(all.subList(i, Math.min(i + 1000, all.size())));
+        return out;
+    }
 }
@@ -0,0 +1,139 @@
+package com.ryanshiun.seniorscare.activity.dao.Impl;
+
+import com.ryanshiun.seniorscare.activity.dao.ActivityWaitlistDao;
+import com.ryanshiun.seniorscare.activity.model.ActivityWaitlist;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+@Repository
+public class ActivityWaitlistDaoImpl implements ActivityWaitlistDao {
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private static final String COLUMNS = "id, activity_id, member_id, num, created_at, status, promoted_at";
+
+    private static final RowMapper<ActivityWaitlist> ROW_MAPPER = (rs, rowNum) -> {
+        ActivityWaitlist w = new ActivityWaitlist();
+        w.setId(rs.getLong("id"));
+        w.setActivityId(rs.getInt("activity_id"));
+        w.setMemberId(rs.getInt("member_id"));
+        w.setNum(rs.getInt("num"));
+        w.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        w.setStatus(rs.getString("status"));
+        Timestamp promotedAt = rs.getTimestamp("promoted_at");
+        w.setPromotedAt(promotedAt == null ? null : promotedAt.toLocalDateTime());
+        return w;
+    };
+
+    /** 建立候補表；同一會員在同一活動只能有一筆候補中（filtered unique index）
+     */
+    @Override
+    public void ensureTable() {
+        final String sql = """
+                IF OBJECT_ID('activity_waitlist', 'U') IS NULL
+                BEGIN
+                    CREATE TABLE activity_waitlist (
+                        id BIGINT IDENTITY(1,1) PRIMARY KEY,
+                        activity_id INT NOT NULL,
+                        member_id INT NOT NULL,
+                        num INT NOT NULL DEFAULT 1,
+                        created_at DATETIME2 NOT NULL,
+                        status VARCHAR(10) NOT NULL DEFAULT 'WAITING',
+                        promoted_at DATETIME2 NULL
+                    );
+                    CREATE INDEX IX_activity_waitlist_activity_status
+                        ON activity_waitlist (activity_id, status, id);
+                    CREATE UNIQUE INDEX UX_activity_waitlist_waiting
+                        ON activity_waitlist (activity_id, member_id) WHERE status = 'WAITING';
+                END
+                """;
+        namedParameterJdbcTemplate.getJdbcTemplate().execute(sql);
+    }
+
+    @Override
+    public Long insert(Integer activityId, Integer memberId, int num, LocalDateTime now) {
+        final String sql = "INSERT INTO activity_waitlist (activity_id, member_id, num, created_at, status)" +
+                " VALUES (:activityId, :memberId, :num, :now, 'WAITING')";
+        Map<String, Object> map = new HashMap<>();
+        map.put("activityId", activityId);
+        map.put("memberId", memberId);
+        map.put("num", num);
+        map.put("now", now);
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        try {
+            namedParameterJdbcTemplate.update(sql, new MapSqlParameterSource(map), keyHolder, new String[]{"id"});
+        } catch (DuplicateKeyException e) {
+            return null;
+        }
+        return Objects.requireNonNull(keyHolder.getKey()).longValue();
+    }
+
+    @Override
+    public List<ActivityWaitlist> findAllWaiting() {
+        final String sql = "SELECT " + COLUMNS + " FROM activity_waitlist" +
+                " WHERE status = 'WAITING' ORDER BY activity_id, id";
+        return namedParameterJdbcTemplate.query(sql, new HashMap<>(), ROW_MAPPER);
+    }
+
+    @Override
+    public List<ActivityWaitlist> findWaitingByMember(Integer memberId) {
+        final String sql = "SELECT " + COLUMNS + " FROM activity_waitlist" +
+                " WHERE member_id = :memberId AND status = 'WAITING' ORDER BY id";
+        Map<String, Object> map = new HashMap<>();
+        map.put("memberId", memberId);
+        return namedParameterJdbcTemplate.query(sql, map, ROW_MAPPER);
+    }
+
+    @Override
+    public List<Long> markPromoted(Collection<Long> ids, LocalDateTime now) {
+        List<Long> promoted = new ArrayList<>();
+        if (ids.isEmpty()) return promoted;
+        final String sql = """
+                UPDATE activity_waitlist
+                SET status = 'PROMOTED', promoted_at = :now
+                WHERE id = :id AND status = 'WAITING'
+                """;
+        List<Long> ordered = new ArrayList<>(ids);
+        MapSqlParameterSource[] batch = ordered.stream()
+                .map(id -> new MapSqlParameterSource().addValue("id", id).addValue("now", now))
+                .toArray(MapSqlParameterSource[]::new);
+        int[] counts = namedParameterJdbcTemplate.batchUpdate(sql, batch);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) promoted.add(ordered.get(i));
+        }
+        return promoted;
+    }
+
+    @Override
+    public ActivityWaitlist cancel(Long id, Integer memberId) {
+        final String sql = """
+                UPDATE activity_waitlist
+                SET status = 'CANCELLED'
+                OUTPUT inserted.id, inserted.activity_id, inserted.member_id, inserted.num,
+                       inserted.created_at, inserted.status, inserted.promoted_at
+                WHERE id = :id AND member_id = :memberId AND status = 'WAITING'
+                """;
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", id);
+        map.put("memberId", memberId);
+        List<ActivityWaitlist> list = namedParameterJdbcTemplate.query(sql, map, ROW_MAPPER);
+        return list.isEmpty() ? null : list.get(0);
+    }
+}
@@ -1,6 +1,7 @@
  package com.ryanshiun.seniorscare.activity.dto;
 
 import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
 
 import java.util.Date;
 
@@ -8,6 +9,7 @@ import java.util.Date;
 public class ActivityQueryParams {
 	
     private String category;
+    @DateTimeFormat(pattern = "yyyy-MM-dd")
     private Date date;
     private String instructor;
     private String location;
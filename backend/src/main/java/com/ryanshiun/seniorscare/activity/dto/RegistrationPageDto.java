@@ -0,0 +1,18 @@
+package com.ryanshiun.seniorscare.activity.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// 活動報名分頁結果；statusCounts / total 為符合條件的全部報名（不受分頁影響）
+@Data
+public class RegistrationPageDto {
+    private List<ReservationResponse> items = new ArrayList<>();
+    private Map<String, Long> statusCounts = new LinkedHashMap<>();
+    private long total;
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,27 @@
+package com.ryanshiun.seniorscare.activity.dto;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+// 後台活動報名查詢條件（依報名時間新到舊，cursor 往下翻頁）
+@Data
+public class RegistrationQueryDto {
+
+    private Integer activityId;
+    // 活動名稱關鍵字（空白分隔，每個字都要出現在活動名稱中）
+    private String activityName;
+    private String categoryName;
+    private Integer memberId;
+    private String status;
+    // 報名時間區間 [from, to)
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+    // 上一頁回傳的 nextCursor；第一頁不帶
+    private String cursor;
+    // 每頁筆數 (1~200，預設 50)
+    private Integer size;
+}
@@ -5,6 +5,7 @@ import java.time.LocalDateTime;
 
 @Data
 public class ReservationResponse {
+    private Integer registrationId;
     private Integer activityId;
     private Integer memberId;
     private String activityName;
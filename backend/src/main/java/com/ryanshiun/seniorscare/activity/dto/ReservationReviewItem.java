@@ -0,0 +1,11 @@
+package com.ryanshiun.seniorscare.activity.dto;
+
+import lombok.Data;
+
+// 批次審核中的一筆：報名ID 與審核後狀態（"報名成功" / "已拒絕"）
+@Data
+public class ReservationReviewItem {
+
+    private Integer registrationId;
+    private String status;
+}
@@ -0,0 +1,16 @@
+package com.ryanshiun.seniorscare.activity.dto;
+
+import lombok.Data;
+
+/**
+ * 批次審核中每一筆的結果
+ */
+@Data
+public class ReservationReviewResult {
+    private Integer registrationId;
+    private Integer activityId;
+    private boolean success;
+    private String previousStatus; // 審核前狀態（找不到報名時為 null）
+    private String status;         // 要求的審核後狀態
+    private String message;        // 失敗原因或說明
+}
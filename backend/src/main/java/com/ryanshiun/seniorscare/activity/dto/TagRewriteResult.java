@@ -0,0 +1,18 @@
+package com.ryanshiun.seniorscare.activity.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 活動標籤覆寫結果
+ */
+@Data
+public class TagRewriteResult {
+    private int activities;   // 處理的活動數
+    private int tagsCreated;  // 新建立的標籤數
+    private int linksAdded;   // 新增的活動-標籤關聯
+    private int linksRemoved; // 刪除的活動-標籤關聯
+    private List<Integer> unknownActivityIds = new ArrayList<>(); // 找不到的活動 ID（未處理）
+}
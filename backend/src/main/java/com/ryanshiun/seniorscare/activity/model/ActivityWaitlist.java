@@ -0,0 +1,16 @@
+package com.ryanshiun.seniorscare.activity.model;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class ActivityWaitlist { // 活動候補表
+    private Long id;
+    private Integer activityId;
+    private Integer memberId;
+    private Integer num;
+    private LocalDateTime createdAt;
+    private String status; // WAITING、PROMOTED、CANCELLED
+    private LocalDateTime promotedAt;
+}
@@ -12,6 +12,7 @@ public class ActivityRegistrationMapper implements RowMapper<ActivityRegistratio
     public ActivityRegistration mapRow(ResultSet rs, int rowNum) throws SQLException {
         ActivityRegistration activityRegistration = new ActivityRegistration();
 
+        activityRegistration.setId(rs.getInt("id"));
         activityRegistration.setActivityId(rs.getInt("activity_id"));
         activityRegistration.setMemberId(rs.getInt("member_id"));
         activityRegistration.setNum(rs.getInt("num"));
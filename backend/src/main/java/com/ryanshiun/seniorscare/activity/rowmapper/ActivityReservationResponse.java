@@ -12,6 +12,7 @@ public class ActivityReservationResponse implements RowMapper<ReservationRespons
     @Override
     public ReservationResponse mapRow(ResultSet rs, int rowNum) throws SQLException {
         ReservationResponse activityReservationResponse = new ReservationResponse();
+        activityReservationResponse.setRegistrationId(rs.getInt("registrationId"));
         activityReservationResponse.setActivityId(rs.getInt("activityId"));
         activityReservationResponse.setMemberId(rs.getInt("memberId"));
         activityReservationResponse.setActivityName(rs.getString("activityName"));
@@ -1,11 +1,16 @@
 package com.ryanshiun.seniorscare.activity.service;
 
+import com.ryanshiun.seniorscare.activity.dto.RegistrationPageDto;
+import com.ryanshiun.seniorscare.activity.dto.RegistrationQueryDto;
 import com.ryanshiun.seniorscare.activity.dto.ReservationCreateDto;
 import com.ryanshiun.seniorscare.activity.dto.ReservationQueryDto;
 import com.ryanshiun.seniorscare.activity.dto.ReservationResponse;
+import com.ryanshiun.seniorscare.activity.dto.ReservationReviewItem;
+import com.ryanshiun.seniorscare.activity.dto.ReservationReviewResult;
 import com.ryanshiun.seniorscare.activity.dto.ReservationUpdateDto;
 import com.ryanshiun.seniorscare.activity.model.ActivityRegistration;
 
+import java.io.PrintWriter;
 import java.util.List;
 
 public interface ActivityReservationService {
@@ -18,5 +23,14 @@ public interface ActivityReservationService {
 
     boolean reviewReservation(ReservationUpdateDto reservationUpdateDto);
 
+    // 批次審核（同一交易），回傳每筆結果
+    List<ReservationReviewResult> reviewReservations(List<ReservationReviewItem> items);
+
     List<ReservationResponse> getAllReservations(ReservationQueryDto queryDto);
+
+    // 後台報名分頁查詢（cursor 分頁，附各狀態筆數）
+    RegistrationPageDto getRegistrations(RegistrationQueryDto query);
+
+    // 依相同條件匯出報名名單 CSV
+    void exportToCSV(RegistrationQueryDto query, PrintWriter writer);
 }
@@ -2,9 +2,12 @@ package com.ryanshiun.seniorscare.activity.service;
 
 import com.ryanshiun.seniorscare.activity.dto.ActivityRequest;
 import com.ryanshiun.seniorscare.activity.dto.ActivityForm;
+import com.ryanshiun.seniorscare.activity.dto.ActivityQueryParams;
+import com.ryanshiun.seniorscare.activity.dto.TagRewriteResult;
 import com.ryanshiun.seniorscare.activity.model.Activity;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 活動服務介面
@@ -19,6 +22,12 @@ public interface ActivityService {
     void updateActivity(Integer id, Activity activity);
     void deleteActivityById(Integer id);
 
+    /**
+     * 依條件查活動（名稱模糊比對，其餘完全相等），可再加標籤條件
+     * @param matchAll true：全部標籤都要有；false：任一標籤符合
+     */
+    List<Activity> searchActivities(ActivityQueryParams params, List<String> tagNames, boolean matchAll);
+
     // ===== 新增：支援圖片上傳的方法 =====
     /**
      * 新增活動（支援圖片上傳）
@@ -36,8 +45,15 @@ public interface ActivityService {
 
     // ===== 標籤相關方法 =====
     List<Activity> getActivitiesByTag(String tagName);
+    List<Activity> getActivitiesByTags(List<String> tagNames, boolean matchAll);
     void addTagsToActivity(int activityId, List<String> tagNames);
 
+    /**
+     * 批次覆寫多個活動的標籤（後台匯入）
+     * @param tagsByActivity 活動 ID → 標籤名稱（空清單表示清除該活動所有標籤）
+     */
+    TagRewriteResult retagActivities(Map<Integer, List<String>> tagsByActivity);
+
     // ===== 其他方法 =====
     void endRegistration(Integer id);
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.ryanshiun.seniorscare.activity.service;
+
+import com.ryanshiun.seniorscare.activity.dto.ReservationCreateDto;
+import com.ryanshiun.seniorscare.activity.model.ActivityWaitlist;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ActivityWaitlistService {
+
+    /**
+     * 額滿時加入候補（同一會員重複加入回傳原本的順位）
+     * @return 候補順位（從 1 開始）；活動不存在或不在報名期間時回傳 null
+     */
+    Integer joinWaitlist(ReservationCreateDto registration);
+
+    boolean leaveWaitlist(Long waitlistId, Integer memberId);
+
+    List<ActivityWaitlist> getMyWaitlist(Integer memberId);
+
+    /**
+     * 依加入順序遞補候補者並建立預約，須在釋放名額的同一個交易內呼叫。
+     * 先用 freedSeats（呼叫端剛釋放、尚未還給名額引擎的名額），不夠時再向名額引擎佔用空位。
+     * @return 用掉的 freedSeats 數量；剩下的由呼叫端在 commit 後還給名額引擎
+     */
+    int promote(Integer activityId, int freedSeats);
+
+    Map<String, Object> stats();
+}
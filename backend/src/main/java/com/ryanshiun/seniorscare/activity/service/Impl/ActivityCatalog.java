@@ -0,0 +1,413 @@
+package com.ryanshiun.seniorscare.activity.service.Impl;
+
+import com.ryanshiun.seniorscare.activity.dao.ActivityCategoryDao;
+import com.ryanshiun.seniorscare.activity.dao.ActivityDao;
+import com.ryanshiun.seniorscare.activity.dao.ActivityTagDAO;
+import com.ryanshiun.seniorscare.activity.dto.ActivityQueryParams;
+import com.ryanshiun.seniorscare.activity.model.Activity;
+import com.ryanshiun.seniorscare.activity.model.ActivityCategory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 活動目錄（記憶體讀取模型）：
+ * - 活動依 ID 排序保存；標籤 → 活動 ID 的倒排索引（排序過的 int[]），多標籤 AND / OR 以合併排序陣列計算
+ * - 有效分類名稱集合，新增 / 修改活動時驗證分類不必查 DB
+ * - 寫入後只重建受影響的部分再整份替換（copy-on-write），讀取端不加鎖
+ * - 名額以 ActivitySeatEngine 記憶體中的值覆蓋，清單上的報名人數不會落後於尚未寫回的報名
+ */
+@Component
+public class ActivityCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(ActivityCatalog.class);
+
+    private final ActivityDao activityDao;
+    private final ActivityTagDAO activityTagDAO;
+    private final ActivityCategoryDao activityCategoryDao;
+    private final ActivitySeatEngine seatEngine;
+
+    private volatile Snapshot snapshot;
+
+    public ActivityCatalog(ActivityDao activityDao, ActivityTagDAO activityTagDAO,
+                           ActivityCategoryDao activityCategoryDao, ActivitySeatEngine seatEngine) {
+        this.activityDao = activityDao;
+        this.activityTagDAO = activityTagDAO;
+        this.activityCategoryDao = activityCategoryDao;
+        this.seatEngine = seatEngine;
+    }
+
+    /**
+     * activities：ID → 活動（ID 由小到大）
+     * tags：活動 ID → 標籤名稱；postings：標籤名稱 → 活動 ID（由小到大）
+     */
+    private record Snapshot(TreeMap<Integer, Activity> activities,
+                            Map<Integer, List<String>> tags,
+                            Map<String, int[]> postings,
+                            Set<String> categories) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("活動目錄啟動時建立失敗，第一次查詢時再建立：{}", e.getMessage());
+        }
+    }
+
+    /** 直接改 DB 的分類、標籤等不會經過應用程式，定期整份重建補上 */
+    @Scheduled(fixedDelayString = "${app.activity.catalog.rebuild-ms:600000}", initialDelay = 600_000)
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("活動目錄重建失敗：{}", e.getMessage());
+        }
+    }
+
+    // 重新從資料庫建立整份目錄後替換
+    public synchronized void rebuild() {
+        TreeMap<Integer, Activity> activities = new TreeMap<>();
+        for (Activity a : activityDao.getAllActivities()) activities.put(a.getId(), a);
+
+        Map<Integer, List<String>> tags = new HashMap<>();
+        activityTagDAO.findAllTagNamesByActivity().forEach((id, names) -> {
+            if (activities.containsKey(id)) tags.put(id, List.copyOf(names));
+        });
+
+        Set<String> categories = new HashSet<>();
+        for (ActivityCategory c : activityCategoryDao.findAllActive()) categories.add(c.getName());
+
+        snapshot = new Snapshot(activities, tags, buildPostings(tags), Set.copyOf(categories));
+        log.info("活動目錄重建：activities={}, tags={}", activities.size(), snapshot.postings().size());
+    }
+
+    // ===== 讀取 =====
+
+    public Activity get(Integer id) {
+        if (id == null) return null;
+        Activity a = current().activities().get(id);
+        return a == null ? null : view(a);
+    }
+
+    /** 所有活動（ID 由小到大） */
+    public List<Activity> all() {
+        Collection<Activity> values = current().activities().values();
+        List<Activity> out = new ArrayList<>(values.size());
+        for (Activity a : values) out.add(view(a));
+        return out;
+    }
+
+    /**
+     * 依標籤查活動（ID 由大到小，與原本 SQL 的排序相同）
+     * @param matchAll true：全部標籤都要有；false：任一標籤符合
+     */
+    public List<Activity> byTags(Collection<String> tagNames, boolean matchAll) {
+        Snapshot s = current();
+        int[] ids = matchIds(s, normalizeTags(tagNames), matchAll);
+        List<Activity> out = new ArrayList<>(ids.length);
+        for (int i = ids.length - 1; i >= 0; i--) {
+            Activity a = s.activities().get(ids[i]);
+            if (a != null) out.add(view(a));
+        }
+        return out;
+    }
+
+    /**
+     * 依條件查活動（與 ActivityDao.getActivities 相同的條件：名稱模糊比對，其餘完全相等）
+     * 另可加上標籤條件
+     */
+    public List<Activity> search(ActivityQueryParams params, Collection<String> tagNames, boolean matchAll) {
+        Snapshot s = current();
+        Set<String> tags = normalizeTags(tagNames);
+        Iterable<Activity> source = s.activities().values();
+        if (!tags.isEmpty()) {
+            List<Activity> tagged = new ArrayList<>();
+            for (int id : matchIds(s, tags, matchAll)) tagged.add(s.activities().get(id));
+            source = tagged;
+        }
+
+        String name = params.getName() == null || params.getName().isEmpty()
+                ? null : params.getName().toLowerCase(Locale.ROOT);
+        LocalDate date = params.getDate() == null ? null : toLocalDate(params.getDate());
+        List<Activity> out = new ArrayList<>();
+        for (Activity a : source) {
+            if (a == null) continue;
+            if (name != null && (a.getName() == null || !a.getName().toLowerCase(Locale.ROOT).contains(name))) continue;
+            if (params.getCategory() != null && !params.getCategory().equals(a.getCategory())) continue;
+            if (date != null && !date.equals(a.getDate())) continue;
+            if (params.getInstructor() != null && !params.getInstructor().equals(a.getInstructor())) continue;
+            if (params.getLocation() != null && !params.getLocation().equals(a.getLocation())) continue;
+            if (params.getStatus() != null && !params.getStatus().equals(a.getStatus())) continue;
+            out.add(view(a));
+        }
+        return out;
+    }
+
+    /** 某活動的標籤名稱 */
+    public List<String> tagsOf(Integer activityId) {
+        return current().tags().getOrDefault(activityId, List.of());
+    }
+
+    /**
+     * 依名稱關鍵字 / 分類找出活動 ID（後台報名查詢用，先換成 ID 再交給 DB 走索引）
+     * 名稱以空白切成多個關鍵字，每個都要出現在活動名稱中（不分大小寫）；分類完全相等
+     */
+    public List<Integer> findIds(String nameQuery, String category) {
+        String[] tokens = nameQuery == null || nameQuery.isBlank()
+                ? new String[0] : nameQuery.trim().toLowerCase(Locale.ROOT).split("\\s+");
+        String cat = category == null || category.isBlank() ? null : category.trim();
+        List<Integer> out = new ArrayList<>();
+        for (Activity a : current().activities().values()) {
+            if (cat != null && !cat.equals(a.getCategory())) continue;
+            if (tokens.length > 0) {
+                if (a.getName() == null) continue;
+                String name = a.getName().toLowerCase(Locale.ROOT);
+                boolean all = true;
+                for (String t : tokens) {
+                    if (!name.contains(t)) { all = false; break; }
+                }
+                if (!all) continue;
+            }
+            out.add(a.getId());
+        }
+        return out;
+    }
+
+    /**
+     * 分類是否有效：記憶體集合沒有時再查一次 DB（可能是剛直接加進 DB 的分類），有的話重建分類集合
+     */
+    public boolean isValidCategory(String name) {
+        if (name == null || name.isBlank()) return false;
+        if (current().categories().contains(name)) return true;
+        if (!activityCategoryDao.existsByName(name)) return false;
+        refreshCategories();
+        return true;
+    }
+
+    public Map<String, Object> stats() {
+        Snapshot s = current();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("activities", s.activities().size());
+        m.put("tags", s.postings().size());
+        m.put("taggedActivities", s.tags().size());
+        m.put("categories", s.categories().size());
+        return m;
+    }
+
+    // ===== 寫入後更新（只重建受影響的部分） =====
+
+    /** 活動新增 / 修改 / 刪除後重新載入該筆；DB 已無此活動時連同標籤一起移除 */
+    public synchronized void onActivityChanged(Integer id) {
+        if (id == null) return;
+        Snapshot s = current();
+        Activity a = activityDao.getActivityById(id);
+        TreeMap<Integer, Activity> activities = new TreeMap<>(s.activities());
+        if (a != null) {
+            activities.put(id, a);
+            snapshot = new Snapshot(activities, s.tags(), s.postings(), s.categories());
+            return;
+        }
+        activities.remove(id);
+        Map<Integer, List<String>> tags = s.tags();
+        Map<String, int[]> postings = s.postings();
+        List<String> old = tags.get(id);
+        if (old != null) {
+            tags = new HashMap<>(tags);
+            tags.remove(id);
+            postings = updatePostings(postings, id, old, List.of());
+        }
+        snapshot = new Snapshot(activities, tags, postings, s.categories());
+    }
+
+    /** 多個活動的標籤被覆寫後（批次匯入），一次重建倒排索引 */
+    public synchronized void onTagsChanged(Map<Integer, List<String>> tagsByActivity) {
+        Snapshot s = current();
+        Map<Integer, List<String>> tags = new HashMap<>(s.tags());
+        tagsByActivity.forEach((id, names) -> {
+            if (!s.activities().containsKey(id)) return;
+            List<String> sorted = new ArrayList<>(normalizeTags(names));
+            Collections.sort(sorted);
+            if (sorted.isEmpty()) tags.remove(id);
+            else tags.put(id, List.copyOf(sorted));
+        });
+        snapshot = new Snapshot(s.activities(), tags, buildPostings(tags), s.categories());
+    }
+
+    public synchronized void refreshCategories() {
+        Snapshot s = current();
+        Set<String> categories = new HashSet<>();
+        for (ActivityCategory c : activityCategoryDao.findAllActive()) categories.add(c.getName());
+        snapshot = new Snapshot(s.activities(), s.tags(), s.postings(), Set.copyOf(categories));
+    }
+
+    // ===== helpers =====
+
+    private Snapshot current() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            rebuild();
+            s = snapshot;
+        }
+        return s;
+    }
+
+    private static Map<String, int[]> buildPostings(Map<Integer, List<String>> tags) {
+        Map<String, List<Integer>> lists = new HashMap<>();
+        tags.forEach((id, names) -> {
+            for (String n : names) lists.computeIfAbsent(n, k -> new ArrayList<>()).add(id);
+        });
+        Map<String, int[]> postings = new HashMap<>(lists.size() * 2);
+        lists.forEach((name, ids) -> {
+            int[] arr = ids.stream().mapToInt(Integer::intValue).toArray();
+            Arrays.sort(arr);
+            postings.put(name, arr);
+        });
+        return Collections.unmodifiableMap(postings);
+    }
+
+    // 只複製有變動的標籤那幾個陣列
+    private static Map<String, int[]> updatePostings(Map<String, int[]> postings, int id,
+                                                     List<String> oldNames, List<String> newNames) {
+        Map<String, int[]> out = new HashMap<>(postings);
+        for (String n : oldNames) {
+            if (newNames.contains(n)) continue;
+            int[] arr = out.get(n);
+            if (arr == null) continue;
+            int i = Arrays.binarySearch(arr, id);
+            if (i < 0) continue;
+            if (arr.length == 1) {
+                out.remove(n);
+                continue;
+            }
+            int[] next = new int[arr.length - 1];
+            System.arraycopy(arr, 0, next, 0, i);
+            System.arraycopy(arr, i + 1, next, i, arr.length - i - 1);
+            out.put(n, next);
+        }
+        for (String n : newNames) {
+            if (oldNames.contains(n)) continue;
+            int[] arr = out.getOrDefault(n, new int[0]);
+            int i = Arrays.binarySearch(arr, id);
+            if (i >= 0) continue;
+            int at = -i - 1;
+            int[] next = new int[arr.length + 1];
+            System.arraycopy(arr, 0, next, 0, at);
+            next[at] = id;
+            System.arraycopy(arr, at, next, at + 1, arr.length - at);
+            out.put(n, next);
+        }
+        return Collections.unmodifiableMap(out);
+    }
+
+    private static int[] matchIds(Snapshot s, Set<String> tags, boolean matchAll) {
+        if (tags.isEmpty()) return new int[0];
+        List<int[]> lists = new ArrayList<>(tags.size());
+        for (String t : tags) {
+            int[] ids = s.postings().get(t);
+            if (ids == null) {
+                if (matchAll) return new int[0];
+                continue;
+            }
+            lists.add(ids);
+        }
+        if (lists.isEmpty()) return new int[0];
+        // AND 從最短的開始交集，結果只會越來越短
+        if (matchAll) lists.sort((x, y) -> Integer.compare(x.length, y.length));
+        int[] acc = lists.get(0);
+        for (int i = 1; i < lists.size() && (!matchAll || acc.length > 0); i++) {
+            acc = matchAll ? intersect(acc, lists.get(i)) : union(acc, lists.get(i));
+        }
+        return acc;
+    }
+
+    static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    static int[] union(int[] a, int[] b) {
+        int[] out = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length || j < b.length) {
+            if (j >= b.length || (i < a.length && a[i] < b[j])) out[n++] = a[i++];
+            else if (i >= a.length || b[j] < a[i]) out[n++] = b[j++];
+            else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static Set<String> normalizeTags(Collection<String> names) {
+        Set<String> out = new LinkedHashSet<>();
+        if (names == null) return out;
+        for (String n : names) {
+            if (n == null) continue;
+            String t = n.trim();
+            if (!t.isEmpty()) out.add(t);
+        }
+        return out;
+    }
+
+    private static LocalDate toLocalDate(java.util.Date d) {
+        if (d instanceof java.sql.Date sql) return sql.toLocalDate();
+        return d.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    // 回傳複本（呼叫端修改不影響目錄），名額以名額引擎記憶體中的值為準
+    private Activity view(Activity a) {
+        Activity c = new Activity();
+        c.setId(a.getId());
+        c.setName(a.getName());
+        c.setCategory(a.getCategory());
+        c.setLimit(a.getLimit());
+        Integer held = seatEngine.cachedCurrent(a.getId());
+        c.setCurrent(held != null ? held : a.getCurrent());
+        c.setDate(a.getDate());
+        c.setEnd(a.getEnd());
+        c.setTime(a.getTime());
+        c.setRegistrationStart(a.getRegistrationStart());
+        c.setRegistrationEnd(a.getRegistrationEnd());
+        c.setLocation(a.getLocation());
+        c.setLatitude(a.getLatitude());
+        c.setLongitude(a.getLongitude());
+        c.setInstructor(a.getInstructor());
+        c.setStatus(a.getStatus());
+        c.setDescription(a.getDescription());
+        c.setImage(a.getImage());
+        return c;
+    }
+}
@@ -1,46 +1,334 @@
 package com.ryanshiun.seniorscare.activity.service.Impl;
 
 import com.ryanshiun.seniorscare.activity.dao.ActivityReservationDao;
+import com.ryanshiun.seniorscare.activity.dto.RegistrationPageDto;
+import com.ryanshiun.seniorscare.activity.dto.RegistrationQueryDto;
 import com.ryanshiun.seniorscare.activity.dto.ReservationCreateDto;
 import com.ryanshiun.seniorscare.activity.dto.ReservationQueryDto;
 import com.ryanshiun.seniorscare.activity.dto.ReservationResponse;
+import com.ryanshiun.seniorscare.activity.dto.ReservationReviewItem;
+import com.ryanshiun.seniorscare.activity.dto.ReservationReviewResult;
 import com.ryanshiun.seniorscare.activity.dto.ReservationUpdateDto;
 import com.ryanshiun.seniorscare.activity.model.ActivityRegistration;
 import com.ryanshiun.seniorscare.activity.service.ActivityReservationService;
+import com.ryanshiun.seniorscare.activity.service.ActivityWaitlistService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.ryanshiun.seniorscare.common.util.TransactionHooks.afterCommit;
 
 
 @Service
 public class ActivityReservationServiceImpl implements ActivityReservationService {
 
+    private static final Logger log = LoggerFactory.getLogger(ActivityReservationServiceImpl.class);
+
+    // 分頁筆數
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    // 批次審核一次最多筆數（IN 參數上限內）
+    private static final int MAX_BULK_REVIEW = 500;
+
     @Autowired
     private ActivityReservationDao activityReservationDao;
+    @Autowired
+    private ActivitySeatEngine seatEngine;
+    @Autowired
+    private ActivityWaitlistService activityWaitlistService;
+    @Autowired
+    private ActivityCatalog activityCatalog;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            activityReservationDao.ensureIndexes();
+        } catch (RuntimeException e) {
+            log.warn("建立活動報名索引失敗：{}", e.getMessage());
+        }
+    }
 
     @Override
     public List<ActivityRegistration> getReservationsByMemberId(Integer memberId) {
         return activityReservationDao.getMyReservations(memberId);
     }
 
+    /**
+     * 先向名額引擎佔名額再寫入報名；寫入失敗或交易 rollback 時把名額還回去
+     */
     @Override
+    @Transactional
     public boolean createReservation(ReservationCreateDto registration) {
-       return activityReservationDao.createReservation(registration);
+        if (registration.getNum() == null) registration.setNum(1);
+        Integer activityId = registration.getActivityId();
+        int num = registration.getNum();
+        if (!seatEngine.hold(activityId, num)) return false;
+
+        seatEngine.releaseOnRollback(activityId, num);
+        if (!activityReservationDao.createReservation(registration)) {
+            seatEngine.release(activityId, num);
+            return false;
+        }
+        return true;
     }
 
+    /**
+     * 取消後釋放的名額先在同一個交易內遞補候補者，剩下的 commit 後才還給名額引擎
+     */
     @Override
+    @Transactional
     public boolean cancelReservation(Integer registrationId, Integer memberId) {
-        return activityReservationDao.cancelReservation(registrationId, memberId);
+        ActivityRegistration cancelled = activityReservationDao.cancelReservationAndGet(registrationId, memberId);
+        if (cancelled == null) return false;
+        if (ActivitySeatEngine.holdsSeat(cancelled.getStatus())) {
+            releaseSeats(cancelled.getActivityId(), cancelled.getNum());
+        }
+        return true;
     }
 
+    /**
+     * 審核後依前後狀態計算名額淨增減：需要增加名額但已額滿時整筆 rollback；釋放的名額先遞補候補者
+     */
     @Override
+    @Transactional
     public boolean reviewReservation(ReservationUpdateDto reservationUpdateDto) {
-        return activityReservationDao.reviewReservation(reservationUpdateDto);
+        List<ActivityRegistration> before = activityReservationDao.reviewReservationAndGet(reservationUpdateDto);
+        if (before.isEmpty()) return false;
+
+        boolean holdsAfter = ActivitySeatEngine.holdsSeat(reservationUpdateDto.getStatus());
+        int delta = 0;
+        for (ActivityRegistration r : before) {
+            int num = r.getNum() == null ? 0 : r.getNum();
+            delta += (holdsAfter ? num : 0) - (ActivitySeatEngine.holdsSeat(r.getStatus()) ? num : 0);
+        }
+
+        Integer activityId = reservationUpdateDto.getActivityId();
+        if (delta > 0) {
+            if (!seatEngine.adjust(activityId, delta)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "活動名額不足或已結束報名");
+            }
+            seatEngine.releaseOnRollback(activityId, delta);
+        } else if (delta < 0) {
+            releaseSeats(activityId, -delta);
+        }
+        return true;
+    }
+
+    /**
+     * 批次審核：先鎖住所有報名，依活動計算名額淨增減，一次 batch 更新狀態
+     * 每個活動只呼叫一次名額引擎；名額不足時才改為逐筆佔用，放不下的那幾筆回報失敗、其餘照常審核
+     */
+    @Override
+    @Transactional
+    public List<ReservationReviewResult> reviewReservations(List<ReservationReviewItem> items) {
+        if (items == null || items.isEmpty()) return List.of();
+        if (items.size() > MAX_BULK_REVIEW) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "一次最多審核 " + MAX_BULK_REVIEW + " 筆");
+        }
+
+        List<ReservationReviewResult> results = new ArrayList<>(items.size());
+        Map<Integer, ReservationReviewResult> byId = new LinkedHashMap<>();
+        for (ReservationReviewItem item : items) {
+            ReservationReviewResult result = new ReservationReviewResult();
+            result.setRegistrationId(item.getRegistrationId());
+            result.setStatus(item.getStatus());
+            results.add(result);
+            if (item.getRegistrationId() == null || item.getStatus() == null || item.getStatus().isBlank()) {
+                result.setMessage("缺少報名ID或狀態");
+            } else if (byId.putIfAbsent(item.getRegistrationId(), result) != null) {
+                result.setMessage("重複的報名ID");
+            }
+        }
+        if (byId.isEmpty()) return results;
+
+        Map<Integer, ActivityRegistration> before = new HashMap<>();
+        for (ActivityRegistration r : activityReservationDao.lockRegistrations(byId.keySet())) {
+            before.put(r.getId(), r);
+        }
+
+        // 依活動分組：釋放的名額與需要增加名額的審核（依要求順序）
+        Map<Integer, Integer> released = new LinkedHashMap<>();
+        Map<Integer, List<ReservationReviewResult>> needSeats = new LinkedHashMap<>();
+        Map<Integer, Integer> seatsOf = new HashMap<>();
+        for (ReservationReviewResult result : byId.values()) {
+            ActivityRegistration r = before.get(result.getRegistrationId());
+            if (r == null) {
+                result.setMessage("找不到報名");
+                continue;
+            }
+            result.setActivityId(r.getActivityId());
+            result.setPreviousStatus(r.getStatus());
+            if (result.getStatus().equals(r.getStatus())) {
+                result.setSuccess(true);
+                result.setMessage("狀態未變更");
+                continue;
+            }
+            int num = r.getNum() == null ? 0 : r.getNum();
+            int delta = (ActivitySeatEngine.holdsSeat(result.getStatus()) ? num : 0)
+                    - (ActivitySeatEngine.holdsSeat(r.getStatus()) ? num : 0);
+            if (delta > 0) {
+                needSeats.computeIfAbsent(r.getActivityId(), k -> new ArrayList<>()).add(result);
+                seatsOf.put(result.getRegistrationId(), delta);
+            } else {
+                released.merge(r.getActivityId(), -delta, Integer::sum);
+                result.setSuccess(true);
+            }
+        }
+
+        // 每個活動：釋放的名額先抵用，不足的部分一次向名額引擎要
+        for (Map.Entry<Integer, List<ReservationReviewResult>> e : needSeats.entrySet()) {
+            Integer activityId = e.getKey();
+            int credit = released.getOrDefault(activityId, 0);
+            int wanted = 0;
+            for (ReservationReviewResult result : e.getValue()) wanted += seatsOf.get(result.getRegistrationId());
+
+            if (wanted <= credit || seatEngine.adjust(activityId, wanted - credit)) {
+                if (wanted > credit) seatEngine.releaseOnRollback(activityId, wanted - credit);
+                credit = Math.max(0, credit - wanted);
+                for (ReservationReviewResult result : e.getValue()) result.setSuccess(true);
+            } else {
+                // 放不下全部：依順序逐筆佔用，放得下的照常審核
+                for (ReservationReviewResult result : e.getValue()) {
+                    int seats = seatsOf.get(result.getRegistrationId());
+                    if (seats <= credit) {
+                        credit -= seats;
+                    } else if (seatEngine.adjust(activityId, seats - credit)) {
+                        seatEngine.releaseOnRollback(activityId, seats - credit);
+                        credit = 0;
+                    } else {
+                        result.setMessage("活動名額不足或已結束報名");
+                        continue;
+                    }
+                    result.setSuccess(true);
+                }
+            }
+            released.put(activityId, credit);
+        }
+
+        List<ReservationReviewItem> updates = new ArrayList<>();
+        for (ReservationReviewResult result : byId.values()) {
+            if (!result.isSuccess() || result.getPreviousStatus() == null
+                    || result.getStatus().equals(result.getPreviousStatus())) continue;
+            ReservationReviewItem update = new ReservationReviewItem();
+            update.setRegistrationId(result.getRegistrationId());
+            update.setStatus(result.getStatus());
+            updates.add(update);
+        }
+        int[] counts = activityReservationDao.updateStatuses(updates);
+        for (int count : counts) {
+            // 已加鎖，不應發生；整批 rollback 讓名額一起還原
+            if (count == 0) throw new IllegalStateException("報名狀態更新失敗");
+        }
+
+        released.forEach((activityId, seats) -> {
+            if (seats > 0) releaseSeats(activityId, seats);
+        });
+        return results;
+    }
+
+    // 釋放的名額先給候補者，剩下的 commit 後還給名額引擎
+    private void releaseSeats(Integer activityId, int seats) {
+        int left = seats - activityWaitlistService.promote(activityId, seats);
+        if (left > 0) afterCommit(() -> seatEngine.release(activityId, left));
     }
 
     @Override
     public List<ReservationResponse> getAllReservations(ReservationQueryDto queryDto) {
         return activityReservationDao.getAllReservations(queryDto);
     }
+
+    @Override
+    public RegistrationPageDto getRegistrations(RegistrationQueryDto query) {
+        int size = query.getSize() == null ? DEFAULT_PAGE_SIZE
+                : Math.max(1, Math.min(query.getSize(), MAX_PAGE_SIZE));
+        Long cursorId = null;
+        if (query.getCursor() != null && !query.getCursor().isBlank()) {
+            try {
+                cursorId = Long.valueOf(query.getCursor().trim());
+            } catch (NumberFormatException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "無效的 cursor");
+            }
+        }
+
+        List<Integer> activityIds = resolveActivityIds(query);
+        if (activityIds != null && activityIds.isEmpty()) {
+            // 沒有符合名稱 / 分類的活動，不必查 DB
+            RegistrationPageDto empty = new RegistrationPageDto();
+            for (String status : List.of("預約審核中", "報名成功", "已取消", "已拒絕", "其他")) {
+                empty.getStatusCounts().put(status, 0L);
+            }
+            return empty;
+        }
+
+        // 多抓一筆判斷是否還有下一頁
+        RegistrationPageDto page = activityReservationDao.getRegistrations(query, activityIds, cursorId, size + 1);
+        List<ReservationResponse> rows = page.getItems();
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            page.setItems(new ArrayList<>(rows.subList(0, size)));
+            page.setNextCursor(String.valueOf(page.getItems().get(size - 1).getRegistrationId()));
+        }
+        page.setHasMore(hasMore);
+        return page;
+    }
+
+    @Override
+    public void exportToCSV(RegistrationQueryDto query, PrintWriter writer) {
+        writer.println("registrationId,activityId,activityName,activityCategory,memberId,memberName,phone,people,scheduledAt,status");
+        List<Integer> activityIds = resolveActivityIds(query);
+        if (activityIds == null || !activityIds.isEmpty()) {
+            activityReservationDao.exportRegistrations(query, activityIds, r -> writer.println(
+                    r.getRegistrationId() + "," +
+                    r.getActivityId() + "," +
+                    csv(r.getActivityName()) + "," +
+                    csv(r.getActivityCategory()) + "," +
+                    r.getMemberId() + "," +
+                    csv(r.getMemberName()) + "," +
+                    csv(r.getPhone()) + "," +
+                    (r.getPeople() == null ? "" : r.getPeople()) + "," +
+                    (r.getScheduledAt() == null ? "" : r.getScheduledAt()) + "," +
+                    csv(r.getStatus())));
+        }
+        writer.flush();
+    }
+
+    /**
+     * 活動名稱 / 分類先由記憶體活動目錄換成活動 ID，讓 DB 只需走 activity_id 索引
+     * @return null：不限活動；空清單：沒有符合的活動
+     */
+    private List<Integer> resolveActivityIds(RegistrationQueryDto query) {
+        boolean byName = query.getActivityName() != null && !query.getActivityName().isBlank();
+        boolean byCategory = query.getCategoryName() != null && !query.getCategoryName().isBlank();
+        if (!byName && !byCategory) {
+            return query.getActivityId() == null ? null : List.of(query.getActivityId());
+        }
+        Set<Integer> ids = new LinkedHashSet<>(activityCatalog.findIds(query.getActivityName(), query.getCategoryName()));
+        if (query.getActivityId() != null) {
+            return ids.contains(query.getActivityId()) ? List.of(query.getActivityId()) : List.of();
+        }
+        return new ArrayList<>(ids);
+    }
+
+    private static String csv(String s) {
+        if (s == null) return "";
+        if (s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0) {
+            return "\"" + s.replace("\"", "\"\"") + "\"";
+        }
+        return s;
+    }
 }
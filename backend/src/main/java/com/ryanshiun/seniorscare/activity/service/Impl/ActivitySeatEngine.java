@@ -0,0 +1,355 @@
+package com.ryanshiun.seniorscare.activity.service.Impl;
+
+import com.ryanshiun.seniorscare.activity.dao.ActivityDao;
+import com.ryanshiun.seniorscare.activity.model.Activity;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 活動名額引擎：
+ * - 每個活動在記憶體保留一組計數，報名 / 取消以 CAS 增減，不再每次搶同一列 activity 的鎖
+ * - 增減量累積在同一個計數裡，由背景排程合併後以 batch 寫回 activity.[current]（write-behind）
+ * - 啟動時依 activity_registration 重算 [current]，補回上次關機前未寫回的差額
+ *
+ * 計數只存在單一節點；多台部署時設 app.activity.seats.engine=db，直接走 ActivityDao 的條件式 UPDATE。
+ */
+@Component
+public class ActivitySeatEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(ActivitySeatEngine.class);
+
+    private final ActivityDao activityDao;
+    private final Supplier<LocalDate> today;
+    private final boolean enabled;
+
+    private final ConcurrentHashMap<Integer, Seats> seats = new ConcurrentHashMap<>();
+    // 寫回與重新載入互斥，避免讀到「已從計數取出但還沒寫進 DB」的差額
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final LongAdder holds = new LongAdder();
+    private final LongAdder rejects = new LongAdder();
+    private final LongAdder releases = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushedRows = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+    private volatile int lastReconciled = -1;
+
+    @Autowired
+    public ActivitySeatEngine(ActivityDao activityDao,
+                              @Value("${app.activity.seats.engine:memory}") String engine) {
+        this(activityDao, LocalDate::now, !"db".equalsIgnoreCase(engine));
+    }
+
+    ActivitySeatEngine(ActivityDao activityDao, Supplier<LocalDate> today, boolean enabled) {
+        this.activityDao = activityDao;
+        this.today = today;
+        this.enabled = enabled;
+    }
+
+    /**
+     * 佔用名額（對應 ActivityDao.holdSeatsForRegistration）：活動須開放且在報名期間內，且不可超過上限
+     * @return 是否佔到名額
+     */
+    public boolean hold(Integer activityId, int num) {
+        if (num <= 0) return false;
+        if (!enabled) {
+            return count(activityDao.holdSeatsForRegistration(activityId, num, today.get()) > 0, num);
+        }
+        Seats s = seatsOf(activityId);
+        return count(s != null && s.isOpen(today.get()) && s.tryAdd(num), num);
+    }
+
+    /**
+     * 調整名額（對應 ActivityDao.adjustSeats）：減少一律允許（不低於 0），增加須在報名期間內且不超過上限
+     * @return 是否調整成功
+     */
+    public boolean adjust(Integer activityId, int delta) {
+        if (delta == 0) return true;
+        if (!enabled) {
+            boolean ok = activityDao.adjustSeats(activityId, delta, today.get()) > 0;
+            return delta > 0 ? count(ok, delta) : countRelease(ok);
+        }
+        Seats s = seatsOf(activityId);
+        if (s == null) return false;
+        if (delta < 0) return countRelease(s.tryAdd(delta));
+        return count(s.isOpen(today.get()) && s.tryAdd(delta), delta);
+    }
+
+    /** 釋放名額，等同 adjust(activityId, -num) */
+    public boolean release(Integer activityId, int num) {
+        return num <= 0 || adjust(activityId, -num);
+    }
+
+    /**
+     * 交易 rollback 時把名額還回去。db 模式下佔名額的 UPDATE 會跟著交易 rollback，不需要補回
+     */
+    public void releaseOnRollback(Integer activityId, int num) {
+        if (!enabled || num <= 0 || !TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) release(activityId, num);
+            }
+        });
+    }
+
+    /** 活動是否存在、開放且在報名期間內（不看名額是否已滿） */
+    public boolean isOpen(Integer activityId) {
+        if (!enabled) {
+            Activity a = activityId == null ? null : activityDao.getActivityById(activityId);
+            if (a == null) return false;
+            Seats probe = new Seats();
+            probe.load(a);
+            return probe.isOpen(today.get());
+        }
+        Seats s = seatsOf(activityId);
+        return s != null && s.isOpen(today.get());
+    }
+
+    /** 目前已佔用的名額（含尚未寫回的部分）；活動不存在時回傳 null */
+    public Integer current(Integer activityId) {
+        if (!enabled) {
+            Activity a = activityDao.getActivityById(activityId);
+            return a == null ? null : nz(a.getCurrent());
+        }
+        Seats s = seatsOf(activityId);
+        return s == null ? null : Seats.used(s.state.get());
+    }
+
+    /** 記憶體中已有的佔用名額（不查 DB）；db 模式或尚未載入時回傳 null */
+    public Integer cachedCurrent(Integer activityId) {
+        if (!enabled || activityId == null) return null;
+        Seats s = seats.get(activityId);
+        return s == null ? null : Seats.used(s.state.get());
+    }
+
+    /**
+     * 活動資料被後台修改後重新載入上限、報名期間與 DB 的 [current]，保留尚未寫回的差額
+     */
+    public void refresh(Integer activityId) {
+        if (!enabled) return;
+        flushLock.lock();
+        try {
+            Seats s = seats.get(activityId);
+            if (s == null) return;
+            Activity a = activityDao.getActivityById(activityId);
+            if (a == null) {
+                seats.remove(activityId, s);
+                return;
+            }
+            s.load(a);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /** 活動刪除後丟掉計數（未寫回的差額也不再需要） */
+    public void evict(Integer activityId) {
+        seats.remove(activityId);
+    }
+
+    /** 報名狀態是否佔名額：已取消 / 已拒絕 以外都算 */
+    public static boolean holdsSeat(String status) {
+        return status != null && !"已取消".equals(status) && !"已拒絕".equals(status);
+    }
+
+    // ===== 寫回 / 對帳 =====
+
+    @Scheduled(fixedDelayString = "${app.activity.seats.flush-ms:200}")
+    public void flush() {
+        if (!enabled || seats.isEmpty()) return;
+        flushLock.lock();
+        try {
+            Map<Integer, Integer> deltas = new LinkedHashMap<>();
+            Map<Integer, Seats> taken = new LinkedHashMap<>();
+            seats.forEach((id, s) -> {
+                int d = s.takePending();
+                if (d != 0) {
+                    deltas.put(id, d);
+                    taken.put(id, s);
+                }
+            });
+            if (deltas.isEmpty()) return;
+            try {
+                activityDao.applySeatDeltas(deltas);
+                flushes.increment();
+                flushedRows.add(deltas.size());
+            } catch (RuntimeException e) {
+                // 放回計數，下一輪再寫
+                taken.forEach((id, s) -> s.returnPending(deltas.get(id)));
+                flushFailures.increment();
+                log.warn("寫回活動名額失敗（{} 筆）：{}", deltas.size(), e.getMessage());
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        if (!enabled) return;
+        reconcile();
+    }
+
+    /**
+     * 先寫回記憶體中的差額，再依報名紀錄重算 [current]，最後重新載入已快取的活動
+     * @return 被修正的活動數；失敗時回傳 -1
+     */
+    public int reconcile() {
+        flushLock.lock();
+        try {
+            flush();
+            int fixed = activityDao.reconcileSeats();
+            lastReconciled = fixed;
+            if (fixed > 0) log.info("活動名額對帳：修正 {} 個活動的 [current]", fixed);
+            for (Integer id : seats.keySet()) refresh(id);
+            return fixed;
+        } catch (RuntimeException e) {
+            log.warn("活動名額對帳失敗：{}", e.getMessage());
+            return -1;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public Map<String, Object> stats() {
+        long pending = 0;
+        for (Seats s : seats.values()) pending += Math.abs(Seats.pending(s.state.get()));
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("engine", enabled ? "memory" : "db");
+        m.put("activities", seats.size());
+        m.put("pendingSeats", pending);
+        m.put("holds", holds.sum());
+        m.put("rejects", rejects.sum());
+        m.put("releases", releases.sum());
+        m.put("flushes", flushes.sum());
+        m.put("flushedRows", flushedRows.sum());
+        m.put("flushFailures", flushFailures.sum());
+        m.put("lastReconciled", lastReconciled);
+        return m;
+    }
+
+    // ===== helpers =====
+
+    private Seats seatsOf(Integer activityId) {
+        if (activityId == null) return null;
+        Seats s = seats.get(activityId);
+        if (s != null) return s;
+        Activity a = activityDao.getActivityById(activityId);
+        if (a == null) return null;
+        Seats loaded = new Seats();
+        loaded.load(a);
+        Seats prev = seats.putIfAbsent(activityId, loaded);
+        return prev != null ? prev : loaded;
+    }
+
+    private boolean count(boolean ok, int num) {
+        if (ok) holds.add(num);
+        else rejects.increment();
+        return ok;
+    }
+
+    private boolean countRelease(boolean ok) {
+        if (ok) releases.increment();
+        return ok;
+    }
+
+    private static int nz(Integer v) {
+        return v == null ? 0 : v;
+    }
+
+    /**
+     * 單一活動的名額狀態。已佔用數與未寫回差額包在同一個 long（高 32 位 / 低 32 位），
+     * 一次 CAS 同時更新，重新載入時才不會算漏正在進行中的報名。
+     */
+    static final class Seats {
+        final AtomicLong state = new AtomicLong();
+        volatile int limit;
+        volatile boolean status;
+        volatile LocalDate registrationStart;
+        volatile LocalDate registrationEnd;
+
+        static int used(long state) {
+            return (int) (state >> 32);
+        }
+
+        static int pending(long state) {
+            return (int) state;
+        }
+
+        static long pack(int used, int pending) {
+            return ((long) used << 32) | (pending & 0xFFFFFFFFL);
+        }
+
+        boolean isOpen(LocalDate today) {
+            LocalDate start = registrationStart;
+            LocalDate end = registrationEnd;
+            return status
+                    && start != null && end != null
+                    && !today.isBefore(start) && !today.isAfter(end);
+        }
+
+        /** 已佔用數加上 delta：不可低於 0；增加時不可超過上限（上限被調低後仍可釋放） */
+        boolean tryAdd(int delta) {
+            for (;;) {
+                long s = state.get();
+                int next = used(s) + delta;
+                if (next < 0 || (delta > 0 && next > limit)) return false;
+                if (state.compareAndSet(s, pack(next, pending(s) + delta))) return true;
+            }
+        }
+
+        int takePending() {
+            for (;;) {
+                long s = state.get();
+                int p = pending(s);
+                if (p == 0) return 0;
+                if (state.compareAndSet(s, pack(used(s), 0))) return p;
+            }
+        }
+
+        void returnPending(int delta) {
+            for (;;) {
+                long s = state.get();
+                if (state.compareAndSet(s, pack(used(s), pending(s) + delta))) return;
+            }
+        }
+
+        /** 以 DB 的值為準重設已佔用數，再加回尚未寫回的差額 */
+        void load(Activity a) {
+            limit = nz(a.getLimit());
+            status = Boolean.TRUE.equals(a.getStatus());
+            registrationStart = a.getRegistrationStart();
+            registrationEnd = a.getRegistrationEnd();
+            int db = nz(a.getCurrent());
+            for (;;) {
+                long s = state.get();
+                int p = pending(s);
+                if (state.compareAndSet(s, pack(db + p, p))) return;
+            }
+        }
+    }
+}
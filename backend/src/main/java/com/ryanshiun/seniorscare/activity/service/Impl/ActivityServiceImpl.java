@@ -6,9 +6,13 @@ import com.ryanshiun.seniorscare.activity.dao.ActivityDao;
 import com.ryanshiun.seniorscare.activity.dao.ActivityTagDAO;
 import com.ryanshiun.seniorscare.activity.dto.ActivityRequest;
 import com.ryanshiun.seniorscare.activity.dto.ActivityForm;
+import com.ryanshiun.seniorscare.activity.dto.ActivityQueryParams;
+import com.ryanshiun.seniorscare.activity.dto.TagRewriteResult;
+import com.ryanshiun.seniorscare.activity.model.ActTag;
 import com.ryanshiun.seniorscare.activity.model.Activity;
 import com.ryanshiun.seniorscare.activity.model.ActivityTag;
 import com.ryanshiun.seniorscare.activity.service.ActivityService;
+import com.ryanshiun.seniorscare.activity.service.ActivityWaitlistService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -21,6 +25,8 @@ import java.nio.file.Files;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import static com.ryanshiun.seniorscare.common.util.TransactionHooks.afterCommit;
+
 @Service
 public class ActivityServiceImpl implements ActivityService {
 
@@ -32,6 +38,12 @@ public class ActivityServiceImpl implements ActivityService {
     private ActivityTagDAO activityTagDAO;
     @Autowired
     private ActTagDAO actTagDAO;
+    @Autowired
+    private ActivitySeatEngine seatEngine;
+    @Autowired
+    private ActivityWaitlistService activityWaitlistService;
+    @Autowired
+    private ActivityCatalog activityCatalog;
 
     // ===== 圖片上傳相關設定 (依照現有專案配置) =====
     // 統一圖片目錄與公開路徑（與前端一致）
@@ -41,18 +53,23 @@ public class ActivityServiceImpl implements ActivityService {
     // ===== 原有的 CRUD 方法 =====
     @Override
     public Activity getActivityById(Integer id) {
-        return activityDao.getActivityById(id);
+        return activityCatalog.get(id);
     }
 
     @Override
     public List<Activity> getAllActivities() {
-        return activityDao.getAllActivities();
+        return activityCatalog.all();
+    }
+
+    @Override
+    public List<Activity> searchActivities(ActivityQueryParams params, List<String> tagNames, boolean matchAll) {
+        return activityCatalog.search(params, tagNames, matchAll);
     }
 
     @Override
     public void addActivity(ActivityRequest activityRequest) {
         String category = activityRequest.getCategory();
-        if (category == null || category.isBlank() || !activityCategoryDao.existsByName(category)) {
+        if (category == null || category.isBlank() || !activityCatalog.isValidCategory(category)) {
             throw new ResponseStatusException(
                     HttpStatus.BAD_REQUEST,
                     "category 無效：請用 /api/activity-categories 回傳的其中一個"
@@ -77,7 +94,7 @@ public class ActivityServiceImpl implements ActivityService {
         activity.setDescription(activityRequest.getDescription());
         activity.setImage(activityRequest.getImage());
 
-        activityDao.addActivity(activity);
+        activityCatalog.onActivityChanged(activityDao.addActivity(activity));
     }
 
     // ===== 新增：支援圖片上傳的活動新增方法 =====
@@ -89,7 +106,7 @@ public class ActivityServiceImpl implements ActivityService {
     public void addActivityWithImage(ActivityForm form) {
         // 驗證活動分類
         String category = form.getCategory();
-        if (category == null || category.isBlank() || !activityCategoryDao.existsByName(category)) {
+        if (category == null || category.isBlank() || !activityCatalog.isValidCategory(category)) {
             throw new ResponseStatusException(
                     HttpStatus.BAD_REQUEST,
                     "category 無效：請用 /api/activity-categories 回傳的其中一個"
@@ -119,19 +136,23 @@ public class ActivityServiceImpl implements ActivityService {
             activity.setImage(imagePath);
         }
 
-        activityDao.addActivity(activity);
+        activityCatalog.onActivityChanged(activityDao.addActivity(activity));
     }
 
     @Override
     public void updateActivity(Integer id, Activity activity) {
         String category = activity.getCategory();
-        if (category == null || category.isBlank() || !activityCategoryDao.existsByName(category)) {
+        if (category == null || category.isBlank() || !activityCatalog.isValidCategory(category)) {
             throw new ResponseStatusException(
                     HttpStatus.BAD_REQUEST,
                     "category 無效：請用 /api/activity-categories 回傳的其中一個"
             );
         }
         activityDao.updateActivity(id, activity);
+        seatEngine.refresh(id);
+        activityCatalog.onActivityChanged(id);
+        // 上限調高或重新開放報名時，空出來的名額給候補者
+        activityWaitlistService.promote(id, 0);
     }
 
     // ===== 新增：支援圖片上傳的活動更新方法 =====
@@ -148,7 +169,7 @@ public class ActivityServiceImpl implements ActivityService {
         if (form.getName() != null) activity.setName(form.getName());
         if (form.getCategory() != null) {
             // 驗證分類是否有效
-            if (!activityCategoryDao.existsByName(form.getCategory())) {
+            if (!activityCatalog.isValidCategory(form.getCategory())) {
                 throw new ResponseStatusException(
                         HttpStatus.BAD_REQUEST,
                         "category 無效：請用 /api/activity-categories 回傳的其中一個"
@@ -177,48 +198,152 @@ public class ActivityServiceImpl implements ActivityService {
         }
 
         activityDao.updateActivity(id, activity);
+        seatEngine.refresh(id);
+        activityCatalog.onActivityChanged(id);
+        // 上限調高或重新開放報名時，空出來的名額給候補者
+        activityWaitlistService.promote(id, 0);
         return true;
     }
 
     @Override
     public void deleteActivityById(Integer id) {
         activityDao.deleteActivityById(id);
+        seatEngine.evict(id);
+        activityCatalog.onActivityChanged(id);
     }
 
     // ===== 標籤查詢 =====
     @Override
     public List<Activity> getActivitiesByTag(String tagName) {
-        return actTagDAO.findActivitiesBySingleTag(tagName);
+        return activityCatalog.byTags(List.of(tagName), true);
     }
 
-    // 取得/建立標籤 id
-    private Integer ensureTagId(String raw) {
-        if (raw == null) return null;
-        String name = raw.trim();
-        if (name.isEmpty()) return null;
-        return activityTagDAO.findByName(name)
-                .map(ActivityTag::getId)
-                .orElseGet(() -> activityTagDAO.insertTag(name));
+    @Override
+    public List<Activity> getActivitiesByTags(List<String> tagNames, boolean matchAll) {
+        return activityCatalog.byTags(tagNames, matchAll);
     }
 
     // 覆蓋某活動的所有標籤
     @Override
     @Transactional
     public void addTagsToActivity(int activityId, List<String> tagNames) {
-        actTagDAO.deleteByActivityId(activityId);
-        if (tagNames == null) return;
-
-        LinkedHashSet<String> cleaned = tagNames.stream()
-                .filter(Objects::nonNull)
-                .map(String::trim)
-                .filter(s -> !s.isEmpty())
-                .collect(Collectors.toCollection(LinkedHashSet::new));
-
-        for (String t : cleaned) {
-            Integer tagId = ensureTagId(t);
-            if (tagId != null) {
-                actTagDAO.insert(activityId, tagId);
+        if (activityCatalog.get(activityId) == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "找不到活動（id=" + activityId + "）");
+        }
+        Map<Integer, List<String>> one = new HashMap<>();
+        one.put(activityId, tagNames);
+        rewriteTags(one);
+    }
+
+    // 批次覆蓋多個活動的標籤（後台匯入用）
+    @Override
+    @Transactional
+    public TagRewriteResult retagActivities(Map<Integer, List<String>> tagsByActivity) {
+        return rewriteTags(tagsByActivity);
+    }
+
+    /**
+     * 以集合運算覆寫標籤：一次查出所有標籤名稱、缺的標籤一次 batch 新增，
+     * 再比對現有與目標關聯，只刪除 / 新增有差異的列；活動目錄中找不到的活動 ID 不處理，列在結果中
+     */
+    private TagRewriteResult rewriteTags(Map<Integer, List<String>> tagsByActivity) {
+        TagRewriteResult result = new TagRewriteResult();
+        if (tagsByActivity == null || tagsByActivity.isEmpty()) return result;
+
+        Map<Integer, LinkedHashSet<String>> wanted = new LinkedHashMap<>();
+        LinkedHashSet<String> allNames = new LinkedHashSet<>();
+        tagsByActivity.forEach((activityId, names) -> {
+            if (activityCatalog.get(activityId) == null) {
+                result.getUnknownActivityIds().add(activityId);
+                return;
             }
+            LinkedHashSet<String> cleaned = names == null ? new LinkedHashSet<>() : names.stream()
+                    .filter(Objects::nonNull)
+                    .map(String::trim)
+                    .filter(s -> !s.isEmpty())
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+            wanted.put(activityId, cleaned);
+            allNames.addAll(cleaned);
+        });
+
+        if (wanted.isEmpty()) return result;
+
+        TagLookup lookup = new TagLookup(activityTagDAO.findByNames(allNames));
+        List<String> missing = allNames.stream().filter(n -> lookup.find(n) == null).toList();
+        if (!missing.isEmpty()) {
+            result.setTagsCreated(activityTagDAO.insertTags(missing));
+            lookup.addAll(activityTagDAO.findByNames(missing));
+        }
+
+        // 目標關聯（同一活動重複的標籤以 ID 去重）與 commit 後給活動目錄的標籤名稱
+        Map<Integer, Set<Integer>> desired = new LinkedHashMap<>();
+        Map<Integer, List<String>> finalNames = new LinkedHashMap<>();
+        wanted.forEach((activityId, names) -> {
+            Set<Integer> tagIds = new LinkedHashSet<>();
+            List<String> resolved = new ArrayList<>();
+            for (String n : names) {
+                ActivityTag tag = lookup.find(n);
+                if (tag != null && tagIds.add(tag.getId())) resolved.add(tag.getName());
+            }
+            desired.put(activityId, tagIds);
+            finalNames.put(activityId, resolved);
+        });
+
+        Map<Integer, Set<Integer>> existing = new HashMap<>();
+        for (ActTag link : actTagDAO.findByActivityIds(desired.keySet())) {
+            existing.computeIfAbsent(link.getActivityId(), k -> new HashSet<>()).add(link.getTagId());
+        }
+
+        List<ActTag> toInsert = new ArrayList<>();
+        List<ActTag> toDelete = new ArrayList<>();
+        desired.forEach((activityId, tagIds) -> {
+            Set<Integer> current = existing.getOrDefault(activityId, Set.of());
+            for (Integer tagId : tagIds) {
+                if (!current.contains(tagId)) toInsert.add(link(activityId, tagId));
+            }
+            for (Integer tagId : current) {
+                if (!tagIds.contains(tagId)) toDelete.add(link(activityId, tagId));
+            }
+        });
+        actTagDAO.deleteBatch(toDelete);
+        actTagDAO.insertBatch(toInsert);
+
+        result.setActivities(desired.size());
+        result.setLinksAdded(toInsert.size());
+        result.setLinksRemoved(toDelete.size());
+        afterCommit(() -> activityCatalog.onTagsChanged(finalNames));
+        return result;
+    }
+
+    private static ActTag link(Integer activityId, Integer tagId) {
+        ActTag link = new ActTag();
+        link.setActivityId(activityId);
+        link.setTagId(tagId);
+        return link;
+    }
+
+    /**
+     * 標籤名稱對應：先比完全相同，再不分大小寫比
+     * （DB 定序不分大小寫時 IN 查詢會回傳大小寫不同的既有標籤）
+     */
+    private static final class TagLookup {
+        private final Map<String, ActivityTag> exact = new HashMap<>();
+        private final Map<String, ActivityTag> ignoreCase = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+        TagLookup(List<ActivityTag> tags) {
+            addAll(tags);
+        }
+
+        void addAll(List<ActivityTag> tags) {
+            for (ActivityTag t : tags) {
+                exact.put(t.getName(), t);
+                ignoreCase.putIfAbsent(t.getName(), t);
+            }
+        }
+
+        ActivityTag find(String name) {
+            ActivityTag t = exact.get(name);
+            return t != null ? t : ignoreCase.get(name);
         }
     }
 
@@ -226,6 +351,8 @@ public class ActivityServiceImpl implements ActivityService {
     @Override
     public void endRegistration(Integer id) {
         activityDao.endRegistration(id);
+        seatEngine.refresh(id);
+        activityCatalog.onActivityChanged(id);
     }
 
     // ====== 圖片處理相關方法 (模仿 RoomTypeServiceImpl) ======
@@ -0,0 +1,268 @@
+package com.ryanshiun.seniorscare.activity.service.Impl;
+
+import com.ryanshiun.seniorscare.activity.dao.ActivityReservationDao;
+import com.ryanshiun.seniorscare.activity.dao.ActivityWaitlistDao;
+import com.ryanshiun.seniorscare.activity.dto.ReservationCreateDto;
+import com.ryanshiun.seniorscare.activity.model.ActivityWaitlist;
+import com.ryanshiun.seniorscare.activity.service.ActivityWaitlistService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.ryanshiun.seniorscare.common.util.TransactionHooks.afterCommit;
+
+/**
+ * 活動候補：
+ * - activity_waitlist 為正本，記憶體依活動保留一份候補中名單（加入順序），遞補時不必查 DB 找人
+ * - 遞補以 DB 的條件式 UPDATE（status = 'WAITING'）為準，多筆同時釋放名額也不會重複遞補同一人
+ * - 記憶體名單只在 commit 後更新；名單過期（DB 已不是候補中）時遞補失敗並順便清掉
+ */
+@Service
+public class ActivityWaitlistServiceImpl implements ActivityWaitlistService {
+
+    private static final Logger log = LoggerFactory.getLogger(ActivityWaitlistServiceImpl.class);
+
+    @Autowired
+    private ActivityWaitlistDao activityWaitlistDao;
+    @Autowired
+    private ActivityReservationDao activityReservationDao;
+    @Autowired
+    private ActivitySeatEngine seatEngine;
+
+    // 活動 ID → 候補 ID → 候補資料（LinkedHashMap 保持加入順序；存取時鎖該活動的名單）
+    private final ConcurrentHashMap<Integer, LinkedHashMap<Long, ActivityWaitlist>> lines = new ConcurrentHashMap<>();
+
+    private final LongAdder joined = new LongAdder();
+    private final LongAdder promoted = new LongAdder();
+    private final LongAdder promoteCalls = new LongAdder();
+    private final LongAdder promoteNanos = new LongAdder();
+    private final AtomicLong maxPromoteNanos = new AtomicLong();
+    private final LongAdder waitedMillis = new LongAdder();
+    private final AtomicLong maxWaitedMillis = new AtomicLong();
+    private final LongAdder staleEntries = new LongAdder();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            activityWaitlistDao.ensureTable();
+            List<ActivityWaitlist> waiting = activityWaitlistDao.findAllWaiting();
+            for (ActivityWaitlist w : waiting) add(w);
+            log.info("載入活動候補 {} 筆", waiting.size());
+        } catch (RuntimeException e) {
+            log.warn("載入活動候補失敗：{}", e.getMessage());
+        }
+    }
+
+    @Override
+    @Transactional
+    public Integer joinWaitlist(ReservationCreateDto registration) {
+        Integer activityId = registration.getActivityId();
+        Integer memberId = registration.getMemberId();
+        int num = registration.getNum() == null ? 1 : registration.getNum();
+        if (num <= 0 || !seatEngine.isOpen(activityId)) return null;
+
+        Long id = activityWaitlistDao.insert(activityId, memberId, num, LocalDateTime.now());
+        if (id == null) {
+            Integer position = positionOf(activityId, memberId);
+            return position != null ? position : 1;
+        }
+
+        ActivityWaitlist w = new ActivityWaitlist();
+        w.setId(id);
+        w.setActivityId(activityId);
+        w.setMemberId(memberId);
+        w.setNum(num);
+        w.setCreatedAt(LocalDateTime.now());
+        w.setStatus("WAITING");
+        afterCommit(() -> {
+            add(w);
+            joined.increment();
+        });
+        return sizeOf(activityId) + 1;
+    }
+
+    @Override
+    @Transactional
+    public boolean leaveWaitlist(Long waitlistId, Integer memberId) {
+        ActivityWaitlist cancelled = activityWaitlistDao.cancel(waitlistId, memberId);
+        if (cancelled == null) return false;
+        afterCommit(() -> remove(cancelled.getActivityId(), List.of(cancelled.getId())));
+        return true;
+    }
+
+    @Override
+    public List<ActivityWaitlist> getMyWaitlist(Integer memberId) {
+        return activityWaitlistDao.findWaitingByMember(memberId);
+    }
+
+    @Override
+    @Transactional
+    public int promote(Integer activityId, int freedSeats) {
+        List<ActivityWaitlist> candidates = snapshot(activityId);
+        if (candidates.isEmpty()) return 0;
+        long start = System.nanoTime();
+
+        // 依順序挑人：先用剛釋放的名額，不夠時向名額引擎佔空位；放不下的人跳過，讓後面人數少的先遞補
+        int remaining = Math.max(freedSeats, 0);
+        Map<Long, ActivityWaitlist> chosen = new LinkedHashMap<>();
+        Map<Long, Integer> fromFreed = new HashMap<>();
+        int smallestRejected = Integer.MAX_VALUE; // 引擎佔不到這個人數，更多人的也不必再試
+        for (ActivityWaitlist c : candidates) {
+            int num = c.getNum();
+            if (num <= remaining) {
+                remaining -= num;
+                fromFreed.put(c.getId(), num);
+                chosen.put(c.getId(), c);
+            } else if (num < smallestRejected) {
+                if (seatEngine.hold(activityId, num)) {
+                    // 佔到就先登記 rollback 時還回去，後面 markPromoted / createReservations 失敗也不會漏
+                    seatEngine.releaseOnRollback(activityId, num);
+                    chosen.put(c.getId(), c);
+                } else {
+                    smallestRejected = num;
+                }
+            }
+            if (remaining == 0 && smallestRejected <= 1) break;
+        }
+        if (chosen.isEmpty()) return 0;
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> claimed = activityWaitlistDao.markPromoted(chosen.keySet(), now);
+
+        int consumed = 0;
+        List<ReservationCreateDto> registrations = new ArrayList<>(claimed.size());
+        for (Long id : claimed) {
+            ActivityWaitlist w = chosen.get(id);
+            Integer freed = fromFreed.get(id);
+            if (freed != null) consumed += freed;
+
+            ReservationCreateDto r = new ReservationCreateDto();
+            r.setActivityId(activityId);
+            r.setMemberId(w.getMemberId());
+            r.setNum(w.getNum());
+            registrations.add(r);
+        }
+        // 已被別的交易遞補或取消的：向引擎佔的名額 commit 後還回去（rollback 時已由上面登記的還回）
+        List<Long> stale = new ArrayList<>();
+        int staleHeld = 0;
+        for (Long id : chosen.keySet()) {
+            if (claimed.contains(id)) continue;
+            stale.add(id);
+            if (!fromFreed.containsKey(id)) staleHeld += chosen.get(id).getNum();
+        }
+
+        activityReservationDao.createReservations(registrations);
+
+        int staleSeats = staleHeld;
+        afterCommit(() -> {
+            if (staleSeats > 0) seatEngine.release(activityId, staleSeats);
+            List<Long> done = new ArrayList<>(claimed);
+            done.addAll(stale);
+            remove(activityId, done);
+            staleEntries.add(stale.size());
+            for (Long id : claimed) {
+                long waited = Duration.between(chosen.get(id).getCreatedAt(), now).toMillis();
+                waitedMillis.add(waited);
+                maxWaitedMillis.accumulateAndGet(waited, Math::max);
+            }
+            promoted.add(claimed.size());
+        });
+
+        long elapsed = System.nanoTime() - start;
+        promoteCalls.increment();
+        promoteNanos.add(elapsed);
+        maxPromoteNanos.accumulateAndGet(elapsed, Math::max);
+        return consumed;
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<Integer, Integer> sizes = new LinkedHashMap<>();
+        int total = 0;
+        for (Map.Entry<Integer, LinkedHashMap<Long, ActivityWaitlist>> e : lines.entrySet()) {
+            int size = sizeOf(e.getKey());
+            if (size == 0) continue;
+            sizes.put(e.getKey(), size);
+            total += size;
+        }
+        Map<Integer, Integer> top = new LinkedHashMap<>();
+        sizes.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed())
+                .limit(10)
+                .forEach(e -> top.put(e.getKey(), e.getValue()));
+
+        long calls = promoteCalls.sum();
+        long count = promoted.sum();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("waiting", total);
+        m.put("activities", sizes.size());
+        m.put("largestWaitlists", top);
+        m.put("joined", joined.sum());
+        m.put("promoted", count);
+        m.put("staleEntries", staleEntries.sum());
+        m.put("promoteCalls", calls);
+        m.put("avgPromoteMicros", calls == 0 ? 0 : promoteNanos.sum() / calls / 1000);
+        m.put("maxPromoteMicros", maxPromoteNanos.get() / 1000);
+        m.put("avgWaitSeconds", count == 0 ? 0 : waitedMillis.sum() / count / 1000);
+        m.put("maxWaitSeconds", maxWaitedMillis.get() / 1000);
+        return m;
+    }
+
+    // ===== 記憶體名單 =====
+
+    private void add(ActivityWaitlist w) {
+        LinkedHashMap<Long, ActivityWaitlist> line = lines.computeIfAbsent(w.getActivityId(), k -> new LinkedHashMap<>());
+        synchronized (line) {
+            line.put(w.getId(), w);
+        }
+    }
+
+    private void remove(Integer activityId, Collection<Long> ids) {
+        LinkedHashMap<Long, ActivityWaitlist> line = lines.get(activityId);
+        if (line == null) return;
+        synchronized (line) {
+            for (Long id : ids) line.remove(id);
+        }
+    }
+
+    private List<ActivityWaitlist> snapshot(Integer activityId) {
+        LinkedHashMap<Long, ActivityWaitlist> line = lines.get(activityId);
+        if (line == null) return List.of();
+        synchronized (line) {
+            return new ArrayList<>(line.values());
+        }
+    }
+
+    private int sizeOf(Integer activityId) {
+        LinkedHashMap<Long, ActivityWaitlist> line = lines.get(activityId);
+        if (line == null) return 0;
+        synchronized (line) {
+            return line.size();
+        }
+    }
+
+    private Integer positionOf(Integer activityId, Integer memberId) {
+        int position = 1;
+        for (ActivityWaitlist w : snapshot(activityId)) {
+            if (w.getMemberId().equals(memberId)) return position;
+            position++;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,50 @@
+package com.ryanshiun.seniorscare.bus.controller;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.ryanshiun.seniorscare.bus.dto.DispatchPlan;
+import com.ryanshiun.seniorscare.bus.service.DispatchService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 派車規劃（管理端）
+ */
+@RestController
+@RequestMapping("/api/dispatch")
+@RequiredArgsConstructor
+public class DispatchController {
+
+	private final DispatchService dispatchService;
+
+	// 指定日期的共乘批次與每台車接送順序
+	@GetMapping("/plan")
+	@PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+	public ResponseEntity<DispatchPlan> plan(
+			@RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+		return ResponseEntity.ok(dispatchService.planDay(date));
+	}
+
+	// 隨機產生一天的預約測試規劃效能（預設 500 筆、30 台車）
+	@GetMapping("/plan/benchmark")
+	@PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+	public ResponseEntity<Map<String, Object>> benchmark(
+			@RequestParam(value = "trips", defaultValue = "500") int trips,
+			@RequestParam(value = "buses", defaultValue = "30") int buses,
+			@RequestParam(value = "seed", defaultValue = "42") long seed) {
+		if (trips < 1 || trips > 5000 || buses < 1 || buses > 500) {
+			return ResponseEntity.badRequest().build();
+		}
+		return ResponseEntity.ok(dispatchService.benchmark(trips, buses, seed));
+	}
+
+}
@@ -3,6 +3,7 @@ package com.ryanshiun.seniorscare.bus.controller;
 import java.util.Map;
 
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,6 +14,8 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.ryanshiun.seniorscare.bus.dto.FareQuote;
 import com.ryanshiun.seniorscare.bus.service.FareService;
+import com.ryanshiun.seniorscare.bus.utils.DistanceEstimator;
+import com.ryanshiun.seniorscare.bus.utils.GoogleMapsClient;
 
 import lombok.RequiredArgsConstructor;
 
@@ -26,6 +29,8 @@ import lombok.RequiredArgsConstructor;
 public class FareController {
 
 	private final FareService fareService;
+	private final GoogleMapsClient googleMapsClient;
+	private final DistanceEstimator distanceEstimator;
 
 	// 查尋點到點的車費(計程車原價和復康巴士費用)
 	@GetMapping("/quote")
@@ -43,4 +48,18 @@ public class FareController {
 
 	}
 
+	// 地圖查詢快取命中率（記憶體 / 資料表 / 未命中）
+	@GetMapping("/maps-cache-stats")
+	@PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+	public Map<String, Object> mapsCacheStats() {
+		return googleMapsClient.cacheStats();
+	}
+
+	// 離線估算的道路係數（由歷史預約學習）
+	@GetMapping("/estimator")
+	@PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+	public Map<String, Object> estimatorStats() {
+		return distanceEstimator.stats();
+	}
+
 }
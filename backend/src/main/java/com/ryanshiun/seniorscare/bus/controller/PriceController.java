@@ -1,9 +1,12 @@
 package com.ryanshiun.seniorscare.bus.controller;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,6 +20,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.ryanshiun.seniorscare.bus.dto.PriceRequest;
+import com.ryanshiun.seniorscare.bus.dto.ZonePairQuote;
 import com.ryanshiun.seniorscare.bus.model.FarePrice;
 import com.ryanshiun.seniorscare.bus.service.PriceService;
 
@@ -124,4 +128,21 @@ public class PriceController {
 		return ResponseEntity.noContent().build();
 	}
 
+	// 批次查詢多組起迄行政區票價（後台票價表一次取回）
+	@PostMapping("/quote-batch")
+	public ResponseEntity<List<ZonePairQuote>> quoteBatch(@RequestBody List<ZonePairQuote> pairs) {
+		// body 為 JSON null、含 null 元素或筆數過多都回 400
+		if (pairs == null || pairs.size() > 10_000 || pairs.stream().anyMatch(Objects::isNull)) {
+			return ResponseEntity.badRequest().build();
+		}
+		return ResponseEntity.ok(priceService.quoteBatch(pairs));
+	}
+
+	// 整張行政區票價矩陣
+	@GetMapping("/matrix")
+	@PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+	public ResponseEntity<Map<String, Object>> priceTable() {
+		return ResponseEntity.ok(priceService.priceTable());
+	}
+
 }
@@ -1,11 +1,19 @@
 package com.ryanshiun.seniorscare.bus.controller;
 
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -19,14 +27,19 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.ryanshiun.seniorscare.bus.dto.ResCreateRequest;
 import com.ryanshiun.seniorscare.bus.dto.ResQueryParams;
 import com.ryanshiun.seniorscare.bus.dto.ResRequest;
+import com.ryanshiun.seniorscare.bus.dto.ResSearchPage;
+import com.ryanshiun.seniorscare.bus.dto.ResSearchParams;
 import com.ryanshiun.seniorscare.bus.model.BusReservation;
+import com.ryanshiun.seniorscare.bus.model.Rehabus;
 import com.ryanshiun.seniorscare.bus.service.ResService;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 @Validated
@@ -128,4 +141,42 @@ public class ResController {
 
 	}
 
+	// 指定時段（每單固定 2 小時）可派的車
+	@GetMapping("/free-buses")
+	public ResponseEntity<List<Rehabus>> freeBuses(
+			@RequestParam("at") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+		return ResponseEntity.ok(resService.findFreeBuses(at));
+	}
+
+	// 最早可預約時段；不帶 busId 時找整個車隊
+	@GetMapping("/earliest-slot")
+	public ResponseEntity<Map<String, Object>> earliestSlot(
+			@RequestParam(value = "busId", required = false) Integer busId,
+			@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+			@RequestParam(value = "until", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime until) {
+		return ResponseEntity.ok(resService.findEarliestSlot(busId, from, until));
+	}
+
+	// 後台預約列表（多條件 + cursor 分頁）
+	@PreAuthorize("hasAnyRole('EMPLOYEE', 'MANAGER', 'ADMIN')")
+	@GetMapping("/page")
+	public ResponseEntity<ResSearchPage> page(@ModelAttribute ResSearchParams params) {
+		return ResponseEntity.ok(resService.search(params));
+	}
+
+	// 依相同條件匯出 CSV
+	@PreAuthorize("hasAnyRole('EMPLOYEE', 'MANAGER', 'ADMIN')")
+	@GetMapping("/export")
+	public void export(@ModelAttribute ResSearchParams params, HttpServletResponse response) throws IOException {
+		response.setContentType("text/csv; charset=UTF-8");
+		response.setCharacterEncoding("UTF-8");
+		response.setHeader("Content-Disposition", "attachment; filename=reservations.csv");
+
+		OutputStream out = response.getOutputStream();
+		// UTF-8 BOM（Excel 防亂碼）
+		out.write(new byte[] { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF });
+		PrintWriter writer = new PrintWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		resService.exportToCSV(params, writer);
+	}
+
 }
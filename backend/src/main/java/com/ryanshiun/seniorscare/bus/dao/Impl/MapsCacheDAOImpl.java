@@ -0,0 +1,101 @@
+package com.ryanshiun.seniorscare.bus.dao.Impl;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.ryanshiun.seniorscare.bus.dao.MapsCacheDAO;
+
+@Repository
+public class MapsCacheDAOImpl implements MapsCacheDAO {
+
+	@Autowired
+	private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+	@Override
+	public void ensureTables() {
+		final String geocode = "IF OBJECT_ID('maps_geocode_cache', 'U') IS NULL "
+				+ "CREATE TABLE maps_geocode_cache ("
+				+ " address_key NVARCHAR(400) NOT NULL PRIMARY KEY,"
+				+ " lat_lng VARCHAR(64) NOT NULL,"
+				+ " expires_at DATETIME2 NOT NULL,"
+				+ " updated_at DATETIME2 NOT NULL DEFAULT SYSDATETIME())";
+		final String distance = "IF OBJECT_ID('maps_distance_cache', 'U') IS NULL "
+				+ "CREATE TABLE maps_distance_cache ("
+				+ " origin_key NVARCHAR(200) NOT NULL,"
+				+ " destination_key NVARCHAR(200) NOT NULL,"
+				+ " distance_meters INT NOT NULL,"
+				+ " expires_at DATETIME2 NOT NULL,"
+				+ " updated_at DATETIME2 NOT NULL DEFAULT SYSDATETIME(),"
+				+ " CONSTRAINT PK_maps_distance_cache PRIMARY KEY (origin_key, destination_key))";
+		namedParameterJdbcTemplate.getJdbcTemplate().execute(geocode);
+		namedParameterJdbcTemplate.getJdbcTemplate().execute(distance);
+	}
+
+	@Override
+	public String findLatLng(String addressKey, LocalDateTime now) {
+		final String sql = "SELECT lat_lng FROM maps_geocode_cache "
+				+ "WHERE address_key = :key AND expires_at > :now";
+		Map<String, Object> map = new HashMap<>();
+		map.put("key", addressKey);
+		map.put("now", now);
+		List<String> list = namedParameterJdbcTemplate.queryForList(sql, map, String.class);
+		return list.isEmpty() ? null : list.get(0);
+	}
+
+	@Override
+	public void upsertLatLng(String addressKey, String latLng, LocalDateTime expiresAt) {
+		final String sql = "MERGE maps_geocode_cache WITH (HOLDLOCK) AS t "
+				+ "USING (SELECT :key AS address_key) AS s ON t.address_key = s.address_key "
+				+ "WHEN MATCHED THEN UPDATE SET lat_lng = :latLng, expires_at = :expiresAt, updated_at = SYSDATETIME() "
+				+ "WHEN NOT MATCHED THEN INSERT (address_key, lat_lng, expires_at) VALUES (:key, :latLng, :expiresAt);";
+		Map<String, Object> map = new HashMap<>();
+		map.put("key", addressKey);
+		map.put("latLng", latLng);
+		map.put("expiresAt", expiresAt);
+		namedParameterJdbcTemplate.update(sql, map);
+	}
+
+	@Override
+	public Integer findDistance(String originKey, String destinationKey, LocalDateTime now) {
+		final String sql = "SELECT distance_meters FROM maps_distance_cache "
+				+ "WHERE origin_key = :origin AND destination_key = :destination AND expires_at > :now";
+		Map<String, Object> map = new HashMap<>();
+		map.put("origin", originKey);
+		map.put("destination", destinationKey);
+		map.put("now", now);
+		List<Integer> list = namedParameterJdbcTemplate.queryForList(sql, map, Integer.class);
+		return list.isEmpty() ? null : list.get(0);
+	}
+
+	@Override
+	public void upsertDistance(String originKey, String destinationKey, int meters, LocalDateTime expiresAt) {
+		final String sql = "MERGE maps_distance_cache WITH (HOLDLOCK) AS t "
+				+ "USING (SELECT :origin AS origin_key, :destination AS destination_key) AS s "
+				+ "ON t.origin_key = s.origin_key AND t.destination_key = s.destination_key "
+				+ "WHEN MATCHED THEN UPDATE SET distance_meters = :meters, expires_at = :expiresAt, updated_at = SYSDATETIME() "
+				+ "WHEN NOT MATCHED THEN INSERT (origin_key, destination_key, distance_meters, expires_at) "
+				+ "VALUES (:origin, :destination, :meters, :expiresAt);";
+		Map<String, Object> map = new HashMap<>();
+		map.put("origin", originKey);
+		map.put("destination", destinationKey);
+		map.put("meters", meters);
+		map.put("expiresAt", expiresAt);
+		namedParameterJdbcTemplate.update(sql, map);
+	}
+
+	@Override
+	public int deleteExpired(LocalDateTime now) {
+		Map<String, Object> map = new HashMap<>();
+		map.put("now", now);
+		int n = namedParameterJdbcTemplate.update("DELETE FROM maps_geocode_cache WHERE expires_at <= :now", map);
+		n += namedParameterJdbcTemplate.update("DELETE FROM maps_distance_cache WHERE expires_at <= :now", map);
+		return n;
+	}
+
+}
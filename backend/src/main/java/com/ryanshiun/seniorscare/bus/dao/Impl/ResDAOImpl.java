@@ -234,15 +234,39 @@ public class ResDAOImpl implements ReservationDAO {
 	// 查詢是否有「同一台車、同一日的時段重疊」的紀錄
 	@Override
 	public boolean hasConflict(Integer busId, LocalDateTime scheduledAt, int slotMinutes) {
+		// 每單固定 slotMinutes，重疊等同「scheduled_at 落在 (開始 - slot, 開始 + slot)」；
+		// 運算放在參數側，欄位本身可以走 (bus_id, scheduled_at) 索引
 		String sql = "SELECT COUNT(*) FROM BusReservation r " + "WHERE r.bus_id = :busId "
 				+ "AND r.reservation_status = N'Active' "
-				+ "AND r.scheduled_at < DATEADD(MINUTE, :slotMinutes, :scheduledAt) "
-				+ "AND DATEADD(MINUTE, :slotMinutes, r.scheduled_at) > :scheduledAt ";
+				+ "AND r.scheduled_at > :windowFrom "
+				+ "AND r.scheduled_at < :windowTo ";
 
 		MapSqlParameterSource qRes = new MapSqlParameterSource().addValue("busId", busId)
-				.addValue("scheduledAt", scheduledAt).addValue("slotMinutes", slotMinutes);
+				.addValue("windowFrom", scheduledAt.minusMinutes(slotMinutes))
+				.addValue("windowTo", scheduledAt.plusMinutes(slotMinutes));
 
 		Integer count = namedParameterJdbcTemplate.queryForObject(sql, qRes, Integer.class);
 		return count != null && count > 0;
 	}
-}
\ No newline at end of file
+
+	// 查詢某時間之後所有 Active 的預約（建立派車時間軸索引用）
+	@Override
+	public List<BusReservation> findActiveFrom(LocalDateTime from) {
+		final String sql = "SELECT * FROM BusReservation WHERE reservation_status = N'Active' "
+				+ "AND scheduled_at >= :from";
+
+		return namedParameterJdbcTemplate.query(sql, Map.of("from", from), new ReservationRowMapper());
+	}
+
+	// 取最近有座標與實際距離的預約（估算道路係數用）
+	@Override
+	public List<double[]> findDistanceSamples(int limit) {
+		final String sql = "SELECT TOP (:limit) start_lat, start_lng, end_lat, end_lng, distance_meters "
+				+ "FROM BusReservation WHERE start_lat IS NOT NULL AND start_lng IS NOT NULL "
+				+ "AND end_lat IS NOT NULL AND end_lng IS NOT NULL AND distance_meters > 0 ORDER BY id DESC";
+
+		return namedParameterJdbcTemplate.query(sql, Map.of("limit", limit),
+				(rs, rowNum) -> new double[] { rs.getDouble("start_lat"), rs.getDouble("start_lng"),
+						rs.getDouble("end_lat"), rs.getDouble("end_lng"), rs.getDouble("distance_meters") });
+	}
+}
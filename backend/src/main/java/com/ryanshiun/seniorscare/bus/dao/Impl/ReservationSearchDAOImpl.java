@@ -0,0 +1,232 @@
+package com.ryanshiun.seniorscare.bus.dao.Impl;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ryanshiun.seniorscare.bus.dao.ReservationSearchDAO;
+import com.ryanshiun.seniorscare.bus.dto.ResSearchParams;
+import com.ryanshiun.seniorscare.bus.dto.ResSummary;
+import com.ryanshiun.seniorscare.bus.utils.AddressTokenizer;
+
+@Repository
+public class ReservationSearchDAOImpl implements ReservationSearchDAO {
+
+	// 匯出時每次從資料庫抓的筆數
+	private static final int EXPORT_FETCH_SIZE = 500;
+
+	// 已建立 token 的標記（地址沒有任何可切的字時也要有這一列，補建才不會一直重做）
+	private static final String INDEXED_SIDE = "#";
+
+	private static final String COLUMNS = "r.id, r.member_id, r.bus_id, r.start_address, r.end_address, "
+			+ "r.scheduled_at, r.completed_at, r.reservation_status, r.price, r.distance_meters";
+
+	@Autowired
+	private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+	private volatile NamedParameterJdbcTemplate exportTemplate;
+
+	/**
+	 * 搜尋用的 schema（可重複執行）：
+	 * IX_BusReservation_scheduled_id：(scheduled_at, id) 排序/翻頁，INCLUDE 列表欄位，不必回表
+	 * IX_BusReservation_member_scheduled：會員查自己的預約
+	 * IX_BusReservation_bus_status_scheduled：同車同狀態的時段衝突檢查
+	 * IX_BusReservation_status_scheduled：載入 Active 預約（派車時間軸）
+	 * BusReservationAddressToken：地址 token → 預約，取代 LIKE '%..%' 的全表掃描
+	 */
+	@Override
+	public void ensureSchema() {
+		JdbcTemplate jdbc = namedParameterJdbcTemplate.getJdbcTemplate();
+		jdbc.execute("IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_BusReservation_scheduled_id' "
+				+ "AND object_id = OBJECT_ID('BusReservation')) "
+				+ "CREATE INDEX IX_BusReservation_scheduled_id ON BusReservation (scheduled_at, id) "
+				+ "INCLUDE (member_id, bus_id, reservation_status, price, distance_meters)");
+		jdbc.execute("IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_BusReservation_member_scheduled' "
+				+ "AND object_id = OBJECT_ID('BusReservation')) "
+				+ "CREATE INDEX IX_BusReservation_member_scheduled ON BusReservation (member_id, scheduled_at, id)");
+		jdbc.execute("IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_BusReservation_bus_status_scheduled' "
+				+ "AND object_id = OBJECT_ID('BusReservation')) "
+				+ "CREATE INDEX IX_BusReservation_bus_status_scheduled ON BusReservation (bus_id, reservation_status, scheduled_at)");
+		jdbc.execute("IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_BusReservation_status_scheduled' "
+				+ "AND object_id = OBJECT_ID('BusReservation')) "
+				+ "CREATE INDEX IX_BusReservation_status_scheduled ON BusReservation (reservation_status, scheduled_at)");
+		jdbc.execute("IF OBJECT_ID('BusReservationAddressToken', 'U') IS NULL "
+				+ "CREATE TABLE BusReservationAddressToken ("
+				+ " token NVARCHAR(4) NOT NULL,"
+				+ " side CHAR(1) NOT NULL," // S = 起點、E = 終點、# = 已建立標記
+				+ " reservation_id INT NOT NULL,"
+				+ " CONSTRAINT PK_BusReservationAddressToken PRIMARY KEY (token, side, reservation_id))");
+		jdbc.execute("IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_BusReservationAddressToken_reservation' "
+				+ "AND object_id = OBJECT_ID('BusReservationAddressToken')) "
+				+ "CREATE INDEX IX_BusReservationAddressToken_reservation ON BusReservationAddressToken (reservation_id)");
+	}
+
+	@Override
+	public List<ResSummary> search(ResSearchParams params, LocalDateTime cursorAt, Integer cursorId, int limit,
+			boolean asc, boolean useTokens) {
+		MapSqlParameterSource p = new MapSqlParameterSource().addValue("limit", limit);
+		StringBuilder sql = new StringBuilder("SELECT TOP (:limit) ").append(COLUMNS)
+				.append(" FROM BusReservation r WHERE 1=1");
+		appendFilters(sql, p, params, useTokens);
+
+		// keyset：從上一頁最後一筆之後接著查，不用 OFFSET
+		if (cursorAt != null && cursorId != null) {
+			String op = asc ? ">" : "<";
+			sql.append(" AND (r.scheduled_at ").append(op).append(" :cursorAt OR (r.scheduled_at = :cursorAt AND r.id ")
+					.append(op).append(" :cursorId))");
+			p.addValue("cursorAt", cursorAt).addValue("cursorId", cursorId);
+		}
+		appendOrder(sql, asc);
+
+		return namedParameterJdbcTemplate.query(sql.toString(), p, (rs, rowNum) -> mapSummary(rs));
+	}
+
+	@Override
+	public void export(ResSearchParams params, boolean asc, boolean useTokens, Consumer<ResSummary> consumer) {
+		MapSqlParameterSource p = new MapSqlParameterSource();
+		StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS).append(" FROM BusReservation r WHERE 1=1");
+		appendFilters(sql, p, params, useTokens);
+		appendOrder(sql, asc);
+
+		exportTemplate().query(sql.toString(), p, (RowCallbackHandler) rs -> consumer.accept(mapSummary(rs)));
+	}
+
+	@Override
+	@Transactional
+	public void indexAddresses(int reservationId, String startAddress, String endAddress) {
+		deleteTokens(reservationId);
+
+		List<SqlParameterSource> rows = new ArrayList<>();
+		for (String t : AddressTokenizer.indexTokens(startAddress))
+			rows.add(tokenRow(t, "S", reservationId));
+		for (String t : AddressTokenizer.indexTokens(endAddress))
+			rows.add(tokenRow(t, "E", reservationId));
+
+		// 已有「同一個」token 就略過：比對用欄位定序，全形 / 半形等被定序視為相同的 token 不會撞主鍵
+		final String sql = "INSERT INTO BusReservationAddressToken (token, side, reservation_id) "
+				+ "SELECT :token, :side, :reservationId WHERE NOT EXISTS (SELECT 1 FROM BusReservationAddressToken "
+				+ "WHERE token = :token AND side = :side AND reservation_id = :reservationId)";
+		namedParameterJdbcTemplate.batchUpdate(sql, rows.toArray(new SqlParameterSource[0]));
+		// 「已建立」標記最後才寫：中途失敗時沒有標記，補建排程會整筆重建
+		namedParameterJdbcTemplate.update(sql, tokenRow("", INDEXED_SIDE, reservationId));
+	}
+
+	@Override
+	public void deleteTokens(int reservationId) {
+		final String sql = "DELETE FROM BusReservationAddressToken WHERE reservation_id = :reservationId";
+		namedParameterJdbcTemplate.update(sql, Map.of("reservationId", reservationId));
+	}
+
+	@Override
+	public List<ResSummary> findUnindexed(int afterId, int limit) {
+		final String sql = "SELECT TOP (:limit) " + COLUMNS + " FROM BusReservation r WHERE r.id > :afterId "
+				+ "AND NOT EXISTS (SELECT 1 FROM BusReservationAddressToken t "
+				+ "WHERE t.reservation_id = r.id AND t.side = '" + INDEXED_SIDE + "') ORDER BY r.id";
+		return namedParameterJdbcTemplate.query(sql, Map.of("limit", limit, "afterId", afterId),
+				(rs, rowNum) -> mapSummary(rs));
+	}
+
+	// ===== helpers =====
+
+	private void appendFilters(StringBuilder sql, MapSqlParameterSource p, ResSearchParams params, boolean useTokens) {
+		if (params.getMemberId() != null) {
+			sql.append(" AND r.member_id = :memberId");
+			p.addValue("memberId", params.getMemberId());
+		}
+		if (params.getBusId() != null) {
+			sql.append(" AND r.bus_id = :busId");
+			p.addValue("busId", params.getBusId());
+		}
+		if (params.getReservationStatus() != null && !params.getReservationStatus().isBlank()) {
+			sql.append(" AND r.reservation_status = :status");
+			p.addValue("status", params.getReservationStatus().trim());
+		}
+		if (params.getFrom() != null) {
+			sql.append(" AND r.scheduled_at >= :from");
+			p.addValue("from", params.getFrom());
+		}
+		if (params.getTo() != null) {
+			sql.append(" AND r.scheduled_at < :to");
+			p.addValue("to", params.getTo());
+		}
+		appendAddress(sql, p, "start", "S", params.getStartAddress(), useTokens);
+		appendAddress(sql, p, "end", "E", params.getEndAddress(), useTokens);
+	}
+
+	/**
+	 * 地址關鍵字：先用 token 表縮小到「所有 token 都出現」的預約，再以 LIKE 確認（結果與純 LIKE 相同）
+	 */
+	private static void appendAddress(StringBuilder sql, MapSqlParameterSource p, String name, String side,
+			String keyword, boolean useTokens) {
+		if (keyword == null || keyword.isBlank())
+			return;
+
+		Set<String> tokens = AddressTokenizer.queryTokens(keyword);
+		if (useTokens && !tokens.isEmpty()) {
+			sql.append(" AND r.id IN (SELECT t.reservation_id FROM BusReservationAddressToken t WHERE t.side = '")
+					.append(side).append("' AND t.token IN (:").append(name).append("Tokens) ")
+					.append("GROUP BY t.reservation_id HAVING COUNT(*) = :").append(name).append("TokenCount)");
+			p.addValue(name + "Tokens", new ArrayList<>(tokens));
+			p.addValue(name + "TokenCount", tokens.size());
+		}
+		sql.append(" AND r.").append(name).append("_address LIKE :").append(name).append("Address");
+		p.addValue(name + "Address", "%" + escapeLike(keyword.trim()) + "%");
+	}
+
+	private static void appendOrder(StringBuilder sql, boolean asc) {
+		String dir = asc ? "ASC" : "DESC";
+		sql.append(" ORDER BY r.scheduled_at ").append(dir).append(", r.id ").append(dir);
+	}
+
+	// T-SQL LIKE 的特殊字元用 [] 跳脫
+	private static String escapeLike(String s) {
+		return s.replace("[", "[[]").replace("%", "[%]").replace("_", "[_]");
+	}
+
+	private static SqlParameterSource tokenRow(String token, String side, int reservationId) {
+		return new MapSqlParameterSource().addValue("token", token).addValue("side", side)
+				.addValue("reservationId", reservationId);
+	}
+
+	private static ResSummary mapSummary(ResultSet rs) throws SQLException {
+		ResSummary s = new ResSummary();
+		s.setId(rs.getInt("id"));
+		s.setMemberId(rs.getInt("member_id"));
+		s.setBusId(rs.getInt("bus_id"));
+		s.setStartAddress(rs.getString("start_address"));
+		s.setEndAddress(rs.getString("end_address"));
+		s.setScheduledAt(rs.getObject("scheduled_at", LocalDateTime.class));
+		s.setCompletedAt(rs.getObject("completed_at", LocalDateTime.class));
+		s.setReservationStatus(rs.getString("reservation_status"));
+		s.setPrice(rs.getInt("price"));
+		s.setDistanceMeters((Integer) rs.getObject("distance_meters"));
+		return s;
+	}
+
+	// 匯出專用（設定 fetch size），不影響共用的 JdbcTemplate
+	private NamedParameterJdbcTemplate exportTemplate() {
+		NamedParameterJdbcTemplate t = exportTemplate;
+		if (t == null) {
+			JdbcTemplate jdbc = new JdbcTemplate(namedParameterJdbcTemplate.getJdbcTemplate().getDataSource());
+			jdbc.setFetchSize(EXPORT_FETCH_SIZE);
+			t = new NamedParameterJdbcTemplate(jdbc);
+			exportTemplate = t;
+		}
+		return t;
+	}
+
+}
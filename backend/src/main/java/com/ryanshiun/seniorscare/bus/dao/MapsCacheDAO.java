@@ -0,0 +1,28 @@
+package com.ryanshiun.seniorscare.bus.dao;
+
+import java.time.LocalDateTime;
+
+/**
+ * Google Maps 查詢結果的持久快取（地址 → 經緯度、起訖點 → 公尺），重開機後仍可命中
+ */
+public interface MapsCacheDAO {
+
+	// 資料表不存在時建立（maps_geocode_cache / maps_distance_cache）
+	void ensureTables();
+
+	// 查詢未過期的經緯度 "lat,lng"；沒有回 null
+	String findLatLng(String addressKey, LocalDateTime now);
+
+	// 新增或覆蓋經緯度
+	void upsertLatLng(String addressKey, String latLng, LocalDateTime expiresAt);
+
+	// 查詢未過期的駕車距離（公尺）；沒有回 null
+	Integer findDistance(String originKey, String destinationKey, LocalDateTime now);
+
+	// 新增或覆蓋駕車距離
+	void upsertDistance(String originKey, String destinationKey, int meters, LocalDateTime expiresAt);
+
+	// 刪除已過期資料，回傳刪除筆數
+	int deleteExpired(LocalDateTime now);
+
+}
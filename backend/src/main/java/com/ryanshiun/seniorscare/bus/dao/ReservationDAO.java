@@ -45,4 +45,10 @@ public interface ReservationDAO {
 	// 查詢是否有「同一台車、同一日的時段重疊」的紀錄
 	boolean hasConflict(Integer busId, LocalDateTime scheduledAt, int slotMinutes);
 
+	// 查詢某時間之後所有 Active 的預約（建立派車時間軸索引用）
+	List<BusReservation> findActiveFrom(LocalDateTime from);
+
+	// 取最近有座標與實際距離的預約，回傳 {start_lat, start_lng, end_lat, end_lng, distance_meters}
+	List<double[]> findDistanceSamples(int limit);
+
 }
@@ -0,0 +1,37 @@
+package com.ryanshiun.seniorscare.bus.dao;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.ryanshiun.seniorscare.bus.dto.ResSearchParams;
+import com.ryanshiun.seniorscare.bus.dto.ResSummary;
+
+/**
+ * 預約分頁搜尋 / 匯出，以及地址 token 索引的維護
+ */
+public interface ReservationSearchDAO {
+
+	// 建立搜尋用索引與地址 token 表（已存在則略過）
+	void ensureSchema();
+
+	/**
+	 * 依條件查一頁（依 scheduled_at, id 排序）；cursorAt/cursorId 為上一頁最後一筆，第一頁傳 null。
+	 * useTokens 為 false 時地址條件直接用 LIKE（token 索引尚未補齊時）。
+	 */
+	List<ResSummary> search(ResSearchParams params, LocalDateTime cursorAt, Integer cursorId, int limit, boolean asc,
+			boolean useTokens);
+
+	// 依條件逐筆串流輸出全部結果（不整批載入記憶體）
+	void export(ResSearchParams params, boolean asc, boolean useTokens, Consumer<ResSummary> consumer);
+
+	// 重建單筆預約的地址 token
+	void indexAddresses(int reservationId, String startAddress, String endAddress);
+
+	// 刪除單筆預約的地址 token
+	void deleteTokens(int reservationId);
+
+	// 尚未建立 token 的預約（id 大於 afterId，依 id 排序），補建排程逐批取用
+	List<ResSummary> findUnindexed(int afterId, int limit);
+
+}
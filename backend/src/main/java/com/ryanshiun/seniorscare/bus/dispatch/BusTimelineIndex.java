@@ -0,0 +1,295 @@
+package com.ryanshiun.seniorscare.bus.dispatch;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ryanshiun.seniorscare.bus.dao.ReservationDAO;
+import com.ryanshiun.seniorscare.bus.model.BusReservation;
+import com.ryanshiun.seniorscare.bus.utils.TimeUtils;
+
+/**
+ * 派車時間軸索引：每台車一組依出發時間排序的陣列（只放 Active 預約）。
+ * 每單佔用固定 SLOT_MINUTES，兩單重疊 ⇔ 出發時間相差小於一個時段，
+ * 因此衝突檢查只要二分搜尋一次（O(log n)），不必每次下 COUNT(*) 查資料庫。
+ *
+ * 陣列採 copy-on-write：讀取不加鎖；新增/移除在該車的鎖內重建陣列。
+ * 新增預約走 reserve()：「檢查 → 寫 DB → 加入索引」在該車的鎖內完成，同一台車不會被重複預約。
+ *
+ * 索引只載入重建當下（台北時間）一個時段前之後出發的單；檢查更早的時段時改查資料庫。
+ */
+@Component
+public class BusTimelineIndex {
+
+	private static final Logger log = LoggerFactory.getLogger(BusTimelineIndex.class);
+
+	// 每單固定時段（分鐘）
+	public static final int SLOT_MINUTES = 120;
+
+	private final ReservationDAO reservationDAO;
+
+	private final Map<Integer, Timeline> timelines = new ConcurrentHashMap<>();
+	// 預約 id → 所在車輛/時間，更新與刪除時用來找到舊位置
+	private final Map<Integer, long[]> positions = new ConcurrentHashMap<>();
+	private final Map<Integer, Object> locks = new ConcurrentHashMap<>();
+	// 新增/更新拿讀鎖（可並行）；重建拿寫鎖，確保重建時讀到的 DB 與索引一致
+	private final ReentrantReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+	private volatile boolean loaded;
+	// 索引涵蓋的最早出發時間（分鐘）；更早出發的單不在索引內
+	private volatile long windowStart = Long.MAX_VALUE;
+
+	public BusTimelineIndex(ReservationDAO reservationDAO) {
+		this.reservationDAO = reservationDAO;
+	}
+
+	// 單一車輛的時間軸（不可變快照）
+	private record Timeline(long[] starts, int[] ids) {
+		static final Timeline EMPTY = new Timeline(new long[0], new int[0]);
+
+		// 第一個 starts[i] >= minute 的位置
+		int lowerBound(long minute) {
+			int lo = 0;
+			int hi = starts.length;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (starts[mid] < minute)
+					lo = mid + 1;
+				else
+					hi = mid;
+			}
+			return lo;
+		}
+	}
+
+	/**
+	 * 該車在 [at, at + SLOT) 是否已有其他 Active 預約；excludeId 為更新時排除自己（可為 null）
+	 */
+	public boolean hasConflict(int busId, LocalDateTime at, Integer excludeId) {
+		ensureLoaded();
+		return conflicts(busId, toMinute(at), excludeId);
+	}
+
+	/**
+	 * 檢查衝突並寫入：同一台車的「檢查 → insert → 加入索引」在同一把鎖內完成。
+	 * 有衝突回 null（不會呼叫 insert）；否則回傳 insert 產生的預約 id。
+	 */
+	public Integer reserve(int busId, LocalDateTime at, Supplier<Integer> insert) {
+		ensureLoaded();
+		long minute = toMinute(at);
+		rebuildLock.readLock().lock();
+		try {
+			synchronized (lockFor(busId)) {
+				if (conflicts(busId, minute, null))
+					return null;
+				Integer id = insert.get();
+				if (id == null)
+					throw new IllegalStateException("新增預約失敗：未取得預約編號");
+				insert(id, busId, minute);
+				return id;
+			}
+		} finally {
+			rebuildLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 該車從 from 起（含）第一個可排的出發時間；until 前都排不進去回 null
+	 */
+	public LocalDateTime earliestFreeSlot(int busId, LocalDateTime from, LocalDateTime until) {
+		ensureLoaded();
+		// 早於索引範圍的時段都已過去，不能再預約
+		long candidate = Math.max(toMinute(from), firstCoveredMinute());
+		long limit = toMinute(until);
+		while (candidate <= limit) {
+			long conflict = conflictStart(busId, candidate, null);
+			if (conflict == Long.MIN_VALUE)
+				return toDateTime(candidate);
+			// 跳到擋住的那一單結束之後
+			candidate = conflict + SLOT_MINUTES;
+		}
+		return null;
+	}
+
+	// 在清單中找出 at 這個時段沒有衝突的車
+	public List<Integer> freeBuses(List<Integer> busIds, LocalDateTime at) {
+		ensureLoaded();
+		long minute = toMinute(at);
+		List<Integer> free = new ArrayList<>();
+		for (Integer busId : busIds) {
+			if (!conflicts(busId, minute, null))
+				free.add(busId);
+		}
+		return free;
+	}
+
+	/*
+	 * 該車在 [minute, minute + SLOT) 是否有衝突。可能衝突的單出發時間落在 (minute - SLOT, minute + SLOT)，
+	 * 其中有早於索引範圍的就改查資料庫（資料庫無法排除 excludeId，保守視為衝突）。
+	 */
+	private boolean conflicts(int busId, long minute, Integer excludeId) {
+		if (minute < firstCoveredMinute())
+			return reservationDAO.hasConflict(busId, toDateTime(minute), SLOT_MINUTES);
+		return conflictStart(busId, minute, excludeId) != Long.MIN_VALUE;
+	}
+
+	// 從這一分鐘起出發的檢查，可能衝突的單都在索引內
+	private long firstCoveredMinute() {
+		long start = windowStart;
+		return start == Long.MAX_VALUE ? start : start + SLOT_MINUTES - 1;
+	}
+
+	// 回傳第一筆衝突的出發時間（分鐘），沒有衝突回 Long.MIN_VALUE（呼叫端需確認 minute 在索引範圍內）
+	private long conflictStart(int busId, long minute, Integer excludeId) {
+		Timeline t = timelines.getOrDefault(busId, Timeline.EMPTY);
+		for (int i = t.lowerBound(minute - SLOT_MINUTES + 1); i < t.starts.length; i++) {
+			if (t.starts[i] >= minute + SLOT_MINUTES)
+				break;
+			if (excludeId == null || t.ids[i] != excludeId)
+				return t.starts[i];
+		}
+		return Long.MIN_VALUE;
+	}
+
+	// ===== 維護：更新 / 刪除 / 完乘 =====
+
+	// 依更新後的資料同步：仍是 Active 就放到新位置，否則移出
+	public void sync(BusReservation r) {
+		if (r == null || r.getId() == null)
+			return;
+		rebuildLock.readLock().lock();
+		try {
+			delete(r.getId());
+			if (r.getBusId() != null && r.getScheduledAt() != null
+					&& "active".equalsIgnoreCase(r.getReservationStatus())) {
+				synchronized (lockFor(r.getBusId())) {
+					insert(r.getId(), r.getBusId(), toMinute(r.getScheduledAt()));
+				}
+			}
+		} finally {
+			rebuildLock.readLock().unlock();
+		}
+	}
+
+	public void remove(int reservationId) {
+		rebuildLock.readLock().lock();
+		try {
+			delete(reservationId);
+		} finally {
+			rebuildLock.readLock().unlock();
+		}
+	}
+
+	private Object lockFor(int busId) {
+		return locks.computeIfAbsent(busId, k -> new Object());
+	}
+
+	// 呼叫端需持有該車的鎖
+	private void insert(int reservationId, int busId, long minute) {
+		Timeline t = timelines.getOrDefault(busId, Timeline.EMPTY);
+		int pos = t.lowerBound(minute);
+		int n = t.starts.length;
+		long[] starts = new long[n + 1];
+		int[] ids = new int[n + 1];
+		System.arraycopy(t.starts, 0, starts, 0, pos);
+		System.arraycopy(t.ids, 0, ids, 0, pos);
+		starts[pos] = minute;
+		ids[pos] = reservationId;
+		System.arraycopy(t.starts, pos, starts, pos + 1, n - pos);
+		System.arraycopy(t.ids, pos, ids, pos + 1, n - pos);
+		timelines.put(busId, new Timeline(starts, ids));
+		positions.put(reservationId, new long[] { busId, minute });
+	}
+
+	private void delete(int reservationId) {
+		long[] p = positions.get(reservationId);
+		if (p == null)
+			return;
+		int busId = (int) p[0];
+		synchronized (lockFor(busId)) {
+			if (positions.remove(reservationId) == null)
+				return;
+			Timeline t = timelines.getOrDefault(busId, Timeline.EMPTY);
+			int n = t.ids.length;
+			for (int i = t.lowerBound(p[1]); i < n && t.starts[i] == p[1]; i++) {
+				if (t.ids[i] != reservationId)
+					continue;
+				long[] starts = new long[n - 1];
+				int[] ids = new int[n - 1];
+				System.arraycopy(t.starts, 0, starts, 0, i);
+				System.arraycopy(t.ids, 0, ids, 0, i);
+				System.arraycopy(t.starts, i + 1, starts, i, n - i - 1);
+				System.arraycopy(t.ids, i + 1, ids, i, n - i - 1);
+				timelines.put(busId, new Timeline(starts, ids));
+				return;
+			}
+		}
+	}
+
+	// ===== 載入 =====
+
+	private void ensureLoaded() {
+		if (!loaded)
+			rebuild();
+	}
+
+	/**
+	 * 從資料庫重建整份索引；定期執行以修正其他節點或直接改 DB 造成的差異。
+	 * 持有寫鎖期間不會有新增/更新進行，讀到的資料與索引一致。
+	 */
+	@Scheduled(fixedDelayString = "${app.bus.timeline.rebuild-ms:300000}", initialDelay = 300_000)
+	public void rebuild() {
+		rebuildLock.writeLock().lock();
+		try {
+			// 一個時段之前出發的單，已不可能跟現在之後的新預約衝突
+			LocalDateTime from = TimeUtils.taipeiNowMinute().minusMinutes(SLOT_MINUTES);
+			List<BusReservation> active = reservationDAO.findActiveFrom(from);
+
+			Map<Integer, List<long[]>> byBus = new HashMap<>();
+			for (BusReservation r : active) {
+				if (r.getBusId() == null || r.getScheduledAt() == null)
+					continue;
+				byBus.computeIfAbsent(r.getBusId(), k -> new ArrayList<>())
+						.add(new long[] { toMinute(r.getScheduledAt()), r.getId() });
+			}
+
+			timelines.clear();
+			positions.clear();
+			byBus.forEach((busId, list) -> {
+				list.sort((a, b) -> Long.compare(a[0], b[0]));
+				long[] starts = new long[list.size()];
+				int[] ids = new int[list.size()];
+				for (int i = 0; i < starts.length; i++) {
+					starts[i] = list.get(i)[0];
+					ids[i] = (int) list.get(i)[1];
+					positions.put(ids[i], new long[] { busId, starts[i] });
+				}
+				timelines.put(busId, new Timeline(starts, ids));
+			});
+			windowStart = toMinute(from);
+			loaded = true;
+			log.info("[TIMELINE] rebuilt: buses={}, active reservations={}", byBus.size(), positions.size());
+		} finally {
+			rebuildLock.writeLock().unlock();
+		}
+	}
+
+	private static long toMinute(LocalDateTime t) {
+		return t.toEpochSecond(ZoneOffset.UTC) / 60;
+	}
+
+	private static LocalDateTime toDateTime(long minute) {
+		return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+	}
+
+}
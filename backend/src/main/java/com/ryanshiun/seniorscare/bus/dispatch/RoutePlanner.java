@@ -0,0 +1,340 @@
+package com.ryanshiun.seniorscare.bus.dispatch;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import com.ryanshiun.seniorscare.bus.dto.DispatchPlan;
+import com.ryanshiun.seniorscare.bus.utils.DistanceEstimator;
+
+/**
+ * 每日派車規劃（啟發式，單執行緒、有時間上限）：
+ * 1. 依出發時間排序，時間窗內「上車點相近、下車點也相近」的預約併成同一批（不超過車輛座位）
+ * 2. 每批先依序接人、再依序送人；接送順序用最近鄰建初始路徑，再用 2-opt 改善
+ * 3. 依批次出發時間把批次分給「來得及趕到、空車移動最短」的車
+ *
+ * 距離用直線距離 × 道路係數估算，不打 Google API。
+ * 2-opt 超過時間上限就停止，保留目前最佳解。
+ */
+public final class RoutePlanner {
+
+	/** 規劃用的單筆行程 */
+	public record Trip(int id, LocalDateTime at, double pickupLat, double pickupLng, double dropoffLat,
+			double dropoffLng) {
+	}
+
+	/** 可派的車與可載人數 */
+	public record Vehicle(int busId, int capacity) {
+	}
+
+	private final int windowMinutes;
+	private final double radiusMeters;
+	private final double metersPerMinute;
+	private final double roadFactor;
+	private final int stopMinutes;
+	private final int lateToleranceMinutes;
+	private final long budgetMs;
+
+	public RoutePlanner(int windowMinutes, double radiusMeters, double speedKmh, double roadFactor,
+			int stopMinutes, int lateToleranceMinutes, long budgetMs) {
+		this.windowMinutes = windowMinutes;
+		this.radiusMeters = radiusMeters;
+		this.metersPerMinute = speedKmh * 1000 / 60;
+		this.roadFactor = roadFactor;
+		this.stopMinutes = stopMinutes;
+		this.lateToleranceMinutes = lateToleranceMinutes;
+		this.budgetMs = budgetMs;
+	}
+
+	// 一批共乘：接送停靠順序（已最佳化）與出發時間
+	private static final class Batch {
+		final List<Trip> trips = new ArrayList<>();
+		final List<DispatchPlan.RouteStop> stops = new ArrayList<>();
+		LocalDateTime start;
+	}
+
+	// 車輛狀態：何時、在哪裡有空
+	private static final class VehicleState {
+		final Vehicle vehicle;
+		final DispatchPlan.BusRoute route = new DispatchPlan.BusRoute();
+		LocalDateTime freeAt;
+		double lat = Double.NaN;
+		double lng = Double.NaN;
+		double meters;
+
+		VehicleState(Vehicle vehicle) {
+			this.vehicle = vehicle;
+			route.setBusId(vehicle.busId());
+		}
+	}
+
+	/**
+	 * @param batching false 時每單各自成一批（用來算比較基準）
+	 */
+	public DispatchPlan plan(List<Trip> input, List<Vehicle> vehicles, boolean batching) {
+		long begin = System.nanoTime();
+		long deadline = begin + budgetMs * 1_000_000;
+
+		List<Trip> trips = new ArrayList<>(input);
+		trips.sort(Comparator.comparing(Trip::at));
+		int maxCapacity = vehicles.stream().mapToInt(Vehicle::capacity).max().orElse(1);
+
+		List<Batch> batches = batching ? cluster(trips, Math.max(maxCapacity, 1)) : singletons(trips);
+		for (Batch b : batches) {
+			sequence(b, deadline);
+		}
+
+		DispatchPlan plan = new DispatchPlan();
+		plan.setTrips(trips.size());
+		plan.setBatches(batches.size());
+		assign(batches, vehicles, plan);
+		plan.setElapsedMs((System.nanoTime() - begin) / 1_000_000);
+		return plan;
+	}
+
+	// ===== 1. 分批 =====
+
+	private List<Batch> cluster(List<Trip> trips, int maxSize) {
+		boolean[] used = new boolean[trips.size()];
+		List<Batch> batches = new ArrayList<>();
+		for (int i = 0; i < trips.size(); i++) {
+			if (used[i])
+				continue;
+			Trip seed = trips.get(i);
+			Batch b = new Batch();
+			b.trips.add(seed);
+			used[i] = true;
+			LocalDateTime windowEnd = seed.at().plusMinutes(windowMinutes);
+			for (int j = i + 1; j < trips.size() && b.trips.size() < maxSize; j++) {
+				Trip t = trips.get(j);
+				if (t.at().isAfter(windowEnd))
+					break;
+				if (used[j])
+					continue;
+				if (DistanceEstimator.haversineMeters(seed.pickupLat(), seed.pickupLng(), t.pickupLat(),
+						t.pickupLng()) <= radiusMeters
+						&& DistanceEstimator.haversineMeters(seed.dropoffLat(), seed.dropoffLng(), t.dropoffLat(),
+								t.dropoffLng()) <= radiusMeters) {
+					b.trips.add(t);
+					used[j] = true;
+				}
+			}
+			batches.add(b);
+		}
+		return batches;
+	}
+
+	private static List<Batch> singletons(List<Trip> trips) {
+		List<Batch> batches = new ArrayList<>(trips.size());
+		for (Trip t : trips) {
+			Batch b = new Batch();
+			b.trips.add(t);
+			batches.add(b);
+		}
+		return batches;
+	}
+
+	// ===== 2. 批內接送順序：最近鄰 + 2-opt =====
+
+	private void sequence(Batch b, long deadline) {
+		int n = b.trips.size();
+		double[][] pickups = new double[n][];
+		double[][] dropoffs = new double[n][];
+		for (int i = 0; i < n; i++) {
+			Trip t = b.trips.get(i);
+			pickups[i] = new double[] { t.pickupLat(), t.pickupLng(), i };
+			dropoffs[i] = new double[] { t.dropoffLat(), t.dropoffLng(), i };
+		}
+		// 最早的那位一定先接（trips 已依時間排序，index 0 即最早）
+		int[] pickOrder = twoOpt(pickups, nearestNeighbor(pickups, pickups[0]), deadline);
+		double[] lastPickup = pickups[pickOrder[pickOrder.length - 1]];
+		int[] dropOrder = twoOpt(dropoffs, nearestNeighbor(dropoffs, lastPickup), deadline, lastPickup);
+
+		b.start = b.trips.get(0).at();
+		for (int i : pickOrder) {
+			Trip t = b.trips.get(i);
+			b.stops.add(new DispatchPlan.RouteStop(t.id(), "PICKUP", t.pickupLat(), t.pickupLng(), null));
+		}
+		for (int i : dropOrder) {
+			Trip t = b.trips.get(i);
+			b.stops.add(new DispatchPlan.RouteStop(t.id(), "DROPOFF", t.dropoffLat(), t.dropoffLng(), null));
+		}
+	}
+
+	// 從 from 出發，每次走到最近的未拜訪點；from 若本身在清單中會排在第一個
+	private int[] nearestNeighbor(double[][] points, double[] from) {
+		int n = points.length;
+		boolean[] visited = new boolean[n];
+		int[] order = new int[n];
+		double lat = from[0];
+		double lng = from[1];
+		for (int k = 0; k < n; k++) {
+			int best = -1;
+			double bestD = Double.MAX_VALUE;
+			for (int i = 0; i < n; i++) {
+				if (visited[i])
+					continue;
+				// 起點是接送清單中的第一位時，強制先選他
+				if (k == 0 && points[i] == from) {
+					best = i;
+					break;
+				}
+				double d = meters(lat, lng, points[i][0], points[i][1]);
+				if (d < bestD) {
+					bestD = d;
+					best = i;
+				}
+			}
+			visited[best] = true;
+			order[k] = best;
+			lat = points[best][0];
+			lng = points[best][1];
+		}
+		return order;
+	}
+
+	// 開放路徑（起點固定為 order[0]）的 2-opt
+	private int[] twoOpt(double[][] points, int[] order, long deadline) {
+		return twoOpt(points, order, deadline, null);
+	}
+
+	/**
+	 * anchor 不為 null 時，路徑前面還接著 anchor（例如最後一位上車點），第一個點也可以被交換。
+	 */
+	private int[] twoOpt(double[][] points, int[] order, long deadline, double[] anchor) {
+		int n = order.length;
+		int first = anchor == null ? 1 : 0;
+		if (n - first < 2)
+			return order;
+		boolean improved = true;
+		while (improved && System.nanoTime() < deadline) {
+			improved = false;
+			for (int i = first; i < n - 1; i++) {
+				double[] prev = i == 0 ? anchor : points[order[i - 1]];
+				double[] a = points[order[i]];
+				for (int k = i + 1; k < n; k++) {
+					double[] b = points[order[k]];
+					double[] next = k + 1 < n ? points[order[k + 1]] : null;
+					double before = meters(prev, a) + (next == null ? 0 : meters(b, next));
+					double after = meters(prev, b) + (next == null ? 0 : meters(a, next));
+					if (after + 1e-6 < before) {
+						reverse(order, i, k);
+						a = points[order[i]];
+						improved = true;
+					}
+				}
+			}
+		}
+		return order;
+	}
+
+	private static void reverse(int[] arr, int i, int k) {
+		while (i < k) {
+			int tmp = arr[i];
+			arr[i++] = arr[k];
+			arr[k--] = tmp;
+		}
+	}
+
+	// ===== 3. 批次分派到車輛 =====
+
+	private void assign(List<Batch> batches, List<Vehicle> vehicles, DispatchPlan plan) {
+		List<VehicleState> states = vehicles.stream().map(VehicleState::new).toList();
+		batches.sort(Comparator.comparing(b -> b.start));
+
+		double total = 0;
+		for (Batch b : batches) {
+			DispatchPlan.RouteStop firstStop = b.stops.get(0);
+			VehicleState best = null;
+			double bestDeadhead = Double.MAX_VALUE;
+			LocalDateTime bestArrival = null;
+			for (VehicleState v : states) {
+				if (v.vehicle.capacity() < b.trips.size())
+					continue;
+				double deadhead = Double.isNaN(v.lat) ? 0 : meters(v.lat, v.lng, firstStop.getLat(), firstStop.getLng());
+				LocalDateTime arrival = v.freeAt == null ? b.start : v.freeAt.plusMinutes(minutes(deadhead));
+				if (arrival.isAfter(b.start.plusMinutes(lateToleranceMinutes)))
+					continue;
+				// 同樣來得及時，優先空車移動短的；全新的車視為 0，但排在已出勤且順路的車之後
+				double score = deadhead + (v.freeAt == null ? radiusMeters : 0);
+				if (score < bestDeadhead) {
+					bestDeadhead = score;
+					best = v;
+					bestArrival = arrival;
+				}
+			}
+			if (best == null) {
+				for (Trip t : b.trips)
+					plan.getUnassigned().add(t.id());
+				continue;
+			}
+
+			double deadhead = Double.isNaN(best.lat) ? 0
+					: meters(best.lat, best.lng, firstStop.getLat(), firstStop.getLng());
+			best.meters += deadhead;
+			LocalDateTime clock = bestArrival.isBefore(b.start) ? b.start : bestArrival;
+			double lat = firstStop.getLat();
+			double lng = firstStop.getLng();
+			for (DispatchPlan.RouteStop s : b.stops) {
+				double d = meters(lat, lng, s.getLat(), s.getLng());
+				best.meters += d;
+				clock = clock.plusMinutes(minutes(d));
+				if ("PICKUP".equals(s.getType())) {
+					// 提早到就等到預約時間
+					LocalDateTime scheduled = scheduledOf(b, s.getReservationId());
+					if (clock.isBefore(scheduled))
+						clock = scheduled;
+				}
+				s.setEta(clock);
+				best.route.getStops().add(s);
+				clock = clock.plusMinutes(stopMinutes);
+				lat = s.getLat();
+				lng = s.getLng();
+			}
+			best.freeAt = clock;
+			best.lat = lat;
+			best.lng = lng;
+			best.route.setTrips(best.route.getTrips() + b.trips.size());
+		}
+
+		int used = 0;
+		for (VehicleState v : states) {
+			if (v.route.getStops().isEmpty())
+				continue;
+			used++;
+			v.route.setDistanceKm(round2(v.meters / 1000));
+			plan.getRoutes().add(v.route);
+			total += v.meters;
+		}
+		plan.setBusesUsed(used);
+		plan.setTotalKm(round2(total / 1000));
+	}
+
+	private static LocalDateTime scheduledOf(Batch b, int reservationId) {
+		for (Trip t : b.trips) {
+			if (t.id() == reservationId)
+				return t.at();
+		}
+		return b.start;
+	}
+
+	// ===== 距離 / 時間 =====
+
+	private double meters(double lat1, double lng1, double lat2, double lng2) {
+		return DistanceEstimator.haversineMeters(lat1, lng1, lat2, lng2) * roadFactor;
+	}
+
+	private double meters(double[] a, double[] b) {
+		return meters(a[0], a[1], b[0], b[1]);
+	}
+
+	private long minutes(double meters) {
+		return (long) Math.ceil(meters / metersPerMinute);
+	}
+
+	private static double round2(double v) {
+		return Math.round(v * 100.0) / 100.0;
+	}
+
+}
@@ -0,0 +1,59 @@
+package com.ryanshiun.seniorscare.bus.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** 每日派車規劃結果：每台車的停靠順序、共乘批次數與里程比較 */
+@Data
+@NoArgsConstructor
+public class DispatchPlan {
+
+	private LocalDate date;
+
+	private int trips;                  //參與規劃的預約數
+
+	private int batches;                //共乘批次數（一批 = 同一趟車載的預約）
+
+	private int busesUsed;              //實際派出的車數
+
+	private double totalKm;             //規劃後總里程（含空車移動）
+
+	private double isolatedKm;          //每單各自成趟時的總里程（比較基準）
+
+	private long elapsedMs;             //求解時間
+
+	private List<BusRoute> routes = new ArrayList<>();
+
+	private List<Integer> unassigned = new ArrayList<>();   //排不進任何車的預約
+
+	private List<Integer> skipped = new ArrayList<>();      //缺座標無法規劃的預約
+
+	/** 一台車當天的路線 */
+	@Data
+	@NoArgsConstructor
+	public static class BusRoute {
+		private int busId;
+		private int trips;
+		private double distanceKm;
+		private List<RouteStop> stops = new ArrayList<>();
+	}
+
+	/** 路線上的一個停靠點：PICKUP 上車 / DROPOFF 下車 */
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class RouteStop {
+		private int reservationId;
+		private String type;
+		private double lat;
+		private double lng;
+		private LocalDateTime eta;
+	}
+
+}
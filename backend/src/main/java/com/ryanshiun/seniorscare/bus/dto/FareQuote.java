@@ -20,4 +20,8 @@ public class FareQuote {
 
 	private int rehabusFare;            //復康巴士車費(原價*1/3) 
 
+	private boolean estimated;          //true = 暫估報價（Google 尚未回應，以直線距離 × 道路係數估算）
+
+	private String distanceSource;      //距離來源：google / estimate
+
 }
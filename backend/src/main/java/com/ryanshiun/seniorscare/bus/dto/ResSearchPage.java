@@ -0,0 +1,20 @@
+package com.ryanshiun.seniorscare.bus.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** 預約分頁結果；hasMore 為 true 時帶 nextCursor 查下一頁 */
+@Data
+@NoArgsConstructor
+public class ResSearchPage {
+
+	private List<ResSummary> items = new ArrayList<>();
+
+	private String nextCursor;
+
+	private boolean hasMore;
+
+}
@@ -0,0 +1,44 @@
+package com.ryanshiun.seniorscare.bus.dto;
+
+import java.time.LocalDateTime;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import lombok.Data;
+
+/** 預約分頁搜尋條件（派車後台用；以 cursor 往下翻頁） */
+@Data
+public class ResSearchParams {
+
+	// 會員ID
+	private Integer memberId;
+
+	// 巴士編號
+	private Integer busId;
+
+	// 訂單狀態（Active / completed ...）
+	private String reservationStatus;
+
+	// 起點地址關鍵字
+	private String startAddress;
+
+	// 終點地址關鍵字
+	private String endAddress;
+
+	// 預約搭車時間區間 [from, to)
+	@DateTimeFormat(pattern = "yyyy-MM-dd['T'][' ']HH:mm[:ss]")
+	private LocalDateTime from;
+
+	@DateTimeFormat(pattern = "yyyy-MM-dd['T'][' ']HH:mm[:ss]")
+	private LocalDateTime to;
+
+	// 上一頁回傳的 nextCursor；第一頁不帶
+	private String cursor;
+
+	// 每頁筆數（1~200，預設 50）
+	private Integer size;
+
+	// asc：由舊到新；預設 desc（最新的在前）
+	private String sort;
+
+}
@@ -0,0 +1,33 @@
+package com.ryanshiun.seniorscare.bus.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** 預約列表用的精簡欄位（不含座標、備註等大欄位） */
+@Data
+@NoArgsConstructor
+public class ResSummary {
+
+	private Integer id;                   // 預約單號
+
+	private Integer memberId;             // 會員標號
+
+	private Integer busId;                // 巴士編號
+
+	private String startAddress;          // 起點地址
+
+	private String endAddress;            // 終點地址
+
+	private LocalDateTime scheduledAt;    // 預約搭車時間
+
+	private LocalDateTime completedAt;    // 訂單完乘時間
+
+	private String reservationStatus;     // 訂單狀態
+
+	private int price;                    // 車費
+
+	private Integer distanceMeters;       // 距離(公尺)
+
+}
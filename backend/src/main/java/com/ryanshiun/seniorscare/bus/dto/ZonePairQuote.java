@@ -0,0 +1,21 @@
+package com.ryanshiun.seniorscare.bus.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** 批次票價查詢的一組起迄行政區；回應時帶回票價（查無票價時 price 為 null） */
+@Data
+@NoArgsConstructor
+public class ZonePairQuote {
+
+	private int fromZone;               //起始行政區
+
+	private int toZone;                 //目的行政區
+
+	private Integer price;              //車費
+
+	private Integer priceId;            //價格對應編號
+
+	private String priceStatus;         //價格狀態
+
+}
@@ -0,0 +1,171 @@
+package com.ryanshiun.seniorscare.bus.fare;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.ryanshiun.seniorscare.bus.dao.FarePriceDAO;
+import com.ryanshiun.seniorscare.bus.dao.FareZoneDAO;
+import com.ryanshiun.seniorscare.bus.dto.ZonePairQuote;
+import com.ryanshiun.seniorscare.bus.model.FarePrice;
+import com.ryanshiun.seniorscare.bus.model.FareZone;
+
+/**
+ * 行政區票價矩陣（記憶體）：
+ * 行政區編號依大小排成序號（ordinal），票價放在 int[起點序號][終點序號]，查價只是兩次陣列索引。
+ * 票價/行政區異動時整份重建再替換（copy-on-write），讀取端永遠看到完整的一份，不需加鎖。
+ */
+@Component
+public class FareMatrix {
+
+	private static final Logger log = LoggerFactory.getLogger(FareMatrix.class);
+
+	// 該起迄組合沒有票價
+	private static final int NONE = -1;
+
+	private final FareZoneDAO fareZoneDAO;
+	private final FarePriceDAO farePriceDAO;
+
+	private volatile Snapshot snapshot;
+
+	public FareMatrix(FareZoneDAO fareZoneDAO, FarePriceDAO farePriceDAO) {
+		this.fareZoneDAO = fareZoneDAO;
+		this.farePriceDAO = farePriceDAO;
+	}
+
+	/**
+	 * zoneIds：排序後的行政區編號（index 即序號）
+	 * prices：票價；rowIndex：對應 rows 的位置（查完整 FarePrice 用），皆以 NONE 表示無資料
+	 */
+	private record Snapshot(int[] zoneIds, int[][] prices, int[][] rowIndex, FarePrice[] rows) {
+
+		int ordinal(int zoneId) {
+			int i = Arrays.binarySearch(zoneIds, zoneId);
+			return i < 0 ? NONE : i;
+		}
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void warmUp() {
+		try {
+			rebuild();
+		} catch (Exception e) {
+			log.warn("[FARE-MATRIX] 啟動時建立失敗，第一次查價時再建立：{}", e.getMessage());
+		}
+	}
+
+	// 重新從資料庫建立整份矩陣後替換
+	public synchronized void rebuild() {
+		List<FareZone> zones = fareZoneDAO.findAllZone();
+		List<FarePrice> rows = farePriceDAO.findAll();
+
+		// 票價可能引用到已刪除的行政區，一併納入序號
+		TreeSet<Integer> ids = new TreeSet<>();
+		for (FareZone z : zones)
+			ids.add(z.getZoneId());
+		for (FarePrice p : rows) {
+			ids.add(p.getFromZone());
+			ids.add(p.getToZone());
+		}
+		int[] zoneIds = ids.stream().mapToInt(Integer::intValue).toArray();
+		int n = zoneIds.length;
+
+		int[][] prices = new int[n][n];
+		int[][] rowIndex = new int[n][n];
+		for (int i = 0; i < n; i++) {
+			Arrays.fill(prices[i], NONE);
+			Arrays.fill(rowIndex[i], NONE);
+		}
+		FarePrice[] rowArray = rows.toArray(new FarePrice[0]);
+		for (int r = 0; r < rowArray.length; r++) {
+			FarePrice p = rowArray[r];
+			int from = Arrays.binarySearch(zoneIds, p.getFromZone());
+			int to = Arrays.binarySearch(zoneIds, p.getToZone());
+			// 與 DAO 原本的查法一致：同一組起迄有多筆時取第一筆
+			if (rowIndex[from][to] != NONE)
+				continue;
+			prices[from][to] = p.getPrice();
+			rowIndex[from][to] = r;
+		}
+
+		snapshot = new Snapshot(zoneIds, prices, rowIndex, rowArray);
+		log.info("[FARE-MATRIX] rebuilt: zones={}, prices={}", n, rowArray.length);
+	}
+
+	// 依起迄行政區查票價；沒有回 null（回傳複本，呼叫端修改不影響矩陣）
+	public FarePrice get(int fromZone, int toZone) {
+		Snapshot s = current();
+		int from = s.ordinal(fromZone);
+		int to = s.ordinal(toZone);
+		if (from == NONE || to == NONE || s.rowIndex[from][to] == NONE)
+			return null;
+		return copyOf(s.rows[s.rowIndex[from][to]]);
+	}
+
+	// 批次查價：每組起迄填入票價（查無則 price 為 null）
+	public List<ZonePairQuote> quote(List<ZonePairQuote> pairs) {
+		Snapshot s = current();
+		List<ZonePairQuote> out = new ArrayList<>(pairs.size());
+		for (ZonePairQuote in : pairs) {
+			ZonePairQuote q = new ZonePairQuote();
+			q.setFromZone(in.getFromZone());
+			q.setToZone(in.getToZone());
+			int from = s.ordinal(in.getFromZone());
+			int to = s.ordinal(in.getToZone());
+			if (from != NONE && to != NONE && s.rowIndex[from][to] != NONE) {
+				FarePrice p = s.rows[s.rowIndex[from][to]];
+				q.setPrice(s.prices[from][to]);
+				q.setPriceId(p.getPriceId());
+				q.setPriceStatus(p.getPriceStatus());
+			}
+			out.add(q);
+		}
+		return out;
+	}
+
+	// 整張票價表（後台票價矩陣畫面用）：zones 為行政區編號，prices[i][j] 為 zones[i] → zones[j] 的票價或 null
+	public Map<String, Object> table() {
+		Snapshot s = current();
+		int n = s.zoneIds.length;
+		Integer[][] prices = new Integer[n][n];
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				prices[i][j] = s.prices[i][j] == NONE ? null : s.prices[i][j];
+			}
+		}
+		Map<String, Object> out = new LinkedHashMap<>();
+		out.put("zones", s.zoneIds);
+		out.put("prices", prices);
+		return out;
+	}
+
+	private Snapshot current() {
+		Snapshot s = snapshot;
+		if (s == null) {
+			rebuild();
+			s = snapshot;
+		}
+		return s;
+	}
+
+	private static FarePrice copyOf(FarePrice p) {
+		FarePrice c = new FarePrice();
+		c.setPriceId(p.getPriceId());
+		c.setFromZone(p.getFromZone());
+		c.setToZone(p.getToZone());
+		c.setPrice(p.getPrice());
+		c.setActualDistanceKm(p.getActualDistanceKm());
+		c.setPriceStatus(p.getPriceStatus());
+		return c;
+	}
+
+}
@@ -0,0 +1,19 @@
+package com.ryanshiun.seniorscare.bus.service;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import com.ryanshiun.seniorscare.bus.dto.DispatchPlan;
+
+/**
+ * 每日派車規劃：把當天 Active 預約依時間與地點併成共乘批次，排出每台車的接送順序
+ */
+public interface DispatchService {
+
+	// 規劃指定日期的派車路線
+	DispatchPlan planDay(LocalDate date);
+
+	// 以隨機產生的一天（trips 筆預約、buses 台車）測試規劃速度與里程節省
+	Map<String, Object> benchmark(int trips, int buses, long seed);
+
+}
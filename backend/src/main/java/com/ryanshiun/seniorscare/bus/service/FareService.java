@@ -20,7 +20,9 @@ public interface FareService {
      *
      * @param origin 起點（例：桃園市政府）
      * @param destination 終點（例：中壢車站）
-     * @return 試算結果。如果地址無效或 API 失敗，回傳 null。
+     * Google 未能即時回應時，以快取座標的直線距離 × 道路係數先回暫估報價（estimated = true）。
+     *
+     * @return 試算結果。如果地址無效或 API 失敗且無座標可估算，回傳 null。
      */
 	 FareQuote quoteByAddresses(String origin, String destination);
 	
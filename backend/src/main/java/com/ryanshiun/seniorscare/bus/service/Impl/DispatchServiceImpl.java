@@ -0,0 +1,159 @@
+package com.ryanshiun.seniorscare.bus.service.Impl;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.ryanshiun.seniorscare.bus.dao.ReservationDAO;
+import com.ryanshiun.seniorscare.bus.dispatch.RoutePlanner;
+import com.ryanshiun.seniorscare.bus.dto.DispatchPlan;
+import com.ryanshiun.seniorscare.bus.model.BusReservation;
+import com.ryanshiun.seniorscare.bus.model.Rehabus;
+import com.ryanshiun.seniorscare.bus.service.BusService;
+import com.ryanshiun.seniorscare.bus.service.DispatchService;
+import com.ryanshiun.seniorscare.bus.utils.DistanceEstimator;
+
+@Service
+public class DispatchServiceImpl implements DispatchService {
+
+	// 桃園市區大致範圍（產生測試資料用）
+	private static final double BASE_LAT = 24.96;
+	private static final double BASE_LNG = 121.26;
+
+	private final ReservationDAO reservationDAO;
+	private final BusService busService;
+	private final DistanceEstimator distanceEstimator;
+
+	@Value("${app.dispatch.window-minutes:30}")
+	private int windowMinutes;
+
+	@Value("${app.dispatch.radius-meters:3000}")
+	private double radiusMeters;
+
+	@Value("${app.dispatch.speed-kmh:30}")
+	private double speedKmh;
+
+	@Value("${app.dispatch.stop-minutes:5}")
+	private int stopMinutes;
+
+	@Value("${app.dispatch.late-tolerance-minutes:15}")
+	private int lateToleranceMinutes;
+
+	@Value("${app.dispatch.time-budget-ms:2000}")
+	private long timeBudgetMs;
+
+	public DispatchServiceImpl(ReservationDAO reservationDAO, BusService busService,
+			DistanceEstimator distanceEstimator) {
+		this.reservationDAO = reservationDAO;
+		this.busService = busService;
+		this.distanceEstimator = distanceEstimator;
+	}
+
+	@Override
+	public DispatchPlan planDay(LocalDate date) {
+		List<BusReservation> reservations = reservationDAO.findByFilter(null, null, null, date.atStartOfDay(),
+				date.plusDays(1).atStartOfDay());
+
+		List<RoutePlanner.Trip> trips = new ArrayList<>();
+		List<Integer> skipped = new ArrayList<>();
+		for (BusReservation r : reservations) {
+			if (!"active".equalsIgnoreCase(r.getReservationStatus()) || r.getScheduledAt() == null)
+				continue;
+			if (r.getStartLat() == null || r.getStartLng() == null || r.getEndLat() == null
+					|| r.getEndLng() == null) {
+				skipped.add(r.getId());
+				continue;
+			}
+			trips.add(new RoutePlanner.Trip(r.getId(), r.getScheduledAt(), r.getStartLat().doubleValue(),
+					r.getStartLng().doubleValue(), r.getEndLat().doubleValue(), r.getEndLng().doubleValue()));
+		}
+
+		List<RoutePlanner.Vehicle> vehicles = new ArrayList<>();
+		for (Rehabus bus : busService.findAllBus()) {
+			String status = bus.getStatus() == null ? "" : bus.getStatus().trim().toLowerCase();
+			if ("維修中".equals(status) || "maintenance".equals(status))
+				continue;
+			vehicles.add(new RoutePlanner.Vehicle(bus.getBusId(),
+					Math.max(1, bus.getSeatCapacity() + bus.getWheelchairCapacity())));
+		}
+
+		RoutePlanner planner = planner();
+		DispatchPlan plan = planner.plan(trips, vehicles, true);
+		plan.setIsolatedKm(planner.plan(trips, vehicles, false).getTotalKm());
+		plan.setDate(date);
+		plan.setSkipped(skipped);
+		return plan;
+	}
+
+	@Override
+	public Map<String, Object> benchmark(int trips, int buses, long seed) {
+		Random rnd = new Random(seed);
+		LocalDate day = LocalDate.now().plusDays(1);
+
+		// 20 個住宅區、8 家醫院/復健中心，上下車點在中心附近隨機散開
+		double[][] homes = randomCenters(rnd, 20, 0.08);
+		double[][] hospitals = randomCenters(rnd, 8, 0.05);
+		List<RoutePlanner.Trip> list = new ArrayList<>(trips);
+		for (int i = 0; i < trips; i++) {
+			double[] h = homes[rnd.nextInt(homes.length)];
+			double[] d = hospitals[rnd.nextInt(hospitals.length)];
+			LocalDateTime at = day.atTime(7, 0).plusMinutes(rnd.nextInt(11 * 60));
+			list.add(new RoutePlanner.Trip(i + 1, at, jitter(rnd, h[0]), jitter(rnd, h[1]), jitter(rnd, d[0]),
+					jitter(rnd, d[1])));
+		}
+		List<RoutePlanner.Vehicle> vehicles = new ArrayList<>(buses);
+		for (int i = 0; i < buses; i++) {
+			vehicles.add(new RoutePlanner.Vehicle(i + 1, 4 + rnd.nextInt(3)));
+		}
+
+		RoutePlanner planner = planner();
+		DispatchPlan batched = planner.plan(list, vehicles, true);
+		DispatchPlan isolated = planner.plan(list, vehicles, false);
+
+		Map<String, Object> out = new LinkedHashMap<>();
+		out.put("trips", trips);
+		out.put("buses", buses);
+		out.put("batched", summary(batched));
+		out.put("isolated", summary(isolated));
+		out.put("kmSavedPercent", isolated.getTotalKm() == 0 ? 0.0
+				: Math.round((1 - batched.getTotalKm() / isolated.getTotalKm()) * 1000) / 10.0);
+		return out;
+	}
+
+	private RoutePlanner planner() {
+		return new RoutePlanner(windowMinutes, radiusMeters, speedKmh, distanceEstimator.getRoadFactor(),
+				stopMinutes, lateToleranceMinutes, timeBudgetMs);
+	}
+
+	private static Map<String, Object> summary(DispatchPlan plan) {
+		Map<String, Object> m = new LinkedHashMap<>();
+		m.put("batches", plan.getBatches());
+		m.put("busesUsed", plan.getBusesUsed());
+		m.put("totalKm", plan.getTotalKm());
+		m.put("unassigned", plan.getUnassigned().size());
+		m.put("elapsedMs", plan.getElapsedMs());
+		return m;
+	}
+
+	private static double[][] randomCenters(Random rnd, int n, double spread) {
+		double[][] centers = new double[n][];
+		for (int i = 0; i < n; i++) {
+			centers[i] = new double[] { BASE_LAT + (rnd.nextDouble() - 0.5) * spread * 2,
+					BASE_LNG + (rnd.nextDouble() - 0.5) * spread * 2 };
+		}
+		return centers;
+	}
+
+	// 約 ±1 公里
+	private static double jitter(Random rnd, double v) {
+		return v + (rnd.nextDouble() - 0.5) * 0.018;
+	}
+
+}
@@ -1,10 +1,16 @@
 package com.ryanshiun.seniorscare.bus.service.Impl;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 import org.springframework.stereotype.Component;
 
 import com.ryanshiun.seniorscare.bus.dto.FareQuote;
 import com.ryanshiun.seniorscare.bus.fare.FareCalculator;
 import com.ryanshiun.seniorscare.bus.service.FareService;
+import com.ryanshiun.seniorscare.bus.utils.DistanceEstimator;
 import com.ryanshiun.seniorscare.bus.utils.GoogleMapsClient;
 
 import lombok.RequiredArgsConstructor;
@@ -13,14 +19,43 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class FareServiceImpl implements FareService {
 
+	// 精確距離等多久就先回估算報價（快取命中幾乎是立即回來）
+	private static final long EXACT_WAIT_MS = 800;
+	// 沒有座標可估算時，最多等 Google 多久（連線 5s + 讀取 10s）
+	private static final long EXACT_TIMEOUT_MS = 15_000;
+
 	private final GoogleMapsClient maps;
+	private final DistanceEstimator estimator;
 
 	public FareQuote quoteByAddresses(String origin, String destination) {
 
-		Integer meters = maps.getDrivingDistanceMeters(origin, destination);
-		if (meters == null)
+		// 精確距離在背景查，查完會寫入快取，下一次報價就是精確值
+		CompletableFuture<Integer> exact = maps.getDrivingDistanceMetersAsync(origin, destination);
+
+		Integer meters = await(exact, EXACT_WAIT_MS);
+		if (meters != null)
+			return buildQuote(origin, destination, meters, false);
+
+		if (!exact.isDone()) {
+			// Google 還沒回：有快取座標就先回暫估報價
+			Integer estimated = estimator.estimateMeters(origin, destination);
+			if (estimated != null)
+				return buildQuote(origin, destination, estimated, true);
+
+			meters = await(exact, EXACT_TIMEOUT_MS);
+			if (meters != null)
+				return buildQuote(origin, destination, meters, false);
+		}
+
+		// Google 失敗（null）：備援路徑 geocode 過的座標已在快取，用來估算
+		Integer estimated = estimator.estimateMeters(origin, destination);
+		if (estimated == null)
 			return null;
 		// 取距離失敗（地址無效、API 錯誤等）
+		return buildQuote(origin, destination, estimated, true);
+	}
+
+	private FareQuote buildQuote(String origin, String destination, int meters, boolean estimated) {
 
 		int taxi = FareCalculator.calcTaxiFareByTYMeters(meters);
 		// 依照桃園計程車計費算出費用(不含延滯計時)
@@ -39,7 +74,22 @@ public class FareServiceImpl implements FareService {
 		fareQuote.setTaxiFare(taxi);
 		fareQuote.setRehabusFare(rehabus);
 
+		fareQuote.setEstimated(estimated);
+		fareQuote.setDistanceSource(estimated ? "estimate" : "google");
+
 		return fareQuote;
 	}
 
+	// 等待非同步結果，逾時或失敗都回 null（背景查詢不取消，讓結果照樣寫進快取）
+	private static Integer await(CompletableFuture<Integer> future, long timeoutMs) {
+		try {
+			return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException | ExecutionException e) {
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+
 }
@@ -1,6 +1,7 @@
 package com.ryanshiun.seniorscare.bus.service.Impl;
 
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.server.ResponseStatusException;
@@ -9,6 +10,8 @@ import org.springframework.stereotype.Component;
 
 import com.ryanshiun.seniorscare.bus.dao.FarePriceDAO;
 import com.ryanshiun.seniorscare.bus.dto.PriceRequest;
+import com.ryanshiun.seniorscare.bus.dto.ZonePairQuote;
+import com.ryanshiun.seniorscare.bus.fare.FareMatrix;
 import com.ryanshiun.seniorscare.bus.model.FarePrice;
 import com.ryanshiun.seniorscare.bus.service.PriceService;
 
@@ -18,22 +21,34 @@ public class PriceServiceImpl implements PriceService {
 	@Autowired
 	private FarePriceDAO farePriceDAO;
 
+	// 記憶體票價矩陣：查價走矩陣，異動後重建
+	@Autowired
+	private FareMatrix fareMatrix;
+
 	// 新增票價
 	@Override
 	public Integer insertPrice(PriceRequest priceRequest) {
-		return farePriceDAO.insertPrice(priceRequest);
+		Integer priceId = farePriceDAO.insertPrice(priceRequest);
+		fareMatrix.rebuild();
+		return priceId;
 	}
 
 	// 刪除票價
 	@Override
 	public Integer deletePrice(int priceId) {
-		return farePriceDAO.deletePrice(priceId);
+		Integer rows = farePriceDAO.deletePrice(priceId);
+		if (rows != null && rows > 0) {
+			fareMatrix.rebuild();
+		}
+		return rows;
 	}
 
 	// 更新票價
 	@Override
 	public FarePrice updatePrice(PriceRequest priceRequest) {
-		return farePriceDAO.updatePrice(priceRequest);
+		FarePrice updated = farePriceDAO.updatePrice(priceRequest);
+		fareMatrix.rebuild();
+		return updated;
 	}
 
 	// 查詢全部票價
@@ -50,7 +65,7 @@ public class PriceServiceImpl implements PriceService {
 
 	// 依起迄行政區查票價（票價試算用）
 	public FarePrice getPriceByZone(int fromZone, int toZone) {
-		return farePriceDAO.getPriceByZone(fromZone, toZone);
+		return fareMatrix.get(fromZone, toZone);
 	}
 
 	// 依起點查全部票價
@@ -69,7 +84,20 @@ public class PriceServiceImpl implements PriceService {
 			
 			throw new ResponseStatusException(HttpStatus.NOT_FOUND,"找不到 priceId = " + priceId);
 		} 
+		fareMatrix.rebuild();
 	       return update;
 	}
 
+	// 批次查詢多組起迄行政區票價
+	@Override
+	public List<ZonePairQuote> quoteBatch(List<ZonePairQuote> pairs) {
+		return fareMatrix.quote(pairs);
+	}
+
+	// 整張票價矩陣
+	@Override
+	public Map<String, Object> priceTable() {
+		return fareMatrix.table();
+	}
+
 }
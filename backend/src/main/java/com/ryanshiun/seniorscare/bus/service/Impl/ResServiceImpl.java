@@ -1,15 +1,27 @@
 package com.ryanshiun.seniorscare.bus.service.Impl;
 
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
 import com.ryanshiun.seniorscare.bus.utils.GoogleMapsClient;
 
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 
 import com.ryanshiun.seniorscare.bus.fare.FareCalculator;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,9 +31,14 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.ryanshiun.seniorscare.bus.dao.ReservationDAO;
+import com.ryanshiun.seniorscare.bus.dao.ReservationSearchDAO;
+import com.ryanshiun.seniorscare.bus.dispatch.BusTimelineIndex;
 import com.ryanshiun.seniorscare.bus.dto.ResCreateRequest;
 import com.ryanshiun.seniorscare.bus.dto.ResQueryParams;
 import com.ryanshiun.seniorscare.bus.dto.ResRequest;
+import com.ryanshiun.seniorscare.bus.dto.ResSearchPage;
+import com.ryanshiun.seniorscare.bus.dto.ResSearchParams;
+import com.ryanshiun.seniorscare.bus.dto.ResSummary;
 import com.ryanshiun.seniorscare.bus.model.BusReservation;
 
 import com.ryanshiun.seniorscare.bus.model.Rehabus;
@@ -32,18 +49,35 @@ import com.ryanshiun.seniorscare.bus.utils.TimeUtils;
 @Component
 public class ResServiceImpl implements ResService {
 
+	private static final Logger log = LoggerFactory.getLogger(ResServiceImpl.class);
+
+	// 分頁筆數
+	private static final int DEFAULT_PAGE_SIZE = 50;
+	private static final int MAX_PAGE_SIZE = 200;
+	// 每次補建地址 token 的筆數
+	private static final int TOKEN_BACKFILL_BATCH = 1000;
+
+	@Autowired
+	private ReservationSearchDAO reservationSearchDAO;
 	@Autowired
 	private ReservationDAO reservationDAO;
 	@Autowired
 	private GoogleMapsClient googleMapsClient;
 	@Autowired
 	private BusService busService;
+	@Autowired
+	private BusTimelineIndex busTimelineIndex;
 
 	// 小工具：狀態標準化（去空白、小寫）與雙語對應
 	private String norm(String word) {
 		return word == null ? "" : word.trim().toLowerCase();
 	}
 
+	// 地址 token 是否已全部補齊；補齊前地址條件只用 LIKE，避免漏掉舊資料
+	private volatile boolean tokenIndexReady = false;
+	// 補建進度（上一批最後一筆預約 id）：寫入失敗的預約不會擋住後面的資料，掃完一輪再從頭重試
+	private volatile int tokenBackfillAfterId = 0;
+
 	private boolean isMaintenance(String status) {
 		String word = norm(status);
 		return "維修中".equals(word) || "maintenance".equals(word);
@@ -77,6 +111,12 @@ public class ResServiceImpl implements ResService {
 			throw new ResponseStatusException(HttpStatus.CONFLICT, "該巴士目前狀態為「維修中」，無法預約");
 		}
 
+		// 不接受過去的時段（派車時間軸索引也只涵蓋現在之後）
+		LocalDateTime requestedAt = resCreateRequest.getScheduledAt();
+		if (requestedAt == null || TimeUtils.truncateToMinute(requestedAt).isBefore(TimeUtils.taipeiNowMinute())) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "預約時間不可早於現在");
+		}
+
 		// 計算距離（呼叫 Google Maps API）
 		Integer distanceMeters = googleMapsClient.getDrivingDistanceMeters(resCreateRequest.getStartAddress(),
 				resCreateRequest.getEndAddress());
@@ -93,21 +133,31 @@ public class ResServiceImpl implements ResService {
 		LocalDateTime scheduledAt = TimeUtils.truncateToMinute(resCreateRequest.getScheduledAt());
 		String reservationStatus = "Active";
 
-		// 送入前做「時段重疊」檢查（固定時間片長，依你的需求調整）
-		int slotMinutes = 120; // 例：每單固定 2 小時
-		if (reservationDAO.hasConflict(resCreateRequest.getBusId(), scheduledAt, slotMinutes)) {
+		// 送入前做「時段重疊」檢查（每單固定 BusTimelineIndex.SLOT_MINUTES，查記憶體時間軸索引）
+		// 檢查與寫入在同一台車的鎖內完成，避免兩人同時搶到同一時段
+		Integer id = busTimelineIndex.reserve(busId, scheduledAt, () -> reservationDAO.insertRes(resCreateRequest,
+				createdAt, scheduledAt, reservationStatus, distanceMeters, price));
+		if (id == null) {
 			throw new ResponseStatusException(HttpStatus.CONFLICT, "該時段已被預約");
 		}
-
-		return reservationDAO.insertRes(resCreateRequest, createdAt, scheduledAt, reservationStatus, distanceMeters,
-				price);
+		indexAddresses(id, resCreateRequest.getStartAddress(), resCreateRequest.getEndAddress());
+		return id;
 
 	}
 
 	// 刪除預約表單
 	@Override
 	public Integer deleteRes(int id) {
-		return reservationDAO.deleteRes(id);
+		Integer rows = reservationDAO.deleteRes(id);
+		if (rows != null && rows > 0) {
+			busTimelineIndex.remove(id);
+			try {
+				reservationSearchDAO.deleteTokens(id);
+			} catch (RuntimeException e) {
+				log.warn("刪除地址 token 失敗 id={}：{}", id, e.getMessage());
+			}
+		}
+		return rows;
 	}
 
 	// 修改預約表單
@@ -147,7 +197,13 @@ public class ResServiceImpl implements ResService {
 
 		}
 
-		return reservationDAO.updateRes(resRequest, distanceMetersForUpdate, priceForUpdate);
+		BusReservation updated = reservationDAO.updateRes(resRequest, distanceMetersForUpdate, priceForUpdate);
+		// 車輛、時間或狀態可能改變，同步時間軸索引
+		busTimelineIndex.sync(updated);
+		if (addressChanged && updated != null) {
+			indexAddresses(updated.getId(), updated.getStartAddress(), updated.getEndAddress());
+		}
+		return updated;
 	}
 
 	// 查詢所有預約表單
@@ -200,6 +256,7 @@ public class ResServiceImpl implements ResService {
 		if (rows == 0) {
 			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Reservation not found: id=" + id);
 		}
+		busTimelineIndex.remove(id);
 		// 更新後查一次，把完整資料回傳
 		return reservationDAO.findViewById(id);
 	}
@@ -215,4 +272,184 @@ public class ResServiceImpl implements ResService {
 
 	}
 
+	// 指定時段可派的車（排除維修中與該時段已有預約的車）
+	@Override
+	public List<Rehabus> findFreeBuses(LocalDateTime at) {
+		LocalDateTime slot = TimeUtils.truncateToMinute(at);
+		List<Rehabus> candidates = busService.findAllBus().stream().filter(b -> !isMaintenance(b.getStatus()))
+				.toList();
+		Set<Integer> free = new HashSet<>(
+				busTimelineIndex.freeBuses(candidates.stream().map(Rehabus::getBusId).toList(), slot));
+		return candidates.stream().filter(b -> free.contains(b.getBusId())).toList();
+	}
+
+	// 從 from 起最早可預約的時段；busId 為 null 時找整個車隊最早的一台
+	@Override
+	public Map<String, Object> findEarliestSlot(Integer busId, LocalDateTime from, LocalDateTime until) {
+		LocalDateTime start = TimeUtils.truncateToMinute(from);
+		LocalDateTime end = until != null ? until : start.plusDays(7);
+
+		List<Integer> busIds;
+		if (busId != null) {
+			Rehabus bus = busService.findById(busId);
+			if (bus == null) {
+				throw new ResponseStatusException(HttpStatus.NOT_FOUND, "找不到指定的巴士編號（id=" + busId + "）");
+			}
+			busIds = List.of(busId);
+		} else {
+			busIds = busService.findAllBus().stream().filter(b -> !isMaintenance(b.getStatus()))
+					.map(Rehabus::getBusId).toList();
+		}
+
+		Integer bestBus = null;
+		LocalDateTime best = null;
+		for (Integer id : busIds) {
+			LocalDateTime slot = busTimelineIndex.earliestFreeSlot(id, start, best != null ? best : end);
+			if (slot != null && (best == null || slot.isBefore(best))) {
+				best = slot;
+				bestBus = id;
+				if (best.equals(start))
+					break;
+			}
+		}
+
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("busId", bestBus);
+		result.put("scheduledAt", best);
+		result.put("slotMinutes", BusTimelineIndex.SLOT_MINUTES);
+		return result;
+	}
+
+	// 後台預約列表：依 (scheduled_at, id) 排序的 keyset 分頁，只取列表欄位
+	@Override
+	public ResSearchPage search(ResSearchParams params) {
+		int size = params.getSize() == null ? DEFAULT_PAGE_SIZE
+				: Math.max(1, Math.min(params.getSize(), MAX_PAGE_SIZE));
+		boolean asc = "asc".equalsIgnoreCase(params.getSort());
+
+		LocalDateTime cursorAt = null;
+		Integer cursorId = null;
+		if (params.getCursor() != null && !params.getCursor().isBlank()) {
+			Object[] c = decodeCursor(params.getCursor());
+			cursorAt = (LocalDateTime) c[0];
+			cursorId = (Integer) c[1];
+		}
+
+		// 多抓一筆判斷是否還有下一頁
+		List<ResSummary> rows = reservationSearchDAO.search(params, cursorAt, cursorId, size + 1, asc, tokenIndexReady);
+
+		ResSearchPage page = new ResSearchPage();
+		boolean hasMore = rows.size() > size;
+		List<ResSummary> items = hasMore ? rows.subList(0, size) : rows;
+		page.setItems(items);
+		page.setHasMore(hasMore);
+		if (hasMore) {
+			ResSummary last = items.get(items.size() - 1);
+			page.setNextCursor(encodeCursor(last.getScheduledAt(), last.getId()));
+		}
+		return page;
+	}
+
+	// 依相同條件匯出 CSV（資料庫端串流，逐筆寫出）
+	@Override
+	public void exportToCSV(ResSearchParams params, PrintWriter writer) {
+		boolean asc = "asc".equalsIgnoreCase(params.getSort());
+		writer.println("id,memberId,busId,startAddress,endAddress,scheduledAt,completedAt,reservationStatus,price,distanceMeters");
+		reservationSearchDAO.export(params, asc, tokenIndexReady, r -> {
+			StringBuilder line = new StringBuilder(128);
+			line.append(r.getId()).append(',')
+					.append(r.getMemberId()).append(',')
+					.append(r.getBusId()).append(',')
+					.append(csv(r.getStartAddress())).append(',')
+					.append(csv(r.getEndAddress())).append(',')
+					.append(r.getScheduledAt() == null ? "" : r.getScheduledAt()).append(',')
+					.append(r.getCompletedAt() == null ? "" : r.getCompletedAt()).append(',')
+					.append(csv(r.getReservationStatus())).append(',')
+					.append(r.getPrice()).append(',')
+					.append(r.getDistanceMeters() == null ? "" : r.getDistanceMeters());
+			writer.println(line);
+		});
+		writer.flush();
+	}
+
+	// 啟動時建立搜尋索引（失敗只記錄，不影響其他功能）
+	@EventListener(ApplicationReadyEvent.class)
+	public void initSearchIndex() {
+		try {
+			reservationSearchDAO.ensureSchema();
+			backfillAddressTokens();
+		} catch (RuntimeException e) {
+			log.warn("建立預約搜尋索引失敗，地址條件改用 LIKE：{}", e.getMessage());
+		}
+	}
+
+	/*
+	 * 補建沒有「已建立」標記的預約地址 token：啟動時補齊舊資料後地址條件才改走 token 表；
+	 * 就緒後仍持續執行，補上新增 / 修改時寫入失敗的那幾筆。
+	 * 每筆各自一個交易（經由 DAO proxy 呼叫 indexAddresses）
+	 */
+	@Scheduled(fixedDelayString = "${app.reservation.token-backfill-ms:60000}", initialDelay = 60000)
+	public synchronized void backfillAddressTokens() {
+		try {
+			List<ResSummary> pending = reservationSearchDAO.findUnindexed(tokenBackfillAfterId, TOKEN_BACKFILL_BATCH);
+			int indexed = 0;
+			for (ResSummary r : pending) {
+				try {
+					reservationSearchDAO.indexAddresses(r.getId(), r.getStartAddress(), r.getEndAddress());
+					indexed++;
+				} catch (RuntimeException e) {
+					log.warn("補建地址 token 失敗 id={}：{}", r.getId(), e.getMessage());
+				}
+				tokenBackfillAfterId = r.getId();
+			}
+			if (pending.size() < TOKEN_BACKFILL_BATCH) {
+				tokenBackfillAfterId = 0;
+				if (!tokenIndexReady) {
+					tokenIndexReady = true;
+					log.info("預約地址 token 索引已就緒");
+				}
+			}
+			if (indexed > 0) {
+				log.info("已補建 {} 筆預約地址 token", indexed);
+			}
+		} catch (RuntimeException e) {
+			log.warn("補建地址 token 失敗：{}", e.getMessage());
+		}
+	}
+
+	// 地址 token 寫入失敗不影響預約本身；該筆沒有「已建立」標記，下一輪補建排程會重建
+	private void indexAddresses(int id, String startAddress, String endAddress) {
+		try {
+			reservationSearchDAO.indexAddresses(id, startAddress, endAddress);
+		} catch (RuntimeException e) {
+			log.warn("建立地址 token 失敗 id={}：{}", id, e.getMessage());
+		}
+	}
+
+	// cursor = base64url("epochSecond:id")
+	private static String encodeCursor(LocalDateTime at, int id) {
+		String raw = at.toEpochSecond(ZoneOffset.UTC) + ":" + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static Object[] decodeCursor(String cursor) {
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			int sep = raw.indexOf(':');
+			LocalDateTime at = LocalDateTime.ofEpochSecond(Long.parseLong(raw.substring(0, sep)), 0, ZoneOffset.UTC);
+			return new Object[] { at, Integer.parseInt(raw.substring(sep + 1)) };
+		} catch (RuntimeException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "無效的 cursor");
+		}
+	}
+
+	private static String csv(String s) {
+		if (s == null)
+			return "";
+		if (s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0) {
+			return "\"" + s.replace("\"", "\"\"") + "\"";
+		}
+		return s;
+	}
+
 }
@@ -7,6 +7,7 @@ import org.springframework.stereotype.Service;
 
 import com.ryanshiun.seniorscare.bus.dao.FareZoneDAO;
 import com.ryanshiun.seniorscare.bus.dto.ZoneRequest;
+import com.ryanshiun.seniorscare.bus.fare.FareMatrix;
 import com.ryanshiun.seniorscare.bus.model.FareZone;
 import com.ryanshiun.seniorscare.bus.service.ZoneService;
 
@@ -15,20 +16,32 @@ public class ZoneServiceImpl implements ZoneService {
 
 	@Autowired
 	private FareZoneDAO zoneDAO;
+
+	// 行政區異動後重建票價矩陣
+	@Autowired
+	private FareMatrix fareMatrix;
 	
 	//新增行政區
 	public Integer insertZone(ZoneRequest zoneRequest) {
-		return zoneDAO.insertZone(zoneRequest);
+		Integer zoneId = zoneDAO.insertZone(zoneRequest);
+		fareMatrix.rebuild();
+		return zoneId;
 	}
 		
 		//刪除行政區
 		public Integer deleteZone(int zoneId) {
-			return zoneDAO.deleteZone(zoneId);
+			Integer rows = zoneDAO.deleteZone(zoneId);
+			if (rows != null && rows > 0) {
+				fareMatrix.rebuild();
+			}
+			return rows;
 		}
 		
 		//修改行政區
 		public FareZone updateZone(ZoneRequest zoneRequest) {
-			return zoneDAO.updateZone(zoneRequest);
+			FareZone updated = zoneDAO.updateZone(zoneRequest);
+			fareMatrix.rebuild();
+			return updated;
 		}
 		
 		//查詢所有行政區
@@ -1,10 +1,12 @@
 package com.ryanshiun.seniorscare.bus.service;
 
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.stereotype.Service;
 
 import com.ryanshiun.seniorscare.bus.dto.PriceRequest;
+import com.ryanshiun.seniorscare.bus.dto.ZonePairQuote;
 import com.ryanshiun.seniorscare.bus.model.FarePrice;
 
 /**
@@ -40,4 +42,10 @@ public interface PriceService {
 	// 切換票價狀態
 	Integer updatePriceStatus(int priceId, String priceStatus);
 
+	// 批次查詢多組起迄行政區票價（後台票價表）
+	List<ZonePairQuote> quoteBatch(List<ZonePairQuote> pairs);
+
+	// 整張票價矩陣：行政區編號與 prices[起][迄]
+	Map<String, Object> priceTable();
+
 }
@@ -1,6 +1,8 @@
 package com.ryanshiun.seniorscare.bus.service;
 
 
+import java.io.PrintWriter;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -9,7 +11,10 @@ import org.springframework.stereotype.Service;
 import com.ryanshiun.seniorscare.bus.dto.ResCreateRequest;
 import com.ryanshiun.seniorscare.bus.dto.ResQueryParams;
 import com.ryanshiun.seniorscare.bus.dto.ResRequest;
+import com.ryanshiun.seniorscare.bus.dto.ResSearchPage;
+import com.ryanshiun.seniorscare.bus.dto.ResSearchParams;
 import com.ryanshiun.seniorscare.bus.model.BusReservation;
+import com.ryanshiun.seniorscare.bus.model.Rehabus;
 
 /**
  * Data Access Object（資料存取物件），一個「專門負責與資料庫互動的方法集合」的類別 它的主要用途是： 操作資料庫（CRUD）、查資料 /
@@ -41,5 +46,17 @@ public interface ResService {
 	// 已完乘，自動放入時間
 	Map<String, Object> markCompleted(int id);
 	Map<String, Object> findViewById(int id);
+
+	// 指定時段可派的車
+	List<Rehabus> findFreeBuses(LocalDateTime at);
+
+	// 最早可預約時段（busId 為 null 時找整個車隊）
+	Map<String, Object> findEarliestSlot(Integer busId, LocalDateTime from, LocalDateTime until);
+
+	// 後台預約列表：多條件 + cursor 分頁
+	ResSearchPage search(ResSearchParams params);
+
+	// 依相同條件匯出 CSV（逐筆寫出）
+	void exportToCSV(ResSearchParams params, PrintWriter writer);
 	
 }
@@ -0,0 +1,66 @@
+package com.ryanshiun.seniorscare.bus.utils;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 地址切詞（給地址 token 索引用）：
+ * 連續的中英數字為一段，每段取「單字」與「相鄰兩字」當 token（英數字一律小寫）。
+ * 查詢字串只取兩字 token（一個字時取單字），所有 token 都命中的才是候選，
+ * 候選再以原本的 LIKE 確認，結果與 LIKE '%關鍵字%' 相同但可以走索引。
+ * 切詞前先做 NFKC 正規化，全形英數字與半形視為同一個 token（與資料庫定序一致）。
+ */
+public final class AddressTokenizer {
+
+	// token 欄位長度（兩個字）
+	public static final int MAX_TOKEN_LENGTH = 2;
+
+	private AddressTokenizer() {
+	}
+
+	// 建索引用：單字 + 相鄰兩字
+	public static Set<String> indexTokens(String text) {
+		Set<String> out = new LinkedHashSet<>();
+		String norm = normalize(text);
+		int prev = -1;
+		for (int i = 0; i < norm.length(); i++) {
+			char c = norm.charAt(i);
+			if (!Character.isLetterOrDigit(c)) {
+				prev = -1;
+				continue;
+			}
+			out.add(String.valueOf(c));
+			if (prev >= 0)
+				out.add(norm.substring(prev, i + 1));
+			prev = i;
+		}
+		return out;
+	}
+
+	// 查詢用：每一段取相鄰兩字；整段只有一個字時取單字
+	public static Set<String> queryTokens(String text) {
+		Set<String> out = new LinkedHashSet<>();
+		String norm = normalize(text);
+		int runStart = -1;
+		for (int i = 0; i <= norm.length(); i++) {
+			boolean word = i < norm.length() && Character.isLetterOrDigit(norm.charAt(i));
+			if (word && runStart < 0)
+				runStart = i;
+			if (!word && runStart >= 0) {
+				if (i - runStart == 1)
+					out.add(norm.substring(runStart, i));
+				for (int j = runStart; j + 1 < i; j++)
+					out.add(norm.substring(j, j + 2));
+				runStart = -1;
+			}
+		}
+		return out;
+	}
+
+	private static String normalize(String text) {
+		return text == null ? "" : Normalizer.normalize(text, Normalizer.Form.NFKC).strip().toLowerCase(Locale.ROOT);
+	}
+
+}
@@ -0,0 +1,70 @@
+package com.ryanshiun.seniorscare.bus.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 簡易斷路器：連續失敗 failureThreshold 次就跳開（OPEN），openMillis 內直接拒絕；
+ * 時間到後放一個試探請求（HALF_OPEN），成功就恢復（CLOSED），失敗再跳開。
+ */
+public class CircuitBreaker {
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final int failureThreshold;
+	private final long openMillis;
+
+	private final AtomicInteger consecutiveFailures = new AtomicInteger();
+	// 0 = 未跳開；否則為跳開的時間點
+	private final AtomicLong openedAt = new AtomicLong();
+	// HALF_OPEN 時只允許一個試探請求
+	private final AtomicInteger probing = new AtomicInteger();
+	private final AtomicLong rejected = new AtomicLong();
+
+	public CircuitBreaker(int failureThreshold, long openMillis) {
+		this.failureThreshold = Math.max(failureThreshold, 1);
+		this.openMillis = Math.max(openMillis, 1);
+	}
+
+	// 是否允許送出請求
+	public boolean tryAcquire() {
+		long opened = openedAt.get();
+		if (opened == 0)
+			return true;
+		if (System.currentTimeMillis() - opened >= openMillis && probing.compareAndSet(0, 1))
+			return true;
+		rejected.incrementAndGet();
+		return false;
+	}
+
+	public void onSuccess() {
+		consecutiveFailures.set(0);
+		openedAt.set(0);
+		probing.set(0);
+	}
+
+	public void onFailure() {
+		if (probing.get() == 1) {
+			// 試探失敗，重新計時
+			openedAt.set(System.currentTimeMillis());
+			probing.set(0);
+			return;
+		}
+		if (consecutiveFailures.incrementAndGet() >= failureThreshold)
+			openedAt.compareAndSet(0, System.currentTimeMillis());
+	}
+
+	public State getState() {
+		long opened = openedAt.get();
+		if (opened == 0)
+			return State.CLOSED;
+		return System.currentTimeMillis() - opened >= openMillis ? State.HALF_OPEN : State.OPEN;
+	}
+
+	public long getRejected() {
+		return rejected.get();
+	}
+
+}
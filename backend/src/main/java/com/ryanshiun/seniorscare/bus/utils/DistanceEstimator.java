@@ -0,0 +1,149 @@
+package com.ryanshiun.seniorscare.bus.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ryanshiun.seniorscare.bus.dao.ReservationDAO;
+
+/**
+ * 離線距離估算（Google 慢或掛掉時的備援）：
+ * 直線距離用 haversine 公式，再乘上「道路係數」換算成大概的行車距離。
+ * 道路係數由歷史預約（有座標與 distance_meters 的資料）學出來：取實際距離 / 直線距離的中位數。
+ */
+@Component
+public class DistanceEstimator {
+
+	private static final Logger log = LoggerFactory.getLogger(DistanceEstimator.class);
+
+	private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+	// 樣本不足時的預設係數（市區道路大約繞 1.3 倍）
+	private static final double DEFAULT_ROAD_FACTOR = 1.3;
+	private static final int MIN_SAMPLES = 20;
+	private static final int MAX_SAMPLES = 2000;
+	// 太短的行程誤差大（同棟大樓、定位飄移），不拿來學
+	private static final double MIN_SAMPLE_METERS = 300;
+
+	private final ReservationDAO reservationDAO;
+	private final MapsCache mapsCache;
+
+	private volatile double roadFactor = DEFAULT_ROAD_FACTOR;
+	private volatile int sampleCount;
+	private volatile boolean learned;
+
+	public DistanceEstimator(ReservationDAO reservationDAO, MapsCache mapsCache) {
+		this.reservationDAO = reservationDAO;
+		this.mapsCache = mapsCache;
+	}
+
+	// 目前使用的道路係數（實際行車距離 / 直線距離）
+	public double getRoadFactor() {
+		ensureLearned();
+		return roadFactor;
+	}
+
+	// 兩點大圓距離（公尺）
+	public static double haversineMeters(double lat1, double lng1, double lat2, double lng2) {
+		double dLat = Math.toRadians(lat2 - lat1);
+		double dLng = Math.toRadians(lng2 - lng1);
+		double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) + Math.cos(Math.toRadians(lat1))
+				* Math.cos(Math.toRadians(lat2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+		return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+	}
+
+	// 以座標估算行車距離（公尺）
+	public int estimateMeters(double lat1, double lng1, double lat2, double lng2) {
+		ensureLearned();
+		return (int) Math.round(haversineMeters(lat1, lng1, lat2, lng2) * roadFactor);
+	}
+
+	/**
+	 * 以地址估算行車距離：只用快取中的經緯度，不打 API、不計入快取命中率；任一端沒有座標回 null。
+	 */
+	public Integer estimateMeters(String origin, String destination) {
+		return estimateFromLatLng(mapsCache.peekLatLng(origin), mapsCache.peekLatLng(destination));
+	}
+
+	// 以 "lat,lng" 字串估算；格式不符回 null
+	public Integer estimateFromLatLng(String originLatLng, String destinationLatLng) {
+		double[] o = parseLatLng(originLatLng);
+		double[] d = parseLatLng(destinationLatLng);
+		if (o == null || d == null)
+			return null;
+		return estimateMeters(o[0], o[1], d[0], d[1]);
+	}
+
+	// 每 6 小時依最新預約重新學一次道路係數
+	@Scheduled(fixedDelayString = "${app.fare.road-factor-refresh-ms:21600000}", initialDelay = 60_000)
+	public void refreshRoadFactor() {
+		try {
+			List<double[]> samples = reservationDAO.findDistanceSamples(MAX_SAMPLES);
+			List<Double> ratios = new ArrayList<>(samples.size());
+			for (double[] s : samples) {
+				double straight = haversineMeters(s[0], s[1], s[2], s[3]);
+				if (straight < MIN_SAMPLE_METERS)
+					continue;
+				double ratio = s[4] / straight;
+				// 排除座標填錯造成的離譜比例
+				if (ratio >= 1.0 && ratio <= 3.0)
+					ratios.add(ratio);
+			}
+			sampleCount = ratios.size();
+			if (ratios.size() >= MIN_SAMPLES) {
+				Collections.sort(ratios);
+				int mid = ratios.size() / 2;
+				roadFactor = ratios.size() % 2 == 1 ? ratios.get(mid) : (ratios.get(mid - 1) + ratios.get(mid)) / 2;
+			} else {
+				roadFactor = DEFAULT_ROAD_FACTOR;
+			}
+			log.info("[ESTIMATE] road factor={} (samples={})", roadFactor, sampleCount);
+		} catch (Exception e) {
+			log.warn("[ESTIMATE] 無法學習道路係數，沿用 {}：{}", roadFactor, e.getMessage());
+		} finally {
+			learned = true;
+		}
+	}
+
+	public Map<String, Object> stats() {
+		Map<String, Object> out = new LinkedHashMap<>();
+		out.put("roadFactor", Math.round(roadFactor * 1000.0) / 1000.0);
+		out.put("samples", sampleCount);
+		out.put("learned", sampleCount >= MIN_SAMPLES);
+		return out;
+	}
+
+	private void ensureLearned() {
+		if (!learned) {
+			synchronized (this) {
+				if (!learned)
+					refreshRoadFactor();
+			}
+		}
+	}
+
+	private static double[] parseLatLng(String latLng) {
+		if (latLng == null)
+			return null;
+		int comma = latLng.indexOf(',');
+		if (comma < 0)
+			return null;
+		try {
+			double lat = Double.parseDouble(latLng.substring(0, comma).trim());
+			double lng = Double.parseDouble(latLng.substring(comma + 1).trim());
+			if (Math.abs(lat) > 90 || Math.abs(lng) > 180)
+				return null;
+			return new double[] { lat, lng };
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+}
@@ -1,24 +1,41 @@
 package com.ryanshiun.seniorscare.bus.utils;
 
 import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
-import java.util.Map;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 /**
  * 這是一個 Spring 的 @Component，專門跟 Google 的兩個 API 溝通：
  * Distance Matrix API：算「起點 → 終點」的駕車距離。
  * Geocoding API（備援）：當文字地址讓 Distance Matrix 認不得時，先把地址轉成 lat,lng 經緯度，再用經緯度去算距離。
  * 成功回傳「公尺」距離（Integer）；失敗回 null，讓上層決定要不要回 400 或自訂錯誤。
+ *
+ * 連線層：JDK HttpClient（HTTP/2、連線重用、非同步），外加
+ * - 斷路器：Google 連續失敗時直接回 null，不再讓每筆預約都卡逾時
+ * - 同時請求上限：避免尖峰時把 API 配額或連線一次打爆；超過上限的請求排隊等名額（不佔住執行緒）
+ * - 對沖請求（預設關閉）：超過近期 p95 延遲還沒回應時再送一個相同請求（同樣經過斷路器），取先回來的
  */
 
 @Component
@@ -32,19 +49,68 @@ public class GoogleMapsClient {
 	//Logger：之後用 log.info 印出 API 狀態，第一時間看出錯在哪（例如 REQUEST_DENIED、NOT_FOUND）
 	private static final Logger log = LoggerFactory.getLogger(GoogleMapsClient.class);
 
+	// 整個查詢（含備援 geocode）最久等多久
+	private static final long OVERALL_TIMEOUT_MS = 20_000;
+	// 近期延遲樣本數（算 p95 用）
+	private static final int LATENCY_WINDOW = 256;
+	// 樣本太少時不對沖
+	private static final int MIN_HEDGE_SAMPLES = 20;
+
 	@Value("${GOOGLE_MAPS_API_KEY}")
 	private String apiKey;
 
-	private final RestTemplate rest;
-
-	// 設定基本逾時（毫秒）
-	public GoogleMapsClient() {
-		SimpleClientHttpRequestFactory schrFactory = new SimpleClientHttpRequestFactory();
-		//連線建立的時間上限:5s
-		schrFactory.setConnectTimeout(5000);
-		schrFactory.setReadTimeout(10000);
+	private final HttpClient http;
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	// 地址/距離兩層快取（記憶體 LRU + 資料表）
+	private final MapsCache cache;
+
+	// API 根網址；測試時可指到本機 stub server（例：http://localhost:8089）
+	private final String baseUrl;
+
+	private final Duration requestTimeout;
+	private final CircuitBreaker breaker;
+	private final int maxConcurrency;
+	private final Semaphore permits;
+	private final long permitWaitMs;
+	// 等待名額中的請求（先進先出）
+	private final Queue<CompletableFuture<Void>> permitWaiters = new ConcurrentLinkedQueue<>();
+	private final boolean hedgeEnabled;
+
+	// 近期延遲（毫秒）環狀緩衝
+	private final long[] latencies = new long[LATENCY_WINDOW];
+	private int latencyCount;
+	private int latencyPos;
+
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
+	private final AtomicLong throttled = new AtomicLong();
+	private final AtomicLong hedges = new AtomicLong();
+	private final AtomicLong hedgeWins = new AtomicLong();
+
+	public GoogleMapsClient(MapsCache cache,
+			@Value("${app.maps.base-url:https://maps.googleapis.com}") String baseUrl,
+			@Value("${app.maps.connect-timeout-ms:5000}") long connectTimeoutMs,
+			@Value("${app.maps.request-timeout-ms:10000}") long requestTimeoutMs,
+			@Value("${app.maps.max-concurrency:16}") int maxConcurrency,
+			@Value("${app.maps.permit-wait-ms:2000}") long permitWaitMs,
+			@Value("${app.maps.breaker.failure-threshold:5}") int failureThreshold,
+			@Value("${app.maps.breaker.open-ms:30000}") long breakerOpenMs,
+			@Value("${app.maps.hedge.enabled:false}") boolean hedgeEnabled) {
+		this.cache = cache;
+		this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+		//連線建立的時間上限:5s；HTTP/2 時同一連線多工，否則由 HttpClient 內建連線池重用
+		this.http = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_2)
+				.connectTimeout(Duration.ofMillis(connectTimeoutMs))
+				.build();
 		//連線成功後，等待回應資料的時間上限:10s
-		this.rest = new RestTemplate(schrFactory);
+		this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+		this.maxConcurrency = Math.max(maxConcurrency, 1);
+		this.permits = new Semaphore(this.maxConcurrency);
+		this.permitWaitMs = Math.max(permitWaitMs, 0);
+		this.breaker = new CircuitBreaker(failureThreshold, breakerOpenMs);
+		this.hedgeEnabled = hedgeEnabled;
 	}
 
 	//文字正規化（只處理空白):避免地址裡有奇怪的空格導致geocoding 失敗
@@ -54,209 +120,400 @@ public class GoogleMapsClient {
 
 		//全形空白(U+3000) → 半形
 		text = text.replace("\u3000", " ");
-		
+
 		//去頭尾空白（含 Unicode）
 		text = text.strip();
-		
+
 		//連續空白壓成單一空白
-		text = text.replaceAll("\\s", " ");
-		
+		text = text.replaceAll("\\s+", " ");
+
 		return text;
 	}
 
+	// ===== 對外同步方法（維持原本介面） =====
+
+	// 將地址 geocode 成經緯度"lat,lng"；需要在 GCP 啟用 Geocoding API（失敗回 null）
+	// 先查快取，沒有才打 API，成功結果寫回快取
+	public String geocodeToLatLng(String address) {
+		return joinOrNull(geocodeAsync(address));
+	}
+
+	/**
+	 * 回傳駕車距離（公尺）；失敗回 null。 先以地址直接呼叫 Distance Matrix；若元素狀態非 OK（NOT_FOUND /
+	 * ZERO_RESULTS 等）， 則兩端地址「同時」geocode 成座標，再重打一次 Distance Matrix。
+	 */
+	public Integer getDrivingDistanceMeters(String origin, String destination) {
+		return joinOrNull(getDrivingDistanceMetersAsync(origin, destination));
+	}
+
+	// ===== 非同步方法 =====
+
+	public CompletableFuture<String> geocodeAsync(String address) {
+		String cached = cache.getLatLng(address);
+		if (cached != null)
+			return CompletableFuture.completedFuture(cached);
+
+		return fetchLatLng(normalize(address)).thenApply(latLng -> {
+			cache.putLatLng(address, latLng);
+			return latLng;
+		});
+	}
+
+	// 背景查駕車距離（結果同樣會寫入快取）；失敗時 future 完成值為 null
+	public CompletableFuture<Integer> getDrivingDistanceMetersAsync(String origin, String destination) {
+		Integer cached = cache.getDistance(origin, destination);
+		if (cached != null)
+			return CompletableFuture.completedFuture(cached);
+
+		return fetchDrivingDistanceMeters(normalize(origin), normalize(destination))
+				.orTimeout(OVERALL_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+				.exceptionally(e -> {
+					log.warn("[GMAPS] exception: {}", unwrap(e).toString());
+					return null;
+				})
+				.thenApply(meters -> {
+					cache.putDistance(origin, destination, meters);
+					return meters;
+				});
+	}
+
+	// 快取 / API 命中率與連線狀態統計
+	public Map<String, Object> cacheStats() {
+		Map<String, Object> out = new LinkedHashMap<>(cache.stats());
+		Map<String, Object> client = new LinkedHashMap<>();
+		client.put("requests", requests.get());
+		client.put("failures", failures.get());
+		client.put("breaker", breaker.getState().name());
+		client.put("breakerRejected", breaker.getRejected());
+		client.put("throttled", throttled.get());
+		client.put("inFlight", inFlight());
+		client.put("p95Ms", p95Millis());
+		client.put("hedgeEnabled", hedgeEnabled);
+		client.put("hedges", hedges.get());
+		client.put("hedgeWins", hedgeWins.get());
+		out.put("client", client);
+		return out;
+	}
+
+	// ===== Google API 呼叫 =====
+
+	private CompletableFuture<Integer> fetchDrivingDistanceMeters(String o1, String d1) {
+		// 第一次：文字地址直接查
+		return callDistanceMatrix(o1, d1).thenCompose(body1 -> {
+			if (body1 == null) {
+				log.warn("[GMAPS] empty body");
+				return CompletableFuture.completedFuture(null);
+			}
+
+			Object topStatus = body1.get("status");
+			Object errMsg = body1.get("error_message");
+			log.info("[GMAPS] top status={}, err={}", topStatus, errMsg);
+			if (topStatus instanceof String && !"OK".equals(topStatus))
+				return CompletableFuture.completedFuture(null);
+
+			Map<?, ?> ele0 = firstElement(body1);
+			if (ele0 == null)
+				return CompletableFuture.completedFuture(null);
+
+			Object eleStatus = ele0.get("status");
+			log.info("[GMAPS] element status={}", eleStatus);
+			if (eleStatus instanceof String && "OK".equals(eleStatus))
+				return CompletableFuture.completedFuture(distanceValue(ele0));
+
+			// 第二次：備援（兩端同時 geocode → 用座標重試）
+			CompletableFuture<String> oFuture = geocodeAsync(o1);
+			CompletableFuture<String> dFuture = geocodeAsync(d1);
+			return oFuture.thenCombine(dFuture, (oLL, dLL) -> new String[] { oLL, dLL }).thenCompose(ll -> {
+				if (ll[0] == null || ll[1] == null) {
+					log.info("[GMAPS] fallback geocode failed. oLL={}, dLL={}", ll[0], ll[1]);
+					return CompletableFuture.completedFuture(null);
+				}
+				return callDistanceMatrix(ll[0], ll[1]).thenApply(body2 -> {
+					Map<?, ?> ele2Map = body2 == null ? null : firstElement(body2);
+					if (ele2Map == null)
+						return null;
+					Object eleStatus2 = ele2Map.get("status");
+					log.info("[GMAPS] element status (fallback)={}", eleStatus2);
+					if (!(eleStatus2 instanceof String) || !"OK".equals(eleStatus2))
+						return null;
+					return distanceValue(ele2Map);
+				});
+			});
+		});
+	}
+
 	//呼叫 Distance Matrix（origin/destination 可以是地址或經緯度 "lat,lng"）
-	private ResponseEntity<Map> callDistanceMatrix(String origin, String destination) {
-		
+	private CompletableFuture<Map<?, ?>> callDistanceMatrix(String origin, String destination) {
+
 		//UriComponentsBuilder:自動處理編碼
 		URI uri = UriComponentsBuilder
-				.fromUriString("https://maps.googleapis.com/maps/api/distancematrix/json")
+				.fromUriString(baseUrl + "/maps/api/distancematrix/json")
 				.queryParam("origins", origin)
 				.queryParam("destinations", destination)
 				.queryParam("mode", "driving")
 				.queryParam("language", "zh-TW")
-				.queryParam("region", "tw") 
+				.queryParam("region", "tw")
 				// 只用參數提示區域，不改原字串
 				.encode(StandardCharsets.UTF_8)
 				.queryParam("key", apiKey)
 				.build()
 				.toUri();
 
-		//回傳 ResponseEntity<Map>：讓 Jackson 把 JSON 直接轉成 Java 結構
-		return rest.getForEntity(uri, Map.class);
+		return getJson(uri);
 	}
 
-	// 將地址 geocode 成經緯度"lat,lng"；需要在 GCP 啟用 Geocoding API（失敗回 null）
-	public String geocodeToLatLng(String address) {
-		try {
-			URI uri = UriComponentsBuilder
-					.fromUriString("https://maps.googleapis.com/maps/api/geocode/json")
-					.queryParam("address", address)
-					.queryParam("region", "tw")
-					.queryParam("key", apiKey)
-					.encode(StandardCharsets.UTF_8)
-					.build()
-					.toUri();
-
-			//發送 GET，把回來的 JSON 直接反序列化成 Map
-			ResponseEntity<Map> respEntity = rest.getForEntity(uri, Map.class);
-			Map<?, ?> body = respEntity.getBody();
-			if (body == null)
-				return null;
+	private CompletableFuture<String> fetchLatLng(String address) {
+		URI uri = UriComponentsBuilder
+				.fromUriString(baseUrl + "/maps/api/geocode/json")
+				.queryParam("address", address)
+				.queryParam("region", "tw")
+				.queryParam("key", apiKey)
+				.encode(StandardCharsets.UTF_8)
+				.build()
+				.toUri();
 
-			//檢查頂層狀態:Geocoding API 會回 status 欄位
-			Object status = body.get("status");
-			//使用 instanceof 確認是否為字串
-			if (!(status instanceof String) || !"OK".equals(status)) {
-				log.info("[GEOCODE] status={}", status);
+		return getJson(uri).handle((body, e) -> {
+			if (e != null) {
+				log.info("[GEOCODE] exception: {}", unwrap(e).toString());
 				return null;
 			}
+			return parseLatLng(body);
+		});
+	}
 
-			//Geocoding 回的主要內容在 results 陣列
-			Object resultsObj = body.get("results");
-			if (!(resultsObj instanceof List))
-				return null;
-			List<?> results = (List<?>) resultsObj;
-			if (results.isEmpty())
-				return null;
-
-			//取第一筆結果（最匹配的那一筆）
-			Object r0 = results.get(0);
-			if (!(r0 instanceof Map))
-				return null;
-			Map<?, ?> res = (Map<?, ?>) r0;
-
-			
-			//依照 Geocoding API 的結構一路往下判斷:results[0] → geometry → location → lat/lng
-			//每一步都用 instanceof 做型別守護，避免「Unchecked cast 警告」與執行期轉型錯誤
-			Object geometryObj = res.get("geometry");
-			if (!(geometryObj instanceof Map))
-				return null;
-			Map<?, ?> geometry = (Map<?, ?>) geometryObj;
-
-			Object locObj = geometry.get("location");
-			if (!(locObj instanceof Map))
-				return null;
-			Map<?, ?> loc = (Map<?, ?>) locObj;
+	// 解析 Geocoding 回應成 "lat,lng"；任何一層不符合就回 null
+	private String parseLatLng(Map<?, ?> body) {
+		if (body == null)
+			return null;
 
-			Object latObj = loc.get("lat");
-			Object lngObj = loc.get("lng");
-			if (!(latObj instanceof Number) || !(lngObj instanceof Number))
-				return null;
+		//檢查頂層狀態:Geocoding API 會回 status 欄位
+		Object status = body.get("status");
+		//使用 instanceof 確認是否為字串
+		if (!(status instanceof String) || !"OK".equals(status)) {
+			log.info("[GEOCODE] status={}", status);
+			return null;
+		}
 
-			//轉成double 之後，用「逗號分隔」組成 "lat,lng" 字串回傳
-			double lat = ((Number) latObj).doubleValue();
-			double lng = ((Number) lngObj).doubleValue();
-			return lat + "," + lng; 
+		//Geocoding 回的主要內容在 results 陣列，取第一筆結果（最匹配的那一筆）
+		Object resultsObj = body.get("results");
+		if (!(resultsObj instanceof List) || ((List<?>) resultsObj).isEmpty())
+			return null;
+		Object r0 = ((List<?>) resultsObj).get(0);
+		if (!(r0 instanceof Map))
+			return null;
 
-		} catch (Exception e) {
+		//依照 Geocoding API 的結構一路往下判斷:results[0] → geometry → location → lat/lng
+		//每一步都用 instanceof 做型別守護，避免「Unchecked cast 警告」與執行期轉型錯誤
+		Object geometryObj = ((Map<?, ?>) r0).get("geometry");
+		if (!(geometryObj instanceof Map))
+			return null;
+		Object locObj = ((Map<?, ?>) geometryObj).get("location");
+		if (!(locObj instanceof Map))
+			return null;
+		Map<?, ?> loc = (Map<?, ?>) locObj;
 
+		Object latObj = loc.get("lat");
+		Object lngObj = loc.get("lng");
+		if (!(latObj instanceof Number) || !(lngObj instanceof Number))
 			return null;
 
-		}
+		//轉成double 之後，用「逗號分隔」組成 "lat,lng" 字串回傳
+		double lat = ((Number) latObj).doubleValue();
+		double lng = ((Number) lngObj).doubleValue();
+		return lat + "," + lng;
 	}
 
-	/**
-	 * 回傳駕車距離（公尺）；失敗回 null。 先以地址直接呼叫 Distance Matrix；若元素狀態非 OK（NOT_FOUND /
-	 * ZERO_RESULTS 等）， 則兩端地址先 geocode 成座標，再重打一次 Distance Matrix。
-	 */
-	public Integer getDrivingDistanceMeters(String origin, String destination) {
-		try {
-			String o1 = normalize(origin);
-			String d1 = normalize(destination);
-
-			// 第一次：文字地址直接查
-			ResponseEntity<Map> resp1 = callDistanceMatrix(o1, d1);
-			Map<?, ?> body1 = resp1.getBody();
-			if (body1 == null) {
-				log.warn("[GMAPS] empty body");
-				return null;
-			}
-
-			Object topStatus = body1.get("status");
-			Object errMsg = body1.get("error_message");
-			log.info("[GMAPS] top status={}, err={}", topStatus, errMsg);
-			if (topStatus instanceof String && !"OK".equals(topStatus))
-				return null;
+	// Distance Matrix：rows[0].elements[0]
+	private static Map<?, ?> firstElement(Map<?, ?> body) {
+		Object rowsObj = body.get("rows");
+		if (!(rowsObj instanceof List) || ((List<?>) rowsObj).isEmpty())
+			return null;
+		Object row0 = ((List<?>) rowsObj).get(0);
+		if (!(row0 instanceof Map))
+			return null;
+		Object elementsObj = ((Map<?, ?>) row0).get("elements");
+		if (!(elementsObj instanceof List) || ((List<?>) elementsObj).isEmpty())
+			return null;
+		Object ele0 = ((List<?>) elementsObj).get(0);
+		return ele0 instanceof Map ? (Map<?, ?>) ele0 : null;
+	}
 
-			Object rowsObj = body1.get("rows");
-			if (!(rowsObj instanceof List))
-				return null;
-			List<?> rows = (List<?>) rowsObj;
-			if (rows.isEmpty())
-				return null;
+	private static Integer distanceValue(Map<?, ?> element) {
+		Object distObj = element.get("distance");
+		if (!(distObj instanceof Map))
+			return null;
+		Object value = ((Map<?, ?>) distObj).get("value");
+		return value instanceof Number ? ((Number) value).intValue() : null;
+	}
 
-			Object row0 = rows.get(0);
-			if (!(row0 instanceof Map))
-				return null;
-			Map<?, ?> rowMap = (Map<?, ?>) row0;
+	// ===== 連線層：斷路器 + 同時上限 + 對沖 =====
+
+	private CompletableFuture<Map<?, ?>> getJson(URI uri) {
+		CompletableFuture<Map<?, ?>> primary = send(uri);
+		if (!hedgeEnabled)
+			return primary;
+
+		long delay = p95Millis();
+		if (delay <= 0)
+			return primary;
+
+		// 超過 p95 還沒回應 → 再送一次，取先成功的那個
+		CompletableFuture<Map<?, ?>> result = new CompletableFuture<>();
+		primary.whenComplete((body, e) -> {
+			if (e == null)
+				result.complete(body);
+		});
+		CompletableFuture<Map<?, ?>> hedge = CompletableFuture
+				.runAsync(() -> { }, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+				.thenCompose(v -> {
+					// 對沖只在馬上有空名額時送出，不排隊，避免尖峰時再加重負載
+					if (primary.isDone() || !permits.tryAcquire())
+						return primary;
+					hedges.incrementAndGet();
+					return sendWithPermit(uri).whenComplete((body, e) -> {
+						if (e == null && result.complete(body))
+							hedgeWins.incrementAndGet();
+					});
+				});
+		// 兩個都失敗才算失敗
+		primary.exceptionally(e -> {
+			hedge.whenComplete((body, e2) -> {
+				if (e2 != null)
+					result.completeExceptionally(e);
+			});
+			return null;
+		});
+		return result;
+	}
 
-			Object elementsObj = rowMap.get("elements");
-			if (!(elementsObj instanceof List))
-				return null;
-			List<?> elements = (List<?>) elementsObj;
-			if (elements.isEmpty())
-				return null;
+	// 單一 HTTP 請求；回應 JSON 轉成 Map
+	private CompletableFuture<Map<?, ?>> send(URI uri) {
+		CompletableFuture<Void> permit = acquirePermit();
+		if (permit.isDone())
+			return permit.thenCompose(v -> sendWithPermit(uri));
+		// 排隊後才拿到名額：改由共用執行緒送出，避免在釋放名額的回呼裡一層層往下送
+		return permit.thenComposeAsync(v -> sendWithPermit(uri));
+	}
 
-			Object ele0Obj = elements.get(0);
-			if (!(ele0Obj instanceof Map))
-				return null;
-			Map<?, ?> ele0 = (Map<?, ?>) ele0Obj;
+	/*
+	 * 取得同時請求名額（不佔住執行緒）：有空名額直接取得；否則排隊，
+	 * 由釋放名額的請求直接交棒，超過 permitWaitMs 還沒輪到就算被節流。
+	 */
+	private CompletableFuture<Void> acquirePermit() {
+		if (permits.tryAcquire())
+			return CompletableFuture.completedFuture(null);
 
-			Object eleStatus = ele0.get("status");
-			log.info("[GMAPS] element status={}", eleStatus);
+		if (permitWaitMs == 0) {
+			throttled.incrementAndGet();
+			return CompletableFuture.failedFuture(throttledError());
+		}
 
-			if (eleStatus instanceof String && "OK".equals(eleStatus)) {
-				Object distObj = ele0.get("distance");
-				if (!(distObj instanceof Map))
-					return null;
-				Object value = ((Map<?, ?>) distObj).get("value");
-				if (!(value instanceof Number))
-					return null;
-				return ((Number) value).intValue();
+		CompletableFuture<Void> waiter = new CompletableFuture<>();
+		permitWaiters.add(waiter);
+		// 排入佇列的同時可能剛好有名額釋出，補交給佇列最前面的請求
+		if (permits.tryAcquire())
+			releasePermit();
+		// 從佇列移除成功才算逾時（否則已被交棒）
+		CompletableFuture.delayedExecutor(permitWaitMs, TimeUnit.MILLISECONDS).execute(() -> {
+			if (permitWaiters.remove(waiter)) {
+				throttled.incrementAndGet();
+				waiter.completeExceptionally(throttledError());
 			}
+		});
+		return waiter;
+	}
 
-			// 第二次：備援（先 geocode → 用座標重試）
-			String oLL = geocodeToLatLng(o1);
-			String dLL = geocodeToLatLng(d1);
-			if (oLL == null || dLL == null) {
-				log.info("[GMAPS] fallback geocode failed. oLL={}, dLL={}", oLL, dLL);
-				return null;
-			}
+	private static IllegalStateException throttledError() {
+		return new IllegalStateException("Google Maps 同時請求數已達上限");
+	}
 
-			ResponseEntity<Map> resp2 = callDistanceMatrix(oLL, dLL);
-			Map<?, ?> body2 = resp2.getBody();
-			if (body2 == null)
-				return null;
+	// 名額優先交給排隊中的請求，沒有人排隊才還回 Semaphore
+	private void releasePermit() {
+		CompletableFuture<Void> waiter;
+		while ((waiter = permitWaiters.poll()) != null) {
+			if (waiter.complete(null))
+				return;
+		}
+		permits.release();
+	}
 
-			Object rows2 = body2.get("rows");
-			if (!(rows2 instanceof List))
-				return null;
-			List<?> r2 = (List<?>) rows2;
-			if (r2.isEmpty())
-				return null;
+	// 已持有名額：先過斷路器（HALF_OPEN 時只放一個試探請求）再送出；結束時釋放名額
+	private CompletableFuture<Map<?, ?>> sendWithPermit(URI uri) {
+		if (!breaker.tryAcquire()) {
+			releasePermit();
+			return CompletableFuture.failedFuture(new IllegalStateException("Google Maps 斷路器開啟中"));
+		}
 
-			Object ele2 = ((Map<?, ?>) r2.get(0)).get("elements");
-			if (!(ele2 instanceof List) || ((List<?>) ele2).isEmpty())
-				return null;
+		requests.incrementAndGet();
+		long start = System.nanoTime();
+		HttpRequest request = HttpRequest.newBuilder(uri)
+				.timeout(requestTimeout)
+				.header("Accept", "application/json")
+				.GET()
+				.build();
+
+		return http.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+				.<Map<?, ?>>thenApply(resp -> {
+					if (resp.statusCode() >= 500)
+						throw new CompletionException(new IllegalStateException("HTTP " + resp.statusCode()));
+					if (resp.statusCode() >= 400) {
+						log.info("[GMAPS] HTTP {}", resp.statusCode());
+						return null;
+					}
+					try {
+						return objectMapper.readValue(resp.body(), Map.class);
+					} catch (Exception e) {
+						throw new CompletionException(e);
+					}
+				})
+				.whenComplete((body, e) -> {
+					releasePermit();
+					if (e == null) {
+						breaker.onSuccess();
+						recordLatency((System.nanoTime() - start) / 1_000_000);
+					} else {
+						failures.incrementAndGet();
+						breaker.onFailure();
+					}
+				});
+	}
 
-			Map<?, ?> ele2Map = (Map<?, ?>) ((List<?>) ele2).get(0);
-			Object eleStatus2 = ele2Map.get("status");
-			log.info("[GMAPS] element status (fallback)={}", eleStatus2);
-			if (!(eleStatus2 instanceof String) || !"OK".equals(eleStatus2))
-				return null;
+	private synchronized void recordLatency(long millis) {
+		latencies[latencyPos] = millis;
+		latencyPos = (latencyPos + 1) % LATENCY_WINDOW;
+		if (latencyCount < LATENCY_WINDOW)
+			latencyCount++;
+	}
 
-			Object dist2 = ele2Map.get("distance");
-			if (!(dist2 instanceof Map))
-				return null;
-			Object val2 = ((Map<?, ?>) dist2).get("value");
-			if (!(val2 instanceof Number))
-				return null;
+	// 近期成功請求的 p95 延遲；樣本不足回 0
+	private long p95Millis() {
+		long[] copy;
+		synchronized (this) {
+			if (latencyCount < MIN_HEDGE_SAMPLES)
+				return 0;
+			copy = Arrays.copyOf(latencies, latencyCount);
+		}
+		Arrays.sort(copy);
+		return Math.max(copy[(int) Math.ceil(copy.length * 0.95) - 1], 1);
+	}
+
+	private int inFlight() {
+		return Math.max(0, maxConcurrency - permits.availablePermits());
+	}
 
-			return ((Number) val2).intValue();
+	private static <T> T joinOrNull(CompletableFuture<T> future) {
+		try {
+			return future.join();
 		} catch (Exception e) {
-			log.warn("[GMAPS] exception: {}", e.toString());
+			log.warn("[GMAPS] exception: {}", unwrap(e).toString());
 			return null;
 		}
 	}
 
+	private static Throwable unwrap(Throwable e) {
+		while (e instanceof CompletionException && e.getCause() != null)
+			e = e.getCause();
+		return e;
+	}
+
 }
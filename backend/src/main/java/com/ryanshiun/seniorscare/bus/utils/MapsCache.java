@@ -0,0 +1,250 @@
+package com.ryanshiun.seniorscare.bus.utils;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ryanshiun.seniorscare.bus.dao.MapsCacheDAO;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * GoogleMapsClient 前面的兩層快取：
+ * 第一層：記憶體 LRU（地址 → "lat,lng"、起點|終點 → 公尺），以正規化後的字串為 key
+ * 第二層：資料表 maps_geocode_cache / maps_distance_cache，有 TTL，重開機後仍有效
+ * 只快取成功結果；API 失敗（null）不寫入，避免把暫時性錯誤記住。
+ */
+@Component
+public class MapsCache {
+
+	private static final Logger log = LoggerFactory.getLogger(MapsCache.class);
+
+	// 資料表 key 欄位長度上限（超過只放記憶體）
+	private static final int MAX_ADDRESS_KEY = 400;
+	private static final int MAX_PAIR_KEY = 200;
+
+	private final MapsCacheDAO dao;
+	private final long ttlDays;
+	private final Lru<String, String> latLngs;
+	private final Lru<String, Integer> distances;
+
+	// 表建立失敗（權限不足等）時只用記憶體層
+	private volatile boolean persistent = true;
+
+	private final AtomicLong geocodeMemoryHits = new AtomicLong();
+	private final AtomicLong geocodeDbHits = new AtomicLong();
+	private final AtomicLong geocodeMisses = new AtomicLong();
+	private final AtomicLong distanceMemoryHits = new AtomicLong();
+	private final AtomicLong distanceDbHits = new AtomicLong();
+	private final AtomicLong distanceMisses = new AtomicLong();
+
+	public MapsCache(MapsCacheDAO dao,
+			@Value("${app.maps.cache.memory-size:2000}") int memorySize,
+			@Value("${app.maps.cache.ttl-days:30}") long ttlDays) {
+		this.dao = dao;
+		this.ttlDays = Math.max(ttlDays, 1);
+		this.latLngs = new Lru<>(Math.max(memorySize, 16));
+		this.distances = new Lru<>(Math.max(memorySize, 16));
+	}
+
+	@PostConstruct
+	void init() {
+		try {
+			dao.ensureTables();
+		} catch (Exception e) {
+			persistent = false;
+			log.warn("[MAPS-CACHE] 無法建立快取資料表，只使用記憶體快取：{}", e.getMessage());
+		}
+	}
+
+	// 快取用 key：壓空白、轉小寫，讓「桃園市 政府」與「桃園市  政府」視為同一筆
+	public static String keyOf(String text) {
+		if (text == null)
+			return null;
+		String k = text.replace("\u3000", " ").strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+		return k.isEmpty() ? null : k;
+	}
+
+	// ===== 地址 → 經緯度 =====
+
+	public String getLatLng(String address) {
+		return lookupLatLng(address, true);
+	}
+
+	/**
+	 * 同 getLatLng，但不計入命中率統計。給離線估算用：估算只是順便看有沒有座標，
+	 * 沒有也不會去打 API，算進未命中會讓 stats 的命中率失真。
+	 */
+	public String peekLatLng(String address) {
+		return lookupLatLng(address, false);
+	}
+
+	private String lookupLatLng(String address, boolean countStats) {
+		String key = keyOf(address);
+		if (key == null)
+			return null;
+
+		Entry<String> e = latLngs.get(key);
+		if (e != null && !e.expired()) {
+			if (countStats)
+				geocodeMemoryHits.incrementAndGet();
+			return e.value;
+		}
+
+		if (persistent && key.length() <= MAX_ADDRESS_KEY) {
+			try {
+				String v = dao.findLatLng(key, LocalDateTime.now());
+				if (v != null) {
+					latLngs.put(key, new Entry<>(v, memoryExpiry()));
+					if (countStats)
+						geocodeDbHits.incrementAndGet();
+					return v;
+				}
+			} catch (Exception ex) {
+				log.warn("[MAPS-CACHE] 讀取 geocode 快取失敗：{}", ex.getMessage());
+			}
+		}
+		if (countStats)
+			geocodeMisses.incrementAndGet();
+		return null;
+	}
+
+	public void putLatLng(String address, String latLng) {
+		String key = keyOf(address);
+		if (key == null || latLng == null)
+			return;
+		latLngs.put(key, new Entry<>(latLng, memoryExpiry()));
+		if (persistent && key.length() <= MAX_ADDRESS_KEY) {
+			try {
+				dao.upsertLatLng(key, latLng, LocalDateTime.now().plusDays(ttlDays));
+			} catch (Exception ex) {
+				log.warn("[MAPS-CACHE] 寫入 geocode 快取失敗：{}", ex.getMessage());
+			}
+		}
+	}
+
+	// ===== 起點|終點 → 公尺 =====
+
+	public Integer getDistance(String origin, String destination) {
+		String o = keyOf(origin);
+		String d = keyOf(destination);
+		if (o == null || d == null)
+			return null;
+
+		Entry<Integer> e = distances.get(o + "|" + d);
+		if (e != null && !e.expired()) {
+			distanceMemoryHits.incrementAndGet();
+			return e.value;
+		}
+
+		if (persistent && o.length() <= MAX_PAIR_KEY && d.length() <= MAX_PAIR_KEY) {
+			try {
+				Integer v = dao.findDistance(o, d, LocalDateTime.now());
+				if (v != null) {
+					distances.put(o + "|" + d, new Entry<>(v, memoryExpiry()));
+					distanceDbHits.incrementAndGet();
+					return v;
+				}
+			} catch (Exception ex) {
+				log.warn("[MAPS-CACHE] 讀取距離快取失敗：{}", ex.getMessage());
+			}
+		}
+		distanceMisses.incrementAndGet();
+		return null;
+	}
+
+	public void putDistance(String origin, String destination, Integer meters) {
+		String o = keyOf(origin);
+		String d = keyOf(destination);
+		if (o == null || d == null || meters == null)
+			return;
+		distances.put(o + "|" + d, new Entry<>(meters, memoryExpiry()));
+		if (persistent && o.length() <= MAX_PAIR_KEY && d.length() <= MAX_PAIR_KEY) {
+			try {
+				dao.upsertDistance(o, d, meters, LocalDateTime.now().plusDays(ttlDays));
+			} catch (Exception ex) {
+				log.warn("[MAPS-CACHE] 寫入距離快取失敗：{}", ex.getMessage());
+			}
+		}
+	}
+
+	// 每天凌晨清掉過期資料
+	@Scheduled(cron = "${app.maps.cache.purge-cron:0 30 3 * * *}")
+	public void purgeExpired() {
+		if (!persistent)
+			return;
+		try {
+			int n = dao.deleteExpired(LocalDateTime.now());
+			if (n > 0)
+				log.info("[MAPS-CACHE] 清除過期快取 {} 筆", n);
+		} catch (Exception e) {
+			log.warn("[MAPS-CACHE] 清除過期快取失敗：{}", e.getMessage());
+		}
+	}
+
+	// 命中率統計（記憶體 / 資料表 / 未命中）
+	public Map<String, Object> stats() {
+		Map<String, Object> out = new LinkedHashMap<>();
+		out.put("persistent", persistent);
+		out.put("geocode", tierStats(geocodeMemoryHits.get(), geocodeDbHits.get(), geocodeMisses.get(), latLngs.size()));
+		out.put("distance", tierStats(distanceMemoryHits.get(), distanceDbHits.get(), distanceMisses.get(), distances.size()));
+		return out;
+	}
+
+	private static Map<String, Object> tierStats(long memoryHits, long dbHits, long misses, int memoryEntries) {
+		long total = memoryHits + dbHits + misses;
+		Map<String, Object> m = new LinkedHashMap<>();
+		m.put("memoryEntries", memoryEntries);
+		m.put("memoryHits", memoryHits);
+		m.put("persistentHits", dbHits);
+		m.put("misses", misses);
+		m.put("hitRatio", total == 0 ? 0.0 : Math.round((memoryHits + dbHits) * 10000.0 / total) / 10000.0);
+		return m;
+	}
+
+	// 記憶體層也要過期，否則長時間運作會一直用舊資料
+	private long memoryExpiry() {
+		return System.currentTimeMillis() + ttlDays * 86_400_000L;
+	}
+
+	private record Entry<V>(V value, long expiresAt) {
+		boolean expired() {
+			return System.currentTimeMillis() >= expiresAt;
+		}
+	}
+
+	// access-order LinkedHashMap 實作的 LRU；存取量不大，直接 synchronized
+	private static final class Lru<K, V> {
+		private final Map<K, Entry<V>> map;
+
+		Lru(int capacity) {
+			this.map = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+					return size() > capacity;
+				}
+			};
+		}
+
+		synchronized Entry<V> get(K key) {
+			return map.get(key);
+		}
+
+		synchronized void put(K key, Entry<V> value) {
+			map.put(key, value);
+		}
+
+		synchronized int size() {
+			return map.size();
+		}
+	}
+
+}
@@ -3,61 +3,39 @@ package com.ryanshiun.seniorscare.caregiver.service.caregiver;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
+import com.ryanshiun.seniorscare.image.ImageStore;
+import com.ryanshiun.seniorscare.image.StoredImage;
+
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.UUID;
 
 @Service
 public class FileServiceImpl implements FileService {
 
+    private final ImageStore imageStore;
+
+    public FileServiceImpl(ImageStore imageStore) {
+        this.imageStore = imageStore;
+    }
+
     @Override
     public String uploadFile(MultipartFile file, String directory) throws IOException {
         try {
-            // 參考 RoomType 的做法：直接使用 uploads/images
-            // 您的路徑：uploads/images/caregiver/caregiver_photo/
-            File uploadDir = new File("uploads/images/" + directory).getAbsoluteFile();
-
-            // 確保目錄存在
-            if (!uploadDir.exists()) {
-                Files.createDirectories(uploadDir.toPath());
-                System.out.println("建立目錄: " + uploadDir.getAbsolutePath());
-            }
-
             // 驗證檔案
             if (file.isEmpty()) {
                 throw new IOException("檔案為空");
             }
-
-            // 產生唯一檔名
             String originalFilename = file.getOriginalFilename();
             if (originalFilename == null || !originalFilename.contains(".")) {
                 throw new IOException("無效的檔案名稱");
             }
 
-            String extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-            String newFilename = UUID.randomUUID().toString() + extension;
-
-            // 儲存檔案
-            Path filePath = uploadDir.toPath().resolve(newFilename);
-            System.out.println("準備儲存檔案到: " + filePath.toAbsolutePath());
-
-            Files.copy(file.getInputStream(), filePath);
-
-            // 確認檔案已儲存
-            if (!Files.exists(filePath)) {
-                throw new IOException("檔案儲存失敗");
-            }
-
-            System.out.println("檔案儲存成功: " + filePath.toAbsolutePath());
+            // 內容定址儲存：uploads/images/{directory}/{sha256}.ext，縮圖由 ImageStore 非同步產生
+            StoredImage stored = imageStore.store(file, directory);
 
             // 回傳 Web 可訪問的路徑格式（參考 RoomType）
-            String webPath = "/images/" + directory + "/" + newFilename;
-            System.out.println("回傳 Web 路徑: " + webPath);
-
-            return webPath;
+            return "/images/" + stored.path();
         } catch (Exception e) {
             System.err.println("uploadFile 發生錯誤: " + e.getMessage());
             e.printStackTrace();
@@ -91,7 +69,17 @@ public class FileServiceImpl implements FileService {
                     : filePath;
 
 
-            Path fullPath = Paths.get("uploads/images", relativePath);
+            Path fullPath = imageStore.getRoot().resolve(relativePath).normalize();
+            if (!fullPath.startsWith(imageStore.getRoot())) {
+                System.out.println("路徑超出圖片目錄，跳過刪除: " + filePath);
+                return false;
+            }
+
+            // 內容定址檔可能被其他資料共用，交給孤兒檔回收處理
+            if (ImageStore.isContentAddressed(fullPath.getFileName().toString())) {
+                System.out.println("內容定址檔，留待回收: " + filePath);
+                return true;
+            }
             System.out.println("準備刪除檔案: " + fullPath.toAbsolutePath());
 
             boolean deleted = Files.deleteIfExists(fullPath);
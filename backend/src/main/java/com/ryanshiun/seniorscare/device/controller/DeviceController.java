@@ -4,8 +4,9 @@ import com.ryanshiun.seniorscare.device.dto.DeviceRequest;
 import com.ryanshiun.seniorscare.device.dto.DeviceResponse;
 import com.ryanshiun.seniorscare.device.model.Device;
 import com.ryanshiun.seniorscare.device.service.DeviceService;
+import com.ryanshiun.seniorscare.image.ImageStore;
+import com.ryanshiun.seniorscare.image.StoredImage;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -15,12 +16,8 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Paths;
 import java.util.List;
 import java.util.stream.Collectors;
-import org.springframework.util.StringUtils;
-import java.nio.file.Path;
-import java.nio.file.Files;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 
@@ -32,8 +29,8 @@ public class DeviceController {
     @Autowired
     private DeviceService deviceService;
 
-    @Value("${file.upload-dir}")
-    private String uploadDir;
+    @Autowired
+    private ImageStore imageStore;
 
 
     //取得全部商品，或依 categoryId 查詢
@@ -215,20 +212,14 @@ public class DeviceController {
             return ResponseEntity.badRequest().body("只支援圖片檔案");
         }
 
-        // 2. 產生不會重覆的檔名
-        String original = StringUtils.cleanPath(file.getOriginalFilename());
-        String ext = StringUtils.getFilenameExtension(original);
-        String filename = "device-" + id + "-" + System.currentTimeMillis() + "." + ext;
-
-        // 3. 存到 uploads/images，不用 REPLACE_EXISTING
-        Path target = Paths.get(uploadDir).resolve(filename);
-        // 這裡不帶 REPLACE_EXISTING，若同名就會丟例外，你也可以 catch 丟例外改不同檔名
-        Files.copy(file.getInputStream(), target);
+        // 2. 內容定址存到 uploads/images/device/{sha256}.ext（同圖只存一份，縮圖非同步產生）
+        StoredImage stored = imageStore.store(file, "device");
+        String filename = stored.path();
 
-        // 4. 更新資料庫 image 欄位
+        // 3. 更新資料庫 image 欄位（相對於 /images/）
         deviceService.updateDeviceImage(id, filename);
 
-        // 5. 組成完整 URL，回傳給前端
+        // 4. 組成完整 URL，回傳給前端
         String fullUrl = ServletUriComponentsBuilder
                 .fromCurrentContextPath()          // 取得 "http://localhost:8080"
                 .path("/images/")                  // 再加上 /images/
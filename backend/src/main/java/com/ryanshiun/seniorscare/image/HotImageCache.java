@@ -0,0 +1,71 @@
+package com.ryanshiun.seniorscare.image;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 小圖（縮圖）記憶體 LRU：以總位元組數為上限淘汰最久未用的檔案。
+ * key 含 mtime 與大小，檔案被覆寫後自然 miss，不需額外失效通知。
+ */
+@Component
+public class HotImageCache {
+
+    private final long maxBytes;
+    private final int maxEntryBytes;
+
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long currentBytes;
+    private long hits;
+    private long misses;
+
+    public HotImageCache(@Value("${app.image.hot-cache.max-bytes:33554432}") long maxBytes,
+                         @Value("${app.image.hot-cache.max-entry-bytes:65536}") int maxEntryBytes) {
+        this.maxBytes = Math.max(maxBytes, 0);
+        this.maxEntryBytes = Math.max(maxEntryBytes, 0);
+    }
+
+    /** 這個大小的檔案是否值得放進快取 */
+    public boolean accepts(long size) {
+        return size > 0 && size <= maxEntryBytes && size <= maxBytes;
+    }
+
+    public static String keyOf(String relativePath, long lastModified, long size) {
+        return relativePath + '|' + lastModified + '|' + size;
+    }
+
+    public synchronized byte[] get(String key) {
+        byte[] data = entries.get(key);
+        if (data == null) misses++;
+        else hits++;
+        return data;
+    }
+
+    public synchronized void put(String key, byte[] data) {
+        if (!accepts(data.length)) return;
+        byte[] prev = entries.put(key, data);
+        if (prev != null) currentBytes -= prev.length;
+        currentBytes += data.length;
+
+        Iterator<Map.Entry<String, byte[]>> it = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, byte[]> eldest = it.next();
+            currentBytes -= eldest.getValue().length;
+            it.remove();
+        }
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("entries", entries.size());
+        m.put("bytes", currentBytes);
+        m.put("maxBytes", maxBytes);
+        m.put("hits", hits);
+        m.put("misses", misses);
+        m.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        return m;
+    }
+}
@@ -0,0 +1,301 @@
+package com.ryanshiun.seniorscare.image;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 上傳圖片的內容定址儲存：
+ * - 以 NIO channel 寫入暫存檔，同時計算 SHA-256，檔名即雜湊（同內容只存一份）
+ * - 寫入後交給有界 worker pool 非同步產生 thumb / card / full 三種 JPEG 縮圖
+ * - worker 佇列滿時由上傳執行緒自己產生（CallerRuns），避免無限堆積
+ *
+ * 內容定址檔可能被多筆資料共用，刪除交由孤兒檔回收處理，不在單筆更新時刪。
+ */
+@Component
+public class ImageStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageStore.class);
+
+    private static final Pattern CONTENT_NAME =
+            Pattern.compile("^[0-9a-f]{64}(-(thumb|card|full))?(\\.[A-Za-z0-9]+)?$");
+    private static final float JPEG_QUALITY = 0.82f;
+
+    private final Path root;
+    private final ThreadPoolExecutor workers;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public ImageStore(@Value("${app.image.root:uploads/images}") String root,
+                      @Value("${app.image.workers:2}") int workers,
+                      @Value("${app.image.queue-capacity:64}") int queueCapacity) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        AtomicInteger seq = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(
+                Math.max(workers, 1), Math.max(workers, 1), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)),
+                r -> {
+                    Thread t = new Thread(r, "image-variant-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.workers.allowCoreThreadTimeOut(true);
+    }
+
+    /** 圖片根目錄（uploads/images 的絕對路徑） */
+    public Path getRoot() {
+        return root;
+    }
+
+    public StoredImage store(MultipartFile file, String directory) throws IOException {
+        if (file == null || file.isEmpty()) throw new IOException("檔案為空");
+        try (InputStream in = file.getInputStream()) {
+            return store(in, file.getOriginalFilename(), directory);
+        }
+    }
+
+    public StoredImage store(InputStream in, String originalFilename, String directory) throws IOException {
+        Path dir = resolveDir(directory);
+        Files.createDirectories(dir);
+
+        String ext = extensionOf(originalFilename);
+        MessageDigest md = sha256();
+        Path tmp = Files.createTempFile(dir, ".upload-", ".tmp");
+        try {
+            try (ReadableByteChannel src = Channels.newChannel(new DigestInputStream(in, md));
+                 FileChannel dst = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long pos = 0;
+                long n;
+                while ((n = dst.transferFrom(src, pos, 1 << 20)) > 0) pos += n;
+                if (pos == 0) throw new IOException("檔案為空");
+            }
+
+            String hash = HexFormat.of().formatHex(md.digest());
+            Path target = dir.resolve(hash + ext);
+            boolean deduplicated = Files.exists(target);
+            if (deduplicated) {
+                // 重新被使用，更新 mtime 讓孤兒檔回收的寬限期重新計算
+                Files.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis()));
+            } else {
+                try {
+                    Files.move(tmp, target);
+                } catch (FileAlreadyExistsException e) {
+                    deduplicated = true; // 同時有人上傳同一張
+                }
+            }
+
+            scheduleVariants(target, hash);
+            return new StoredImage(relativize(target), hash, deduplicated, variantPaths(dir, hash));
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * 依原圖相對路徑取得各尺寸縮圖路徑；縮圖尚未產生（或非內容定址檔）時回傳原圖路徑。
+     */
+    public Map<String, String> variantsOf(String relativePath) {
+        Map<String, String> out = new LinkedHashMap<>();
+        Path original = resolveFile(relativePath);
+        String name = original == null ? null : original.getFileName().toString();
+        String hash = name != null && isContentAddressed(name) ? name.substring(0, 64) : null;
+        for (ImageVariant v : ImageVariant.values()) {
+            Path variant = hash == null ? null : original.resolveSibling(variantName(hash, v));
+            out.put(v.getSuffix(), variant != null && Files.exists(variant) ? relativize(variant) : relativePath);
+        }
+        return out;
+    }
+
+    /** 檔名是否為內容定址（原圖或縮圖） */
+    public static boolean isContentAddressed(String filename) {
+        return filename != null && CONTENT_NAME.matcher(filename).matches();
+    }
+
+    public static String variantName(String hash, ImageVariant v) {
+        return hash + "-" + v.getSuffix() + ".jpg";
+    }
+
+    // ===== 縮圖 =====
+
+    private void scheduleVariants(Path original, String hash) {
+        boolean allExist = true;
+        for (ImageVariant v : ImageVariant.values()) {
+            if (!Files.exists(original.resolveSibling(variantName(hash, v)))) {
+                allExist = false;
+                break;
+            }
+        }
+        if (allExist || !inFlight.add(hash)) return;
+
+        workers.execute(() -> {
+            try {
+                generateVariants(original, hash);
+            } catch (Exception e) {
+                log.warn("產生縮圖失敗 {}：{}", original.getFileName(), e.getMessage());
+            } finally {
+                inFlight.remove(hash);
+            }
+        });
+    }
+
+    private void generateVariants(Path original, String hash) throws IOException {
+        BufferedImage src = ImageIO.read(original.toFile());
+        if (src == null) {
+            log.info("無法解碼的圖片格式，略過縮圖：{}", original.getFileName());
+            return;
+        }
+        for (ImageVariant v : ImageVariant.values()) {
+            Path out = original.resolveSibling(variantName(hash, v));
+            if (Files.exists(out)) continue;
+
+            BufferedImage scaled = scale(src, v.getMaxWidth());
+            Path tmp = Files.createTempFile(out.getParent(), ".variant-", ".tmp");
+            try {
+                writeJpeg(scaled, tmp);
+                Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+
+    /** 等比縮到 maxWidth 以下；大幅縮小時先逐次減半，畫質較好 */
+    private static BufferedImage scale(BufferedImage src, int maxWidth) {
+        int w = src.getWidth();
+        int h = src.getHeight();
+        int targetW = Math.min(w, maxWidth);
+        int targetH = Math.max(1, (int) Math.round((double) h * targetW / w));
+
+        BufferedImage current = toRgb(src);
+        while (current.getWidth() / 2 >= targetW) {
+            current = draw(current, current.getWidth() / 2, Math.max(1, current.getHeight() / 2));
+        }
+        return current.getWidth() == targetW ? current : draw(current, targetW, targetH);
+    }
+
+    // 透明背景以白底合成（JPEG 無 alpha）
+    private static BufferedImage toRgb(BufferedImage src) {
+        if (src.getType() == BufferedImage.TYPE_INT_RGB) return src;
+        return draw(src, src.getWidth(), src.getHeight());
+    }
+
+    private static BufferedImage draw(BufferedImage src, int w, int h) {
+        BufferedImage out = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, w, h);
+            g.drawImage(src, 0, 0, w, h, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    private static void writeJpeg(BufferedImage img, Path target) throws IOException {
+        Iterator<ImageWriter> it = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!it.hasNext()) throw new IOException("找不到 JPEG encoder");
+        ImageWriter writer = it.next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(img, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    // ===== 路徑 =====
+
+    private Path resolveDir(String directory) throws IOException {
+        Path dir = root.resolve(directory == null ? "" : directory.replace('\\', '/')).normalize();
+        if (!dir.startsWith(root)) throw new IOException("無效的目錄：" + directory);
+        return dir;
+    }
+
+    private Path resolveFile(String relativePath) {
+        if (relativePath == null || relativePath.isBlank()) return null;
+        Path p = root.resolve(relativePath.replace('\\', '/')).normalize();
+        return p.startsWith(root) && !p.equals(root) ? p : null;
+    }
+
+    private Map<String, String> variantPaths(Path dir, String hash) {
+        Map<String, String> out = new LinkedHashMap<>();
+        for (ImageVariant v : ImageVariant.values()) {
+            out.put(v.getSuffix(), relativize(dir.resolve(variantName(hash, v))));
+        }
+        return out;
+    }
+
+    private String relativize(Path p) {
+        return root.relativize(p).toString().replace('\\', '/');
+    }
+
+    private static String extensionOf(String filename) {
+        if (filename == null) return "";
+        String name = filename.substring(filename.replace('\\', '/').lastIndexOf('/') + 1);
+        int dot = name.lastIndexOf('.');
+        if (dot < 0 || dot == name.length() - 1) return "";
+        String ext = name.substring(dot).toLowerCase(Locale.ROOT);
+        return ext.matches("\\.[a-z0-9]{1,8}") ? ext : "";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+}
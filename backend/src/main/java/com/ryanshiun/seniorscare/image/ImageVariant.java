@@ -0,0 +1,28 @@
+package com.ryanshiun.seniorscare.image;
+
+/**
+ * 上傳圖片自動產生的縮圖尺寸（依寬度等比縮放，不放大）。
+ * 檔名規則：{sha256}-{suffix}.jpg；一律輸出 JPEG，透明背景以白底合成
+ */
+public enum ImageVariant {
+
+    THUMB("thumb", 160),   // 列表、購物車小圖
+    CARD("card", 480),     // 卡片、清單主圖
+    FULL("full", 1280);    // 詳情頁大圖
+
+    private final String suffix;
+    private final int maxWidth;
+
+    ImageVariant(String suffix, int maxWidth) {
+        this.suffix = suffix;
+        this.maxWidth = maxWidth;
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    public int getMaxWidth() {
+        return maxWidth;
+    }
+}
@@ -0,0 +1,15 @@
+package com.ryanshiun.seniorscare.image;
+
+import java.util.Map;
+
+/**
+ * 一次上傳的結果。路徑皆相對於圖片根目錄（uploads/images），例如 "RoomImg/ab12….jpg"；
+ * 各模組再依自己的慣例加上 "images/" 或 "/images/" 前綴存進 DB。
+ *
+ * @param path         原圖相對路徑（檔名為內容 SHA-256）
+ * @param sha256       內容雜湊
+ * @param deduplicated 同內容檔案已存在，這次沒有寫入新檔
+ * @param variants     各尺寸縮圖相對路徑（key 為 ImageVariant suffix）
+ */
+public record StoredImage(String path, String sha256, boolean deduplicated, Map<String, String> variants) {
+}
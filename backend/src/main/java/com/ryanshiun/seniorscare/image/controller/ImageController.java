@@ -0,0 +1,57 @@
+package com.ryanshiun.seniorscare.image.controller;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.ryanshiun.seniorscare.image.ImageStore;
+import com.ryanshiun.seniorscare.image.gc.ImageGcReport;
+import com.ryanshiun.seniorscare.image.gc.OrphanImageCollector;
+
+@RestController
+@RequestMapping("/api/images")
+public class ImageController {
+
+    private final ImageStore imageStore;
+    private final OrphanImageCollector orphanCollector;
+
+    public ImageController(ImageStore imageStore, OrphanImageCollector orphanCollector) {
+        this.imageStore = imageStore;
+        this.orphanCollector = orphanCollector;
+    }
+
+    /**
+     * 查某張圖的縮圖網址，path 可帶 DB 內的原值（"/images/x.jpg"、"images/x.jpg" 或 "x.jpg"）
+     * GET /api/images/variants?path=RoomImg/ab12….jpg
+     */
+    @GetMapping("/variants")
+    public ResponseEntity<Map<String, String>> variants(@RequestParam String path) {
+        String relative = path.replaceFirst("^/?images/", "");
+        Map<String, String> urls = new LinkedHashMap<>();
+        imageStore.variantsOf(relative).forEach((k, v) -> urls.put(k, "/images/" + v));
+        return ResponseEntity.ok(urls);
+    }
+
+    /** 孤兒圖片回收：最近一輪報告（進行中則為目前進度） */
+    @GetMapping("/gc")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public ResponseEntity<ImageGcReport> gcStatus() {
+        ImageGcReport report = orphanCollector.status();
+        return report == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(report);
+    }
+
+    /** 孤兒圖片回收：立即跑完一輪 */
+    @PostMapping("/gc/run")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public ResponseEntity<ImageGcReport> gcRun() throws IOException {
+        return ResponseEntity.ok(orphanCollector.runFullCycle());
+    }
+}
@@ -0,0 +1,220 @@
+package com.ryanshiun.seniorscare.image.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UrlPathHelper;
+
+import com.ryanshiun.seniorscare.image.HotImageCache;
+import com.ryanshiun.seniorscare.image.ImageStore;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * /images/** 圖片輸出（取代 WebConfig 的靜態資源映射）：
+ * - 內容定址檔名（sha256）→ 強 ETag + Cache-Control: immutable，一年內不再下載
+ * - 其他舊檔名 → 以 mtime/大小產生 ETag，短快取 + 重新驗證
+ * - If-None-Match 命中回 304；支援單一區段 Range（206 / 416）
+ * - 小檔由 HotImageCache 從記憶體回應，大檔以 FileChannel.transferTo 串流
+ */
+@RestController
+public class ImageFileController {
+
+    private static final String PREFIX = "/images/";
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "public, max-age=3600, must-revalidate";
+    // 縮圖還沒產生時先回原圖，不可讓瀏覽器長期快取
+    private static final String PENDING = "public, max-age=60";
+
+    private final ImageStore imageStore;
+    private final HotImageCache hotCache;
+    private final UrlPathHelper pathHelper = new UrlPathHelper();
+
+    public ImageFileController(ImageStore imageStore, HotImageCache hotCache) {
+        this.imageStore = imageStore;
+        this.hotCache = hotCache;
+    }
+
+    @RequestMapping(value = "/images/**", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String path = pathHelper.getPathWithinApplication(request);
+        String relative = path.startsWith(PREFIX) ? path.substring(PREFIX.length()) : "";
+        Path root = imageStore.getRoot();
+        Path file = root.resolve(relative).normalize();
+        if (relative.isBlank() || !file.startsWith(root)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String cacheControl;
+        String name = file.getFileName().toString();
+        if (Files.isRegularFile(file)) {
+            cacheControl = ImageStore.isContentAddressed(name) ? IMMUTABLE : REVALIDATE;
+        } else {
+            file = pendingVariantFallback(file, name);
+            if (file == null) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            cacheControl = PENDING;
+        }
+
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        long size = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        String etag = IMMUTABLE.equals(cacheControl)
+                ? "\"" + stripExtension(name) + "\""
+                : "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(size) + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+
+        if (matchesIfNoneMatch(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+
+        long start = 0;
+        long end = size - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] r = parseRange(range, size);
+            if (r == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (r.length == 2) {
+                start = r[0];
+                end = r[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod()) || length <= 0) return;
+
+        if (hotCache.accepts(size)) {
+            String key = HotImageCache.keyOf(root.relativize(file).toString(), lastModified, size);
+            byte[] data = hotCache.get(key);
+            if (data == null || data.length != size) {
+                data = Files.readAllBytes(file);
+                if (data.length == size) hotCache.put(key, data);
+            }
+            if (data.length == size) {
+                response.getOutputStream().write(data, (int) start, (int) length);
+                return;
+            }
+        }
+
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            OutputStream out = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            long pos = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long n = ch.transferTo(pos, remaining, target);
+                if (n <= 0) break;
+                pos += n;
+                remaining -= n;
+            }
+            out.flush();
+        }
+    }
+
+    /** 熱門小圖快取狀態 */
+    @GetMapping("/api/images/cache-stats")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public Map<String, Object> cacheStats() {
+        return hotCache.stats();
+    }
+
+    // ===== helpers =====
+
+    /** 請求的是 {sha256}-thumb.jpg 等縮圖但尚未產生：找同雜湊的原圖先頂著 */
+    private static Path pendingVariantFallback(Path requested, String name) throws IOException {
+        if (!ImageStore.isContentAddressed(name) || name.length() <= 64 || name.charAt(64) != '-') return null;
+        Path dir = requested.getParent();
+        if (dir == null || !Files.isDirectory(dir)) return null;
+        String hash = name.substring(0, 64);
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, hash + ".*")) {
+            for (Path p : ds) {
+                if (Files.isRegularFile(p)) return p;
+            }
+        }
+        return null;
+    }
+
+    private static boolean matchesIfNoneMatch(String header, String etag) {
+        if (header == null) return false;
+        for (String candidate : header.split(",")) {
+            String c = candidate.trim();
+            if (c.equals("*")) return true;
+            if (c.startsWith("W/")) c = c.substring(2);
+            if (c.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 解析單一 bytes 區段；多區段或格式不符時回傳空陣列（視同整檔 200），不可滿足回傳 null。
+     */
+    private static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=")) return new long[0];
+        String spec = header.substring(6).trim();
+        if (spec.contains(",")) return new long[0];
+        int dash = spec.indexOf('-');
+        if (dash < 0) return new long[0];
+        try {
+            String a = spec.substring(0, dash).trim();
+            String b = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (a.isEmpty()) {
+                if (b.isEmpty()) return new long[0];
+                long suffix = Long.parseLong(b);
+                if (suffix <= 0) return null;
+                start = Math.max(size - suffix, 0);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(a);
+                end = b.isEmpty() ? size - 1 : Math.min(Long.parseLong(b), size - 1);
+            }
+            if (start >= size || start > end) return null;
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    private static String stripExtension(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? name : name.substring(0, dot);
+    }
+}
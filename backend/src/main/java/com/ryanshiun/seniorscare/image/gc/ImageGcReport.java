@@ -0,0 +1,24 @@
+package com.ryanshiun.seniorscare.image.gc;
+
+import java.time.LocalDateTime;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** 一輪孤兒圖片回收的統計 */
+@Data
+@NoArgsConstructor
+public class ImageGcReport {
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private boolean finished;
+    private int referencedPaths;    // DB 內引用的圖片路徑數
+    private long filesScanned;
+    private long orphansQuarantined;
+    private long bytesQuarantined;
+    private long filesRestored;     // 隔離中又被引用，搬回原位
+    private long filesPurged;
+    private long bytesReclaimed;
+    private int slices;
+    private long scanMillis;        // 各時間片實際花費加總
+}
@@ -0,0 +1,316 @@
+package com.ryanshiun.seniorscare.image.gc;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ryanshiun.seniorscare.image.ImageStore;
+
+/**
+ * 孤兒圖片回收：
+ * 1. 每輪開始時從 DB 載入所有被引用的圖片路徑（房型、設施、輔具、活動、活動相簿、照服員、員工、會員）為 HashSet
+ * 2. 以 Files.walkFileTree 逐目錄掃描 uploads/images，每次排程只跑一個時間片，下次從中斷處接續
+ * 3. 未被引用且超過寬限期的檔案先搬到隔離區（uploads/.image-quarantine），不再對外提供
+ * 4. 隔離超過保留天數才真正刪除；期間若又被引用則搬回原位
+ *
+ * 路徑比對不分大小寫，寧可少刪；DB 查詢失敗時整輪放棄，絕不在引用不完整時動檔案。
+ */
+@Component
+public class OrphanImageCollector {
+
+    private static final Logger log = LoggerFactory.getLogger(OrphanImageCollector.class);
+
+    /**
+     * 所有存圖片路徑的欄位（資料表, 欄位）。新增圖片欄位時務必加在這裡，
+     * 否則該欄位的圖片會被當成孤兒回收；OrphanImageCollectorTest 會掃描 DAO 的 SQL 檢查是否漏列
+     */
+    static final List<String[]> IMAGE_COLUMNS = List.of(
+            new String[]{"roomtype", "image_path"},
+            new String[]{"facility", "image_path"},
+            new String[]{"device", "image"},
+            new String[]{"activity", "image"},
+            new String[]{"activity_photo", "photo_url"},
+            new String[]{"caregiver", "photo"},
+            new String[]{"employee", "image_path"},
+            new String[]{"member", "image_path"});
+
+    static final String REFERENCED_SQL = IMAGE_COLUMNS.stream()
+            .map(c -> "SELECT " + c[1] + " AS p FROM " + c[0] + " WHERE " + c[1] + " IS NOT NULL")
+            .collect(Collectors.joining("\nUNION ALL "));
+
+    private final JdbcTemplate jdbc;
+    private final ImageStore imageStore;
+    private final boolean enabled;
+    private final long sliceMillis;
+    private final long minAgeMillis;
+    private final long quarantineMillis;
+
+    // ===== 一輪掃描的進度（皆以 this 同步）=====
+    private ImageGcReport current;
+    private ImageGcReport lastReport;
+    private Set<String> referenced;
+    private Set<String> referencedHashes;
+    private final Deque<Path> pendingDirs = new ArrayDeque<>();
+    private int resumeSkip; // 目前目錄已處理的項目數（時間片中斷時記錄）
+
+    public OrphanImageCollector(JdbcTemplate jdbc, ImageStore imageStore,
+                                @Value("${app.image.gc.enabled:true}") boolean enabled,
+                                @Value("${app.image.gc.slice-ms:200}") long sliceMillis,
+                                @Value("${app.image.gc.min-age-hours:24}") long minAgeHours,
+                                @Value("${app.image.gc.quarantine-days:7}") long quarantineDays) {
+        this.jdbc = jdbc;
+        this.imageStore = imageStore;
+        this.enabled = enabled;
+        this.sliceMillis = Math.max(sliceMillis, 10);
+        this.minAgeMillis = TimeUnit.HOURS.toMillis(Math.max(minAgeHours, 0));
+        this.quarantineMillis = TimeUnit.DAYS.toMillis(Math.max(quarantineDays, 0));
+    }
+
+    @Scheduled(initialDelayString = "${app.image.gc.initial-delay-ms:300000}",
+               fixedDelayString = "${app.image.gc.interval-ms:60000}")
+    public void scheduledSlice() {
+        if (!enabled) return;
+        try {
+            runSlice(sliceMillis);
+        } catch (Exception e) {
+            log.warn("孤兒圖片回收失敗，本輪放棄：{}", e.getMessage());
+            abortCycle();
+        }
+    }
+
+    /** 立即跑完一整輪（後台手動觸發） */
+    public synchronized ImageGcReport runFullCycle() throws IOException {
+        if (current == null) startCycle();
+        ImageGcReport report = current;
+        while (current != null) runSlice(sliceMillis);
+        return report;
+    }
+
+    /** 最近一輪完成的報告；進行中時回傳目前進度 */
+    public synchronized ImageGcReport status() {
+        return current != null ? current : lastReport;
+    }
+
+    // ===== 時間片 =====
+
+    synchronized void runSlice(long budgetMillis) throws IOException {
+        long begin = System.nanoTime();
+        long deadline = begin + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        if (current == null) startCycle();
+
+        while (!pendingDirs.isEmpty() && System.nanoTime() < deadline) {
+            scanDirectory(pendingDirs.peekFirst(), deadline);
+        }
+
+        current.setSlices(current.getSlices() + 1);
+        current.setScanMillis(current.getScanMillis() + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+        if (pendingDirs.isEmpty()) finishCycle();
+    }
+
+    private void startCycle() throws IOException {
+        current = new ImageGcReport();
+        current.setStartedAt(LocalDateTime.now());
+        loadReferences();
+        purgeQuarantine();
+        pendingDirs.clear();
+        resumeSkip = 0;
+        if (Files.isDirectory(imageStore.getRoot())) pendingDirs.add(imageStore.getRoot());
+    }
+
+    private void finishCycle() {
+        current.setFinished(true);
+        current.setFinishedAt(LocalDateTime.now());
+        log.info("孤兒圖片回收完成：掃描 {} 檔，隔離 {} 檔（{} bytes），刪除 {} 檔，回收 {} bytes，耗時 {} ms / {} 片",
+                current.getFilesScanned(), current.getOrphansQuarantined(), current.getBytesQuarantined(),
+                current.getFilesPurged(), current.getBytesReclaimed(), current.getScanMillis(), current.getSlices());
+        lastReport = current;
+        current = null;
+        referenced = null;
+        referencedHashes = null;
+    }
+
+    private synchronized void abortCycle() {
+        current = null;
+        referenced = null;
+        referencedHashes = null;
+        pendingDirs.clear();
+        resumeSkip = 0;
+    }
+
+    /** 只看這一層（maxDepth=1），子目錄排進佇列；超時則記下已處理數量下次跳過 */
+    private void scanDirectory(Path dir, long deadline) throws IOException {
+        int skip = resumeSkip;
+        int[] seen = {0};
+        boolean[] interrupted = {false};
+        List<Path> subDirs = new ArrayList<>();
+
+        Files.walkFileTree(dir, EnumSet.noneOf(FileVisitOption.class), 1, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (seen[0]++ < skip) return FileVisitResult.CONTINUE;
+                if (attrs.isDirectory()) subDirs.add(file);
+                else if (attrs.isRegularFile()) inspect(file, attrs);
+                if (System.nanoTime() >= deadline) {
+                    interrupted[0] = true;
+                    return FileVisitResult.TERMINATE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                seen[0]++;
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        pendingDirs.addAll(subDirs);
+        if (interrupted[0]) {
+            resumeSkip = seen[0];
+        } else {
+            pendingDirs.pollFirst();
+            resumeSkip = 0;
+        }
+    }
+
+    private void inspect(Path file, BasicFileAttributes attrs) {
+        current.setFilesScanned(current.getFilesScanned() + 1);
+        if (System.currentTimeMillis() - attrs.lastModifiedTime().toMillis() < minAgeMillis) return;
+
+        Path root = imageStore.getRoot();
+        String relative = root.relativize(file).toString().replace('\\', '/');
+        if (isReferenced(relative)) return;
+
+        Path target = quarantineDir().resolve(relative).normalize();
+        try {
+            Files.createDirectories(target.getParent());
+            Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+            // 以 mtime 記錄進隔離區的時間
+            Files.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis()));
+            current.setOrphansQuarantined(current.getOrphansQuarantined() + 1);
+            current.setBytesQuarantined(current.getBytesQuarantined() + attrs.size());
+        } catch (IOException e) {
+            log.warn("隔離圖片失敗 {}：{}", relative, e.getMessage());
+        }
+    }
+
+    // ===== 隔離區 =====
+
+    private Path quarantineDir() {
+        Path root = imageStore.getRoot();
+        Path parent = root.getParent();
+        return (parent != null ? parent : root).resolve(".image-quarantine");
+    }
+
+    /** 過期的刪除，又被引用的搬回原位 */
+    private void purgeQuarantine() throws IOException {
+        Path qdir = quarantineDir();
+        if (!Files.isDirectory(qdir)) return;
+        long now = System.currentTimeMillis();
+        Path root = imageStore.getRoot();
+
+        Files.walkFileTree(qdir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                String relative = qdir.relativize(file).toString().replace('\\', '/');
+                try {
+                    if (isReferenced(relative)) {
+                        Path back = root.resolve(relative).normalize();
+                        Files.createDirectories(back.getParent());
+                        Files.move(file, back, StandardCopyOption.REPLACE_EXISTING);
+                        current.setFilesRestored(current.getFilesRestored() + 1);
+                    } else if (now - attrs.lastModifiedTime().toMillis() >= quarantineMillis) {
+                        Files.delete(file);
+                        current.setFilesPurged(current.getFilesPurged() + 1);
+                        current.setBytesReclaimed(current.getBytesReclaimed() + attrs.size());
+                    }
+                } catch (IOException e) {
+                    log.warn("處理隔離圖片失敗 {}：{}", relative, e.getMessage());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+                if (!dir.equals(qdir)) {
+                    try (var entries = Files.list(dir)) {
+                        if (entries.findAny().isEmpty()) Files.delete(dir);
+                    } catch (IOException ignore) {
+                        // 目錄非空或無法刪除，下次再處理
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    // ===== 引用集合 =====
+
+    private void loadReferences() {
+        Set<String> paths = new HashSet<>();
+        Set<String> hashes = new HashSet<>();
+        jdbc.query(REFERENCED_SQL, rs -> {
+            String p = normalize(rs.getString(1));
+            if (p == null) return;
+            paths.add(p);
+            String name = p.substring(p.lastIndexOf('/') + 1);
+            if (ImageStore.isContentAddressed(name)) hashes.add(name.substring(0, 64));
+        });
+        referenced = paths;
+        referencedHashes = hashes;
+        current.setReferencedPaths(paths.size());
+    }
+
+    private boolean isReferenced(String relative) {
+        String key = relative.toLowerCase(Locale.ROOT);
+        if (referenced.contains(key)) return true;
+        String name = key.substring(key.lastIndexOf('/') + 1);
+        // 內容定址原圖被引用時，其縮圖一併保留
+        return ImageStore.isContentAddressed(name) && referencedHashes.contains(name.substring(0, 64));
+    }
+
+    /**
+     * DB 內的值有多種寫法："images/RoomImg/x.png"、"/images/caregiver/…"、"device/x.jpg"、
+     * 完整網址 "http://host/images/x.jpg"；一律轉成相對於 uploads/images 的小寫路徑。
+     */
+    static String normalize(String raw) {
+        if (raw == null) return null;
+        String s = raw.trim().replace('\\', '/');
+        if (s.isEmpty() || s.startsWith("data:")) return null;
+        if (s.startsWith("http://") || s.startsWith("https://")) {
+            int i = s.indexOf("/images/");
+            if (i < 0) return null; // 外部網址
+            s = s.substring(i + "/images/".length());
+        }
+        int q = s.indexOf('?');
+        if (q >= 0) s = s.substring(0, q);
+        while (s.startsWith("/")) s = s.substring(1);
+        if (s.startsWith("uploads/")) s = s.substring("uploads/".length());
+        if (s.startsWith("images/")) s = s.substring("images/".length());
+        return s.isEmpty() ? null : s.toLowerCase(Locale.ROOT);
+    }
+}
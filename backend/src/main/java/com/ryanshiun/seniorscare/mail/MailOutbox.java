@@ -0,0 +1,37 @@
+package com.ryanshiun.seniorscare.mail;
+
+import com.ryanshiun.seniorscare.mail.dao.MailOutboxDao;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+import static com.ryanshiun.seniorscare.common.util.TransactionHooks.afterCommit;
+
+/**
+ * 寄信入口：信件先寫進 mail_outbox 就回傳，實際寄送由 OutboxMailSender 在背景處理。
+ * 在交易中呼叫時，信件跟著交易一起 commit / rollback，commit 後才叫醒寄件 worker。
+ */
+@Component
+public class MailOutbox {
+
+    private final MailOutboxDao mailOutboxDao;
+    private final OutboxMailSender sender;
+
+    public MailOutbox(MailOutboxDao mailOutboxDao, OutboxMailSender sender) {
+        this.mailOutboxDao = mailOutboxDao;
+        this.sender = sender;
+    }
+
+    /**
+     * 排入待寄信件
+     * @return 信件 ID
+     */
+    public Long enqueue(String recipient, String subject, String body) {
+        if (recipient == null || recipient.isBlank()) {
+            throw new IllegalArgumentException("收件人不可為空");
+        }
+        Long id = mailOutboxDao.insert(recipient.trim(), subject, body, LocalDateTime.now());
+        afterCommit(sender::wakeUp);
+        return id;
+    }
+}
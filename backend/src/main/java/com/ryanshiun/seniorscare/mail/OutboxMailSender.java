@@ -0,0 +1,303 @@
+package com.ryanshiun.seniorscare.mail;
+
+import com.ryanshiun.seniorscare.mail.dao.MailOutboxDao;
+import com.ryanshiun.seniorscare.mail.model.OutboxMail;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 背景寄件：
+ * - 每個 worker 持有自己的 SMTP 連線，連線後重複使用，閒置一段時間才關閉（省掉每封信的握手 + STARTTLS）
+ * - 每次從 outbox 取一批到期信件，用同一條連線逐封寄出
+ * - 失敗以指數退避重試，超過次數標記 FAILED；收件地址被拒的不重試
+ */
+@Component
+public class OutboxMailSender {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxMailSender.class);
+
+    private final MailOutboxDao mailOutboxDao;
+    private final Session session;
+    private final String host;
+    private final int port;
+    private final String username;
+    private final String password;
+    private final String from;
+
+    private final int workerCount;
+    private final int batchSize;
+    private final long pollMs;
+    private final long idleCloseMs;
+    private final long leaseMs;
+    private final int maxAttempts;
+    private final long backoffBaseMs;
+    private final long backoffMaxMs;
+
+    private final Semaphore wake = new Semaphore(0);
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder connections = new LongAdder();
+    private final AtomicReference<String> lastError = new AtomicReference<>();
+
+    public OutboxMailSender(MailOutboxDao mailOutboxDao,
+                            @Value("${spring.mail.host}") String host,
+                            @Value("${spring.mail.port}") int port,
+                            @Value("${spring.mail.username}") String username,
+                            @Value("${spring.mail.password}") String password,
+                            @Value("${app.mail.starttls:true}") boolean starttls,
+                            @Value("${app.mail.workers:1}") int workerCount,
+                            @Value("${app.mail.batch-size:20}") int batchSize,
+                            @Value("${app.mail.poll-ms:5000}") long pollMs,
+                            @Value("${app.mail.idle-close-ms:30000}") long idleCloseMs,
+                            @Value("${app.mail.lease-ms:120000}") long leaseMs,
+                            @Value("${app.mail.max-attempts:8}") int maxAttempts,
+                            @Value("${app.mail.backoff-base-ms:30000}") long backoffBaseMs,
+                            @Value("${app.mail.backoff-max-ms:3600000}") long backoffMaxMs) {
+        this.mailOutboxDao = mailOutboxDao;
+        this.host = host;
+        this.port = port;
+        this.username = username;
+        this.password = password;
+        this.from = username;
+        this.workerCount = Math.max(workerCount, 1);
+        this.batchSize = Math.max(batchSize, 1);
+        this.pollMs = Math.max(pollMs, 100);
+        this.idleCloseMs = idleCloseMs;
+        this.leaseMs = leaseMs;
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.backoffBaseMs = backoffBaseMs;
+        this.backoffMaxMs = backoffMaxMs;
+
+        Properties props = new Properties();
+        props.put("mail.smtp.auth", String.valueOf(username != null && !username.isBlank()));
+        props.put("mail.smtp.starttls.enable", String.valueOf(starttls));
+        props.put("mail.smtp.host", host);
+        props.put("mail.smtp.port", String.valueOf(port));
+        props.put("mail.smtp.connectiontimeout", "10000");
+        props.put("mail.smtp.timeout", "10000");
+        props.put("mail.smtp.writetimeout", "10000");
+        this.session = Session.getInstance(props);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            mailOutboxDao.ensureTable();
+        } catch (RuntimeException e) {
+            log.warn("建立 mail_outbox 失敗：{}", e.getMessage());
+        }
+        running = true;
+        for (int i = 1; i <= workerCount; i++) {
+            Thread t = new Thread(new Worker(), "mail-sender-" + i);
+            t.setDaemon(true);
+            t.start();
+            workers.add(t);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        wake.release(workerCount);
+        for (Thread t : workers) {
+            try {
+                t.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 有新信件時叫醒 worker（不必等到下一次輪詢）
+     */
+    public void wakeUp() {
+        if (wake.availablePermits() < workerCount) {
+            wake.release();
+        }
+    }
+
+    /**
+     * 每天清掉 7 天前已寄出的信件
+     */
+    @Scheduled(cron = "0 30 3 * * *")
+    public void purgeSent() {
+        try {
+            int n = mailOutboxDao.deleteSentBefore(LocalDateTime.now().minusDays(7));
+            if (n > 0) log.info("清除已寄出信件 {} 筆", n);
+        } catch (RuntimeException e) {
+            log.warn("清除已寄出信件失敗：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 佇列深度與寄送統計
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        try {
+            out.put("queue", mailOutboxDao.countByStatus());
+        } catch (RuntimeException e) {
+            out.put("queue", null);
+        }
+        out.put("sent", sent.sum());
+        out.put("retried", retried.sum());
+        out.put("failed", failed.sum());
+        out.put("connectionsOpened", connections.sum());
+        out.put("workers", workerCount);
+        out.put("lastError", lastError.get());
+        return out;
+    }
+
+    // ===== worker =====
+
+    private final class Worker implements Runnable {
+
+        private Transport transport;
+        private long lastUsed;
+
+        @Override
+        public void run() {
+            while (running) {
+                int handled = 0;
+                try {
+                    handled = sendBatch();
+                } catch (RuntimeException e) {
+                    // 資料庫暫時不可用：等下一輪
+                    log.warn("讀取 mail_outbox 失敗：{}", e.getMessage());
+                }
+                if (handled < batchSize) {
+                    closeIfIdle();
+                    try {
+                        if (wake.tryAcquire(pollMs, TimeUnit.MILLISECONDS)) {
+                            wake.drainPermits();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+            close();
+        }
+
+        private int sendBatch() {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxMail> batch = mailOutboxDao.claim(batchSize, now, now.plusNanos(leaseMs * 1_000_000));
+            for (OutboxMail mail : batch) {
+                send(mail);
+            }
+            return batch.size();
+        }
+
+        private void send(OutboxMail mail) {
+            int attempts = mail.getAttempts() + 1;
+            try {
+                MimeMessage message = new MimeMessage(session);
+                message.setFrom(new InternetAddress(from));
+                message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(mail.getRecipient()));
+                message.setSubject(mail.getSubject(), StandardCharsets.UTF_8.name());
+                message.setText(mail.getBody(), StandardCharsets.UTF_8.name());
+                message.saveChanges();
+
+                Transport t = transport();
+                t.sendMessage(message, message.getAllRecipients());
+                lastUsed = System.currentTimeMillis();
+                mailOutboxDao.markSent(mail.getId(), LocalDateTime.now());
+                sent.increment();
+            } catch (AddressException e) {
+                // 收件地址格式錯誤，重試也不會成功
+                fail(mail, attempts, e);
+            } catch (MessagingException e) {
+                if (e instanceof SendFailedException sfe && sfe.getInvalidAddresses() != null
+                        && sfe.getInvalidAddresses().length > 0) {
+                    // 收件地址被伺服器拒絕
+                    fail(mail, attempts, e);
+                    return;
+                }
+                // 連線或伺服器暫時性錯誤：關掉連線，下一封重新連
+                close();
+                if (attempts >= maxAttempts) {
+                    log.warn("信件 {} 寄送失敗已達 {} 次，不再重試：{}", mail.getId(), attempts, e.getMessage());
+                    fail(mail, attempts, e);
+                } else {
+                    lastError.set(e.getMessage());
+                    mailOutboxDao.markRetry(mail.getId(), attempts,
+                            LocalDateTime.now().plusNanos(backoffMs(attempts) * 1_000_000), e.getMessage());
+                    retried.increment();
+                }
+            }
+        }
+
+        private void fail(OutboxMail mail, int attempts, Exception e) {
+            lastError.set(e.getMessage());
+            mailOutboxDao.markFailed(mail.getId(), attempts, e.getMessage());
+            failed.increment();
+        }
+
+        // 重複使用同一條連線；斷線時重連
+        private Transport transport() throws MessagingException {
+            if (transport == null || !transport.isConnected()) {
+                close();
+                Transport t = session.getTransport("smtp");
+                t.connect(host, port, username, password);
+                connections.increment();
+                transport = t;
+            }
+            return transport;
+        }
+
+        private void closeIfIdle() {
+            if (transport != null && System.currentTimeMillis() - lastUsed > idleCloseMs) {
+                close();
+            }
+        }
+
+        private void close() {
+            if (transport == null) return;
+            try {
+                transport.close();
+            } catch (MessagingException ignored) {
+                // 連線本來就可能已斷
+            }
+            transport = null;
+        }
+    }
+
+    // 指數退避：base * 2^(n-1)，上限 backoffMaxMs
+    private long backoffMs(int attempts) {
+        long ms = backoffBaseMs << Math.min(attempts - 1, 20);
+        return Math.min(ms, backoffMaxMs);
+    }
+}
@@ -0,0 +1,30 @@
+package com.ryanshiun.seniorscare.mail.controller;
+
+import com.ryanshiun.seniorscare.mail.OutboxMailSender;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/mail")
+public class MailOutboxController {
+
+    private final OutboxMailSender sender;
+
+    public MailOutboxController(OutboxMailSender sender) {
+        this.sender = sender;
+    }
+
+    /**
+     * 寄件佇列深度與寄送統計
+     */
+    @GetMapping("/outbox-stats")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public ResponseEntity<Map<String, Object>> stats() {
+        return ResponseEntity.ok(sender.stats());
+    }
+}
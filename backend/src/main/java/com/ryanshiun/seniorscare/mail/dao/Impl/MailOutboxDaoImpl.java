@@ -0,0 +1,150 @@
+package com.ryanshiun.seniorscare.mail.dao.Impl;
+
+import com.ryanshiun.seniorscare.mail.dao.MailOutboxDao;
+import com.ryanshiun.seniorscare.mail.model.OutboxMail;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Component
+public class MailOutboxDaoImpl implements MailOutboxDao {
+
+    // 錯誤訊息欄位長度
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /** 建立 outbox 表與取件用索引 (status, next_attempt_at)
+     */
+    @Override
+    public void ensureTable() {
+        final String sql = """
+                IF OBJECT_ID('mail_outbox', 'U') IS NULL
+                BEGIN
+                    CREATE TABLE mail_outbox (
+                        id BIGINT IDENTITY(1,1) PRIMARY KEY,
+                        recipient NVARCHAR(320) NOT NULL,
+                        subject NVARCHAR(200) NOT NULL,
+                        body NVARCHAR(MAX) NOT NULL,
+                        status VARCHAR(10) NOT NULL DEFAULT 'PENDING',
+                        attempts INT NOT NULL DEFAULT 0,
+                        next_attempt_at DATETIME2 NOT NULL,
+                        locked_until DATETIME2 NULL,
+                        last_error NVARCHAR(500) NULL,
+                        created_at DATETIME2 NOT NULL,
+                        sent_at DATETIME2 NULL
+                    );
+                    CREATE INDEX IX_mail_outbox_status_next ON mail_outbox (status, next_attempt_at);
+                END
+                """;
+        namedParameterJdbcTemplate.getJdbcTemplate().execute(sql);
+    }
+
+    /** 新增待寄信件
+     * @return 信件 ID
+     */
+    @Override
+    public Long insert(String recipient, String subject, String body, LocalDateTime now) {
+        final String sql = "INSERT INTO mail_outbox (recipient, subject, body, status, attempts, next_attempt_at, created_at)" +
+                " VALUES (:recipient, :subject, :body, 'PENDING', 0, :now, :now)";
+        Map<String, Object> map = new HashMap<>();
+        map.put("recipient", recipient);
+        map.put("subject", subject);
+        map.put("body", body);
+        map.put("now", now);
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        namedParameterJdbcTemplate.update(sql, new MapSqlParameterSource(map), keyHolder, new String[]{"id"});
+        return Objects.requireNonNull(keyHolder.getKey()).longValue();
+    }
+
+    /** 取出到期的信件並標記為寄送中
+     *  READPAST 讓多個寄件 worker 不會搶到同一封，也不互相等待
+     */
+    @Override
+    public List<OutboxMail> claim(int limit, LocalDateTime now, LocalDateTime lockedUntil) {
+        final String sql = """
+                UPDATE TOP (:limit) mail_outbox WITH (READPAST, UPDLOCK, ROWLOCK)
+                SET status = 'SENDING', locked_until = :lockedUntil
+                OUTPUT inserted.id, inserted.recipient, inserted.subject, inserted.body, inserted.attempts
+                WHERE (status = 'PENDING' AND next_attempt_at <= :now)
+                   OR (status = 'SENDING' AND locked_until < :now)
+                """;
+        Map<String, Object> map = new HashMap<>();
+        map.put("limit", limit);
+        map.put("now", now);
+        map.put("lockedUntil", lockedUntil);
+        return namedParameterJdbcTemplate.query(sql, map, (rs, rowNum) -> {
+            OutboxMail mail = new OutboxMail();
+            mail.setId(rs.getLong("id"));
+            mail.setRecipient(rs.getString("recipient"));
+            mail.setSubject(rs.getString("subject"));
+            mail.setBody(rs.getString("body"));
+            mail.setAttempts(rs.getInt("attempts"));
+            mail.setStatus("SENDING");
+            return mail;
+        });
+    }
+
+    @Override
+    public void markSent(long id, LocalDateTime sentAt) {
+        final String sql = "UPDATE mail_outbox SET status = 'SENT', sent_at = :sentAt, attempts = attempts + 1," +
+                " locked_until = NULL, last_error = NULL WHERE id = :id";
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", id);
+        map.put("sentAt", sentAt);
+        namedParameterJdbcTemplate.update(sql, map);
+    }
+
+    @Override
+    public void markRetry(long id, int attempts, LocalDateTime nextAttemptAt, String error) {
+        final String sql = "UPDATE mail_outbox SET status = 'PENDING', attempts = :attempts," +
+                " next_attempt_at = :nextAttemptAt, locked_until = NULL, last_error = :error WHERE id = :id";
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", id);
+        map.put("attempts", attempts);
+        map.put("nextAttemptAt", nextAttemptAt);
+        map.put("error", truncate(error));
+        namedParameterJdbcTemplate.update(sql, map);
+    }
+
+    @Override
+    public void markFailed(long id, int attempts, String error) {
+        final String sql = "UPDATE mail_outbox SET status = 'FAILED', attempts = :attempts," +
+                " locked_until = NULL, last_error = :error WHERE id = :id";
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", id);
+        map.put("attempts", attempts);
+        map.put("error", truncate(error));
+        namedParameterJdbcTemplate.update(sql, map);
+    }
+
+    @Override
+    public Map<String, Integer> countByStatus() {
+        final String sql = "SELECT status, COUNT(*) AS cnt FROM mail_outbox GROUP BY status";
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        namedParameterJdbcTemplate.query(sql, Collections.emptyMap(),
+                rs -> { counts.put(rs.getString("status"), rs.getInt("cnt")); });
+        return counts;
+    }
+
+    @Override
+    public int deleteSentBefore(LocalDateTime before) {
+        final String sql = "DELETE FROM mail_outbox WHERE status = 'SENT' AND sent_at < :before";
+        Map<String, Object> map = new HashMap<>();
+        map.put("before", before);
+        return namedParameterJdbcTemplate.update(sql, map);
+    }
+
+    private static String truncate(String s) {
+        if (s == null) return null;
+        return s.length() <= MAX_ERROR_LENGTH ? s : s.substring(0, MAX_ERROR_LENGTH);
+    }
+}
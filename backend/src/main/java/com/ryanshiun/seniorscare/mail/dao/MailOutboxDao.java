@@ -0,0 +1,34 @@
+package com.ryanshiun.seniorscare.mail.dao;
+
+import com.ryanshiun.seniorscare.mail.model.OutboxMail;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public interface MailOutboxDao {
+
+    // 建立 outbox 表（已存在則略過）
+    void ensureTable();
+
+    // 新增待寄信件，回傳 ID
+    Long insert(String recipient, String subject, String body, LocalDateTime now);
+
+    // 取出到期的待寄信件並標記為寄送中（lease 到期未完成的可再被取出）
+    List<OutboxMail> claim(int limit, LocalDateTime now, LocalDateTime lockedUntil);
+
+    // 標記已寄出
+    void markSent(long id, LocalDateTime sentAt);
+
+    // 寄送失敗，排定下次重試
+    void markRetry(long id, int attempts, LocalDateTime nextAttemptAt, String error);
+
+    // 寄送失敗且不再重試
+    void markFailed(long id, int attempts, String error);
+
+    // 各狀態筆數
+    Map<String, Integer> countByStatus();
+
+    // 刪除早於指定時間的已寄出信件
+    int deleteSentBefore(LocalDateTime before);
+}
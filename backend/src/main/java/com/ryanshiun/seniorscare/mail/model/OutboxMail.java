@@ -0,0 +1,20 @@
+package com.ryanshiun.seniorscare.mail.model;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class OutboxMail {
+    private Long id;
+    private String recipient;
+    private String subject;
+    private String body;
+    // PENDING / SENDING / SENT / FAILED
+    private String status;
+    private Integer attempts;
+    private LocalDateTime nextAttemptAt;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime sentAt;
+}
@@ -2,8 +2,11 @@ package com.ryanshiun.seniorscare.member.controller.employee;
 
 import com.ryanshiun.seniorscare.member.dto.employee.*;
 import com.ryanshiun.seniorscare.member.model.employee.EmpRole;
+import com.ryanshiun.seniorscare.member.service.employee.EmpLogService;
 import com.ryanshiun.seniorscare.member.service.employee.EmployeeService;
 import com.ryanshiun.seniorscare.member.service.employee.PwdResetService;
+import com.ryanshiun.seniorscare.security.RateLimiter;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -12,7 +15,13 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/employees")
@@ -25,6 +34,12 @@ public class EmployeeController {
     @Autowired
     private PwdResetService pwdResetService;
 
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private EmpLogService empLogService;
+
     /** 查詢全部員工
         * @param isActive 員工狀態
         * @param empName 員工姓名
@@ -89,6 +104,16 @@ public class EmployeeController {
         }
     }
 
+    /**
+     * 登入 / 忘記密碼限流統計
+     * @return 各規則放行、拒絕次數與 bucket 數
+     */
+    @GetMapping("/rate-limit-stats")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public ResponseEntity<Map<String, Object>> rateLimitStats() {
+        return ResponseEntity.ok(rateLimiter.stats());
+    }
+
     /**
      * 註冊新員工
      * @param employeeCreateDto 建立員工所需資料
@@ -188,4 +213,29 @@ public class EmployeeController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         }
     }
+
+    /** 查詢員工操作紀錄（依時間新到舊，cursor 分頁）
+     * @param query 員工姓名、動作、時間區間、cursor、每頁筆數
+     */
+    @GetMapping("/logs")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public ResponseEntity<EmpLogPageDto> getLogs(@ModelAttribute EmpLogQueryDto query) {
+        return ResponseEntity.status(HttpStatus.OK).body(empLogService.getLogs(query));
+    }
+
+    /** 依相同條件匯出員工操作紀錄 CSV
+     */
+    @GetMapping("/logs/export")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public void exportLogs(@ModelAttribute EmpLogQueryDto query, HttpServletResponse response) throws IOException {
+        response.setContentType("text/csv; charset=UTF-8");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=emp_logs.csv");
+
+        OutputStream out = response.getOutputStream();
+        // UTF-8 BOM（Excel 防亂碼）
+        out.write(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF});
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        empLogService.exportToCSV(query, writer);
+    }
 }
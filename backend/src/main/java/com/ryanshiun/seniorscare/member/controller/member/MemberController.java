@@ -1,10 +1,12 @@
 package com.ryanshiun.seniorscare.member.controller.member;
 
 import com.ryanshiun.seniorscare.member.dto.member.BanReasonDto;
+import com.ryanshiun.seniorscare.member.dto.member.MemberPageDto;
 import com.ryanshiun.seniorscare.member.dto.member.MemberProfileDto;
 import com.ryanshiun.seniorscare.member.dto.member.MemberQueryParamsDto;
 import com.ryanshiun.seniorscare.member.dto.member.MemberUpdateDto;
 import com.ryanshiun.seniorscare.member.service.member.MemberService;
+import com.ryanshiun.seniorscare.member.service.member.Impl.MemberSearchIndex;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -15,6 +17,7 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/members")
@@ -22,6 +25,8 @@ import java.util.List;
 public class MemberController {
     @Autowired
     private MemberService memberService;
+    @Autowired
+    private MemberSearchIndex memberSearchIndex;
 
     /**
      * 查詢當前登入會員自己的資料
@@ -87,6 +92,25 @@ public class MemberController {
         return ResponseEntity.status(HttpStatus.OK).body(members);
     }
 
+    /** 查詢會員（會員 ID 新到舊，cursor 分頁）
+     * 姓名 / 地址可用空白分隔多個關鍵字；isActive 不帶時只查正常會員
+     * @param memberQueryParams 姓名、地址、性別、狀態、cursor、每頁筆數
+     */
+    @GetMapping("/page")
+    @PreAuthorize("hasAnyRole('EMPLOYEE', 'MANAGER', 'ADMIN')")
+    public ResponseEntity<MemberPageDto> getMemberPage(@ModelAttribute MemberQueryParamsDto memberQueryParams) {
+        if (memberQueryParams.getIsActive() == null) memberQueryParams.setIsActive(true);
+        return ResponseEntity.status(HttpStatus.OK).body(memberService.getMemberPage(memberQueryParams));
+    }
+
+    /** 會員搜尋索引狀態
+     */
+    @GetMapping("/search-stats")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public ResponseEntity<Map<String, Object>> searchStats() {
+        return ResponseEntity.status(HttpStatus.OK).body(memberSearchIndex.stats());
+    }
+
     /** 查詢特定會員資料
      * @param memberId 會員 ID
      * @return 會員資料，若不存在則回傳 404
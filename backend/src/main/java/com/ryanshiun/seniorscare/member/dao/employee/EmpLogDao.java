@@ -1,13 +1,27 @@
 package com.ryanshiun.seniorscare.member.dao.employee;
 
+import com.ryanshiun.seniorscare.member.dto.employee.EmpLogQueryDto;
 import com.ryanshiun.seniorscare.member.model.employee.EmpLog;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface EmpLogDao {
     // 新增紀錄
     Integer insert(EmpLog empLog);
 
+    // 批次新增紀錄
+    int[] insertBatch(List<EmpLog> empLogs);
+
     // 取得全部紀錄
     List<EmpLog> getAllLogs();
+
+    // 建立查詢用索引（已存在則略過）
+    void ensureIndexes();
+
+    // 依條件查一頁（created_at, id 新到舊）；cursorId 為上一頁最後一筆，第一頁傳 null
+    List<EmpLog> getLogs(EmpLogQueryDto query, Long cursorId, int limit);
+
+    // 依條件逐筆串流輸出
+    void exportLogs(EmpLogQueryDto query, Consumer<EmpLog> consumer);
 }
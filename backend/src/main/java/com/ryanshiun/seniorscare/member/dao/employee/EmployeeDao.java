@@ -8,6 +8,7 @@ import com.ryanshiun.seniorscare.member.model.employee.EmpRole;
 import com.ryanshiun.seniorscare.member.model.employee.Employee;
 
 import java.util.List;
+import java.util.Map;
 
 public interface EmployeeDao {
     // 查詢單一員工資料 By empId
@@ -48,4 +49,13 @@ public interface EmployeeDao {
 
     // 查詢員工資料 (前端用)
     EmployeeProfileDto passEmpInfo(String email);
+
+    // 建立權限版本表（已存在則略過）
+    void ensureRoleVersionTable();
+
+    // 查詢所有員工的權限版本 (empId -> version)
+    Map<Integer, Integer> getRoleVersions();
+
+    // 權限版本 +1，回傳新版本
+    int bumpRoleVersion(int empId);
 }
@@ -1,37 +1,132 @@
 package com.ryanshiun.seniorscare.member.dao.employee.Impl;
 
 import com.ryanshiun.seniorscare.member.dao.employee.EmpLogDao;
+import com.ryanshiun.seniorscare.member.dto.employee.EmpLogQueryDto;
 import com.ryanshiun.seniorscare.member.model.employee.EmpLog;
+import com.ryanshiun.seniorscare.member.rowmapper.employee.EmplogRowMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 @Component
 public class EmpLogDaoImpl implements EmpLogDao {
 
+    // 匯出時每次從資料庫抓的筆數
+    private static final int EXPORT_FETCH_SIZE = 500;
+
+    private static final String INSERT_SQL = "INSERT INTO emp_log (emp_name, action, target_name, created_at)" +
+            " VALUES (:empName, :action, :targetName, :createdAt)";
+
     @Autowired
     private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
     // 新增一筆紀錄
     @Override
     public Integer insert(EmpLog empLog) {
-       final String sql = "INSERT INTO emp_log (emp_name, action, target_name)" +
-                       " VALUES (:empName, :action, :targetName)";
-        Map<String, Object> map = new HashMap<>();
-        map.put("empId", empLog.getEmpName());
-        map.put("action", empLog.getAction());
-        map.put("targetId", empLog.getTargetName());
-        return namedParameterJdbcTemplate.update(sql, map);
+        return namedParameterJdbcTemplate.update(INSERT_SQL, paramsOf(empLog));
+    }
+
+    // 批次新增紀錄（一次 round trip）
+    @Override
+    public int[] insertBatch(List<EmpLog> empLogs) {
+        SqlParameterSource[] batch = new SqlParameterSource[empLogs.size()];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = paramsOf(empLogs.get(i));
+        }
+        return namedParameterJdbcTemplate.batchUpdate(INSERT_SQL, batch);
     }
 
     @Override
     public List<EmpLog> getAllLogs() {
-        final String sql = "SELECT emp_name, action, target_name, created_at FROM emp_log";
-        return namedParameterJdbcTemplate.queryForList(sql, Collections.emptyMap(), EmpLog.class);
+        final String sql = "SELECT id, emp_name, action, target_name, created_at FROM emp_log";
+        return namedParameterJdbcTemplate.query(sql, Collections.emptyMap(), new EmplogRowMapper());
+    }
+
+    /** 建立查詢用索引
+     *  IX_emp_log_created_id：依時間分頁
+     *  IX_emp_log_emp_created：查某位員工的紀錄
+     */
+    @Override
+    public void ensureIndexes() {
+        JdbcTemplate jdbc = namedParameterJdbcTemplate.getJdbcTemplate();
+        jdbc.execute("IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_emp_log_created_id'" +
+                " AND object_id = OBJECT_ID('emp_log'))" +
+                " CREATE INDEX IX_emp_log_created_id ON emp_log (created_at, id)");
+        jdbc.execute("IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_emp_log_emp_created'" +
+                " AND object_id = OBJECT_ID('emp_log'))" +
+                " CREATE INDEX IX_emp_log_emp_created ON emp_log (emp_name, created_at, id)");
+    }
+
+    @Override
+    public List<EmpLog> getLogs(EmpLogQueryDto query, Long cursorId, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT TOP (:limit) id, emp_name, action, target_name, created_at" +
+                " FROM emp_log WHERE 1=1");
+        Map<String, Object> map = new HashMap<>();
+        map.put("limit", limit);
+        appendFilters(sql, map, query);
+
+        // keyset：接在上一頁最後一筆之後，不用 OFFSET
+        // 時間直接取自該筆資料，避免 datetime 精度在應用端來回轉換後比對不準
+        if (cursorId != null) {
+            final String cursorAt = "(SELECT created_at FROM emp_log WHERE id = :cursorId)";
+            sql.append(" AND (created_at < ").append(cursorAt)
+                    .append(" OR (created_at = ").append(cursorAt).append(" AND id < :cursorId))");
+            map.put("cursorId", cursorId);
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC");
+        return namedParameterJdbcTemplate.query(sql.toString(), map, new EmplogRowMapper());
+    }
+
+    @Override
+    public void exportLogs(EmpLogQueryDto query, Consumer<EmpLog> consumer) {
+        StringBuilder sql = new StringBuilder("SELECT id, emp_name, action, target_name, created_at" +
+                " FROM emp_log WHERE 1=1");
+        Map<String, Object> map = new HashMap<>();
+        appendFilters(sql, map, query);
+        sql.append(" ORDER BY created_at DESC, id DESC");
+
+        JdbcTemplate jdbc = new JdbcTemplate(namedParameterJdbcTemplate.getJdbcTemplate().getDataSource());
+        jdbc.setFetchSize(EXPORT_FETCH_SIZE);
+        EmplogRowMapper mapper = new EmplogRowMapper();
+        new NamedParameterJdbcTemplate(jdbc).query(sql.toString(), map,
+                (RowCallbackHandler) rs -> consumer.accept(mapper.mapRow(rs, 0)));
+    }
+
+    private static void appendFilters(StringBuilder sql, Map<String, Object> map, EmpLogQueryDto query) {
+        if (query.getEmpName() != null && !query.getEmpName().isBlank()) {
+            sql.append(" AND emp_name = :empName");
+            map.put("empName", query.getEmpName().trim());
+        }
+        if (query.getAction() != null && !query.getAction().isBlank()) {
+            sql.append(" AND action = :action");
+            map.put("action", query.getAction().trim());
+        }
+        if (query.getFrom() != null) {
+            sql.append(" AND created_at >= :from");
+            map.put("from", query.getFrom());
+        }
+        if (query.getTo() != null) {
+            sql.append(" AND created_at < :to");
+            map.put("to", query.getTo());
+        }
+    }
+
+    private static MapSqlParameterSource paramsOf(EmpLog empLog) {
+        return new MapSqlParameterSource()
+                .addValue("empName", empLog.getEmpName())
+                .addValue("action", empLog.getAction())
+                .addValue("targetName", empLog.getTargetName())
+                .addValue("createdAt", empLog.getCreatedAt() != null ? empLog.getCreatedAt() : LocalDateTime.now());
     }
 }
@@ -269,4 +269,50 @@ public class EmployeeDaoImpl implements EmployeeDao {
         dto.setRoles(roles);
         return dto;
     }
-}
\ No newline at end of file
+
+    /** 建立權限版本表
+     *  每次修改權限或停權/啟用時版本 +1，JWT 內帶發行當下的版本，舊版本的 token 直接拒絕
+     */
+    @Override
+    public void ensureRoleVersionTable() {
+        final String sql = """
+                IF OBJECT_ID('employee_role_version', 'U') IS NULL
+                CREATE TABLE employee_role_version (
+                    emp_id INT NOT NULL PRIMARY KEY,
+                    role_version INT NOT NULL
+                )
+                """;
+        namedParameterJdbcTemplate.getJdbcTemplate().execute(sql);
+    }
+
+    /** 查詢所有員工的權限版本
+     * @return empId -> 權限版本（沒有資料的員工視為 0）
+     */
+    @Override
+    public Map<Integer, Integer> getRoleVersions() {
+        final String sql = "SELECT emp_id, role_version FROM employee_role_version";
+        Map<Integer, Integer> versions = new HashMap<>();
+        namedParameterJdbcTemplate.query(sql, Collections.emptyMap(),
+                rs -> { versions.put(rs.getInt("emp_id"), rs.getInt("role_version")); });
+        return versions;
+    }
+
+    /** 權限版本 +1
+     * @param empId 員工 ID
+     * @return 新的權限版本
+     */
+    @Override
+    public int bumpRoleVersion(int empId) {
+        final String sql = """
+                MERGE employee_role_version WITH (HOLDLOCK) AS t
+                USING (SELECT :empId AS emp_id) AS s ON t.emp_id = s.emp_id
+                WHEN MATCHED THEN UPDATE SET role_version = t.role_version + 1
+                WHEN NOT MATCHED THEN INSERT (emp_id, role_version) VALUES (s.emp_id, 1)
+                OUTPUT inserted.role_version;
+                """;
+        Map<String, Object> map = new HashMap<>();
+        map.put("empId", empId);
+        Integer version = namedParameterJdbcTemplate.queryForObject(sql, map, Integer.class);
+        return version == null ? 0 : version;
+    }
+}
@@ -6,7 +6,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Component
@@ -47,4 +49,56 @@ public class PwdResetDaoImpl implements PwdResetDao {
         map.put("empId", empId);
         return namedParameterJdbcTemplate.update(sql, map);
     }
+
+    // 加上嘗試次數欄位
+    @Override
+    public void ensureAttemptsColumn() {
+        final String sql = "IF COL_LENGTH('pwdReset', 'attempts') IS NULL" +
+                " ALTER TABLE pwdReset ADD attempts INT NOT NULL DEFAULT 0";
+        namedParameterJdbcTemplate.getJdbcTemplate().execute(sql);
+    }
+
+    // 作廢該員工所有未使用的驗證碼
+    @Override
+    public Integer invalidateActive(Integer empId) {
+        return markUsed(empId);
+    }
+
+    // 嘗試次數 +1 並取回驗證碼（一個 statement 完成，同時送出的請求各自得到自己的次數）
+    @Override
+    public List<PwdReset> countAttempt(Integer empId, LocalDateTime now) {
+        final String sql = "UPDATE pwdReset SET attempts = attempts + 1" +
+                " OUTPUT inserted.id, inserted.code, inserted.attempts" +
+                " WHERE emp_id = :empId AND used = 0 AND expires_at > :now";
+        Map<String, Object> map = new HashMap<>();
+        map.put("empId", empId);
+        map.put("now", now);
+        return namedParameterJdbcTemplate.query(sql, map, (rs, rowNum) -> {
+            PwdReset pwdReset = new PwdReset();
+            pwdReset.setId(rs.getInt("id"));
+            pwdReset.setEmpId(empId);
+            pwdReset.setCode(rs.getString("code"));
+            pwdReset.setAttempts(rs.getInt("attempts"));
+            return pwdReset;
+        });
+    }
+
+    // 標記指定驗證碼已使用
+    @Override
+    public Integer markUsedById(Integer id) {
+        final String sql = "UPDATE pwdReset SET used = 1 WHERE id = :id AND used = 0";
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", id);
+        return namedParameterJdbcTemplate.update(sql, map);
+    }
+
+    // 分批刪除已過期的驗證碼（每批一個短交易，不長時間鎖表）
+    @Override
+    public Integer deleteExpired(LocalDateTime before, int batchSize) {
+        final String sql = "DELETE TOP (:batchSize) FROM pwdReset WHERE expires_at < :before";
+        Map<String, Object> map = new HashMap<>();
+        map.put("before", before);
+        map.put("batchSize", batchSize);
+        return namedParameterJdbcTemplate.update(sql, map);
+    }
 }
@@ -2,6 +2,9 @@ package com.ryanshiun.seniorscare.member.dao.employee;
 
 import com.ryanshiun.seniorscare.member.model.employee.PwdReset;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 public interface PwdResetDao {
     // 注入密碼
     Integer insert(PwdReset pwdReset);
@@ -11,4 +14,19 @@ public interface PwdResetDao {
 
     // 標記已使用該驗證碼
     Integer markUsed(Integer empId);
+
+    // 加上嘗試次數欄位（已存在則略過）
+    void ensureAttemptsColumn();
+
+    // 作廢該員工所有未使用的驗證碼
+    Integer invalidateActive(Integer empId);
+
+    // 有效驗證碼的嘗試次數 +1，回傳更新後的紀錄（id、code、attempts）
+    List<PwdReset> countAttempt(Integer empId, LocalDateTime now);
+
+    // 標記指定驗證碼已使用，回傳影響筆數（0 表示已被別人用掉）
+    Integer markUsedById(Integer id);
+
+    // 分批刪除已過期的驗證碼，回傳本批刪除筆數
+    Integer deleteExpired(LocalDateTime before, int batchSize);
 }
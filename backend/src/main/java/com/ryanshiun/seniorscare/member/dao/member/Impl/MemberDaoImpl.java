@@ -5,6 +5,7 @@ import com.ryanshiun.seniorscare.member.dto.member.*;
 import com.ryanshiun.seniorscare.member.model.member.Member;
 import com.ryanshiun.seniorscare.member.rowmapper.member.MemberQueryMapper;
 import com.ryanshiun.seniorscare.member.rowmapper.member.MemberRowMapper;
+import com.ryanshiun.seniorscare.member.utils.MemberSearchText;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
@@ -13,6 +14,7 @@ import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -91,29 +93,26 @@ public class MemberDaoImpl implements MemberDao {
         return namedParameterJdbcTemplate.queryForObject(sql, map, Integer.class);
     }
 
-    /** 客製化查詢會員 (姓名、地址、性別、是否停權)
+    /** 客製化查詢會員 (姓名、地址、性別、是否停權)，會員 ID 新到舊
      * @param memberQueryParams 查詢參數
+     * @param cursorId 上一頁最後一筆的會員 ID；null 表示第一頁
+     * @param limit 最多回傳筆數
      * @return 會員列表
      */
     @Override
-    public List<MemberProfileDto> getMembers(MemberQueryParamsDto memberQueryParams) {
-        StringBuilder sql = new StringBuilder(BASE_MEMBER_QUERY);
+    public List<MemberProfileDto> getMembers(MemberQueryParamsDto memberQueryParams, Integer cursorId, int limit) {
+        StringBuilder sql = new StringBuilder(BASE_MEMBER_QUERY.replaceFirst("SELECT", "SELECT TOP (:limit)"));
         sql.append(" WHERE 1=1 ");
 
         Map<String, Object> map = new HashMap<>();
+        map.put("limit", limit);
 
-        if (memberQueryParams.getMemberName() != null) {
-            sql.append(" AND member_name LIKE :memberName ");
-            map.put("memberName", "%" + memberQueryParams.getMemberName() + "%");
-        }
-
-        if (memberQueryParams.getAddress() != null) {
-            sql.append(" AND address LIKE :address ");
-            map.put("address", memberQueryParams.getAddress());
-        }
+        // 與搜尋索引相同的比對規則：以空白切成多個關鍵字，每個都要出現
+        appendTerms(sql, map, "member_name", "memberName", memberQueryParams.getMemberName());
+        appendTerms(sql, map, "address", "address", memberQueryParams.getAddress());
 
         if (memberQueryParams.getGender() != null) {
-            sql.append(" AND member_gender LIKE :gender ");
+            sql.append(" AND gender = :gender ");
             map.put("gender", memberQueryParams.getGender());
         }
 
@@ -121,9 +120,65 @@ public class MemberDaoImpl implements MemberDao {
             sql.append(" AND is_active = :isActive ");
             map.put("isActive", memberQueryParams.getIsActive());
         }
+
+        if (cursorId != null) {
+            sql.append(" AND member_id < :cursorId ");
+            map.put("cursorId", cursorId);
+        }
+        sql.append(" ORDER BY member_id DESC");
         return namedParameterJdbcTemplate.query(sql.toString(), map, new MemberQueryMapper());
     }
 
+    // 欄位去空白、轉小寫、「臺」換成「台」後比對正規化過的關鍵字；全形 / 半形由定序處理
+    private static void appendTerms(StringBuilder sql, Map<String, Object> map, String column, String param, String query) {
+        String[] terms = MemberSearchText.terms(query);
+        for (int i = 0; i < terms.length; i++) {
+            sql.append(" AND LOWER(REPLACE(REPLACE(").append(column).append(", N'臺', N'台'), N' ', N'')) LIKE :")
+                    .append(param).append(i).append(' ');
+            map.put(param + i, "%" + escapeLike(terms[i]) + "%");
+        }
+    }
+
+    // LIKE 的萬用字元當一般字元比對
+    private static String escapeLike(String s) {
+        return s.replace("[", "[[]").replace("%", "[%]").replace("_", "[_]");
+    }
+
+    /** 依會員 ID 查詢（搜尋索引找出 ID 後用）
+     * @param memberIds 會員 ID
+     * @return 會員列表 (會員 ID 新到舊)
+     */
+    @Override
+    public List<MemberProfileDto> getMembersByIds(List<Integer> memberIds) {
+        if (memberIds.isEmpty()) return List.of();
+        final String sql = BASE_MEMBER_QUERY + " WHERE member_id IN (:memberIds) ORDER BY member_id DESC";
+        List<MemberProfileDto> members = new ArrayList<>(memberIds.size());
+        // IN 參數上限 2100，分批查
+        for (int i = 0; i < memberIds.size(); i += 1000) {
+            List<Integer> chunk = memberIds.subList(i, Math.min(i + 1000, memberIds.size()));
+            members.addAll(namedParameterJdbcTemplate.query(sql, Map.of("memberIds", chunk), new MemberQueryMapper()));
+        }
+        if (memberIds.size() > 1000) members.sort((a, b) -> Integer.compare(b.getMemberId(), a.getMemberId()));
+        return members;
+    }
+
+    /** 所有會員的搜尋欄位
+     * @return 只有 ID、姓名、地址、性別、狀態的會員列表
+     */
+    @Override
+    public List<MemberProfileDto> getMemberSearchFields() {
+        final String sql = "SELECT member_id, member_name, address, gender, is_active FROM member";
+        return namedParameterJdbcTemplate.query(sql, Map.of(), (rs, rowNum) -> {
+            MemberProfileDto member = new MemberProfileDto();
+            member.setMemberId(rs.getInt("member_id"));
+            member.setMemberName(rs.getString("member_name"));
+            member.setAddress(rs.getString("address"));
+            member.setGender(rs.getBoolean("gender"));
+            member.setActive(rs.getBoolean("is_active"));
+            return member;
+        });
+    }
+
     /** 修改個人資料
      * @param memberUpdateDto 更新資料
      */
@@ -16,8 +16,14 @@ public interface MemberDao {
     // 查詢 email 是否已經被註冊
     Integer isEmailExists(String email);
 
-    // 客製化查詢會員
-    List<MemberProfileDto> getMembers(MemberQueryParamsDto memberQueryParams);
+    // 客製化查詢會員（會員 ID 新到舊，接在 cursorId 之後最多 limit 筆）
+    List<MemberProfileDto> getMembers(MemberQueryParamsDto memberQueryParams, Integer cursorId, int limit);
+
+    // 依會員 ID 查詢（會員 ID 新到舊）
+    List<MemberProfileDto> getMembersByIds(List<Integer> memberIds);
+
+    // 所有會員的搜尋欄位（ID、姓名、地址、性別、狀態），建立搜尋索引用
+    List<MemberProfileDto> getMemberSearchFields();
 
     // 修改個人資料
     void updateProfile(MemberUpdateDto memberUpdateDto);
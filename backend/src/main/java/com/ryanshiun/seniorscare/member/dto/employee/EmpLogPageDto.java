@@ -0,0 +1,15 @@
+package com.ryanshiun.seniorscare.member.dto.employee;
+
+import com.ryanshiun.seniorscare.member.model.employee.EmpLog;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 操作紀錄分頁結果；hasMore 為 true 時帶 nextCursor 查下一頁
+@Data
+public class EmpLogPageDto {
+    private List<EmpLog> items = new ArrayList<>();
+    private String nextCursor;
+    private boolean hasMore;
+}
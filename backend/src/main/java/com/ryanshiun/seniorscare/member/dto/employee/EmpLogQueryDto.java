@@ -0,0 +1,25 @@
+package com.ryanshiun.seniorscare.member.dto.employee;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+// 操作紀錄查詢條件（依時間新到舊，cursor 往下翻頁）
+@Data
+public class EmpLogQueryDto {
+
+    // 操作的員工姓名
+    private String empName;
+    // 動作
+    private String action;
+    // 時間區間 [from, to)
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+    // 上一頁回傳的 nextCursor；第一頁不帶
+    private String cursor;
+    // 每頁筆數 (1~200，預設 50)
+    private Integer size;
+}
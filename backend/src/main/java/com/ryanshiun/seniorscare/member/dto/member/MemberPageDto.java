@@ -0,0 +1,14 @@
+package com.ryanshiun.seniorscare.member.dto.member;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 會員分頁結果（會員 ID 新到舊）；hasMore 為 true 時帶 nextCursor 查下一頁
+@Data
+public class MemberPageDto {
+    private List<MemberProfileDto> items = new ArrayList<>();
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -9,4 +9,6 @@ public class MemberQueryParamsDto {
     private String address;
     private Boolean gender;
     private Boolean isActive; // 停權名單 (1=normal, 0=ban)
+    private String cursor; // 上一頁回傳的 nextCursor；第一頁不帶
+    private Integer size; // 每頁筆數 (1~200，預設 50)
 }
@@ -11,4 +11,5 @@ public class PwdReset {
     private String code;
     private LocalDateTime expiresAt;
     private Boolean used;
+    private Integer attempts;
 }
@@ -5,17 +5,19 @@ import org.springframework.jdbc.core.RowMapper;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.time.LocalDateTime;
+import java.sql.Timestamp;
 
 public class EmplogRowMapper implements RowMapper<EmpLog> {
     @Override
     public EmpLog mapRow(ResultSet rs, int rowNum) throws SQLException {
         EmpLog empLog = new EmpLog();
 
+        empLog.setId(rs.getLong("id"));
         empLog.setEmpName(rs.getString("emp_name"));
         empLog.setAction(rs.getString("action"));
         empLog.setTargetName(rs.getString("target_name"));
-        empLog.setCreatedAt(LocalDateTime.parse(String.valueOf(rs.getTimestamp("created_at"))));
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        empLog.setCreatedAt(createdAt == null ? null : createdAt.toLocalDateTime());
         return empLog;
     }
 }
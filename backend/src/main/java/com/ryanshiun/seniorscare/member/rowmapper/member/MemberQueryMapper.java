@@ -5,6 +5,7 @@ import org.springframework.jdbc.core.RowMapper;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 
 public class MemberQueryMapper implements RowMapper<MemberProfileDto> {
     @Override
@@ -22,8 +23,11 @@ public class MemberQueryMapper implements RowMapper<MemberProfileDto> {
         member.setActive(rs.getBoolean("is_active"));
         member.setBanReason(rs.getString("ban_reason"));
         member.setCreatedAt(rs.getTimestamp("created_at"));
-        member.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
-        member.setLoginAt(rs.getTimestamp("login_at").toLocalDateTime());
+        // 剛註冊的會員尚未更新過資料 / 登入時間可能為 null
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        member.setUpdatedAt(updatedAt == null ? null : updatedAt.toLocalDateTime());
+        Timestamp loginAt = rs.getTimestamp("login_at");
+        member.setLoginAt(loginAt == null ? null : loginAt.toLocalDateTime());
         return member;
     }
 }
@@ -1,11 +1,20 @@
 package com.ryanshiun.seniorscare.member.service.employee;
 
+import com.ryanshiun.seniorscare.member.dto.employee.EmpLogPageDto;
+import com.ryanshiun.seniorscare.member.dto.employee.EmpLogQueryDto;
 import com.ryanshiun.seniorscare.member.model.employee.EmpLog;
 
+import java.io.PrintWriter;
 import java.util.List;
 
 public interface EmpLogService {
     void record(String empName, String action, String targetName);
 
     List<EmpLog> getAllLogs();
+
+    // 依時間、員工、動作查詢（cursor 分頁）
+    EmpLogPageDto getLogs(EmpLogQueryDto query);
+
+    // 依相同條件匯出 CSV
+    void exportToCSV(EmpLogQueryDto query, PrintWriter writer);
 }
@@ -0,0 +1,105 @@
+package com.ryanshiun.seniorscare.member.service.employee.Impl;
+
+import com.ryanshiun.seniorscare.member.dao.employee.PwdResetDao;
+import com.ryanshiun.seniorscare.member.model.employee.PwdReset;
+import com.ryanshiun.seniorscare.member.service.employee.OtpStore;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 資料庫版驗證碼存放（app.otp.store=db，多台機器共用）：
+ * - 申請時先作廢舊的驗證碼，同一員工只保留一組有效的
+ * - 驗證時以一個 UPDATE ... OUTPUT 同時累加嘗試次數並取回驗證碼，在程式端固定時間比對
+ * - 成功以 used = 0 為條件標記已使用，同時送出也只有一個會成功
+ * - 過期資料定期分批刪除
+ */
+@Component
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "db")
+public class DbOtpStore implements OtpStore {
+
+    private static final Logger log = LoggerFactory.getLogger(DbOtpStore.class);
+
+    @Autowired
+    private PwdResetDao pwdResetDao;
+
+    @Value("${app.otp.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.otp.purge-batch-size:500}")
+    private int purgeBatchSize;
+
+    @PostConstruct
+    public void init() {
+        try {
+            pwdResetDao.ensureAttemptsColumn();
+        } catch (RuntimeException e) {
+            log.warn("pwdReset 加上 attempts 欄位失敗：{}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void issue(int empId, String code, Duration ttl) {
+        pwdResetDao.invalidateActive(empId);
+        PwdReset pwdReset = new PwdReset();
+        pwdReset.setEmpId(empId);
+        pwdReset.setCode(code);
+        pwdReset.setExpiresAt(LocalDateTime.now().plus(ttl));
+        pwdResetDao.insert(pwdReset);
+    }
+
+    // 獨立交易：呼叫端因驗證失敗而 rollback 時，嘗試次數仍要留下
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Override
+    public Result verify(int empId, String code) {
+        List<PwdReset> active = pwdResetDao.countAttempt(empId, LocalDateTime.now());
+        if (active.isEmpty()) {
+            return Result.NOT_FOUND;
+        }
+        PwdReset current = active.get(0);
+        if (current.getAttempts() > maxAttempts) {
+            pwdResetDao.markUsedById(current.getId());
+            return Result.TOO_MANY_ATTEMPTS;
+        }
+
+        byte[] input = code == null ? new byte[0] : code.getBytes(StandardCharsets.UTF_8);
+        if (MessageDigest.isEqual(current.getCode().getBytes(StandardCharsets.UTF_8), input)) {
+            return pwdResetDao.markUsedById(current.getId()) == 1 ? Result.OK : Result.NOT_FOUND;
+        }
+        if (current.getAttempts() == maxAttempts) {
+            pwdResetDao.markUsedById(current.getId());
+        }
+        return Result.MISMATCH;
+    }
+
+    /**
+     * 分批刪除過期的驗證碼
+     */
+    @Scheduled(fixedDelayString = "${app.otp.purge-ms:600000}", initialDelay = 60000)
+    public void purgeExpired() {
+        try {
+            int total = 0;
+            int n;
+            do {
+                n = pwdResetDao.deleteExpired(LocalDateTime.now(), purgeBatchSize);
+                total += n;
+            } while (n == purgeBatchSize);
+            if (total > 0) log.info("清除過期驗證碼 {} 筆", total);
+        } catch (RuntimeException e) {
+            log.warn("清除過期驗證碼失敗：{}", e.getMessage());
+        }
+    }
+}
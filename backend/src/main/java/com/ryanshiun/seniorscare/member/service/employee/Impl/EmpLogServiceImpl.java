@@ -1,29 +1,91 @@
 package com.ryanshiun.seniorscare.member.service.employee.Impl;
 
 import com.ryanshiun.seniorscare.member.dao.employee.EmpLogDao;
+import com.ryanshiun.seniorscare.member.dto.employee.EmpLogPageDto;
+import com.ryanshiun.seniorscare.member.dto.employee.EmpLogQueryDto;
 import com.ryanshiun.seniorscare.member.model.employee.EmpLog;
 import com.ryanshiun.seniorscare.member.service.employee.EmpLogService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.PrintWriter;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Component
 public class EmpLogServiceImpl implements EmpLogService {
+
+    // 分頁筆數
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
     @Autowired
     private EmpLogDao empLogDao;
 
+    @Autowired
+    private EmpLogWriter empLogWriter;
+
+    // 記錄操作（非同步批次寫入，時間以呼叫當下為準）
     @Override
     public void record(String empName, String action, String targetName) {
         EmpLog empLog = new EmpLog();
         empLog.setEmpName(empName);
         empLog.setAction(action);
         empLog.setTargetName(targetName);
-        empLogDao.insert(empLog);
+        empLog.setCreatedAt(LocalDateTime.now());
+        empLogWriter.submit(empLog);
     }
 
     @Override
     public List<EmpLog> getAllLogs() {
         return empLogDao.getAllLogs();
     }
+
+    @Override
+    public EmpLogPageDto getLogs(EmpLogQueryDto query) {
+        int size = query.getSize() == null ? DEFAULT_PAGE_SIZE
+                : Math.max(1, Math.min(query.getSize(), MAX_PAGE_SIZE));
+        Long cursorId = null;
+        if (query.getCursor() != null && !query.getCursor().isBlank()) {
+            try {
+                cursorId = Long.valueOf(query.getCursor().trim());
+            } catch (NumberFormatException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "無效的 cursor");
+            }
+        }
+
+        // 多抓一筆判斷是否還有下一頁
+        List<EmpLog> rows = empLogDao.getLogs(query, cursorId, size + 1);
+        EmpLogPageDto page = new EmpLogPageDto();
+        boolean hasMore = rows.size() > size;
+        List<EmpLog> items = hasMore ? rows.subList(0, size) : rows;
+        page.setItems(items);
+        page.setHasMore(hasMore);
+        if (hasMore) {
+            page.setNextCursor(String.valueOf(items.get(items.size() - 1).getId()));
+        }
+        return page;
+    }
+
+    @Override
+    public void exportToCSV(EmpLogQueryDto query, PrintWriter writer) {
+        writer.println("id,empName,action,targetName,createdAt");
+        empLogDao.exportLogs(query, empLog -> writer.println(
+                empLog.getId() + "," +
+                csv(empLog.getEmpName()) + "," +
+                csv(empLog.getAction()) + "," +
+                csv(empLog.getTargetName()) + "," +
+                (empLog.getCreatedAt() == null ? "" : empLog.getCreatedAt())));
+        writer.flush();
+    }
+
+    private static String csv(String s) {
+        if (s == null) return "";
+        if (s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0) {
+            return "\"" + s.replace("\"", "\"\"") + "\"";
+        }
+        return s;
+    }
 }
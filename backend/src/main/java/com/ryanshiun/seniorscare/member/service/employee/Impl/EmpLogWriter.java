@@ -0,0 +1,201 @@
+package com.ryanshiun.seniorscare.member.service.employee.Impl;
+
+import com.ryanshiun.seniorscare.member.dao.employee.EmpLogDao;
+import com.ryanshiun.seniorscare.member.model.employee.EmpLog;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 員工操作紀錄的非同步寫入：
+ * - 呼叫端把紀錄放進固定大小的 ring buffer（CAS 取位置，不上鎖）就回傳
+ * - 單一背景執行緒定期或累積到一批時，以 JDBC batch 一次寫入
+ * - buffer 滿時改由呼叫端直接寫入資料庫，不丟紀錄
+ * - 關機時在期限內盡量寫完；期限到仍未寫入的筆數記在 log（遺失上限 = buffer 大小）
+ */
+@Component
+public class EmpLogWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(EmpLogWriter.class);
+
+    private final EmpLogDao empLogDao;
+    private final int batchSize;
+    private final long flushNanos;
+    private final long shutdownDrainMs;
+
+    // ring buffer：tail 由多個生產者 CAS 前進，head 只由寫入執行緒前進
+    private final AtomicReferenceArray<EmpLog> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    private volatile Thread writer;
+    private volatile boolean running;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder directWrites = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    public EmpLogWriter(EmpLogDao empLogDao,
+                        @Value("${app.emplog.buffer-size:4096}") int bufferSize,
+                        @Value("${app.emplog.batch-size:200}") int batchSize,
+                        @Value("${app.emplog.flush-ms:1000}") long flushMs,
+                        @Value("${app.emplog.shutdown-drain-ms:5000}") long shutdownDrainMs) {
+        this.empLogDao = empLogDao;
+        int capacity = Integer.highestOneBit(Math.max(bufferSize, 2) * 2 - 1);
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.batchSize = Math.max(batchSize, 1);
+        this.flushNanos = Math.max(flushMs, 10) * 1_000_000L;
+        this.shutdownDrainMs = shutdownDrainMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            empLogDao.ensureIndexes();
+        } catch (RuntimeException e) {
+            log.warn("建立 emp_log 索引失敗：{}", e.getMessage());
+        }
+        running = true;
+        Thread t = new Thread(this::runLoop, "emp-log-writer");
+        t.setDaemon(true);
+        writer = t;
+        t.start();
+    }
+
+    /**
+     * 排入一筆紀錄；buffer 滿或寫入執行緒未啟動時直接寫入資料庫
+     */
+    public void submit(EmpLog empLog) {
+        if (running && offer(empLog)) {
+            long pending = tail.get() - head.get();
+            if (pending >= batchSize) {
+                LockSupport.unpark(writer);
+            }
+            return;
+        }
+        directWrites.increment();
+        try {
+            empLogDao.insert(empLog);
+            written.increment();
+        } catch (RuntimeException e) {
+            failed.increment();
+            log.warn("寫入操作紀錄失敗：{}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        Thread t = writer;
+        if (t == null) return;
+        LockSupport.unpark(t);
+        try {
+            t.join(shutdownDrainMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long lost = tail.get() - head.get();
+        if (lost > 0) {
+            log.warn("關機時仍有 {} 筆操作紀錄未寫入", lost);
+        }
+    }
+
+    /**
+     * 寫入統計
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("pending", tail.get() - head.get());
+        out.put("capacity", slots.length());
+        out.put("written", written.sum());
+        out.put("batches", batches.sum());
+        out.put("directWrites", directWrites.sum());
+        out.put("failed", failed.sum());
+        return out;
+    }
+
+    // ===== ring buffer =====
+
+    private boolean offer(EmpLog empLog) {
+        while (true) {
+            long t = tail.get();
+            if (t - head.get() >= slots.length()) {
+                return false;
+            }
+            if (tail.compareAndSet(t, t + 1)) {
+                slots.set((int) (t & mask), empLog);
+                return true;
+            }
+        }
+    }
+
+    // 取出已發布的紀錄（位置已被取得但還沒放入的，等下一輪）
+    private List<EmpLog> drain(int max) {
+        List<EmpLog> out = new ArrayList<>(Math.min(max, 64));
+        long h = head.get();
+        while (out.size() < max) {
+            int i = (int) (h & mask);
+            EmpLog e = slots.get(i);
+            if (e == null) break;
+            slots.set(i, null);
+            out.add(e);
+            h++;
+        }
+        head.set(h);
+        return out;
+    }
+
+    private void runLoop() {
+        long deadline = 0;
+        while (true) {
+            List<EmpLog> batch = drain(batchSize);
+            if (!batch.isEmpty()) {
+                flush(batch);
+                if (batch.size() == batchSize) continue;
+            }
+            if (!running) {
+                // 關機：寫完剩下的（stop() 會等到 shutdownDrainMs）
+                if (deadline == 0) deadline = System.currentTimeMillis() + shutdownDrainMs;
+                if (tail.get() == head.get() || System.currentTimeMillis() > deadline) return;
+                LockSupport.parkNanos(1_000_000);
+                continue;
+            }
+            LockSupport.parkNanos(flushNanos);
+        }
+    }
+
+    private void flush(List<EmpLog> batch) {
+        try {
+            empLogDao.insertBatch(batch);
+            written.add(batch.size());
+            batches.increment();
+        } catch (RuntimeException e) {
+            // 整批失敗時逐筆重試，只丟掉寫不進去的
+            for (EmpLog empLog : batch) {
+                try {
+                    empLogDao.insert(empLog);
+                    written.increment();
+                } catch (RuntimeException ex) {
+                    failed.increment();
+                    log.warn("寫入操作紀錄失敗：{}", ex.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -5,12 +5,17 @@ import com.ryanshiun.seniorscare.member.dto.employee.*;
 import com.ryanshiun.seniorscare.member.model.employee.EmpRole;
 import com.ryanshiun.seniorscare.member.service.employee.EmpLogService;
 import com.ryanshiun.seniorscare.member.service.employee.EmployeeService;
+import com.ryanshiun.seniorscare.security.EmpRoleCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
+import static com.ryanshiun.seniorscare.common.util.TransactionHooks.afterCommit;
+
 @Component
 public class EmployeeServiceImpl implements EmployeeService {
 
@@ -20,27 +25,35 @@ public class EmployeeServiceImpl implements EmployeeService {
     @Autowired
     private EmpLogService empLogService;
 
+    @Autowired
+    private EmpRoleCache empRoleCache;
+
     // 增加員工
     @Transactional
     @Override
     public Integer addEmployee(EmployeeCreateDto employeeCreateDto) {
         Integer newEmpId = employeeDao.addEmployee(employeeCreateDto);
         employeeDao.assignInitialRole(newEmpId, employeeCreateDto.getRoleId());
+        record("新增員工", employeeCreateDto.getEmpName());
         return newEmpId;
     }
 
-    // 切換員工使用狀態
+    // 切換員工使用狀態（已發出的 token 一併失效）
+    @Transactional
     @Override
     public void toggleEmployeeStatus(int empId) {
         EmployeeProfileDto employee = employeeDao.getEmployeeById(empId);
         boolean newStatus = !employee.getIsActive();
         employeeDao.toggleEmployeeStatus(empId, newStatus);
+        empRoleCache.onRolesChanged(empId);
+        record(newStatus ? "啟用員工" : "停用員工", employee.getEmpName());
     }
 
     // 修改員工資料
     @Override
     public void updateEmployee(int empId, EmployeeUpdateDto employeeUpdateDto) {
         employeeDao.updateEmployee(empId, employeeUpdateDto);
+        record("修改員工資料", empName(empId));
     }
 
     /** 修改員工權限
@@ -53,6 +66,9 @@ public class EmployeeServiceImpl implements EmployeeService {
     public void updateEmployeeRole(int empId, List<Integer> newRoleIds) {
         employeeDao.deleteEmployeeRoles(empId);
         employeeDao.addEmployeeRole(empId, newRoleIds);
+        // 權限版本 +1，舊權限的 token 失效
+        empRoleCache.onRolesChanged(empId);
+        record("修改員工權限", empName(empId));
     }
 
     // 客製化搜尋
@@ -64,13 +80,13 @@ public class EmployeeServiceImpl implements EmployeeService {
     // 取得所有職等
     @Override
     public List<EmpRole> getAllRoles() {
-        return employeeDao.getAllRoles();
+        return empRoleCache.getAllRoles();
     }
 
     // 查詢該員工所有權限
     @Override
     public List<EmpRole> getRolesById(int empId) {
-        return employeeDao.getEmployeeRoles(empId);
+        return empRoleCache.getEmployeeRoles(empId);
     }
 
     // 查詢單一員工資料
@@ -84,4 +100,27 @@ public class EmployeeServiceImpl implements EmployeeService {
     public EmployeeProfileDto passEmpInfo(String email) {
         return employeeDao.passEmpInfo(email);
     }
+
+    // 記錄操作（commit 後才寫，rollback 的操作不留紀錄）
+    private void record(String action, String targetName) {
+        String operator = operatorName();
+        afterCommit(() -> empLogService.record(operator, action, targetName));
+    }
+
+    // 目前登入的員工姓名；員工 token 的 subject 是 empId，查不到時保留原值
+    private String operatorName() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || auth.getName() == null) return "system";
+        try {
+            String name = empName(Integer.parseInt(auth.getName()));
+            return name != null ? name : auth.getName();
+        } catch (NumberFormatException e) {
+            return auth.getName();
+        }
+    }
+
+    private String empName(int empId) {
+        EmployeeProfileDto employee = employeeDao.getEmployeeById(empId);
+        return employee == null ? null : employee.getEmpName();
+    }
 }
@@ -0,0 +1,164 @@
+package com.ryanshiun.seniorscare.member.service.employee.Impl;
+
+import com.ryanshiun.seniorscare.member.service.employee.OtpStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * 記憶體版驗證碼存放（預設）：
+ * - 依 empId 分散到多個 shard，每個 shard 一個 ConcurrentHashMap
+ * - 比對使用固定時間比較，避免由回應時間猜出驗證碼
+ * - 每組驗證碼有嘗試次數上限；驗證成功以 remove(key, entry) 消耗，同時送出也只有一個會成功
+ * - 過期清除用 timing wheel：依到期時間放進對應的格子，每個 tick 只處理一格
+ *
+ * 重新啟動會清空驗證碼（使用者重新申請即可）；多台機器時請改用 db。
+ */
+@Component
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOtpStore implements OtpStore {
+
+    private static final class Entry {
+        final byte[] code;
+        final long expiresAt;
+        final AtomicInteger attempts = new AtomicInteger();
+
+        Entry(byte[] code, long expiresAt) {
+            this.code = code;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private record Expiry(int empId, Entry entry, long tick) {
+    }
+
+    private final Map<Integer, Entry>[] shards;
+    private final int shardMask;
+    private final int maxAttempts;
+    private final LongSupplier clock;
+
+    // timing wheel
+    private final ConcurrentLinkedQueue<Expiry>[] wheel;
+    private final int wheelMask;
+    private final long tickMs;
+    private long currentTick;
+
+    @Autowired
+    public InMemoryOtpStore(@Value("${app.otp.shards:16}") int shards,
+                            @Value("${app.otp.max-attempts:5}") int maxAttempts,
+                            @Value("${app.otp.tick-ms:1000}") long tickMs) {
+        this(shards, maxAttempts, tickMs, 1024, System::currentTimeMillis);
+    }
+
+    @SuppressWarnings("unchecked")
+    InMemoryOtpStore(int shards, int maxAttempts, long tickMs, int wheelSize, LongSupplier clock) {
+        int n = Integer.highestOneBit(Math.max(shards, 1));
+        this.shards = new Map[n];
+        for (int i = 0; i < n; i++) {
+            this.shards[i] = new ConcurrentHashMap<>();
+        }
+        this.shardMask = n - 1;
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.tickMs = Math.max(tickMs, 1);
+        int w = Integer.highestOneBit(Math.max(wheelSize, 2));
+        this.wheel = new ConcurrentLinkedQueue[w];
+        for (int i = 0; i < w; i++) {
+            this.wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.wheelMask = w - 1;
+        this.clock = clock;
+        this.currentTick = clock.getAsLong() / this.tickMs;
+    }
+
+    @Override
+    public void issue(int empId, String code, Duration ttl) {
+        long expiresAt = clock.getAsLong() + ttl.toMillis();
+        Entry entry = new Entry(code.getBytes(StandardCharsets.UTF_8), expiresAt);
+        shardOf(empId).put(empId, entry);
+        // 到期那一格（無條件進位，確保清除時已過期）
+        long tick = (expiresAt + tickMs - 1) / tickMs;
+        wheel[(int) (tick & wheelMask)].add(new Expiry(empId, entry, tick));
+    }
+
+    @Override
+    public Result verify(int empId, String code) {
+        Map<Integer, Entry> shard = shardOf(empId);
+        Entry entry = shard.get(empId);
+        if (entry == null) {
+            return Result.NOT_FOUND;
+        }
+        if (entry.expiresAt <= clock.getAsLong()) {
+            shard.remove(empId, entry);
+            return Result.NOT_FOUND;
+        }
+        int attempt = entry.attempts.incrementAndGet();
+        if (attempt > maxAttempts) {
+            shard.remove(empId, entry);
+            return Result.TOO_MANY_ATTEMPTS;
+        }
+
+        byte[] input = code == null ? new byte[0] : code.getBytes(StandardCharsets.UTF_8);
+        if (MessageDigest.isEqual(entry.code, input)) {
+            // 只有成功移除的那一個請求算數
+            return shard.remove(empId, entry) ? Result.OK : Result.NOT_FOUND;
+        }
+        if (attempt == maxAttempts) {
+            shard.remove(empId, entry);
+        }
+        return Result.MISMATCH;
+    }
+
+    /**
+     * 推進 timing wheel，清掉已過期的驗證碼
+     */
+    @Scheduled(fixedDelayString = "${app.otp.tick-ms:1000}")
+    public synchronized void advance() {
+        long target = clock.getAsLong() / tickMs;
+        if (target < currentTick) return;
+        // 停頓太久時每一格最多處理一次
+        long steps = Math.min(target - currentTick + 1, wheel.length);
+        long start = target - steps + 1;
+        for (long t = start; t <= target; t++) {
+            ConcurrentLinkedQueue<Expiry> bucket = wheel[(int) (t & wheelMask)];
+            List<Expiry> notYet = new ArrayList<>();
+            Expiry x;
+            while ((x = bucket.poll()) != null) {
+                if (x.tick() <= target) {
+                    shardOf(x.empId()).remove(x.empId(), x.entry());
+                } else {
+                    // 還要再轉幾圈
+                    notYet.add(x);
+                }
+            }
+            bucket.addAll(notYet);
+        }
+        currentTick = target + 1;
+    }
+
+    // 目前保存的驗證碼數（含尚未清除的過期項）
+    int size() {
+        int n = 0;
+        for (Map<Integer, Entry> shard : shards) {
+            n += shard.size();
+        }
+        return n;
+    }
+
+    private Map<Integer, Entry> shardOf(int empId) {
+        int h = empId * 0x9E3779B9;
+        return shards[(h ^ (h >>> 16)) & shardMask];
+    }
+}
@@ -0,0 +1,35 @@
+package com.ryanshiun.seniorscare.member.service.employee;
+
+import java.time.Duration;
+
+/**
+ * 忘記密碼驗證碼的存放：
+ * 每位員工同時只有一組有效驗證碼（重新申請會取代舊的），驗證成功即作廢（只能用一次），
+ * 猜錯超過次數也作廢。實作由 app.otp.store 選擇（memory / db）。
+ */
+public interface OtpStore {
+
+    // 驗證結果
+    enum Result {
+        OK,
+        MISMATCH,
+        // 沒有驗證碼、已過期或已被使用
+        NOT_FOUND,
+        TOO_MANY_ATTEMPTS
+    }
+
+    /*
+     * 產生新的驗證碼紀錄（取代該員工先前的驗證碼）
+     * @param empId 員工 ID
+     * @param code 驗證碼
+     * @param ttl 有效時間
+     */
+    void issue(int empId, String code, Duration ttl);
+
+    /*
+     * 驗證並消耗驗證碼
+     * @param empId 員工 ID
+     * @param code 使用者輸入的驗證碼
+     */
+    Result verify(int empId, String code);
+}
@@ -0,0 +1,257 @@
+package com.ryanshiun.seniorscare.member.service.member.Impl;
+
+import com.ryanshiun.seniorscare.member.dao.member.MemberDao;
+import com.ryanshiun.seniorscare.member.dto.member.MemberProfileDto;
+import com.ryanshiun.seniorscare.member.utils.MemberSearchText;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.ryanshiun.seniorscare.common.util.TransactionHooks.afterCommit;
+
+/**
+ * 會員姓名 / 地址搜尋索引（記憶體）：
+ * - 中文沒有空白斷詞，姓名與地址以「單字 + 相鄰兩字」建倒排索引（排序過的會員 ID），
+ *   查詢時取關鍵字各個兩字組的交集當候選，再以 contains 確認
+ * - 全形 / 半形、大小寫、空白與「臺 / 台」統一後再比對（規則見 MemberSearchText，DB 查詢也用同一套）
+ * - 註冊、修改資料、停權 / 啟用後只更新該會員；直接改 DB 的部分由定期重建補上
+ * - 尚未建好前 ready() 為 false，由呼叫端改查 DB
+ */
+@Component
+public class MemberSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(MemberSearchIndex.class);
+
+    private final MemberDao memberDao;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // 會員 ID → 正規化後的搜尋欄位（ID 由小到大）
+    private final TreeMap<Integer, Entry> entries = new TreeMap<>();
+    private final Map<String, Postings> nameGrams = new HashMap<>();
+    private final Map<String, Postings> addressGrams = new HashMap<>();
+    private volatile boolean ready;
+
+    public MemberSearchIndex(MemberDao memberDao) {
+        this.memberDao = memberDao;
+    }
+
+    private record Entry(String name, String address, Boolean gender, Boolean active) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("會員搜尋索引啟動時建立失敗，先改查 DB：{}", e.getMessage());
+        }
+    }
+
+    /** 直接改 DB 的會員資料不會經過應用程式，定期整份重建補上 */
+    @Scheduled(fixedDelayString = "${app.member.search.rebuild-ms:3600000}", initialDelay = 3_600_000)
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("會員搜尋索引重建失敗：{}", e.getMessage());
+        }
+    }
+
+    // 重新從資料庫載入所有會員的搜尋欄位（與單筆更新互斥，避免舊的整份資料蓋掉剛更新的會員）
+    public synchronized void rebuild() {
+        List<MemberProfileDto> members = memberDao.getMemberSearchFields();
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            nameGrams.clear();
+            addressGrams.clear();
+            for (MemberProfileDto m : members) put(m);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("會員搜尋索引重建：members={}, nameGrams={}, addressGrams={}",
+                members.size(), nameGrams.size(), addressGrams.size());
+    }
+
+    public boolean ready() {
+        return ready;
+    }
+
+    /**
+     * 依條件找出會員 ID（由大到小，與分頁查詢的排序相同）
+     * 姓名 / 地址以空白切成多個關鍵字，每個都要出現；性別、狀態為 null 時不限
+     * @param beforeId 只找 ID 小於此值的會員（cursor）；null 表示從最新的開始
+     * @param limit 最多回傳筆數
+     */
+    public List<Integer> search(String name, String address, Boolean gender, Boolean active,
+                                Integer beforeId, int limit) {
+        String[] nameTerms = MemberSearchText.terms(name);
+        String[] addressTerms = MemberSearchText.terms(address);
+        List<Integer> out = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (nameTerms.length == 0 && addressTerms.length == 0) {
+                NavigableMap<Integer, Entry> scan = beforeId == null
+                        ? entries.descendingMap() : entries.headMap(beforeId, false).descendingMap();
+                for (Map.Entry<Integer, Entry> e : scan.entrySet()) {
+                    if (out.size() >= limit) break;
+                    if (matches(e.getValue(), nameTerms, addressTerms, gender, active)) out.add(e.getKey());
+                }
+                return out;
+            }
+
+            // 取最短的倒排清單當候選，其餘清單以二分搜尋確認
+            List<Postings> lists = new ArrayList<>();
+            for (String t : nameTerms) collect(nameGrams, t, lists);
+            for (String t : addressTerms) collect(addressGrams, t, lists);
+            if (lists.contains(null)) return out;
+            lists.sort((a, b) -> Integer.compare(a.size, b.size));
+            Postings first = lists.get(0);
+            int from = beforeId == null ? first.size : lowerBound(first, beforeId);
+            for (int i = from - 1; i >= 0 && out.size() < limit; i--) {
+                int id = first.ids[i];
+                boolean inAll = true;
+                for (int k = 1; k < lists.size() && inAll; k++) inAll = lists.get(k).contains(id);
+                if (inAll && matches(entries.get(id), nameTerms, addressTerms, gender, active)) out.add(id);
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 會員註冊 / 修改資料 / 停權或啟用後重新載入該會員（在交易中時等 commit 後才載入）
+     */
+    public void onMemberChanged(Integer memberId) {
+        if (memberId == null) return;
+        afterCommit(() -> reload(memberId));
+    }
+
+    private synchronized void reload(Integer memberId) {
+        if (!ready) return;
+        MemberProfileDto m = memberDao.getMemberById(memberId);
+        lock.writeLock().lock();
+        try {
+            remove(memberId);
+            if (m != null) put(m);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("ready", ready);
+            m.put("members", entries.size());
+            m.put("nameGrams", nameGrams.size());
+            m.put("addressGrams", addressGrams.size());
+            return m;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===== 以下須持有寫入鎖 =====
+
+    private void put(MemberProfileDto m) {
+        Entry e = new Entry(MemberSearchText.normalize(m.getMemberName()), MemberSearchText.normalize(m.getAddress()),
+                m.getGender(), m.getActive());
+        entries.put(m.getMemberId(), e);
+        for (String g : grams(e.name())) nameGrams.computeIfAbsent(g, k -> new Postings()).add(m.getMemberId());
+        for (String g : grams(e.address())) addressGrams.computeIfAbsent(g, k -> new Postings()).add(m.getMemberId());
+    }
+
+    private void remove(Integer memberId) {
+        Entry e = entries.remove(memberId);
+        if (e == null) return;
+        for (String g : grams(e.name())) removePosting(nameGrams, g, memberId);
+        for (String g : grams(e.address())) removePosting(addressGrams, g, memberId);
+    }
+
+    private static void removePosting(Map<String, Postings> index, String gram, int id) {
+        Postings p = index.get(gram);
+        if (p == null) return;
+        p.remove(id);
+        if (p.size == 0) index.remove(gram);
+    }
+
+    // ===== 斷詞 =====
+
+    /** 單字與相鄰兩字（重複的只留一個） */
+    static List<String> grams(String s) {
+        List<String> out = new ArrayList<>(s.length() * 2);
+        for (int i = 0; i < s.length(); i++) {
+            out.add(s.substring(i, i + 1));
+            if (i + 1 < s.length()) out.add(s.substring(i, i + 2));
+        }
+        return out.stream().distinct().toList();
+    }
+
+    // 一個關鍵字：一個字查單字清單，兩個字以上查各個兩字組清單；任一清單不存在時放入 null 表示不可能符合
+    private static void collect(Map<String, Postings> index, String term, List<Postings> lists) {
+        if (term.length() == 1) {
+            lists.add(index.get(term));
+            return;
+        }
+        for (int i = 0; i + 1 < term.length(); i++) lists.add(index.get(term.substring(i, i + 2)));
+    }
+
+    private static boolean matches(Entry e, String[] nameTerms, String[] addressTerms, Boolean gender, Boolean active) {
+        if (e == null) return false;
+        if (gender != null && !gender.equals(e.gender())) return false;
+        if (active != null && !active.equals(e.active())) return false;
+        for (String t : nameTerms) if (!e.name().contains(t)) return false;
+        for (String t : addressTerms) if (!e.address().contains(t)) return false;
+        return true;
+    }
+
+    // 第一個 >= id 的位置
+    private static int lowerBound(Postings p, int id) {
+        int i = Arrays.binarySearch(p.ids, 0, p.size, id);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    /** 排序過的會員 ID 清單；會員資料異動不頻繁，插入 / 刪除直接搬移陣列 */
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            int i = Arrays.binarySearch(ids, 0, size, id);
+            if (i >= 0) return;
+            i = -i - 1;
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            System.arraycopy(ids, i, ids, i + 1, size - i);
+            ids[i] = id;
+            size++;
+        }
+
+        void remove(int id) {
+            int i = Arrays.binarySearch(ids, 0, size, id);
+            if (i < 0) return;
+            System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+            size--;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+}
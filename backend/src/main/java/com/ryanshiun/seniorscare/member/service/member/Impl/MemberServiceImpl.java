@@ -2,21 +2,32 @@ package com.ryanshiun.seniorscare.member.service.member.Impl;
 
 import com.ryanshiun.seniorscare.member.dao.member.MemberDao;
 import com.ryanshiun.seniorscare.member.dto.member.BanReasonDto;
+import com.ryanshiun.seniorscare.member.dto.member.MemberPageDto;
 import com.ryanshiun.seniorscare.member.dto.member.MemberProfileDto;
 import com.ryanshiun.seniorscare.member.dto.member.MemberQueryParamsDto;
 import com.ryanshiun.seniorscare.member.dto.member.MemberUpdateDto;
 import com.ryanshiun.seniorscare.member.service.member.MemberService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Component
 public class MemberServiceImpl implements MemberService {
 
+    // 分頁筆數
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
     @Autowired
     private MemberDao memberDao;
 
+    @Autowired
+    private MemberSearchIndex memberSearchIndex;
+
     /** 查詢會員資料 (前端用)
      * @param memberId 員工 ID
      * @return 會員詳細資料
@@ -33,7 +44,47 @@ public class MemberServiceImpl implements MemberService {
      */
     @Override
     public List<MemberProfileDto> getMembers(MemberQueryParamsDto memberQueryParams) {
-        return memberDao.getMembers(memberQueryParams);
+        return findMembers(memberQueryParams, null, Integer.MAX_VALUE);
+    }
+
+    /** 客製化查詢會員（會員 ID 新到舊，cursor 分頁）
+     * @param memberQueryParams 查詢參數、cursor、每頁筆數
+     * @return 一頁會員
+     */
+    @Override
+    public MemberPageDto getMemberPage(MemberQueryParamsDto memberQueryParams) {
+        int size = memberQueryParams.getSize() == null ? DEFAULT_PAGE_SIZE
+                : Math.max(1, Math.min(memberQueryParams.getSize(), MAX_PAGE_SIZE));
+        Integer cursorId = null;
+        if (memberQueryParams.getCursor() != null && !memberQueryParams.getCursor().isBlank()) {
+            try {
+                cursorId = Integer.valueOf(memberQueryParams.getCursor().trim());
+            } catch (NumberFormatException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "無效的 cursor");
+            }
+        }
+
+        // 多抓一筆判斷是否還有下一頁
+        List<MemberProfileDto> rows = findMembers(memberQueryParams, cursorId, size + 1);
+        MemberPageDto page = new MemberPageDto();
+        boolean hasMore = rows.size() > size;
+        List<MemberProfileDto> items = hasMore ? new ArrayList<>(rows.subList(0, size)) : rows;
+        page.setItems(items);
+        page.setHasMore(hasMore);
+        if (hasMore) {
+            page.setNextCursor(String.valueOf(items.get(items.size() - 1).getMemberId()));
+        }
+        return page;
+    }
+
+    // 搜尋索引建好後先由索引找出會員 ID，再依主鍵取資料；尚未建好時直接查 DB
+    private List<MemberProfileDto> findMembers(MemberQueryParamsDto q, Integer cursorId, int limit) {
+        if (!memberSearchIndex.ready()) {
+            return memberDao.getMembers(q, cursorId, limit);
+        }
+        List<Integer> ids = memberSearchIndex.search(q.getMemberName(), q.getAddress(), q.getGender(),
+                q.getIsActive(), cursorId, limit);
+        return memberDao.getMembersByIds(ids);
     }
 
     /** 修改個人資料
@@ -42,6 +93,7 @@ public class MemberServiceImpl implements MemberService {
     @Override
     public void updateProfile(MemberUpdateDto memberUpdateDto) {
         memberDao.updateProfile(memberUpdateDto);
+        memberSearchIndex.onMemberChanged(memberUpdateDto.getMemberId());
     }
 
     /** 啟用 or 停權會員
@@ -50,5 +102,6 @@ public class MemberServiceImpl implements MemberService {
     @Override
     public void toggleMemberStatus(BanReasonDto banReasonDto) {
         memberDao.toggleMemberStatus(banReasonDto);
+        memberSearchIndex.onMemberChanged(banReasonDto.getMemberId());
     }
 }
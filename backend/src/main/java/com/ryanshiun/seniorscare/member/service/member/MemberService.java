@@ -11,6 +11,9 @@ public interface MemberService {
     // 客製化查詢會員
     List<MemberProfileDto> getMembers(MemberQueryParamsDto memberQueryParams);
 
+    // 客製化查詢會員（cursor 分頁）
+    MemberPageDto getMemberPage(MemberQueryParamsDto memberQueryParams);
+
     // 修改個人資料
     void updateProfile(MemberUpdateDto memberUpdateDto);
 
@@ -0,0 +1,40 @@
+package com.ryanshiun.seniorscare.member.utils;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 會員姓名 / 地址搜尋的正規化規則（搜尋索引與 DB 查詢共用，兩邊結果才會一致）：
+ * - 查詢字串以空白切成多個關鍵字，每個都要出現
+ * - 全形轉半形、小寫、去空白，「臺」統一為「台」
+ */
+public final class MemberSearchText {
+
+    private MemberSearchText() {
+    }
+
+    /** 全形轉半形、小寫、去空白，「臺」統一為「台」 */
+    public static String normalize(String s) {
+        if (s == null) return "";
+        String n = Normalizer.normalize(s, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder(n.length());
+        for (int i = 0; i < n.length(); i++) {
+            char c = n.charAt(i);
+            if (Character.isWhitespace(c)) continue;
+            sb.append(c == '臺' ? '台' : c);
+        }
+        return sb.toString();
+    }
+
+    /** 以空白（含全形空白）切開後各自正規化；沒有關鍵字時回傳空陣列 */
+    public static String[] terms(String query) {
+        if (query == null) return new String[0];
+        String n = Normalizer.normalize(query, Normalizer.Form.NFKC).trim();
+        if (n.isEmpty()) return new String[0];
+        return Arrays.stream(n.split("\\s+"))
+                .map(MemberSearchText::normalize)
+                .filter(t -> !t.isEmpty())
+                .toArray(String[]::new);
+    }
+}
@@ -0,0 +1,174 @@
+package com.ryanshiun.seniorscare.roomType.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ryanshiun.seniorscare.roomType.dao.RoomCommentDao;
+import com.ryanshiun.seniorscare.roomType.model.RoomComment;
+
+/**
+ * 房型留言聚合快取：每個房型保存「已通過留言數」與「最新 N 筆已通過留言」。
+ * 房型詳情頁第一頁留言與計數直接由記憶體回應，不再查 room_comment。
+ *
+ * 第一次讀取某房型時才向 DB 載入；之後由 RoomCommentServiceImpl 在
+ * addComment / approve / unapprove / deleteById 等異動 commit 後同步更新。
+ */
+@Component
+public class RoomCommentAggregateStore {
+
+    // 最新留言排序：created_at DESC, id DESC（與 DAO 查詢一致）
+    private static final Comparator<RoomComment> LATEST_FIRST =
+            Comparator.comparing(RoomComment::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+                      .thenComparing(RoomComment::getId, Comparator.reverseOrder());
+
+    private final RoomCommentDao dao;
+    private final int latestSize;
+
+    private final ConcurrentHashMap<Integer, Aggregate> byRoomType = new ConcurrentHashMap<>();
+
+    // 任何異動都會遞增；載入期間若有異動，載入結果不放進快取，避免覆蓋成舊資料
+    private final AtomicLong modCount = new AtomicLong();
+
+    public RoomCommentAggregateStore(RoomCommentDao dao,
+                                     @Value("${app.room-comment.latest-size:20}") int latestSize) {
+        this.dao = dao;
+        this.latestSize = Math.max(latestSize, 1);
+    }
+
+    /** 快取保留的最新留言筆數 N */
+    public int getLatestSize() {
+        return latestSize;
+    }
+
+    // ===== R =====
+
+    /** 已通過留言數 */
+    public long approvedCount(int roomTypeId) {
+        Aggregate agg = load(roomTypeId);
+        synchronized (agg) {
+            return agg.approvedCount;
+        }
+    }
+
+    /**
+     * 最新已通過留言（offset 起 size 筆）；超出快取範圍時回傳 null，由呼叫端改查 DB。
+     */
+    public List<RoomComment> latestApproved(int roomTypeId, int offset, int size) {
+        if (offset < 0 || size <= 0) return List.of();
+        Aggregate agg = load(roomTypeId);
+        synchronized (agg) {
+            int cached = agg.latest.size();
+            boolean complete = agg.approvedCount <= cached;
+            if (offset + size > cached && !complete) return null;
+
+            List<RoomComment> out = new ArrayList<>(Math.min(size, Math.max(cached - offset, 0)));
+            for (int i = offset; i < Math.min(offset + size, cached); i++) {
+                out.add(copyOf(agg.latest.get(i)));
+            }
+            return out;
+        }
+    }
+
+    // ===== 異動（由 service 在 commit 後呼叫）=====
+
+    /** 一筆留言成為「已通過」（新增時即通過，或審核通過） */
+    public void onApproved(RoomComment c) {
+        modCount.incrementAndGet();
+        Aggregate agg = byRoomType.get(c.getRoomTypeId());
+        if (agg == null) return;
+        synchronized (agg) {
+            if (indexOf(agg, c.getId()) >= 0) return;
+            agg.approvedCount++;
+            int pos = insertionPoint(agg.latest, c);
+            if (pos < latestSize) {
+                agg.latest.add(pos, copyOf(c));
+                if (agg.latest.size() > latestSize) agg.latest.remove(agg.latest.size() - 1);
+            }
+        }
+    }
+
+    /** 一筆已通過留言被退回或刪除 */
+    public void onRemoved(RoomComment c) {
+        modCount.incrementAndGet();
+        Aggregate agg = byRoomType.get(c.getRoomTypeId());
+        if (agg == null) return;
+        synchronized (agg) {
+            agg.approvedCount = Math.max(agg.approvedCount - 1, 0);
+            int idx = indexOf(agg, c.getId());
+            if (idx >= 0) {
+                agg.latest.remove(idx);
+                // 視窗內少了一筆而 DB 還有更舊的留言可補：整筆作廢，下次讀取重新載入
+                if (agg.approvedCount > agg.latest.size()) byRoomType.remove(c.getRoomTypeId(), agg);
+            }
+        }
+    }
+
+    /** 內容或管理員回覆變更：若在快取視窗內則換成新版本 */
+    public void onUpdated(RoomComment c) {
+        modCount.incrementAndGet();
+        Aggregate agg = byRoomType.get(c.getRoomTypeId());
+        if (agg == null) return;
+        synchronized (agg) {
+            int idx = indexOf(agg, c.getId());
+            if (idx >= 0) agg.latest.set(idx, copyOf(c));
+        }
+    }
+
+    /** 作廢單一房型 */
+    public void evict(int roomTypeId) {
+        modCount.incrementAndGet();
+        byRoomType.remove(roomTypeId);
+    }
+
+    // ===== 內部 =====
+
+    private Aggregate load(int roomTypeId) {
+        Aggregate agg = byRoomType.get(roomTypeId);
+        if (agg != null) return agg;
+
+        long before = modCount.get();
+        Aggregate fresh = new Aggregate();
+        fresh.approvedCount = dao.countByRoomType(roomTypeId, true);
+        fresh.latest.addAll(dao.getLatestApprovedByRoomType(roomTypeId, latestSize));
+
+        if (modCount.get() != before) return fresh; // 載入期間有異動，只用這一次
+        Aggregate prev = byRoomType.putIfAbsent(roomTypeId, fresh);
+        return prev != null ? prev : fresh;
+    }
+
+    private static int indexOf(Aggregate agg, int commentId) {
+        for (int i = 0; i < agg.latest.size(); i++) {
+            if (agg.latest.get(i).getId() == commentId) return i;
+        }
+        return -1;
+    }
+
+    private static int insertionPoint(List<RoomComment> latest, RoomComment c) {
+        int i = 0;
+        while (i < latest.size() && LATEST_FIRST.compare(latest.get(i), c) < 0) i++;
+        return i;
+    }
+
+    private static RoomComment copyOf(RoomComment src) {
+        RoomComment c = new RoomComment();
+        c.setId(src.getId());
+        c.setMemberId(src.getMemberId());
+        c.setRoomTypeId(src.getRoomTypeId());
+        c.setContent(src.getContent());
+        c.setApproved(src.isApproved());
+        c.setAdminReply(src.getAdminReply());
+        c.setCreatedAt(src.getCreatedAt());
+        return c;
+    }
+
+    private static final class Aggregate {
+        long approvedCount;
+        final List<RoomComment> latest = new ArrayList<>(); // created_at DESC, id DESC，最多 N 筆
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.ryanshiun.seniorscare.roomType.dto.RoomTypeForm;
+import com.ryanshiun.seniorscare.roomType.dto.RoomTypeImportReport;
 import com.ryanshiun.seniorscare.roomType.model.RoomType;
 import com.ryanshiun.seniorscare.roomType.service.RoomTypeService;
 
@@ -171,14 +172,23 @@ public class RoomTypeController {
             return ResponseEntity.badRequest().body("請選擇要上傳的 CSV 檔案");
         }
         try {
-            roomTypeService.importFromCSV(file);
-            return ResponseEntity.ok("匯入成功！");
+            RoomTypeImportReport report = roomTypeService.importFromCSV(file);
+            return ResponseEntity.ok(report.summary());
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("匯入失敗：" + e.getMessage());
         }
     }
+
+    // 匯入並回傳完整報告（含退件清單、rows/s）
+    @PostMapping("/import/report") //後台邏輯
+    public ResponseEntity<RoomTypeImportReport> importCSVWithReport(@RequestParam("file") MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(roomTypeService.importFromCSV(file));
+    }
     
     @GetMapping("/search") //測試成功 // 後台邏輯
     public Map<String, Object> search(
@@ -93,7 +93,7 @@ public class RoomCommentDaoImpl implements RoomCommentDao {
     
     @Override
     public List<RoomComment> findAll() {
-        String sql = "SELECT * FROM room_comment ORDER BY created_at DESC";
+        String sql = "SELECT * FROM room_comment ORDER BY created_at DESC, id DESC";
         return jdbc.query(sql, ROW_MAPPER);
     }
     @Override
@@ -109,7 +109,7 @@ public class RoomCommentDaoImpl implements RoomCommentDao {
     @Override
     public List<RoomComment> findByRoomType(int roomTypeId, Boolean approved) {
         String base = "SELECT * FROM room_comment WHERE roomtype_id = :rid";
-        String order = " ORDER BY created_at DESC";
+        String order = " ORDER BY created_at DESC, id DESC";
         if (approved == null) {
             return jdbc.query(base + order, Map.of("rid", roomTypeId), ROW_MAPPER);
         }
@@ -120,7 +120,7 @@ public class RoomCommentDaoImpl implements RoomCommentDao {
     @Override
     public List<RoomComment> findByMember(int memberId, Boolean approved) {
         String base = "SELECT * FROM room_comment WHERE member_id = :mid";
-        String order = " ORDER BY created_at DESC";
+        String order = " ORDER BY created_at DESC, id DESC";
         if (approved == null) {
             return jdbc.query(base + order, Map.of("mid", memberId), ROW_MAPPER);
         }
@@ -134,7 +134,7 @@ public class RoomCommentDaoImpl implements RoomCommentDao {
             SELECT TOP (:limit) *
               FROM room_comment
              WHERE roomtype_id = :rid AND is_approved = 1
-             ORDER BY created_at DESC
+             ORDER BY created_at DESC, id DESC
             """;
         return jdbc.query(sql, Map.of("rid", roomTypeId, "limit", limit), ROW_MAPPER);
     }
@@ -144,7 +144,7 @@ public class RoomCommentDaoImpl implements RoomCommentDao {
     public List<RoomComment> pageByRoomType(int roomTypeId, Boolean approved, int offset, int pageSize) {
         String base = "SELECT * FROM room_comment WHERE roomtype_id = :rid";
         String cond = approved == null ? "" : " AND is_approved = :appr";
-        String tail = " ORDER BY created_at DESC OFFSET :offset ROWS FETCH NEXT :size ROWS ONLY";
+        String tail = " ORDER BY created_at DESC, id DESC OFFSET :offset ROWS FETCH NEXT :size ROWS ONLY";
         String sql = base + cond + tail;
 
         MapSqlParameterSource p = new MapSqlParameterSource()
@@ -1,7 +1,10 @@
 package com.ryanshiun.seniorscare.roomType.dao.Impl;
 
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -40,6 +43,47 @@ public class RoomTypeDaoImpl implements RoomTypeDao {
                 roomType.getAdminNote());
     }
 
+    @Override
+    public int[] batchInsert(List<RoomType> roomTypes) {
+        String sql = "INSERT INTO roomtype (name, price, capacity, description, image_path, is_available, admin_note) " +
+                     "VALUES (:name, :price, :capacity, :description, :image_path, :is_available, :admin_note)";
+        return namedJdbc.batchUpdate(sql, roomTypes.stream()
+                .map(RoomTypeDaoImpl::toParams)
+                .toArray(MapSqlParameterSource[]::new));
+    }
+
+    @Override
+    public int[] batchUpdate(List<RoomType> roomTypes) {
+        // image_path 為 null 時保留原圖
+        String sql = "UPDATE roomtype SET name = :name, price = :price, capacity = :capacity, description = :description, " +
+                     "image_path = COALESCE(:image_path, image_path), is_available = :is_available, admin_note = :admin_note, " +
+                     "updated_at = SYSUTCDATETIME() WHERE id = :id";
+        return namedJdbc.batchUpdate(sql, roomTypes.stream()
+                .map(r -> toParams(r).addValue("id", r.getId()))
+                .toArray(MapSqlParameterSource[]::new));
+    }
+
+    @Override
+    public Map<String, Integer> findIdsByNames(Collection<String> names) {
+        Map<String, Integer> ids = new HashMap<>();
+        if (names == null || names.isEmpty()) return ids;
+        String sql = "SELECT id, name FROM roomtype WHERE name IN (:names)";
+        namedJdbc.query(sql, new MapSqlParameterSource("names", names),
+                rs -> { ids.putIfAbsent(rs.getString("name"), rs.getInt("id")); });
+        return ids;
+    }
+
+    private static MapSqlParameterSource toParams(RoomType r) {
+        return new MapSqlParameterSource()
+                .addValue("name", r.getName())
+                .addValue("price", r.getPrice())
+                .addValue("capacity", r.getCapacity())
+                .addValue("description", r.getDescription())
+                .addValue("image_path", r.getImagePath())
+                .addValue("is_available", r.isAvailable())
+                .addValue("admin_note", r.getAdminNote());
+    }
+
     @Override
     public List<RoomType> findAll() {
         String sql = "SELECT * FROM roomtype";
@@ -1,5 +1,6 @@
 package com.ryanshiun.seniorscare.roomType.dao.Impl;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
@@ -49,6 +50,13 @@ public class RoomTypeFeatureDaoImpl implements RoomTypeFeatureDao {
         return jdbc.update(sql, Collections.singletonMap("roomtype_id", roomTypeId));
     }
 
+    @Override
+    public int deleteByRoomTypeIds(Collection<Integer> roomTypeIds) {
+        if (roomTypeIds == null || roomTypeIds.isEmpty()) return 0;
+        String sql = "DELETE FROM roomtype_feature WHERE roomtype_id IN (:ids)";
+        return jdbc.update(sql, Collections.singletonMap("ids", roomTypeIds));
+    }
+
     @Override
     public int deleteByRoomTypeAndFeature(int roomTypeId, int featureId) {
         String sql = """
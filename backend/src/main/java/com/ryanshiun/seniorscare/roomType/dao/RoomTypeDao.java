@@ -2,12 +2,23 @@ package com.ryanshiun.seniorscare.roomType.dao;
 
 import com.ryanshiun.seniorscare.roomType.model.RoomType;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 public interface RoomTypeDao {
 
     // 新增房型
     int insert(RoomType roomType);
 
+    // 批次新增房型（CSV 匯入）
+    int[] batchInsert(List<RoomType> roomTypes);
+
+    // 批次依 id 更新房型（CSV 匯入）
+    int[] batchUpdate(List<RoomType> roomTypes);
+
+    // 依名稱一次查出 id（name -> id）
+    Map<String, Integer> findIdsByNames(Collection<String> names);
+
     // 查全部房型
     List<RoomType> findAll();
 
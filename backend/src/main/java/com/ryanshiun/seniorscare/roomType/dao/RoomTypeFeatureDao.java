@@ -1,5 +1,6 @@
 package com.ryanshiun.seniorscare.roomType.dao;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface RoomTypeFeatureDao {
@@ -13,6 +14,9 @@ public interface RoomTypeFeatureDao {
     // 刪除指定房型的所有特徵關聯
     int deleteByRoomTypeId(int roomTypeId);
 
+    // 一次刪除多個房型的所有特徵關聯
+    int deleteByRoomTypeIds(Collection<Integer> roomTypeIds);
+
     // 刪除指定房型與特徵的關聯
     int deleteByRoomTypeAndFeature(int roomTypeId, int featureId);
 
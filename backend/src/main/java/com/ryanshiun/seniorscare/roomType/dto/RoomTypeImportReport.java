@@ -0,0 +1,40 @@
+package com.ryanshiun.seniorscare.roomType.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** 房型 CSV 匯入結果（含退件清單與處理速度） */
+@Data
+@NoArgsConstructor
+public class RoomTypeImportReport {
+    private long rowsRead;
+    private long inserted;
+    private long updated;
+    private long featureLinks;
+    private long elapsedMs;
+    private double rowsPerSec;
+    private List<Reject> rejects = new ArrayList<>();
+
+    public int getRejected() {
+        return rejects.size();
+    }
+
+    /** 一筆被退回的資料列：行號（含 header）、原因與原始內容 */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Reject {
+        private long line;
+        private String reason;
+        private String raw;
+    }
+
+    public String summary() {
+        return String.format("匯入完成：讀取 %d 筆，新增 %d、更新 %d、退回 %d（%.0f rows/s）",
+                rowsRead, inserted, updated, rejects.size(), rowsPerSec);
+    }
+}
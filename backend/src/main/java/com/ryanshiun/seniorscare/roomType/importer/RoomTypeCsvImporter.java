@@ -0,0 +1,310 @@
+package com.ryanshiun.seniorscare.roomType.importer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ryanshiun.seniorscare.roomType.dao.FeatureDao;
+import com.ryanshiun.seniorscare.roomType.dao.RoomTypeDao;
+import com.ryanshiun.seniorscare.roomType.dao.RoomTypeFeatureDao;
+import com.ryanshiun.seniorscare.roomType.dto.RoomTypeImportReport;
+import com.ryanshiun.seniorscare.roomType.model.Feature;
+import com.ryanshiun.seniorscare.roomType.model.RoomType;
+
+/**
+ * 房型 CSV 串流匯入：
+ * 1. commons-csv 逐筆讀取，每 CHUNK_SIZE 筆一批
+ * 2. 同批資料平行驗證，錯誤列寫入退件清單
+ * 3. 每批一個交易：依名稱 upsert 房型（batchInsert / batchUpdate），再重建特徵關聯
+ *
+ * 欄位（有 header 時大小寫不敏感）：
+ * name, price, capacity, description, image_path, is_available, admin_note, feature_ids
+ * 無 header 時依上列順序；feature_ids 以 | 或 ; 分隔，未提供則不動既有關聯。
+ */
+@Component
+public class RoomTypeCsvImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(RoomTypeCsvImporter.class);
+
+    private static final int CHUNK_SIZE = 500;
+
+    private static final String[] FIXED_ORDER = {
+            "name", "price", "capacity", "description", "image_path", "is_available", "admin_note", "feature_ids"
+    };
+
+    private static final Map<String, String> ALIASES = Map.of(
+            "imagepath", "image_path", "image_url", "image_path", "imageurl", "image_path",
+            "available", "is_available", "isavailable", "is_available",
+            "adminnote", "admin_note", "note", "admin_note",
+            "features", "feature_ids", "featureids", "feature_ids");
+
+    private final RoomTypeDao roomTypeDao;
+    private final RoomTypeFeatureDao roomTypeFeatureDao;
+    private final FeatureDao featureDao;
+    private final TransactionTemplate tx;
+
+    public RoomTypeCsvImporter(RoomTypeDao roomTypeDao, RoomTypeFeatureDao roomTypeFeatureDao,
+                               FeatureDao featureDao, PlatformTransactionManager txManager) {
+        this.roomTypeDao = roomTypeDao;
+        this.roomTypeFeatureDao = roomTypeFeatureDao;
+        this.featureDao = featureDao;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    public RoomTypeImportReport importCsv(Reader reader) throws IOException {
+        long start = System.nanoTime();
+        RoomTypeImportReport report = new RoomTypeImportReport();
+        Set<Integer> knownFeatures = featureDao.findAll().stream().map(Feature::getId).collect(Collectors.toSet());
+
+        CSVFormat format = CSVFormat.DEFAULT.builder()
+                .setIgnoreEmptyLines(true)
+                .setTrim(true)
+                .build();
+
+        try (CSVParser parser = format.parse(reader)) {
+            Map<String, Integer> columns = null;
+            List<CSVRecord> chunk = new ArrayList<>(CHUNK_SIZE);
+            boolean first = true;
+
+            for (CSVRecord rec : parser) {
+                if (first) {
+                    first = false;
+                    if (looksLikeHeader(rec)) {
+                        columns = headerIndex(rec);
+                        continue;
+                    }
+                }
+                if (isBlank(rec)) continue;
+                chunk.add(rec);
+                if (chunk.size() == CHUNK_SIZE) {
+                    flush(chunk, columns, knownFeatures, report);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) flush(chunk, columns, knownFeatures, report);
+        }
+
+        long elapsedNs = System.nanoTime() - start;
+        report.setElapsedMs(elapsedNs / 1_000_000);
+        report.setRowsPerSec(elapsedNs == 0 ? 0 : report.getRowsRead() * 1_000_000_000.0 / elapsedNs);
+        log.info("房型 CSV 匯入：{}", report.summary());
+        return report;
+    }
+
+    // ===== 一批：平行驗證 + 單一交易 upsert =====
+
+    private void flush(List<CSVRecord> records, Map<String, Integer> columns,
+                       Set<Integer> knownFeatures, RoomTypeImportReport report) {
+        List<Row> rows = records.parallelStream()
+                .map(rec -> parse(rec, columns, knownFeatures))
+                .toList();
+        report.setRowsRead(report.getRowsRead() + rows.size());
+
+        // 同批同名以最後一筆為準
+        Map<String, Row> valid = new LinkedHashMap<>();
+        for (Row row : rows) {
+            if (row.error() != null) {
+                report.getRejects().add(new RoomTypeImportReport.Reject(row.line(), row.error(), row.raw()));
+                continue;
+            }
+            Row prev = valid.put(row.room().getName(), row);
+            if (prev != null) {
+                report.getRejects().add(new RoomTypeImportReport.Reject(prev.line(), "同批次名稱重複，以後面一筆為準", prev.raw()));
+            }
+        }
+        if (valid.isEmpty()) return;
+
+        try {
+            long[] counts = tx.execute(status -> upsert(new ArrayList<>(valid.values())));
+            report.setInserted(report.getInserted() + counts[0]);
+            report.setUpdated(report.getUpdated() + counts[1]);
+            report.setFeatureLinks(report.getFeatureLinks() + counts[2]);
+        } catch (DataAccessException e) {
+            log.warn("房型 CSV 匯入批次失敗，整批退回：{}", e.getMostSpecificCause().getMessage());
+            String reason = "寫入失敗：" + e.getMostSpecificCause().getMessage();
+            for (Row row : valid.values()) {
+                report.getRejects().add(new RoomTypeImportReport.Reject(row.line(), reason, row.raw()));
+            }
+        }
+    }
+
+    /** 回傳 {新增數, 更新數, 特徵關聯數} */
+    private long[] upsert(List<Row> rows) {
+        List<String> names = rows.stream().map(r -> r.room().getName()).toList();
+        Map<String, Integer> existing = roomTypeDao.findIdsByNames(names);
+
+        List<RoomType> toInsert = new ArrayList<>();
+        List<RoomType> toUpdate = new ArrayList<>();
+        for (Row row : rows) {
+            Integer id = existing.get(row.room().getName());
+            if (id != null) {
+                row.room().setId(id);
+                toUpdate.add(row.room());
+            } else {
+                toInsert.add(row.room());
+            }
+        }
+        if (!toInsert.isEmpty()) roomTypeDao.batchInsert(toInsert);
+        if (!toUpdate.isEmpty()) roomTypeDao.batchUpdate(toUpdate);
+
+        List<Row> withFeatures = rows.stream().filter(r -> r.featureIds() != null).toList();
+        long links = 0;
+        if (!withFeatures.isEmpty()) {
+            Map<String, Integer> ids = toInsert.isEmpty()
+                    ? existing
+                    : roomTypeDao.findIdsByNames(withFeatures.stream().map(r -> r.room().getName()).toList());
+            List<Integer> roomTypeIds = withFeatures.stream()
+                    .map(r -> ids.get(r.room().getName()))
+                    .toList();
+            roomTypeFeatureDao.deleteByRoomTypeIds(roomTypeIds);
+            for (int i = 0; i < withFeatures.size(); i++) {
+                List<Integer> featureIds = withFeatures.get(i).featureIds();
+                if (!featureIds.isEmpty()) {
+                    links += roomTypeFeatureDao.batchInsert(roomTypeIds.get(i), featureIds).length;
+                }
+            }
+        }
+        return new long[]{toInsert.size(), toUpdate.size(), links};
+    }
+
+    // ===== 單列解析與驗證（平行執行，不可碰共享可變狀態）=====
+
+    private record Row(long line, RoomType room, List<Integer> featureIds, String error, String raw) {
+        static Row reject(CSVRecord rec, String error) {
+            return new Row(rec.getRecordNumber(), null, null, error, String.join(",", rec.toList()));
+        }
+    }
+
+    private static Row parse(CSVRecord rec, Map<String, Integer> columns, Set<Integer> knownFeatures) {
+        String name = field(rec, columns, "name");
+        if (name == null) return Row.reject(rec, "name 不可為空");
+
+        // 缺欄或空白不可當成 0，否則會把既有房型覆蓋成價格 / 人數 0
+        String priceRaw = field(rec, columns, "price");
+        if (priceRaw == null) return Row.reject(rec, "price 不可為空");
+        Integer price = parseNonNegative(priceRaw);
+        if (price == null) return Row.reject(rec, "price 必須為非負整數");
+
+        String capacityRaw = field(rec, columns, "capacity");
+        if (capacityRaw == null) return Row.reject(rec, "capacity 不可為空");
+        Integer capacity = parseNonNegative(capacityRaw);
+        if (capacity == null) return Row.reject(rec, "capacity 必須為非負整數");
+
+        String availRaw = field(rec, columns, "is_available");
+        Boolean available = availRaw == null ? Boolean.TRUE : parseBool(availRaw);
+        if (available == null) return Row.reject(rec, "is_available 無法辨識：" + availRaw);
+
+        List<Integer> featureIds = null;
+        if (hasColumn(rec, columns, "feature_ids")) {
+            featureIds = new ArrayList<>();
+            String raw = field(rec, columns, "feature_ids");
+            if (raw != null) {
+                for (String t : raw.split("[|;\\s]+")) {
+                    if (t.isBlank()) continue;
+                    int fid;
+                    try {
+                        fid = Integer.parseInt(t.trim());
+                    } catch (NumberFormatException e) {
+                        return Row.reject(rec, "feature_ids 格式錯誤：" + t);
+                    }
+                    if (!knownFeatures.contains(fid)) return Row.reject(rec, "特徵不存在：" + fid);
+                    if (!featureIds.contains(fid)) featureIds.add(fid);
+                }
+            }
+        }
+
+        RoomType r = new RoomType();
+        r.setName(name);
+        r.setPrice(price);
+        r.setCapacity(capacity);
+        r.setDescription(field(rec, columns, "description"));
+        r.setImagePath(field(rec, columns, "image_path"));
+        r.setAvailable(available);
+        r.setAdminNote(field(rec, columns, "admin_note"));
+        return new Row(rec.getRecordNumber(), r, featureIds, null, null);
+    }
+
+    // ===== CSV helpers =====
+
+    private static Map<String, Integer> headerIndex(CSVRecord header) {
+        Map<String, Integer> idx = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String key = norm(header.get(i));
+            idx.putIfAbsent(ALIASES.getOrDefault(key, key), i);
+        }
+        return idx;
+    }
+
+    private static boolean hasColumn(CSVRecord rec, Map<String, Integer> columns, String key) {
+        Integer i = columnOf(columns, key);
+        return i != null && i < rec.size();
+    }
+
+    private static String field(CSVRecord rec, Map<String, Integer> columns, String key) {
+        Integer i = columnOf(columns, key);
+        if (i == null || i >= rec.size()) return null;
+        String v = rec.get(i);
+        return (v == null || v.isBlank()) ? null : v.trim();
+    }
+
+    private static Integer columnOf(Map<String, Integer> columns, String key) {
+        if (columns != null) return columns.get(key);
+        for (int i = 0; i < FIXED_ORDER.length; i++) {
+            if (FIXED_ORDER[i].equals(key)) return i;
+        }
+        return null;
+    }
+
+    private static boolean looksLikeHeader(CSVRecord rec) {
+        if (rec.size() == 0) return false;
+        String c0 = norm(rec.get(0));
+        return c0.equals("name") || c0.equals("price") || c0.equals("description") || c0.matches(".*[a-z].*");
+    }
+
+    private static boolean isBlank(CSVRecord rec) {
+        for (String v : rec) {
+            if (v != null && !v.isBlank()) return false;
+        }
+        return true;
+    }
+
+    private static String norm(String s) {
+        if (s == null) return "";
+        if (s.startsWith("\uFEFF")) s = s.substring(1);
+        return s.trim().toLowerCase().replaceAll("[^a-z0-9_]", "");
+    }
+
+    private static Integer parseNonNegative(String s) {
+        try {
+            int v = Integer.parseInt(s.trim());
+            return v < 0 ? null : v;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Boolean parseBool(String s) {
+        String t = s.trim().toLowerCase();
+        return switch (t) {
+            case "1", "true", "yes", "y", "是" -> true;
+            case "0", "false", "no", "n", "否" -> false;
+            default -> null;
+        };
+    }
+}
@@ -2,19 +2,16 @@ package com.ryanshiun.seniorscare.roomType.service.Impl;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.ryanshiun.seniorscare.image.ImageStore;
+import com.ryanshiun.seniorscare.image.StoredImage;
 import com.ryanshiun.seniorscare.roomType.dao.FacilityDao;
 import com.ryanshiun.seniorscare.roomType.dto.FacilityForm;
 import com.ryanshiun.seniorscare.roomType.model.Facility;
@@ -24,17 +21,11 @@ import com.ryanshiun.seniorscare.roomType.service.FacilityService;
 public class FacilityServiceImpl implements FacilityService {
 
     private final FacilityDao dao;
+    private final ImageStore imageStore;
 
-    // 存檔實體路徑：{user.dir}/uploads/images/roomImg
-    private final Path storageDir = Paths.get(
-            System.getProperty("user.dir"), "uploads", "images", "roomImg"
-    ).toAbsolutePath().normalize();
-
-    // 存到 DB 的公開前綴（無前導斜線）
-    private final String publicPrefix = "images/RoomImg";
-
-    public FacilityServiceImpl(FacilityDao dao) {
+    public FacilityServiceImpl(FacilityDao dao, ImageStore imageStore) {
         this.dao = dao;
+        this.imageStore = imageStore;
     }
 
     // ===== C =====
@@ -151,40 +142,15 @@ public class FacilityServiceImpl implements FacilityService {
     }
 
     /**
-     * 不使用 UUID：
-     * - 檔案實體存到 {user.dir}/uploads/images/roomImg
-     * - 同名檔以 -1, -2… 避免覆蓋
-     * - 存到 DB 的字串為 "roomImg/檔名"（無前導斜線）
+     * 內容定址儲存：
+     * - 檔案實體存到 uploads/images/RoomImg/{sha256}.ext，同內容只存一份
+     * - 縮圖（thumb/card/full）由 ImageStore 非同步產生
+     * - 存到 DB 的字串為 "images/RoomImg/檔名"（無前導斜線）
      */
     private String saveImage(MultipartFile file) {
         try {
-            Files.createDirectories(storageDir);
-
-            String original = Optional.ofNullable(file.getOriginalFilename()).orElse("image");
-            String cleaned  = StringUtils.cleanPath(original)
-                    .replaceAll("[\\\\/:*?\"<>|]", "_")
-                    .trim();
-
-            String name = cleaned;
-            String ext  = "";
-            int dot = cleaned.lastIndexOf('.');
-            if (dot >= 0) {
-                name = cleaned.substring(0, dot);
-                ext  = cleaned.substring(dot); // 含 .
-            }
-
-            Path target = storageDir.resolve(name + ext);
-            int idx = 1;
-            while (Files.exists(target)) {
-                target = storageDir.resolve(name + "-" + idx + ext);
-                idx++;
-            }
-
-            file.transferTo(target.toFile());
-
-            // 存到 DB 的值（前端顯示時，把 roomImg/ 轉成 /uploads/images/roomImg/ 再存取）
-            return publicPrefix + "/" + target.getFileName().toString();
-
+            StoredImage stored = imageStore.store(file, "RoomImg");
+            return "images/" + stored.path();
         } catch (IOException e) {
             throw new RuntimeException("Save facility image failed: " + e.getMessage(), e);
         }
@@ -4,13 +4,12 @@ import java.lang.reflect.Member;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.Properties;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.ryanshiun.seniorscare.mail.MailOutbox;
 import com.ryanshiun.seniorscare.member.dto.member.MemberProfileDto;
 import com.ryanshiun.seniorscare.member.service.member.MemberService;
 import com.ryanshiun.seniorscare.roomType.dao.ReservationDao;
@@ -20,12 +19,6 @@ import com.ryanshiun.seniorscare.roomType.dto.RoomTypeRanking;
 import com.ryanshiun.seniorscare.roomType.model.Reservation;
 import com.ryanshiun.seniorscare.roomType.service.ReservationService;
 
-import jakarta.mail.Message;
-import jakarta.mail.MessagingException;
-import jakarta.mail.Session;
-import jakarta.mail.Transport;
-import jakarta.mail.internet.InternetAddress;
-import jakarta.mail.internet.MimeMessage;
 
 @Service
 @Transactional
@@ -44,13 +37,8 @@ public class ReservationServiceImpl implements ReservationService {
     // 預約 + 寄信
     @Override
     public int addReservation(Reservation r) {
-    	// 寄信
-    	try {
-			sendEmail(r);
-		} catch (MessagingException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
+    	// 寄信（寫入寄件佇列，跟著交易 commit）
+    	sendEmail(r);
         return dao.addReservation(r);
     }
 
@@ -148,48 +136,22 @@ public class ReservationServiceImpl implements ReservationService {
     }
     
     // 寄信
-    
-    // 電子郵件設定
-    @Value("${spring.mail.host}")
-    String smtpHost;
-
-    @Value("${spring.mail.port}")
-    private String smtpPort;
-
-    @Value("${spring.mail.username}")
-    private String from;
+    @Autowired
+    private MailOutbox mailOutbox;
 
-    @Value("${spring.mail.password}")
-    private String password;
-    
-    // 寄驗證碼給使用者
-    private void sendEmail(Reservation r) throws MessagingException {
-        Properties props = new Properties();
-        props.put("mail.smtp.auth", "true");
-        props.put("mail.smtp.starttls.enable", "true");
-        props.put("mail.smtp.host", smtpHost);
-        props.put("mail.smtp.port", smtpPort);
-
-        Session session = Session.getInstance(props, new jakarta.mail.Authenticator() {
-            protected jakarta.mail.PasswordAuthentication getPasswordAuthentication() {
-                return new jakarta.mail.PasswordAuthentication(from, password);
-            }
-        });
+    // 寄預約確認信給使用者
+    private void sendEmail(Reservation r) {
         // 使用者詳細資料
         MemberProfileDto member = memberService.getMemberById(r.getMemberId());
         String userNameString = member.getMemberName();
         String userEmail = member.getEmail(); 
+        if (userEmail == null || userEmail.isBlank()) return;
         
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy/MM/dd");
         String dateString = r.getPreferredDate().format(formatter);
         
         // 送出的字串
         String messageString = "預約確認通知， " +userNameString+ "您好，您已於" +dateString+"日預約看房，如需更改，請直接回覆此信或與我們聯絡，謝謝！"  ;
-        Message message = new MimeMessage(session);
-        message.setFrom(new InternetAddress(from));
-        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(userEmail));
-        message.setSubject("樂齡 e 站，預約確認通知");
-        message.setText(messageString);
-        Transport.send(message);
+        mailOutbox.enqueue(userEmail, "樂齡 e 站，預約確認通知", messageString);
     }
 }
@@ -5,51 +5,81 @@ import java.util.List;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.ryanshiun.seniorscare.roomType.cache.RoomCommentAggregateStore;
 import com.ryanshiun.seniorscare.roomType.dao.RoomCommentDao;
 import com.ryanshiun.seniorscare.roomType.model.RoomComment;
 import com.ryanshiun.seniorscare.roomType.service.RoomCommentService;
 
+import static com.ryanshiun.seniorscare.common.util.TransactionHooks.afterCommit;
+
 @Service
 @Transactional
 public class RoomCommentServiceImpl implements RoomCommentService {
 
     private final RoomCommentDao dao;
+    private final RoomCommentAggregateStore aggregates;
 
-    public RoomCommentServiceImpl(RoomCommentDao dao) {
+    public RoomCommentServiceImpl(RoomCommentDao dao, RoomCommentAggregateStore aggregates) {
         this.dao = dao;
+        this.aggregates = aggregates;
     }
 
     // ===== C =====
     @Override
     public int addComment(RoomComment c) {
-        return dao.addComment(c);
+        int id = dao.addComment(c);
+        if (c.isApproved()) {
+            RoomComment saved = dao.findById(id); // 取得 DB 產生的 created_at
+            if (saved != null) afterCommit(() -> aggregates.onApproved(saved));
+        }
+        return id;
     }
 
     // ===== U =====
     @Override
     public boolean approve(int id) {
-        return dao.approve(id);
+        RoomComment before = dao.findById(id);
+        boolean ok = dao.approve(id);
+        if (ok && before != null && !before.isApproved()) {
+            before.setApproved(true);
+            afterCommit(() -> aggregates.onApproved(before));
+        }
+        return ok;
     }
 
     @Override
     public boolean unapprove(int id) {
-        return dao.unapprove(id);
+        RoomComment before = dao.findById(id);
+        boolean ok = dao.unapprove(id);
+        if (ok && before != null && before.isApproved()) {
+            afterCommit(() -> aggregates.onRemoved(before));
+        }
+        return ok;
     }
 
     @Override
     public boolean updateContent(int id, String content) {
-        return dao.updateContent(id, content);
+        boolean ok = dao.updateContent(id, content);
+        if (ok) refreshCached(id);
+        return ok;
     }
 
     @Override
     public boolean setAdminReply(int id, String reply) {
-        return dao.setAdminReply(id, reply);
+        boolean ok = dao.setAdminReply(id, reply);
+        if (ok) refreshCached(id);
+        return ok;
     }
 
     // ===== D =====
     @Override
     public boolean deleteById(int id) {
-        return dao.deleteById(id);
+        RoomComment before = dao.findById(id);
+        boolean ok = dao.deleteById(id);
+        if (ok && before != null && before.isApproved()) {
+            afterCommit(() -> aggregates.onRemoved(before));
+        }
+        return ok;
     }
 
     // ===== R =====
@@ -81,19 +111,32 @@ public class RoomCommentServiceImpl implements RoomCommentService {
     @Override
     @Transactional(readOnly = true)
     public List<RoomComment> getLatestApprovedByRoomType(int roomTypeId, int limit) {
-        return dao.getLatestApprovedByRoomType(roomTypeId, limit);
+        List<RoomComment> cached = aggregates.latestApproved(roomTypeId, 0, limit);
+        return cached != null ? cached : dao.getLatestApprovedByRoomType(roomTypeId, limit);
     }
 
     // ===== 分頁 + 計數 =====
     @Override
     @Transactional(readOnly = true)
     public List<RoomComment> pageByRoomType(int roomTypeId, Boolean approved, int offset, int pageSize) {
+        if (Boolean.TRUE.equals(approved)) {
+            List<RoomComment> cached = aggregates.latestApproved(roomTypeId, offset, pageSize);
+            if (cached != null) return cached;
+        }
         return dao.pageByRoomType(roomTypeId, approved, offset, pageSize);
     }
 
     @Override
     @Transactional(readOnly = true)
     public long countByRoomType(int roomTypeId, Boolean approved) {
+        if (Boolean.TRUE.equals(approved)) return aggregates.approvedCount(roomTypeId);
         return dao.countByRoomType(roomTypeId, approved);
     }
+
+    // ===== 聚合快取同步 =====
+
+    private void refreshCached(int id) {
+        RoomComment after = dao.findById(id);
+        if (after != null && after.isApproved()) afterCommit(() -> aggregates.onUpdated(after));
+    }
 }
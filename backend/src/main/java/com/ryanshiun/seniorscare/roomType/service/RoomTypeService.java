@@ -8,6 +8,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.ryanshiun.seniorscare.roomType.dto.RoomTypeForm;
+import com.ryanshiun.seniorscare.roomType.dto.RoomTypeImportReport;
 import com.ryanshiun.seniorscare.roomType.model.RoomType;
 
 public interface RoomTypeService {
@@ -35,11 +36,11 @@ public interface RoomTypeService {
 	    int countAllRoomTypes();
 
 	    // ====== CSV (Path) ======
-	    void importRoomTypesFromCSV(String csvPath);
+	    RoomTypeImportReport importRoomTypesFromCSV(String csvPath);
 
 	    // ====== CSV (Multipart) ======
 	    void exportToCSV(PrintWriter writer);
-	    void importFromCSV(MultipartFile file);
+	    RoomTypeImportReport importFromCSV(MultipartFile file);
 
 	    // ====== Partial Update ======
 	    boolean partialUpdate(int id, Map<String, Object> updates);
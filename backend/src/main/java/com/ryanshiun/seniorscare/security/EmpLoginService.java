@@ -7,7 +7,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -22,6 +21,9 @@ public class EmpLoginService implements UserDetailsService {
 
     @Autowired
     private EmployeeDao employeeDao;
+
+    @Autowired
+    private EmpRoleCache empRoleCache;
     /**
      * 根據 email 查詢員工登入資料
      * @param email 員工 email
@@ -44,10 +46,12 @@ public class EmpLoginService implements UserDetailsService {
             Integer empId = employee.getEmpId();
             String empPwd = employee.getPassword();
 
-            List<EmpRole> empRoleList = employeeDao.getEmployeeRoles(empId);
+            // 先取權限版本再取權限，權限若在中間被修改，token 會帶舊版本而被拒絕
+            int roleVersion = empRoleCache.roleVersion(empId);
+            List<EmpRole> empRoleList = empRoleCache.getEmployeeRoles(empId);
             List<GrantedAuthority> authorities = convertToAuthorities(empRoleList);
             // 建立 UserDetails 物件
-            return new User(String.valueOf(empId), empPwd, authorities);
+            return new EmpUserDetails(String.valueOf(empId), empPwd, authorities, roleVersion);
         }
 
     }
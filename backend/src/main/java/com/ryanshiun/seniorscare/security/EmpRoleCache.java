@@ -0,0 +1,130 @@
+package com.ryanshiun.seniorscare.security;
+
+import com.ryanshiun.seniorscare.member.dao.employee.EmployeeDao;
+import com.ryanshiun.seniorscare.member.model.employee.EmpRole;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.ryanshiun.seniorscare.common.util.TransactionHooks.afterCommit;
+
+/**
+ * 員工權限快取：
+ * - 職等清單（getAllRoles）幾乎不變，整份快取
+ * - 每位員工的權限清單，修改權限 / 停權啟用時失效
+ * - 每位員工的權限版本（存在 employee_role_version），JWT 帶發行時的版本，
+ *   驗證時只比對記憶體中的版本，舊版本的 token 不必查資料庫就能拒絕
+ *
+ * 多台機器時，其他機器的版本變更由定期重新載入同步。
+ */
+@Component
+public class EmpRoleCache {
+
+    private static final Logger log = LoggerFactory.getLogger(EmpRoleCache.class);
+
+    @Autowired
+    private EmployeeDao employeeDao;
+
+    private volatile List<EmpRole> catalog;
+    private final Map<Integer, List<EmpRole>> rolesByEmp = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> versions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        try {
+            employeeDao.ensureRoleVersionTable();
+            reloadVersions();
+        } catch (RuntimeException e) {
+            log.warn("載入員工權限版本失敗：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 所有職等
+     */
+    public List<EmpRole> getAllRoles() {
+        List<EmpRole> c = catalog;
+        if (c == null) {
+            c = List.copyOf(employeeDao.getAllRoles());
+            catalog = c;
+        }
+        return c;
+    }
+
+    /**
+     * 該員工所有權限
+     */
+    public List<EmpRole> getEmployeeRoles(int empId) {
+        List<EmpRole> roles = rolesByEmp.get(empId);
+        if (roles != null) {
+            return roles;
+        }
+        // 查詢期間版本若變了（權限剛被修改），不放進快取，避免存到舊資料
+        int before = roleVersion(empId);
+        roles = List.copyOf(employeeDao.getEmployeeRoles(empId));
+        if (roleVersion(empId) == before) {
+            rolesByEmp.put(empId, roles);
+        }
+        return roles;
+    }
+
+    /**
+     * 目前的權限版本（沒有紀錄為 0）
+     */
+    public int roleVersion(int empId) {
+        return versions.getOrDefault(empId, 0);
+    }
+
+    /**
+     * token 內的版本是否已過期
+     */
+    public boolean isStale(int empId, int tokenVersion) {
+        return tokenVersion < roleVersion(empId);
+    }
+
+    /**
+     * 權限或帳號狀態變更：版本 +1，交易 commit 後再更新記憶體
+     */
+    public void onRolesChanged(int empId) {
+        int version = employeeDao.bumpRoleVersion(empId);
+        afterCommit(() -> {
+            versions.merge(empId, version, Math::max);
+            rolesByEmp.remove(empId);
+        });
+    }
+
+    /**
+     * 職等清單異動時呼叫
+     */
+    public void evictCatalog() {
+        catalog = null;
+    }
+
+    /**
+     * 重新載入權限版本（同步其他機器的變更）
+     */
+    @Scheduled(fixedDelayString = "${app.emp.role-version-refresh-ms:60000}", initialDelay = 60000)
+    public void reloadVersions() {
+        Map<Integer, Integer> latest;
+        try {
+            latest = employeeDao.getRoleVersions();
+        } catch (RuntimeException e) {
+            log.warn("重新載入員工權限版本失敗：{}", e.getMessage());
+            return;
+        }
+        latest.forEach((empId, version) -> {
+            Integer old = versions.get(empId);
+            if (old == null || old < version) {
+                versions.merge(empId, version, Math::max);
+                rolesByEmp.remove(empId);
+            }
+        });
+    }
+}
@@ -0,0 +1,24 @@
+package com.ryanshiun.seniorscare.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * 員工登入用的 UserDetails，多帶載入權限當下的權限版本，產生 JWT 時寫入
+ */
+public class EmpUserDetails extends User {
+
+    private final int roleVersion;
+
+    public EmpUserDetails(String username, String password,
+                          Collection<? extends GrantedAuthority> authorities, int roleVersion) {
+        super(username, password, authorities);
+        this.roleVersion = roleVersion;
+    }
+
+    public int getRoleVersion() {
+        return roleVersion;
+    }
+}
@@ -7,7 +7,6 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.apache.logging.log4j.util.Strings;
 import org.springframework.lang.NonNull;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -55,12 +54,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
-        TokenState tokenState = jwtTokenProvider.validateToken(token);
-
-        // 驗證 & 設定 SecurityContext
-        if (tokenState != TokenState.INVALID) {
-            Authentication auth = jwtTokenProvider.getAuthentication(token);
-            SecurityContextHolder.getContext().setAuthentication(auth);
+        // 驗證 & 設定 SecurityContext（驗簽一次，同時取得類型與 Authentication）
+        JwtTokenProvider.VerifiedToken verified = jwtTokenProvider.verify(token);
+        if (verified.state() != TokenState.INVALID) {
+            SecurityContextHolder.getContext().setAuthentication(verified.authentication());
         }
 
         // 繼續執行其它 filter
@@ -16,6 +16,7 @@ import org.springframework.stereotype.Component;
 import java.security.Key;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Component
@@ -33,16 +34,65 @@ public class JwtTokenProvider {
     @Value("${app.jwt.expiration-in-ms}")
     private long jwtExpirationInMs;
 
+    /**
+     * 已驗證 token 快取的上限筆數（0 表示不快取）
+     */
+    @Value("${app.jwt.cache.max-size:10000}")
+    private int verifiedCacheMaxSize;
+
     /**
      * 解碼後的 HMAC-SHA 金鑰
      */
     private Key secretKey;
 
+    /**
+     * 重複使用的 parser（執行緒安全）
+     */
+    private JwtParser parser;
+
+    /**
+     * 已驗證的 token → 驗證結果，同一個 token 只驗簽一次
+     */
+    private VerifiedTokenCache<Verified> verifiedCache;
+
+    private final EmpRoleCache empRoleCache;
+
+    public JwtTokenProvider(EmpRoleCache empRoleCache) {
+        this.empRoleCache = empRoleCache;
+    }
+
+    /**
+     * 驗證結果：token 類型 + 對應的 Authentication
+     */
+    public record VerifiedToken(TokenState state, Authentication authentication) {
+    }
+
+    /**
+     * 快取內容：驗證結果 + 員工 token 的 empId 與權限版本（會員為 null）
+     */
+    private record Verified(VerifiedToken token, Integer empId, int roleVersion) {
+    }
+
+    private static final VerifiedToken INVALID = new VerifiedToken(TokenState.INVALID, null);
+
+    private static final String ROLE_MEMBER = "ROLE_MEMBER";
+    private static final List<GrantedAuthority> MEMBER_AUTHORITIES =
+            List.of(new SimpleGrantedAuthority(ROLE_MEMBER));
+
+    /**
+     * 角色字串 → 共用的 GrantedAuthority（角色種類很少，不必每次 new）
+     */
+    private static final Map<String, GrantedAuthority> AUTHORITIES = new ConcurrentHashMap<>();
+
     @PostConstruct
     public void init() {
         // Base64 解碼並產生金鑰
         byte[] keyBytes = Base64.getDecoder().decode(base64Secret);
         this.secretKey = Keys.hmacShaKeyFor(keyBytes);
+        this.parser = Jwts.parser()
+                .setSigningKey(secretKey)
+                .build();
+        this.verifiedCache = new VerifiedTokenCache<>(verifiedCacheMaxSize);
     }
 
     /**
@@ -60,6 +110,11 @@ public class JwtTokenProvider {
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.toList());
 
+        // 權限版本：以登入時載入權限的版本為準
+        int roleVersion = authentication.getPrincipal() instanceof EmpUserDetails emp
+                ? emp.getRoleVersion()
+                : currentRoleVersion(username);
+
         Instant now = Instant.now();
         Date issuedAt = Date.from(now);
         Date expiryDate = Date.from(now.plusMillis(jwtExpirationInMs));
@@ -67,6 +122,7 @@ public class JwtTokenProvider {
         return Jwts.builder()
                 .subject(username)
                 .claim("roles", roles)
+                .claim("rv", roleVersion)
                 .claim("type", TokenState.EMPLOYEE)
                 .issuedAt(issuedAt)
                 .expiration(expiryDate)
@@ -94,22 +150,80 @@ public class JwtTokenProvider {
     }
 
     /**
-     * 驗證 JWT 是否有效
+     * 驗證 JWT 並建立 Authentication（只解析、驗簽一次；驗證過的 token 直接從快取取）
      */
-    public TokenState validateToken(String token) {
+    public VerifiedToken verify(String token) {
+        long now = System.currentTimeMillis();
+        Verified cached = verifiedCache.get(token, now);
+        if (cached != null) {
+            return checkRoleVersion(cached);
+        }
+
+        Claims claims;
         try {
-            Claims claims = this.parseClaims(token);
-            String type = (String) claims.get("type");
-            if (type == null) {
-                return TokenState.INVALID;
-            }
-            return TokenState.valueOf(type.toUpperCase());
+            claims = this.parseClaims(token);
         } catch (JwtException | IllegalArgumentException ex) {
             // JwtException 包含過期、簽章錯誤等
-            return TokenState.INVALID;
+            return INVALID;
+        }
+
+        TokenState state = stateOf(claims);
+        if (state == TokenState.INVALID) {
+            return INVALID;
+        }
+
+        Integer empId = null;
+        int roleVersion = 0;
+        if (state == TokenState.EMPLOYEE) {
+            try {
+                empId = Integer.valueOf(claims.getSubject());
+            } catch (NumberFormatException ex) {
+                return INVALID;
+            }
+            // 沒有 rv 的舊 token 視為版本 0
+            Number rv = claims.get("rv", Number.class);
+            roleVersion = rv == null ? 0 : rv.intValue();
+        }
+
+        Verified verified = new Verified(
+                new VerifiedToken(state, buildAuthentication(claims, state, token)), empId, roleVersion);
+        Date exp = claims.getExpiration();
+        if (exp != null) {
+            verifiedCache.put(token, verified, exp.getTime(), now);
+        }
+        return checkRoleVersion(verified);
+    }
+
+    private int currentRoleVersion(String empId) {
+        try {
+            return empRoleCache.roleVersion(Integer.parseInt(empId));
+        } catch (NumberFormatException ex) {
+            return 0;
         }
     }
 
+    // 員工權限或帳號狀態在發 token 後有變更，拒絕舊 token（只比對記憶體）
+    private VerifiedToken checkRoleVersion(Verified verified) {
+        if (verified.empId() != null && empRoleCache.isStale(verified.empId(), verified.roleVersion())) {
+            return INVALID;
+        }
+        return verified.token();
+    }
+
+    /**
+     * 清空已驗證 token 快取（角色或金鑰異動時）
+     */
+    public void evictVerifiedTokens() {
+        verifiedCache.clear();
+    }
+
+    /**
+     * 驗證 JWT 是否有效
+     */
+    public TokenState validateToken(String token) {
+        return verify(token).state();
+    }
+
     /**
      * 從 JWT 取得 員工的 emp_id 或 會員的 line_id
      */
@@ -122,43 +236,57 @@ public class JwtTokenProvider {
      *  解析 claims
      */
     private Claims parseClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(secretKey)
-                .build()
+        return parser
                 .parseClaimsJws(token)
                 .getBody();
     }
 
     /**
-     *  從 JWT 建立 Spring Authentication
+     *  從 JWT 建立 Spring Authentication；無效時回傳 null
      */
-    @SuppressWarnings("unchecked")
     public Authentication getAuthentication(String token) {
-        Claims claims = parseClaims(token);
-        String username = claims.getSubject();
-        String type = (String) claims.get("type");
+        return verify(token).authentication();
+    }
+
+    private static TokenState stateOf(Claims claims) {
+        Object type = claims.get("type");
+        if (!(type instanceof String s)) {
+            return TokenState.INVALID;
+        }
+        try {
+            return TokenState.valueOf(s.toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            return TokenState.INVALID;
+        }
+    }
+
+    private static Authentication buildAuthentication(Claims claims, TokenState state, String token) {
+        List<GrantedAuthority> authorities;
 
-        List<SimpleGrantedAuthority> authorities = new ArrayList<>();
-        
         // 如果是員工
-        if (Objects.equals(TokenState.EMPLOYEE.toString(), type)) {
-            List<String> roles = claims.get("roles", List.class);
-            authorities.addAll(roles.stream()
-                    .map(SimpleGrantedAuthority::new)
-                    .toList());
-        } else if (Objects.equals(TokenState.MEMBER.toString(), type)) {
+        if (state == TokenState.EMPLOYEE) {
+            List<?> roles = claims.get("roles", List.class);
+            if (roles == null || roles.isEmpty()) {
+                authorities = List.of();
+            } else {
+                GrantedAuthority[] granted = new GrantedAuthority[roles.size()];
+                for (int i = 0; i < granted.length; i++) {
+                    granted[i] = authorityOf(String.valueOf(roles.get(i)));
+                }
+                authorities = List.of(granted);
+            }
+        } else {
             // 如果是會員給一個固定的角色
-            authorities.add(new SimpleGrantedAuthority("ROLE_MEMBER"));
+            authorities = MEMBER_AUTHORITIES;
         }
 
         // 因前端只需驗證，不需密碼，比對時傳空密碼即可
-        UserDetails userDetails = User.builder()
-                .username(username)
-                .password("")  // 密碼不在此使用
-                .authorities(authorities)
-                .build();
-
+        UserDetails userDetails = new User(claims.getSubject(), "", authorities);
 
         return new UsernamePasswordAuthenticationToken(userDetails, token, authorities);
     }
-}
\ No newline at end of file
+
+    private static GrantedAuthority authorityOf(String role) {
+        return AUTHORITIES.computeIfAbsent(role, SimpleGrantedAuthority::new);
+    }
+}
@@ -3,6 +3,7 @@ package com.ryanshiun.seniorscare.security;
 import com.ryanshiun.seniorscare.member.dao.member.MemberDao;
 import com.ryanshiun.seniorscare.member.dto.member.MemberRegisterDto;
 import com.ryanshiun.seniorscare.member.model.member.Member;
+import com.ryanshiun.seniorscare.member.service.member.Impl.MemberSearchIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,6 +23,8 @@ public class LineMemberService extends DefaultOAuth2UserService {
 
     @Autowired
     private MemberDao memberDao;
+    @Autowired
+    private MemberSearchIndex memberSearchIndex;
 
     private static final Logger logger = LoggerFactory.getLogger(LineMemberService.class);
 
@@ -53,7 +56,8 @@ public class LineMemberService extends DefaultOAuth2UserService {
             memberRegisterDto.setEmail(email);
             memberRegisterDto.setImagePath(pictureUrl);
             // 先註冊新會員
-            memberDao.register(memberRegisterDto);
+            Integer memberId = memberDao.register(memberRegisterDto);
+            memberSearchIndex.onMemberChanged(memberId);
 
             // 重新查詢會員資料以獲取 memberId
             member = memberDao.passMemberInfoByLineId(lineUserId);
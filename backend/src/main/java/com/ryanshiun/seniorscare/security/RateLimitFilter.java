@@ -0,0 +1,234 @@
+package com.ryanshiun.seniorscare.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登入 / 忘記密碼 / 驗證碼的限流（放在 JwtAuthenticationFilter 之前）：
+ * - 同一 IP 與同一帳號（email）各自一個 bucket，兩者都要有額度才放行
+ * - 超過回 429 + Retry-After（秒）
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String LOGIN_PATH = "/api/auth/login";
+    private static final String PWD_RESET_PREFIX = "/api/employees/pwdReset/";
+    // 登入 body 只讀這麼多來取 email，超過就只做 IP 限流
+    private static final int MAX_LOGIN_BODY = 8 * 1024;
+
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final boolean trustForwarded;
+
+    private final RateLimiter.Rule loginIp;
+    private final RateLimiter.Rule loginAccount;
+    private final RateLimiter.Rule resetIp;
+    private final RateLimiter.Rule resetAccount;
+    private final RateLimiter.Rule otpIp;
+    private final RateLimiter.Rule otpAccount;
+
+    public RateLimitFilter(RateLimiter rateLimiter,
+                           @Value("${app.ratelimit.trust-forwarded:false}") boolean trustForwarded,
+                           @Value("${app.ratelimit.login.ip-per-minute:20}") int loginIpPerMinute,
+                           @Value("${app.ratelimit.login.account-per-minute:5}") int loginAccountPerMinute,
+                           @Value("${app.ratelimit.pwd-reset.ip-per-hour:10}") int resetIpPerHour,
+                           @Value("${app.ratelimit.pwd-reset.account-per-hour:3}") int resetAccountPerHour,
+                           @Value("${app.ratelimit.otp.ip-per-minute:20}") int otpIpPerMinute,
+                           @Value("${app.ratelimit.otp.account-per-10-minutes:5}") int otpAccountPer10Minutes) {
+        this.rateLimiter = rateLimiter;
+        this.trustForwarded = trustForwarded;
+        this.loginIp = RateLimiter.Rule.of("login-ip", loginIpPerMinute, 1, TimeUnit.MINUTES);
+        this.loginAccount = RateLimiter.Rule.of("login-account", loginAccountPerMinute, 1, TimeUnit.MINUTES);
+        this.resetIp = RateLimiter.Rule.of("pwd-reset-ip", resetIpPerHour, 1, TimeUnit.HOURS);
+        this.resetAccount = RateLimiter.Rule.of("pwd-reset-account", resetAccountPerHour, 1, TimeUnit.HOURS);
+        this.otpIp = RateLimiter.Rule.of("otp-ip", otpIpPerMinute, 1, TimeUnit.MINUTES);
+        this.otpAccount = RateLimiter.Rule.of("otp-account", otpAccountPer10Minutes, 10, TimeUnit.MINUTES);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String path = request.getServletPath();
+        return !(LOGIN_PATH.equals(path) || path.startsWith(PWD_RESET_PREFIX));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        String path = request.getServletPath();
+        String method = request.getMethod();
+        String ip = clientIp(request);
+        HttpServletRequest forward = request;
+        long wait = 0;
+
+        if (LOGIN_PATH.equals(path) && "POST".equalsIgnoreCase(method)) {
+            wait = rateLimiter.tryAcquire(loginIp, ip);
+            if (wait == 0) {
+                // 讀出 body 取 email，再包成可重讀的 request 交給後面
+                CachedBodyRequest cached = CachedBodyRequest.of(request, MAX_LOGIN_BODY);
+                forward = cached;
+                String email = cached.emailOf(objectMapper);
+                if (email != null) {
+                    wait = rateLimiter.tryAcquire(loginAccount, email);
+                }
+            }
+        } else if (path.startsWith(PWD_RESET_PREFIX)) {
+            String email = normalize(URLDecoder.decode(path.substring(PWD_RESET_PREFIX.length()), StandardCharsets.UTF_8));
+            if ("POST".equalsIgnoreCase(method)) {
+                // 寄送驗證信
+                wait = rateLimiter.tryAcquire(resetIp, ip);
+                if (wait == 0 && email != null) wait = rateLimiter.tryAcquire(resetAccount, email);
+            } else if ("PUT".equalsIgnoreCase(method)) {
+                // 比對驗證碼（防暴力猜碼）
+                wait = rateLimiter.tryAcquire(otpIp, ip);
+                if (wait == 0 && email != null) wait = rateLimiter.tryAcquire(otpAccount, email);
+            }
+        }
+
+        if (wait > 0) {
+            reject(request, response, wait);
+            return;
+        }
+        filterChain.doFilter(forward, response);
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, long waitNanos) throws IOException {
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setStatus(429);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", 429);
+        body.put("error", "Too Many Requests");
+        body.put("message", "請求過於頻繁，請於 " + seconds + " 秒後再試");
+        body.put("path", request.getServletPath());
+
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    /**
+     * 來源 IP；只有在反向代理後面（trust-forwarded）才採用 X-Forwarded-For 的第一段
+     */
+    private String clientIp(HttpServletRequest request) {
+        if (trustForwarded) {
+            String xff = request.getHeader("X-Forwarded-For");
+            if (StringUtils.hasText(xff)) {
+                int comma = xff.indexOf(',');
+                return (comma < 0 ? xff : xff.substring(0, comma)).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static String normalize(String email) {
+        if (email == null) return null;
+        String e = email.trim().toLowerCase(Locale.ROOT);
+        return e.isEmpty() ? null : e;
+    }
+
+    /**
+     * 先把 body 讀進記憶體，讓後面的 controller 還能再讀一次
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+        private final boolean complete;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body, boolean complete) {
+            super(request);
+            this.body = body;
+            this.complete = complete;
+        }
+
+        static CachedBodyRequest of(HttpServletRequest request, int limit) throws IOException {
+            // 多讀一個 byte 判斷是否超過上限；超過時不截斷，已讀的部分接回原串流
+            byte[] buf = request.getInputStream().readNBytes(limit + 1);
+            return new CachedBodyRequest(request, buf, buf.length <= limit);
+        }
+
+        String emailOf(ObjectMapper mapper) {
+            if (!complete || body.length == 0) return null;
+            try {
+                JsonNode email = mapper.readTree(body).get("email");
+                return email != null && email.isTextual() ? normalize(email.asText()) : null;
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            InputStream in = complete
+                    ? new ByteArrayInputStream(body)
+                    : new SequenceInputStream(new ByteArrayInputStream(body), super.getInputStream());
+            return new ServletInputStream() {
+                @Override
+                public int read() throws IOException {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    try {
+                        return in.available() == 0;
+                    } catch (IOException e) {
+                        return true;
+                    }
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String enc = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    enc != null ? enc : StandardCharsets.UTF_8.name()));
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.ryanshiun.seniorscare.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 程式內的限流器（登入、忘記密碼、驗證碼）：
+ * - 每個 (規則, key) 一個 token bucket，以 GCRA 形式存成單一 AtomicLong（理論到達時間），CAS 更新不上鎖
+ * - bucket 分散在多個 stripe，每個 stripe 有筆數上限；額度已補滿且閒置的 bucket 定期清掉
+ * - stripe 滿了又清不出空間時，新 key 共用該 stripe 的溢位 bucket（寧可多擋，不讓記憶體無限成長）
+ */
+@Component
+public class RateLimiter {
+
+    /**
+     * 限流規則：每 period 最多 capacity 次（可一次用完，之後平均補回）
+     */
+    public record Rule(String name, int capacity, long periodNanos) {
+
+        public static Rule of(String name, int capacity, long period, TimeUnit unit) {
+            return new Rule(name, Math.max(capacity, 1), unit.toNanos(Math.max(period, 1)));
+        }
+
+        long intervalNanos() {
+            return periodNanos / capacity;
+        }
+    }
+
+    private static final class Bucket {
+        // 理論到達時間（nanoTime）；超過 now + 容量 即為額度用完
+        final AtomicLong tat;
+        volatile long lastSeen;
+
+        Bucket(long now) {
+            this.tat = new AtomicLong(now);
+            this.lastSeen = now;
+        }
+    }
+
+    private static final class Counters {
+        final LongAdder allowed = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+    }
+
+    private static final class Stripe {
+        final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+        final Map<String, Bucket> overflow = new ConcurrentHashMap<>();
+    }
+
+    private final Stripe[] stripes;
+    private final int maxKeysPerStripe;
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+    private final LongAdder overflowHits = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    public RateLimiter(@Value("${app.ratelimit.stripes:16}") int stripes,
+                       @Value("${app.ratelimit.max-keys:100000}") int maxKeys) {
+        int n = Integer.highestOneBit(Math.max(stripes, 1));
+        this.stripes = new Stripe[n];
+        for (int i = 0; i < n; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.maxKeysPerStripe = Math.max(maxKeys / n, 1);
+    }
+
+    /**
+     * 嘗試取得一次額度
+     * @return 0 表示放行；大於 0 為需要等待的奈秒數
+     */
+    public long tryAcquire(Rule rule, String key) {
+        long now = System.nanoTime();
+        Bucket bucket = bucketOf(rule, key, now);
+        bucket.lastSeen = now;
+
+        long interval = rule.intervalNanos();
+        long burst = rule.periodNanos();
+        while (true) {
+            long tat = bucket.tat.get();
+            long next = Math.max(tat, now) + interval;
+            long over = next - now - burst;
+            if (over > 0) {
+                counters(rule).rejected.increment();
+                return over;
+            }
+            if (bucket.tat.compareAndSet(tat, next)) {
+                counters(rule).allowed.increment();
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * 清除閒置的 bucket（額度已補滿的 bucket 與新建的一樣，留著沒有意義）
+     */
+    @Scheduled(fixedDelayString = "${app.ratelimit.sweep-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (Stripe s : stripes) {
+            sweep(s.buckets, now);
+            sweep(s.overflow, now);
+        }
+    }
+
+    /**
+     * 各規則放行 / 拒絕次數與 bucket 數
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        Map<String, Object> rules = new LinkedHashMap<>();
+        counters.forEach((name, c) -> {
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("allowed", c.allowed.sum());
+            r.put("rejected", c.rejected.sum());
+            rules.put(name, r);
+        });
+        int size = 0;
+        for (Stripe s : stripes) {
+            size += s.buckets.size();
+        }
+        out.put("rules", rules);
+        out.put("buckets", size);
+        out.put("maxBuckets", maxKeysPerStripe * stripes.length);
+        out.put("overflowHits", overflowHits.sum());
+        out.put("evicted", evicted.sum());
+        return out;
+    }
+
+    // ===== helpers =====
+
+    private Bucket bucketOf(Rule rule, String key, long now) {
+        String k = rule.name() + '|' + key;
+        Stripe s = stripes[spread(k.hashCode()) & (stripes.length - 1)];
+        Bucket b = s.buckets.get(k);
+        if (b != null) {
+            return b;
+        }
+        if (s.buckets.size() >= maxKeysPerStripe) {
+            sweep(s.buckets, now);
+            if (s.buckets.size() >= maxKeysPerStripe) {
+                overflowHits.increment();
+                return s.overflow.computeIfAbsent(rule.name(), x -> new Bucket(now));
+            }
+        }
+        return s.buckets.computeIfAbsent(k, x -> new Bucket(now));
+    }
+
+    // bucket 的 tat 已落後現在（額度已補滿）且閒置一段時間才移除
+    private void sweep(Map<String, Bucket> buckets, long now) {
+        Iterator<Bucket> it = buckets.values().iterator();
+        while (it.hasNext()) {
+            Bucket b = it.next();
+            if (b.tat.get() <= now && now - b.lastSeen > TimeUnit.MINUTES.toNanos(1)) {
+                it.remove();
+                evicted.increment();
+            }
+        }
+    }
+
+    private Counters counters(Rule rule) {
+        Counters c = counters.get(rule.name());
+        return c != null ? c : counters.computeIfAbsent(rule.name(), x -> new Counters());
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+}
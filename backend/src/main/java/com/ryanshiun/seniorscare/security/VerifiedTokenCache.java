@@ -0,0 +1,110 @@
+package com.ryanshiun.seniorscare.security;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 已驗證 JWT 的快取：
+ * - key 為 token 的 SHA-256（取前 128 bit），不保存 token 原文
+ * - 到期時間跟著 token 的 exp，過期即視為無效
+ * - 只快取驗證成功的 token，避免被亂送的 token 塞滿
+ * - 有上限；滿了先清過期項，仍滿就不再放入（照常每次驗簽）
+ */
+class VerifiedTokenCache<V> {
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private record Key(long hi, long lo) {
+    }
+
+    private record Entry<V>(V value, long expiresAtMillis) {
+    }
+
+    private final int maxSize;
+    private final Map<Key, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    VerifiedTokenCache(int maxSize) {
+        this.maxSize = Math.max(maxSize, 0);
+    }
+
+    /**
+     * 取出未過期的快取值；沒有或已過期回傳 null
+     */
+    V get(String token, long nowMillis) {
+        Key key = keyOf(token);
+        Entry<V> e = entries.get(key);
+        if (e == null) {
+            misses.increment();
+            return null;
+        }
+        if (e.expiresAtMillis() <= nowMillis) {
+            entries.remove(key, e);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return e.value();
+    }
+
+    void put(String token, V value, long expiresAtMillis, long nowMillis) {
+        if (maxSize == 0 || expiresAtMillis <= nowMillis) return;
+        if (entries.size() >= maxSize) {
+            sweepExpired(nowMillis);
+            if (entries.size() >= maxSize) return;
+        }
+        entries.put(keyOf(token), new Entry<>(value, expiresAtMillis));
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    // 同一時間只讓一個執行緒清理
+    private void sweepExpired(long nowMillis) {
+        if (!sweeping.compareAndSet(false, true)) return;
+        try {
+            Iterator<Entry<V>> it = entries.values().iterator();
+            while (it.hasNext()) {
+                if (it.next().expiresAtMillis() <= nowMillis) it.remove();
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private static Key keyOf(String token) {
+        MessageDigest md = SHA256.get();
+        byte[] digest = md.digest(token.getBytes(StandardCharsets.UTF_8));
+        ByteBuffer buf = ByteBuffer.wrap(digest);
+        return new Key(buf.getLong(), buf.getLong());
+    }
+}
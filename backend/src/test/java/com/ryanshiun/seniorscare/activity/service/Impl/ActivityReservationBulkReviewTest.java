@@ -0,0 +1,148 @@
+package com.ryanshiun.seniorscare.activity.service.Impl;
+
+import com.ryanshiun.seniorscare.activity.dto.ReservationReviewItem;
+import com.ryanshiun.seniorscare.activity.dto.ReservationReviewResult;
+import com.ryanshiun.seniorscare.activity.dto.ReservationUpdateDto;
+import com.ryanshiun.seniorscare.activity.service.ActivityWaitlistService;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ActivityReservationBulkReviewTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 9, 1);
+
+    private final InMemoryActivityDaos db = new InMemoryActivityDaos();
+
+    // 沒有候補者
+    private final ActivityWaitlistService waitlistService = (ActivityWaitlistService) Proxy.newProxyInstance(
+            ActivityWaitlistService.class.getClassLoader(), new Class<?>[]{ActivityWaitlistService.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "promote" -> 0;
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+
+    private ActivitySeatEngine engine;
+
+    private ActivityReservationServiceImpl service() throws Exception {
+        engine = new ActivitySeatEngine(db.activityDao, () -> TODAY, true);
+        ActivityReservationServiceImpl service = new ActivityReservationServiceImpl();
+        inject(service, "activityReservationDao", db.reservationDao);
+        inject(service, "seatEngine", engine);
+        inject(service, "activityWaitlistService", waitlistService);
+        return service;
+    }
+
+    private static void inject(Object target, String name, Object value) throws Exception {
+        Field f = target.getClass().getDeclaredField(name);
+        f.setAccessible(true);
+        f.set(target, value);
+    }
+
+    private void activity(int id, int limit, int used) {
+        db.activity(id, limit, used, true, TODAY);
+    }
+
+    private void registration(int id, int activityId, int memberId, int num, String status) {
+        db.registration(id, activityId, memberId, num, status);
+    }
+
+    private static ReservationReviewItem item(int registrationId, String status) {
+        ReservationReviewItem i = new ReservationReviewItem();
+        i.setRegistrationId(registrationId);
+        i.setStatus(status);
+        return i;
+    }
+
+    /**
+     * 審核 80 筆報名（60 筆通過、20 筆拒絕）：逐筆呼叫每筆一次 DB 來回，批次只要兩次，結果相同
+     */
+    @Test
+    void bulkReviewUsesTwoRoundTripsAndMatchesPerCallFlow() throws Exception {
+        final int count = 80;
+        // 審核中的報名已佔名額
+        activity(1, 100, count);
+        activity(2, 100, count);
+        for (int i = 0; i < count; i++) {
+            registration(1000 + i, 1, 5000 + i, 1, "預約審核中");
+            registration(2000 + i, 2, 5000 + i, 1, "預約審核中");
+        }
+        ActivityReservationServiceImpl service = service();
+
+        db.roundTrips.set(0);
+        for (int i = 0; i < count; i++) {
+            ReservationUpdateDto dto = new ReservationUpdateDto();
+            dto.setActivityId(1);
+            dto.setMemberId(5000 + i);
+            dto.setStatus(i % 4 == 0 ? "已拒絕" : "報名成功");
+            assertTrue(service.reviewReservation(dto));
+        }
+        int perCallTrips = db.roundTrips.get();
+
+        List<ReservationReviewItem> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) items.add(item(2000 + i, i % 4 == 0 ? "已拒絕" : "報名成功"));
+        db.roundTrips.set(0);
+        List<ReservationReviewResult> results = service.reviewReservations(items);
+        int bulkTrips = db.roundTrips.get();
+
+        assertEquals(count, perCallTrips);
+        assertEquals(2, bulkTrips);
+        assertTrue(results.stream().allMatch(ReservationReviewResult::isSuccess));
+        assertEquals(60, engine.current(1));
+        assertEquals(60, engine.current(2));
+        for (int i = 0; i < count; i++) {
+            assertEquals(db.registrations.get(1000 + i).getStatus(), db.registrations.get(2000 + i).getStatus());
+        }
+    }
+
+    @Test
+    void seatsFreedInTheSameBatchAreReusedAndOverflowFails() throws Exception {
+        activity(3, 6, 4);
+        registration(1, 3, 11, 2, "報名成功");
+        registration(2, 3, 12, 2, "預約審核中");
+        registration(3, 3, 13, 2, "已拒絕");
+        registration(4, 3, 14, 2, "已拒絕");
+        registration(5, 3, 15, 2, "已取消");
+        ActivityReservationServiceImpl service = service();
+
+        List<ReservationReviewResult> results = service.reviewReservations(List.of(
+                item(1, "已拒絕"), item(3, "報名成功"), item(4, "報名成功"), item(5, "報名成功")));
+
+        // 拒絕釋放的 2 個名額給第 2 筆，第 3 筆再佔 2 個（到上限 6），第 4 筆放不下
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).isSuccess());
+        assertTrue(results.get(2).isSuccess());
+        assertFalse(results.get(3).isSuccess());
+        assertEquals("活動名額不足或已結束報名", results.get(3).getMessage());
+        assertEquals("已取消", db.registrations.get(5).getStatus());
+        assertEquals(6, engine.current(3));
+    }
+
+    @Test
+    void invalidItemsAreReportedIndividually() throws Exception {
+        activity(4, 10, 1);
+        registration(21, 4, 31, 1, "預約審核中");
+        registration(22, 4, 32, 1, "已拒絕");
+        ActivityReservationServiceImpl service = service();
+
+        List<ReservationReviewResult> results = service.reviewReservations(List.of(
+                item(21, "報名成功"), item(21, "已拒絕"), item(99, "報名成功"), item(22, "已拒絕"), item(22, " ")));
+
+        assertTrue(results.get(0).isSuccess());
+        assertEquals("重複的報名ID", results.get(1).getMessage());
+        assertEquals("找不到報名", results.get(2).getMessage());
+        assertTrue(results.get(3).isSuccess());
+        assertEquals("狀態未變更", results.get(3).getMessage());
+        assertEquals("缺少報名ID或狀態", results.get(4).getMessage());
+        assertEquals("報名成功", db.registrations.get(21).getStatus());
+        assertEquals(1, engine.current(4));
+    }
+}
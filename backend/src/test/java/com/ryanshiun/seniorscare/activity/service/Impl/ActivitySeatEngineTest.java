@@ -0,0 +1,159 @@
+package com.ryanshiun.seniorscare.activity.service.Impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ActivitySeatEngineTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 9, 1);
+
+    private final InMemoryActivityDaos db = new InMemoryActivityDaos();
+
+    private ActivitySeatEngine engine() {
+        return new ActivitySeatEngine(db.activityDao, () -> TODAY, true);
+    }
+
+    private void activity(int id, int limit, boolean open) {
+        db.activity(id, limit, 0, open, TODAY);
+    }
+
+    @Test
+    void thousandConcurrentRegistrationsNeverOverbook() throws Exception {
+        activity(1, 120, true);
+        ActivitySeatEngine engine = engine();
+
+        int threads = 1000;
+        ExecutorService pool = Executors.newFixedThreadPool(64);
+        AtomicBoolean flushing = new AtomicBoolean(true);
+        // 報名進行中同時不斷寫回，確認寫回不會吃掉或重複計算差額
+        Thread flusher = new Thread(() -> {
+            while (flushing.get()) engine.flush();
+        });
+        flusher.start();
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return engine.hold(1, 1);
+                }));
+            }
+            start.countDown();
+
+            int ok = 0;
+            for (Future<Boolean> f : results) {
+                if (f.get(10, TimeUnit.SECONDS)) ok++;
+            }
+            assertEquals(120, ok);
+            assertEquals(120, engine.current(1));
+        } finally {
+            flushing.set(false);
+            flusher.join();
+            pool.shutdownNow();
+        }
+
+        engine.flush();
+        assertEquals(120, db.current.get(1));
+        assertEquals(0L, engine.stats().get("pendingSeats"));
+    }
+
+    @Test
+    void concurrentHoldsAndReleasesStayWithinLimit() throws Exception {
+        activity(2, 50, true);
+        ActivitySeatEngine engine = engine();
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                tasks.add(pool.submit(() -> {
+                    start.await();
+                    // 佔到名額的人一半會再取消
+                    if (engine.hold(2, 2) && Thread.currentThread().getId() % 2 == 0) {
+                        assertTrue(engine.release(2, 2));
+                    }
+                    int used = engine.current(2);
+                    assertTrue(used >= 0 && used <= 50, "used=" + used);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : tasks) f.get(10, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        engine.flush();
+        assertEquals(engine.current(2), db.current.get(2));
+    }
+
+    @Test
+    void closedOrUnknownActivityRejectsHolds() {
+        activity(3, 10, false);
+        ActivitySeatEngine engine = engine();
+
+        assertFalse(engine.hold(3, 1));
+        assertFalse(engine.hold(99, 1));
+        // 減少名額不受報名期間限制，但不能低於 0
+        assertFalse(engine.adjust(3, -1));
+    }
+
+    @Test
+    void releaseIsAllowedAfterLimitIsLowered() {
+        activity(4, 10, true);
+        ActivitySeatEngine engine = engine();
+        for (int i = 0; i < 8; i++) assertTrue(engine.hold(4, 1));
+        engine.flush();
+
+        db.activities.get(4).setLimit(5);
+        engine.refresh(4);
+
+        assertFalse(engine.hold(4, 1));
+        assertTrue(engine.release(4, 1));
+        assertEquals(7, engine.current(4));
+    }
+
+    @Test
+    void refreshKeepsUnflushedDeltas() {
+        activity(5, 10, true);
+        ActivitySeatEngine engine = engine();
+        assertTrue(engine.hold(5, 3));
+        engine.flush();
+        assertTrue(engine.hold(5, 2));
+
+        // 後台改了上限，DB 只看得到已寫回的 3 個
+        db.activities.get(5).setLimit(20);
+        engine.refresh(5);
+        assertEquals(5, engine.current(5));
+
+        engine.flush();
+        assertEquals(5, db.current.get(5));
+    }
+
+    @Test
+    void reconcileResetsCountersFromRegistrations() {
+        activity(6, 10, true);
+        ActivitySeatEngine engine = engine();
+        assertTrue(engine.hold(6, 4));
+        engine.flush();
+
+        // 模擬報名表實際只有 2 個名額被佔用
+        db.reconciledTo = 2;
+        assertEquals(1, engine.reconcile());
+        assertEquals(2, engine.current(6));
+    }
+}
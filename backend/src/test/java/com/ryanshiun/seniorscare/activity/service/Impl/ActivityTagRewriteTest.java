@@ -0,0 +1,118 @@
+package com.ryanshiun.seniorscare.activity.service.Impl;
+
+import com.ryanshiun.seniorscare.activity.dao.ActTagDAO;
+import com.ryanshiun.seniorscare.activity.dao.ActivityTagDAO;
+import com.ryanshiun.seniorscare.activity.dto.TagRewriteResult;
+import com.ryanshiun.seniorscare.activity.model.ActTag;
+import com.ryanshiun.seniorscare.activity.model.Activity;
+import com.ryanshiun.seniorscare.activity.model.ActivityTag;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ActivityTagRewriteTest {
+
+    private final ActivityCatalog catalog = mock(ActivityCatalog.class);
+    private final ActivityTagDAO activityTagDAO = mock(ActivityTagDAO.class);
+    private final ActTagDAO actTagDAO = mock(ActTagDAO.class);
+
+    private ActivityServiceImpl service() throws Exception {
+        ActivityServiceImpl service = new ActivityServiceImpl();
+        inject(service, "activityCatalog", catalog);
+        inject(service, "activityTagDAO", activityTagDAO);
+        inject(service, "actTagDAO", actTagDAO);
+        when(actTagDAO.findByActivityIds(anyCollection())).thenReturn(List.of());
+        return service;
+    }
+
+    private static void inject(Object target, String name, Object value) throws Exception {
+        Field f = target.getClass().getDeclaredField(name);
+        f.setAccessible(true);
+        f.set(target, value);
+    }
+
+    private void activity(int id) {
+        Activity a = new Activity();
+        a.setId(id);
+        when(catalog.get(id)).thenReturn(a);
+    }
+
+    private static ActivityTag tag(int id, String name) {
+        ActivityTag t = new ActivityTag();
+        t.setId(id);
+        t.setName(name);
+        return t;
+    }
+
+    @Test
+    void unknownActivitiesAreReportedAndSkipped() throws Exception {
+        activity(1);
+        ActivityServiceImpl service = service();
+        when(activityTagDAO.findByNames(anyCollection())).thenReturn(List.of(tag(10, "健走")));
+
+        Map<Integer, List<String>> input = new LinkedHashMap<>();
+        input.put(1, List.of("健走"));
+        input.put(99, List.of("只屬於不存在的活動"));
+        TagRewriteResult result = service.retagActivities(input);
+
+        assertEquals(List.of(99), result.getUnknownActivityIds());
+        assertEquals(1, result.getActivities());
+        assertEquals(1, result.getLinksAdded());
+        assertEquals(0, result.getTagsCreated());
+        // 不存在的活動不會建立標籤，也不會查它的關聯
+        verify(activityTagDAO, never()).insertTags(anyCollection());
+        verify(actTagDAO).findByActivityIds(Set.of(1));
+    }
+
+    @Test
+    void tagsCreatedCountsRowsActuallyInserted() throws Exception {
+        activity(1);
+        ActivityServiceImpl service = service();
+        List<Collection<String>> lookups = new ArrayList<>();
+        when(activityTagDAO.findByNames(anyCollection())).thenAnswer(inv -> {
+            Collection<String> names = inv.getArgument(0);
+            lookups.add(List.copyOf(names));
+            // 第一次查：都不存在；新增後再查：兩個都在
+            return lookups.size() == 1 ? List.of() : List.of(tag(11, "書法"), tag(12, "烹飪"));
+        });
+        // 其中一個標籤剛好被別人先新增，實際只新增 1 筆
+        when(activityTagDAO.insertTags(anyCollection())).thenReturn(1);
+
+        TagRewriteResult result = service.retagActivities(Map.of(1, List.of("書法", "烹飪")));
+
+        assertEquals(1, result.getTagsCreated());
+        assertEquals(2, result.getLinksAdded());
+        verify(actTagDAO).insertBatch(List.of(link(1, 11), link(1, 12)));
+    }
+
+    @Test
+    void taggingAnUnknownActivityIsNotFound() throws Exception {
+        ActivityServiceImpl service = service();
+
+        assertThrows(ResponseStatusException.class, () -> service.addTagsToActivity(42, List.of("健走")));
+        verify(actTagDAO, never()).insertBatch(any());
+    }
+
+    private static ActTag link(int activityId, int tagId) {
+        ActTag link = new ActTag();
+        link.setActivityId(activityId);
+        link.setTagId(tagId);
+        return link;
+    }
+}
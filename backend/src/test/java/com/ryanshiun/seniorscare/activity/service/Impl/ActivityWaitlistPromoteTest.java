@@ -0,0 +1,145 @@
+package com.ryanshiun.seniorscare.activity.service.Impl;
+
+import com.ryanshiun.seniorscare.activity.dao.ActivityReservationDao;
+import com.ryanshiun.seniorscare.activity.dao.ActivityWaitlistDao;
+import com.ryanshiun.seniorscare.activity.model.ActivityWaitlist;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Field;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ActivityWaitlistPromoteTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 9, 1);
+    private static final int ACTIVITY = 1;
+
+    private final InMemoryActivityDaos db = new InMemoryActivityDaos();
+    private final ActivitySeatEngine engine = new ActivitySeatEngine(db.activityDao, () -> TODAY, true);
+    private final ActivityWaitlistDao waitlistDao = mock(ActivityWaitlistDao.class);
+    private final ActivityReservationDao reservationDao = mock(ActivityReservationDao.class);
+
+    /** 只負責觸發交易同步（afterCommit / rollback），不連資料庫 */
+    private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+
+    private final TransactionTemplate tx = new TransactionTemplate(new NoOpTransactionManager());
+
+    /** 上限 10、已佔 5；候補依序 3 人、2 人、4 人 */
+    private ActivityWaitlistServiceImpl service() throws Exception {
+        db.activity(ACTIVITY, 10, 5, true, TODAY);
+        when(waitlistDao.findAllWaiting()).thenReturn(List.of(waiting(11, 3), waiting(12, 2), waiting(13, 4)));
+        when(waitlistDao.markPromoted(anyCollection(), any())).thenAnswer(inv -> new ArrayList<>((Collection<Long>) inv.getArgument(0)));
+
+        ActivityWaitlistServiceImpl service = new ActivityWaitlistServiceImpl();
+        inject(service, "activityWaitlistDao", waitlistDao);
+        inject(service, "activityReservationDao", reservationDao);
+        inject(service, "seatEngine", engine);
+        service.load();
+        return service;
+    }
+
+    private static ActivityWaitlist waiting(long id, int num) {
+        ActivityWaitlist w = new ActivityWaitlist();
+        w.setId(id);
+        w.setActivityId(ACTIVITY);
+        w.setMemberId((int) id + 100);
+        w.setNum(num);
+        w.setCreatedAt(LocalDateTime.of(2025, 8, 30, 9, 0).plusMinutes(id));
+        w.setStatus("WAITING");
+        return w;
+    }
+
+    private static void inject(Object target, String name, Object value) throws Exception {
+        Field f = target.getClass().getDeclaredField(name);
+        f.setAccessible(true);
+        f.set(target, value);
+    }
+
+    @Test
+    void committedPromotionKeepsHeldSeats() throws Exception {
+        ActivityWaitlistServiceImpl service = service();
+
+        tx.executeWithoutResult(status -> service.promote(ACTIVITY, 0));
+
+        // 3 人、2 人佔到；4 人放不下跳過
+        assertEquals(10, engine.current(ACTIVITY));
+        assertEquals(1, service.stats().get("waiting"));
+    }
+
+    @Test
+    void failedReservationInsertReturnsHeldSeats() throws Exception {
+        ActivityWaitlistServiceImpl service = service();
+        doThrow(new DataIntegrityViolationException("FK_activity_registration")).when(reservationDao)
+                .createReservations(anyList());
+        int before = engine.current(ACTIVITY);
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> tx.executeWithoutResult(status -> service.promote(ACTIVITY, 0)));
+
+        assertEquals(before, engine.current(ACTIVITY));
+        assertEquals(3, service.stats().get("waiting"));
+    }
+
+    @Test
+    void failedMarkPromotedReturnsHeldSeats() throws Exception {
+        ActivityWaitlistServiceImpl service = service();
+        when(waitlistDao.markPromoted(anyCollection(), any())).thenThrow(new IllegalStateException("deadlock"));
+        int before = engine.current(ACTIVITY);
+
+        assertThrows(IllegalStateException.class,
+                () -> tx.executeWithoutResult(status -> service.promote(ACTIVITY, 0)));
+
+        assertEquals(before, engine.current(ACTIVITY));
+    }
+
+    @Test
+    void staleEntrySeatsAreReturnedExactlyOnce() throws Exception {
+        ActivityWaitlistServiceImpl service = service();
+        // 2 人那筆已被別的交易取消
+        when(waitlistDao.markPromoted(anyCollection(), any())).thenReturn(List.of(11L));
+
+        tx.executeWithoutResult(status -> service.promote(ACTIVITY, 0));
+        assertEquals(8, engine.current(ACTIVITY));
+
+        // 同樣情況但交易 rollback：全部還回，不會多還
+        tx.executeWithoutResult(status -> {
+            service.promote(ACTIVITY, 0);
+            status.setRollbackOnly();
+        });
+        assertEquals(8, engine.current(ACTIVITY));
+    }
+}
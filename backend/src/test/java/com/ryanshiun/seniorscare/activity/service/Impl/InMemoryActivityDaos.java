@@ -0,0 +1,136 @@
+package com.ryanshiun.seniorscare.activity.service.Impl;
+
+import com.ryanshiun.seniorscare.activity.dao.ActivityDao;
+import com.ryanshiun.seniorscare.activity.dao.ActivityReservationDao;
+import com.ryanshiun.seniorscare.activity.dto.ReservationReviewItem;
+import com.ryanshiun.seniorscare.activity.dto.ReservationUpdateDto;
+import com.ryanshiun.seniorscare.activity.model.Activity;
+import com.ryanshiun.seniorscare.activity.model.ActivityRegistration;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 測試共用的記憶體版 activity / activity_registration：
+ * 只實作名額引擎與審核會用到的方法，其他方法丟 UnsupportedOperationException
+ */
+final class InMemoryActivityDaos {
+
+    final Map<Integer, Activity> activities = new ConcurrentHashMap<>();
+    /** activity.[current] */
+    final Map<Integer, Integer> current = new ConcurrentHashMap<>();
+    final Map<Integer, ActivityRegistration> registrations = new ConcurrentHashMap<>();
+    /** 報名 DAO 被呼叫的次數（每次呼叫視為一次 DB 來回） */
+    final AtomicInteger roundTrips = new AtomicInteger();
+    /** reconcileSeats 把每個活動的 [current] 重設成這個值 */
+    volatile int reconciledTo = -1;
+
+    final ActivityDao activityDao = (ActivityDao) Proxy.newProxyInstance(
+            ActivityDao.class.getClassLoader(), new Class<?>[]{ActivityDao.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "getActivityById" -> {
+                    Activity a = activities.get((Integer) args[0]);
+                    if (a != null) a.setCurrent(current.getOrDefault(a.getId(), 0));
+                    yield a;
+                }
+                case "applySeatDeltas" -> {
+                    @SuppressWarnings("unchecked")
+                    Map<Integer, Integer> deltas = (Map<Integer, Integer>) args[0];
+                    deltas.forEach((id, d) -> current.merge(id, d, Integer::sum));
+                    yield null;
+                }
+                case "reconcileSeats" -> {
+                    int fixed = 0;
+                    for (Integer id : activities.keySet()) {
+                        if (current.getOrDefault(id, 0) != reconciledTo) fixed++;
+                        current.put(id, reconciledTo);
+                    }
+                    yield fixed;
+                }
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+
+    final ActivityReservationDao reservationDao = (ActivityReservationDao) Proxy.newProxyInstance(
+            ActivityReservationDao.class.getClassLoader(), new Class<?>[]{ActivityReservationDao.class},
+            (proxy, method, args) -> {
+                roundTrips.incrementAndGet();
+                return switch (method.getName()) {
+                    case "reviewReservationAndGet" -> {
+                        ReservationUpdateDto dto = (ReservationUpdateDto) args[0];
+                        List<ActivityRegistration> before = new ArrayList<>();
+                        for (ActivityRegistration r : registrations.values()) {
+                            if (r.getActivityId().equals(dto.getActivityId()) && r.getMemberId().equals(dto.getMemberId())) {
+                                before.add(copy(r));
+                                r.setStatus(dto.getStatus());
+                            }
+                        }
+                        yield before;
+                    }
+                    case "lockRegistrations" -> {
+                        List<ActivityRegistration> rows = new ArrayList<>();
+                        for (Object id : (Collection<?>) args[0]) {
+                            ActivityRegistration r = registrations.get((Integer) id);
+                            if (r != null) rows.add(copy(r));
+                        }
+                        yield rows;
+                    }
+                    case "updateStatuses" -> {
+                        @SuppressWarnings("unchecked")
+                        List<ReservationReviewItem> items = (List<ReservationReviewItem>) args[0];
+                        int[] counts = new int[items.size()];
+                        for (int i = 0; i < items.size(); i++) {
+                            ActivityRegistration r = registrations.get(items.get(i).getRegistrationId());
+                            if (r != null) {
+                                r.setStatus(items.get(i).getStatus());
+                                counts[i] = 1;
+                            }
+                        }
+                        yield counts;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                };
+            });
+
+    /** 報名期間為 today 前後 7 天 */
+    Activity activity(int id, int limit, int used, boolean open, LocalDate today) {
+        Activity a = new Activity();
+        a.setId(id);
+        a.setLimit(limit);
+        a.setStatus(open);
+        a.setRegistrationStart(today.minusDays(7));
+        a.setRegistrationEnd(today.plusDays(7));
+        activities.put(id, a);
+        current.put(id, used);
+        return a;
+    }
+
+    ActivityRegistration registration(int id, int activityId, int memberId, int num, String status) {
+        ActivityRegistration r = new ActivityRegistration();
+        r.setId(id);
+        r.setActivityId(activityId);
+        r.setMemberId(memberId);
+        r.setNum(num);
+        r.setScheduledAt(LocalDateTime.of(2025, 8, 1, 9, 0).plusMinutes(id));
+        r.setStatus(status);
+        registrations.put(id, r);
+        return r;
+    }
+
+    private static ActivityRegistration copy(ActivityRegistration r) {
+        ActivityRegistration c = new ActivityRegistration();
+        c.setId(r.getId());
+        c.setActivityId(r.getActivityId());
+        c.setMemberId(r.getMemberId());
+        c.setNum(r.getNum());
+        c.setScheduledAt(r.getScheduledAt());
+        c.setStatus(r.getStatus());
+        return c;
+    }
+}
@@ -0,0 +1,91 @@
+package com.ryanshiun.seniorscare.bus.dispatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.ryanshiun.seniorscare.bus.dao.ReservationDAO;
+import com.ryanshiun.seniorscare.bus.model.BusReservation;
+import com.ryanshiun.seniorscare.bus.utils.TimeUtils;
+
+class BusTimelineIndexTest {
+
+	private final List<BusReservation> rows = new ArrayList<>();
+	private final List<LocalDateTime> loadedFrom = new ArrayList<>();
+	private final List<LocalDateTime> dbChecks = new ArrayList<>();
+
+	/** 只實作索引會用到的兩個方法；hasConflict 模擬資料庫在 10:00 有一單 */
+	private final ReservationDAO dao = (ReservationDAO) Proxy.newProxyInstance(ReservationDAO.class.getClassLoader(),
+			new Class<?>[] { ReservationDAO.class }, (proxy, method, args) -> switch (method.getName()) {
+			case "findActiveFrom" -> {
+				LocalDateTime from = (LocalDateTime) args[0];
+				loadedFrom.add(from);
+				yield rows.stream().filter(r -> !r.getScheduledAt().isBefore(from)).toList();
+			}
+			case "hasConflict" -> {
+				LocalDateTime at = (LocalDateTime) args[1];
+				dbChecks.add(at);
+				yield at.getHour() == 10 || at.getHour() == 11;
+			}
+			default -> throw new UnsupportedOperationException(method.getName());
+			});
+
+	private void row(int id, int busId, LocalDateTime at) {
+		BusReservation r = new BusReservation();
+		r.setId(id);
+		r.setBusId(busId);
+		r.setScheduledAt(at);
+		r.setReservationStatus("Active");
+		rows.add(r);
+	}
+
+	@Test
+	void rebuildLoadsFromOneSlotBeforeTaipeiNow() {
+		LocalDateTime before = TimeUtils.taipeiNowMinute();
+		new BusTimelineIndex(dao).rebuild();
+		LocalDateTime after = TimeUtils.taipeiNowMinute();
+
+		LocalDateTime from = loadedFrom.get(0);
+		assertFalse(from.isBefore(before.minusMinutes(BusTimelineIndex.SLOT_MINUTES)));
+		assertFalse(from.isAfter(after.minusMinutes(BusTimelineIndex.SLOT_MINUTES)));
+	}
+
+	@Test
+	void futureSlotsAreAnsweredFromTheIndex() {
+		LocalDateTime at = TimeUtils.taipeiNowMinute().plusDays(1);
+		row(1, 7, at);
+		BusTimelineIndex index = new BusTimelineIndex(dao);
+
+		assertTrue(index.hasConflict(7, at.plusMinutes(BusTimelineIndex.SLOT_MINUTES - 1), null));
+		assertFalse(index.hasConflict(7, at.plusMinutes(BusTimelineIndex.SLOT_MINUTES), null));
+		assertFalse(index.hasConflict(7, at, 1));
+		assertNull(index.reserve(7, at.minusMinutes(30), () -> 2));
+		assertEquals(List.of(8), index.freeBuses(List.of(7, 8), at));
+		assertTrue(dbChecks.isEmpty());
+	}
+
+	@Test
+	void slotsBeforeTheIndexWindowFallBackToTheDatabase() {
+		LocalDateTime past = TimeUtils.taipeiNowMinute().minusDays(3).withHour(10).withMinute(30);
+		BusTimelineIndex index = new BusTimelineIndex(dao);
+
+		assertTrue(index.hasConflict(7, past, null));
+		assertNull(index.reserve(7, past, () -> 2));
+		assertTrue(index.freeBuses(List.of(7), past).isEmpty());
+		assertEquals(3, dbChecks.size());
+
+		LocalDateTime free = past.withHour(14);
+		assertEquals(3, index.reserve(7, free, () -> 3));
+		// 已過去的時段不會被當成最早可預約時段
+		LocalDateTime slot = index.earliestFreeSlot(7, past.minusHours(1), free.plusDays(10));
+		assertFalse(slot.isBefore(TimeUtils.taipeiNowMinute().minusMinutes(1)));
+	}
+}
@@ -0,0 +1,169 @@
+package com.ryanshiun.seniorscare.bus.dispatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.ryanshiun.seniorscare.bus.dto.DispatchPlan;
+
+class RoutePlannerTest {
+
+	private static final LocalDateTime NINE = LocalDateTime.of(2025, 9, 1, 9, 0);
+	// 緯度 0.009 度約 1 公里
+	private static final double KM = 0.009;
+	private static final double BASE_LAT = 24.96;
+	private static final double BASE_LNG = 121.26;
+
+	// 與 DispatchServiceImpl 預設值相同：30 分鐘時間窗、3 公里、時速 30、停靠 5 分鐘、可晚到 15 分鐘
+	private static RoutePlanner planner() {
+		return new RoutePlanner(30, 3000, 30, 1.3, 5, 15, 2000);
+	}
+
+	private static RoutePlanner.Trip trip(int id, LocalDateTime at, double pickupKmNorth, double dropoffKmNorth) {
+		return new RoutePlanner.Trip(id, at, BASE_LAT + pickupKmNorth * KM, BASE_LNG,
+				BASE_LAT + dropoffKmNorth * KM, BASE_LNG + 0.1);
+	}
+
+	private static List<String> sequence(DispatchPlan.BusRoute route) {
+		return route.getStops().stream().map(s -> s.getType().charAt(0) + "" + s.getReservationId()).toList();
+	}
+
+	@Test
+	void nearbyTripsShareOneRideWithPickupsBeforeDropoffs() {
+		// 上車點在同一條線上，順序打亂
+		List<RoutePlanner.Trip> trips = List.of(trip(1, NINE, 0, 0), trip(2, NINE.plusMinutes(10), 2, 2),
+				trip(3, NINE.plusMinutes(5), 1, 1), trip(4, NINE.plusMinutes(20), 1.5, 1.5));
+
+		DispatchPlan plan = planner().plan(trips, List.of(new RoutePlanner.Vehicle(7, 4)), true);
+
+		assertEquals(1, plan.getBatches());
+		assertEquals(1, plan.getBusesUsed());
+		assertTrue(plan.getUnassigned().isEmpty());
+		// 最早的先接，之後沿線往北；送人從最後上車點附近開始
+		assertEquals(List.of("P1", "P3", "P4", "P2", "D2", "D4", "D3", "D1"), sequence(plan.getRoutes().get(0)));
+	}
+
+	@Test
+	void tripsOutsideTheWindowOrRadiusRideAlone() {
+		List<RoutePlanner.Trip> trips = List.of(trip(1, NINE, 0, 0),
+				// 時間窗外
+				trip(2, NINE.plusMinutes(31), 0, 0),
+				// 下車點太遠
+				trip(3, NINE.plusMinutes(5), 0, 5));
+
+		DispatchPlan plan = planner().plan(trips, List.of(new RoutePlanner.Vehicle(1, 4),
+				new RoutePlanner.Vehicle(2, 4), new RoutePlanner.Vehicle(3, 4)), true);
+
+		assertEquals(3, plan.getBatches());
+	}
+
+	@Test
+	void batchesNeverExceedTheLargestVehicle() {
+		List<RoutePlanner.Trip> trips = new ArrayList<>();
+		for (int i = 1; i <= 7; i++)
+			trips.add(trip(i, NINE.plusMinutes(i), 0, 0));
+
+		DispatchPlan plan = planner().plan(trips, List.of(new RoutePlanner.Vehicle(1, 3),
+				new RoutePlanner.Vehicle(2, 3), new RoutePlanner.Vehicle(3, 3)), true);
+
+		assertEquals(3, plan.getBatches());
+		assertTrue(plan.getUnassigned().isEmpty());
+	}
+
+	@Test
+	void tripsNoBusCanReachInTimeAreUnassigned() {
+		// 同一時間、相距 20 公里，只有一台車
+		List<RoutePlanner.Trip> trips = List.of(trip(1, NINE, 0, 0), trip(2, NINE, 20, 20));
+
+		DispatchPlan plan = planner().plan(trips, List.of(new RoutePlanner.Vehicle(1, 4)), true);
+
+		assertEquals(List.of(2), plan.getUnassigned());
+		assertEquals(List.of("P1", "D1"), sequence(plan.getRoutes().get(0)));
+	}
+
+	/**
+	 * 500 單的模擬日（住宅區 → 醫院，與 /api/dispatch/plan/benchmark 相同的資料分布）：
+	 * 每單恰好接一次、送一次，先接後送、不早於預約時間、車上人數不超過座位，且總里程明顯少於各自成趟
+	 */
+	@Test
+	void syntheticFiveHundredTripDay() {
+		Random rnd = new Random(42);
+		double[][] homes = centers(rnd, 20, 0.08);
+		double[][] hospitals = centers(rnd, 8, 0.05);
+		List<RoutePlanner.Trip> trips = new ArrayList<>();
+		Map<Integer, LocalDateTime> scheduled = new HashMap<>();
+		for (int i = 1; i <= 500; i++) {
+			double[] h = homes[rnd.nextInt(homes.length)];
+			double[] d = hospitals[rnd.nextInt(hospitals.length)];
+			LocalDateTime at = NINE.withHour(7).plusMinutes(rnd.nextInt(11 * 60));
+			trips.add(new RoutePlanner.Trip(i, at, jitter(rnd, h[0]), jitter(rnd, h[1]), jitter(rnd, d[0]),
+					jitter(rnd, d[1])));
+			scheduled.put(i, at);
+		}
+		List<RoutePlanner.Vehicle> vehicles = new ArrayList<>();
+		Map<Integer, Integer> capacity = new HashMap<>();
+		for (int i = 1; i <= 30; i++) {
+			vehicles.add(new RoutePlanner.Vehicle(i, 4 + rnd.nextInt(3)));
+			capacity.put(i, vehicles.get(i - 1).capacity());
+		}
+
+		RoutePlanner planner = planner();
+		DispatchPlan batched = planner.plan(trips, vehicles, true);
+		DispatchPlan isolated = planner.plan(trips, vehicles, false);
+
+		assertEquals(500, batched.getTrips());
+		assertTrue(batched.getBatches() < 500);
+		assertTrue(batched.getBusesUsed() <= 30);
+
+		Set<Integer> picked = new HashSet<>();
+		Set<Integer> dropped = new HashSet<>();
+		for (DispatchPlan.BusRoute route : batched.getRoutes()) {
+			int onBoard = 0;
+			LocalDateTime lastEta = null;
+			for (DispatchPlan.RouteStop s : route.getStops()) {
+				int id = s.getReservationId();
+				if ("PICKUP".equals(s.getType())) {
+					assertTrue(picked.add(id));
+					assertFalse(s.getEta().isBefore(scheduled.get(id)));
+					onBoard++;
+				} else {
+					assertTrue(picked.contains(id) && dropped.add(id), "先送後接：" + id);
+					onBoard--;
+				}
+				assertTrue(onBoard <= capacity.get(route.getBusId()));
+				assertTrue(lastEta == null || !s.getEta().isBefore(lastEta));
+				lastEta = s.getEta();
+			}
+			assertEquals(0, onBoard);
+		}
+		assertEquals(picked, dropped);
+		assertEquals(500, picked.size() + batched.getUnassigned().size());
+
+		// 共乘省下的里程（合併較少的情況下也至少 10%）
+		assertTrue(batched.getTotalKm() < isolated.getTotalKm() * 0.9,
+				batched.getTotalKm() + " km vs " + isolated.getTotalKm() + " km");
+	}
+
+	private static double[][] centers(Random rnd, int n, double spread) {
+		double[][] c = new double[n][];
+		for (int i = 0; i < n; i++)
+			c[i] = new double[] { BASE_LAT + (rnd.nextDouble() - 0.5) * spread * 2,
+					BASE_LNG + (rnd.nextDouble() - 0.5) * spread * 2 };
+		return c;
+	}
+
+	private static double jitter(Random rnd, double v) {
+		return v + (rnd.nextDouble() - 0.5) * 0.018;
+	}
+}
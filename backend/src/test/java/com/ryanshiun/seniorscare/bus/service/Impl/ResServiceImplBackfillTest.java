@@ -0,0 +1,82 @@
+package com.ryanshiun.seniorscare.bus.service.Impl;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.DuplicateKeyException;
+
+import com.ryanshiun.seniorscare.bus.dao.ReservationDAO;
+import com.ryanshiun.seniorscare.bus.dao.ReservationSearchDAO;
+import com.ryanshiun.seniorscare.bus.dto.ResSearchParams;
+import com.ryanshiun.seniorscare.bus.dto.ResSummary;
+import com.ryanshiun.seniorscare.bus.service.BusService;
+
+class ResServiceImplBackfillTest {
+
+	private final ReservationSearchDAO searchDAO = mock(ReservationSearchDAO.class);
+
+	private ResServiceImpl service() throws Exception {
+		ResServiceImpl service = new ResServiceImpl(mock(ReservationDAO.class), mock(BusService.class));
+		Field f = ResServiceImpl.class.getDeclaredField("reservationSearchDAO");
+		f.setAccessible(true);
+		f.set(service, searchDAO);
+		return service;
+	}
+
+	private static ResSummary row(int id) {
+		ResSummary r = new ResSummary();
+		r.setId(id);
+		r.setStartAddress("桃園市中壢區中大路" + id + "號");
+		r.setEndAddress("桃園市中壢區中正路" + id + "號");
+		return r;
+	}
+
+	private static List<ResSummary> rows(int fromId, int count) {
+		List<ResSummary> out = new ArrayList<>();
+		for (int i = 0; i < count; i++)
+			out.add(row(fromId + i));
+		return out;
+	}
+
+	/** 一直寫入失敗的預約不會擋住後面的資料：下一批從它之後接著取，掃完一輪再從頭重試 */
+	@Test
+	void failingReservationDoesNotBlockTheBacklog() throws Exception {
+		when(searchDAO.findUnindexed(0, 1000)).thenReturn(rows(1, 1000));
+		when(searchDAO.findUnindexed(1000, 1000)).thenReturn(rows(1001, 3));
+		doThrow(new DuplicateKeyException("PK_BusReservationAddressToken")).when(searchDAO)
+				.indexAddresses(eq(1), any(), any());
+		ResServiceImpl service = service();
+
+		service.backfillAddressTokens();
+		// 第一批滿 1000 筆，地址條件還不能走 token 表
+		service.search(new ResSearchParams());
+		verify(searchDAO).search(any(), any(), any(), anyInt(), anyBoolean(), eq(false));
+
+		service.backfillAddressTokens();
+		verify(searchDAO).indexAddresses(1003, row(1003).getStartAddress(), row(1003).getEndAddress());
+		service.search(new ResSearchParams());
+		verify(searchDAO).search(any(), any(), any(), anyInt(), anyBoolean(), eq(true));
+
+		// 掃完一輪從頭開始，重試失敗的第 1 筆
+		service.backfillAddressTokens();
+		InOrder order = inOrder(searchDAO);
+		order.verify(searchDAO).findUnindexed(0, 1000);
+		order.verify(searchDAO).findUnindexed(1000, 1000);
+		order.verify(searchDAO).findUnindexed(0, 1000);
+		verify(searchDAO, times(2)).indexAddresses(eq(1), any(), any());
+	}
+}
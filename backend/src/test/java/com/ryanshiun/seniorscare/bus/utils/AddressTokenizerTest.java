@@ -0,0 +1,32 @@
+package com.ryanshiun.seniorscare.bus.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class AddressTokenizerTest {
+
+	@Test
+	void indexTokensAreSingleCharactersAndAdjacentPairs() {
+		assertEquals(List.of("中", "大", "中大", "路", "大路", "1", "路1", "0", "10"),
+				List.copyOf(AddressTokenizer.indexTokens("中大路10")));
+	}
+
+	@Test
+	void fullwidthAndHalfwidthFormsFoldToOneToken() {
+		// 全形 Ｂ１ 與半形 b1 在資料庫定序下相同，索引時只能有一個 token，否則會撞主鍵
+		Set<String> tokens = AddressTokenizer.indexTokens("Ｂ１棟 b1棟");
+		assertEquals(Set.of("b", "1", "b1", "棟", "1棟"), tokens);
+		assertEquals(AddressTokenizer.queryTokens("b1棟"), AddressTokenizer.queryTokens("Ｂ１棟"));
+	}
+
+	@Test
+	void queryTokensArePairsOrASingleCharacter() {
+		assertEquals(List.of("中壢", "壢區", "路"), List.copyOf(AddressTokenizer.queryTokens("中壢區 路")));
+		assertTrue(AddressTokenizer.queryTokens("  ").isEmpty());
+	}
+}
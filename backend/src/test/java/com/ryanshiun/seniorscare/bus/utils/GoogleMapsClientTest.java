@@ -0,0 +1,197 @@
+package com.ryanshiun.seniorscare.bus.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 以本機 stub server 模擬 Distance Matrix：
+ * - origins 以 slow 開頭的請求卡在 gate，直到測試放行
+ * - origins 為 hedge 的第一個請求卡住，之後的（對沖）馬上回應
+ */
+class GoogleMapsClientTest {
+
+	private static final String OK_BODY = "{\"status\":\"OK\",\"rows\":[{\"elements\":"
+			+ "[{\"status\":\"OK\",\"distance\":{\"value\":1234}}]}]}";
+
+	private HttpServer server;
+	private ExecutorService serverPool;
+	private final AtomicInteger hits = new AtomicInteger();
+	private final Map<String, AtomicInteger> hitsByOrigin = new ConcurrentHashMap<>();
+	private final CountDownLatch gate = new CountDownLatch(1);
+	private volatile int status = 200;
+
+	@BeforeEach
+	void start() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		serverPool = Executors.newCachedThreadPool();
+		server.setExecutor(serverPool);
+		server.createContext("/maps/api/distancematrix/json", this::handle);
+		server.start();
+	}
+
+	@AfterEach
+	void stop() {
+		gate.countDown();
+		server.stop(0);
+		serverPool.shutdownNow();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		hits.incrementAndGet();
+		String origin = origin(exchange.getRequestURI().getRawQuery());
+		int n = hitsByOrigin.computeIfAbsent(origin, k -> new AtomicInteger()).incrementAndGet();
+		try {
+			if (origin.startsWith("slow") || ("hedge".equals(origin) && n == 1))
+				gate.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		byte[] body = (status == 200 ? OK_BODY : "{}").getBytes(StandardCharsets.UTF_8);
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private static String origin(String query) {
+		for (String pair : query.split("&")) {
+			if (pair.startsWith("origins="))
+				return URLDecoder.decode(pair.substring("origins=".length()), StandardCharsets.UTF_8);
+		}
+		return "";
+	}
+
+	private GoogleMapsClient client(int maxConcurrency, long permitWaitMs, int failureThreshold, long breakerOpenMs,
+			boolean hedgeEnabled) {
+		MapsCacheTest.InMemoryMapsCacheDao dao = new MapsCacheTest.InMemoryMapsCacheDao();
+		dao.available = false;
+		MapsCache cache = new MapsCache(dao, 64, 30);
+		cache.init();
+		return new GoogleMapsClient(cache, "http://127.0.0.1:" + server.getAddress().getPort(), 2000, 5000,
+				maxConcurrency, permitWaitMs, failureThreshold, breakerOpenMs, hedgeEnabled);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> stats(GoogleMapsClient client) {
+		return (Map<String, Object>) client.cacheStats().get("client");
+	}
+
+	private void awaitHits(int expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (hits.get() < expected && System.currentTimeMillis() < deadline)
+			Thread.sleep(5);
+		assertEquals(expected, hits.get());
+	}
+
+	@Test
+	void breakerOpensRejectsThenHalfOpenProbeDecides() throws Exception {
+		GoogleMapsClient client = client(4, 1000, 2, 300, false);
+		status = 500;
+
+		assertNull(client.getDrivingDistanceMeters("a1", "b"));
+		assertNull(client.getDrivingDistanceMeters("a2", "b"));
+		assertEquals("OPEN", stats(client).get("breaker"));
+
+		// OPEN：不打到 server
+		assertNull(client.getDrivingDistanceMeters("a3", "b"));
+		assertEquals(2, hits.get());
+		assertEquals(1L, stats(client).get("breakerRejected"));
+
+		// HALF_OPEN 試探失敗 → 重新跳開
+		Thread.sleep(350);
+		assertEquals("HALF_OPEN", stats(client).get("breaker"));
+		assertNull(client.getDrivingDistanceMeters("a4", "b"));
+		assertEquals(3, hits.get());
+		assertEquals("OPEN", stats(client).get("breaker"));
+
+		// HALF_OPEN 試探成功 → 恢復
+		Thread.sleep(350);
+		status = 200;
+		assertEquals(1234, client.getDrivingDistanceMeters("a5", "b"));
+		assertEquals(4, hits.get());
+		assertEquals("CLOSED", stats(client).get("breaker"));
+	}
+
+	@Test
+	void requestsOverTheLimitQueueWithoutBlockingTheCaller() throws Exception {
+		GoogleMapsClient client = client(1, 5000, 5, 30_000, false);
+
+		CompletableFuture<Integer> first = client.getDrivingDistanceMetersAsync("slow-1", "b");
+		awaitHits(1);
+
+		long start = System.nanoTime();
+		CompletableFuture<Integer> second = client.getDrivingDistanceMetersAsync("queued", "b");
+		// 名額用完時呼叫端不等待（permitWaitMs 為 5 秒）
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+		assertFalse(second.isDone());
+		assertEquals(1, stats(client).get("inFlight"));
+		assertEquals(1, hits.get());
+
+		gate.countDown();
+		assertEquals(1234, first.get(5, TimeUnit.SECONDS));
+		assertEquals(1234, second.get(5, TimeUnit.SECONDS));
+		assertEquals(2, hits.get());
+		assertEquals(0L, stats(client).get("throttled"));
+		assertEquals(0, stats(client).get("inFlight"));
+	}
+
+	@Test
+	void queuedRequestIsThrottledAfterPermitWait() throws Exception {
+		GoogleMapsClient client = client(1, 100, 5, 30_000, false);
+
+		CompletableFuture<Integer> first = client.getDrivingDistanceMetersAsync("slow-1", "b");
+		awaitHits(1);
+
+		assertNull(client.getDrivingDistanceMetersAsync("late", "b").get(5, TimeUnit.SECONDS));
+		assertEquals(1L, stats(client).get("throttled"));
+		assertEquals(1, hits.get());
+		// 節流不算 Google 失敗，不影響斷路器
+		assertEquals("CLOSED", stats(client).get("breaker"));
+
+		gate.countDown();
+		assertEquals(1234, first.get(5, TimeUnit.SECONDS));
+		assertEquals(1234, client.getDrivingDistanceMeters("after", "b"));
+	}
+
+	@Test
+	void hedgeWinsWhenPrimaryStalls() throws Exception {
+		GoogleMapsClient client = client(8, 1000, 5, 30_000, true);
+		// 先累積延遲樣本，才會算出 p95
+		for (int i = 0; i < 25; i++)
+			assertEquals(1234, client.getDrivingDistanceMeters("warm-" + i, "b"));
+		assertEquals(0L, stats(client).get("hedges"));
+
+		// 第一個請求卡住，對沖的請求先回來
+		assertEquals(1234, client.getDrivingDistanceMetersAsync("hedge", "b").get(5, TimeUnit.SECONDS));
+		assertEquals(2, hitsByOrigin.get("hedge").get());
+		assertEquals(1L, stats(client).get("hedges"));
+		// 勝出次數在回傳結果後才記錄
+		long deadline = System.currentTimeMillis() + 1000;
+		while (!Long.valueOf(1).equals(stats(client).get("hedgeWins")) && System.currentTimeMillis() < deadline)
+			Thread.sleep(5);
+		assertEquals(1L, stats(client).get("hedgeWins"));
+	}
+}
@@ -0,0 +1,165 @@
+package com.ryanshiun.seniorscare.bus.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.ryanshiun.seniorscare.bus.dao.MapsCacheDAO;
+
+class MapsCacheTest {
+
+	/** 記憶體版的第二層快取表；available=false 模擬資料表無法使用 */
+	static final class InMemoryMapsCacheDao implements MapsCacheDAO {
+		final Map<String, String> latLngs = new HashMap<>();
+		final Map<String, LocalDateTime> latLngExpiry = new HashMap<>();
+		final Map<String, Integer> distances = new HashMap<>();
+		boolean available = true;
+		int reads;
+
+		@Override
+		public void ensureTables() {
+			if (!available)
+				throw new IllegalStateException("no permission");
+		}
+
+		@Override
+		public String findLatLng(String addressKey, LocalDateTime now) {
+			reads++;
+			if (!available)
+				throw new IllegalStateException("db down");
+			LocalDateTime exp = latLngExpiry.get(addressKey);
+			return exp != null && exp.isAfter(now) ? latLngs.get(addressKey) : null;
+		}
+
+		@Override
+		public void upsertLatLng(String addressKey, String latLng, LocalDateTime expiresAt) {
+			latLngs.put(addressKey, latLng);
+			latLngExpiry.put(addressKey, expiresAt);
+		}
+
+		@Override
+		public Integer findDistance(String originKey, String destinationKey, LocalDateTime now) {
+			reads++;
+			return distances.get(originKey + "|" + destinationKey);
+		}
+
+		@Override
+		public void upsertDistance(String originKey, String destinationKey, int meters, LocalDateTime expiresAt) {
+			distances.put(originKey + "|" + destinationKey, meters);
+		}
+
+		@Override
+		public int deleteExpired(LocalDateTime now) {
+			return 0;
+		}
+	}
+
+	private final InMemoryMapsCacheDao dao = new InMemoryMapsCacheDao();
+
+	private MapsCache cache() {
+		MapsCache c = new MapsCache(dao, 16, 30);
+		c.init();
+		return c;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> tier(MapsCache c, String name) {
+		return (Map<String, Object>) c.stats().get(name);
+	}
+
+	@Test
+	void memoryTierServesRepeatsWithoutTouchingTheTable() {
+		MapsCache c = cache();
+		assertNull(c.getLatLng("桃園市 政府"));
+		c.putLatLng("桃園市 政府", "24.99,121.30");
+
+		int reads = dao.reads;
+		// 前後空白、連續空白、全形空白都視為同一筆
+		assertEquals("24.99,121.30", c.getLatLng("  桃園市　 政府 "));
+		assertEquals(reads, dao.reads);
+
+		Map<String, Object> g = tier(c, "geocode");
+		assertEquals(1L, g.get("memoryHits"));
+		assertEquals(0L, g.get("persistentHits"));
+		assertEquals(1L, g.get("misses"));
+	}
+
+	@Test
+	void tableTierSurvivesRestartAndRefillsMemory() {
+		cache().putDistance("A St", "B Rd", 1234);
+
+		// 重開機：新的記憶體層，同一張表
+		MapsCache restarted = cache();
+		assertEquals(1234, restarted.getDistance("a st", "b  rd"));
+		assertEquals(1234, restarted.getDistance("A St", "B Rd"));
+
+		Map<String, Object> d = tier(restarted, "distance");
+		assertEquals(1L, d.get("persistentHits"));
+		assertEquals(1L, d.get("memoryHits"));
+		assertEquals(0L, d.get("misses"));
+		assertEquals(1.0, d.get("hitRatio"));
+	}
+
+	@Test
+	void expiredTableRowsAreMisses() {
+		dao.upsertLatLng("old address", "25.0,121.5", LocalDateTime.now().minusDays(1));
+		assertNull(cache().getLatLng("old address"));
+	}
+
+	@Test
+	void unavailableTableFallsBackToMemoryOnly() {
+		dao.available = false;
+		MapsCache c = cache();
+		assertEquals(false, c.stats().get("persistent"));
+
+		c.putLatLng("x", "1,2");
+		assertEquals("1,2", c.getLatLng("x"));
+		assertNull(c.getLatLng("y"));
+		assertEquals(0, dao.reads);
+	}
+
+	@Test
+	void tableReadErrorsCountAsMisses() {
+		MapsCache c = cache();
+		dao.available = false;
+		assertNull(c.getLatLng("z"));
+		assertEquals(1L, tier(c, "geocode").get("misses"));
+	}
+
+	@Test
+	void memoryTierEvictsLeastRecentlyUsed() {
+		MapsCache c = cache();
+		for (int i = 0; i < 16; i++)
+			c.putDistance("o" + i, "d", i);
+		c.getDistance("o0", "d"); // o0 最近用過，不會被擠掉
+		c.putDistance("o16", "d", 16);
+
+		assertEquals(16, tier(c, "distance").get("memoryEntries"));
+		int reads = dao.reads;
+		c.getDistance("o0", "d");
+		assertEquals(reads, dao.reads);
+		c.getDistance("o1", "d"); // 被擠出記憶體，改讀表
+		assertEquals(reads + 1, dao.reads);
+	}
+
+	@Test
+	void peekDoesNotAffectHitRatio() {
+		MapsCache c = cache();
+		dao.upsertLatLng("on disk", "25.0,121.5", LocalDateTime.now().plusDays(1));
+		c.putLatLng("in memory", "24.0,121.0");
+
+		assertNull(c.peekLatLng("nowhere"));
+		assertEquals("25.0,121.5", c.peekLatLng("on disk"));
+		assertEquals("24.0,121.0", c.peekLatLng("in memory"));
+
+		Map<String, Object> g = tier(c, "geocode");
+		assertEquals(0L, g.get("memoryHits"));
+		assertEquals(0L, g.get("persistentHits"));
+		assertEquals(0L, g.get("misses"));
+	}
+}
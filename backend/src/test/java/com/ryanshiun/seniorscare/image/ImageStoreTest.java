@@ -0,0 +1,109 @@
+package com.ryanshiun.seniorscare.image;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageStoreTest {
+
+    @TempDir
+    Path root;
+
+    private ImageStore store;
+
+    private ImageStore store() {
+        store = new ImageStore(root.toString(), 1, 4);
+        return store;
+    }
+
+    @AfterEach
+    void shutdown() {
+        if (store != null) store.shutdown();
+    }
+
+    private static byte[] png(int w, int h, int type) throws IOException {
+        BufferedImage img = new BufferedImage(w, h, type);
+        for (int x = 0; x < w; x++) {
+            for (int y = 0; y < h; y++) img.setRGB(x, y, (x + y) % 2 == 0 ? 0x80FF0000 : 0xFF00FF00);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(img, "png", out);
+        return out.toByteArray();
+    }
+
+    // 縮圖由 worker 非同步產生，等到檔案出現為止
+    private static void awaitFile(Path p) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!Files.exists(p) && System.currentTimeMillis() < deadline) Thread.sleep(20);
+        assertTrue(Files.exists(p), "縮圖未產生：" + p.getFileName());
+    }
+
+    @Test
+    void transparentPngProducesJpegVariantsScaledByWidth() throws Exception {
+        StoredImage stored = store().store(new ByteArrayInputStream(png(2000, 1000, BufferedImage.TYPE_INT_ARGB)),
+                "photo.PNG", "rooms");
+
+        assertTrue(stored.path().startsWith("rooms/") && stored.path().endsWith(".png"));
+        assertFalse(stored.deduplicated());
+        for (ImageVariant v : ImageVariant.values()) {
+            Path p = root.resolve(stored.variants().get(v.getSuffix()));
+            assertTrue(p.getFileName().toString().endsWith("-" + v.getSuffix() + ".jpg"));
+            awaitFile(p);
+            BufferedImage img = ImageIO.read(p.toFile());
+            assertEquals(v.getMaxWidth(), img.getWidth());
+            assertEquals(v.getMaxWidth() / 2, img.getHeight());
+            // JPEG 沒有 alpha
+            assertFalse(img.getColorModel().hasAlpha());
+        }
+    }
+
+    @Test
+    void smallImagesAreNotUpscaled() throws Exception {
+        StoredImage stored = store().store(new ByteArrayInputStream(png(100, 50, BufferedImage.TYPE_INT_RGB)),
+                "small.png", "");
+        Path full = root.resolve(stored.variants().get(ImageVariant.FULL.getSuffix()));
+        awaitFile(full);
+        assertEquals(100, ImageIO.read(full.toFile()).getWidth());
+    }
+
+    @Test
+    void identicalContentIsStoredOnce() throws Exception {
+        byte[] bytes = png(300, 200, BufferedImage.TYPE_INT_RGB);
+        ImageStore s = store();
+        StoredImage first = s.store(new ByteArrayInputStream(bytes), "a.png", "x");
+        StoredImage second = s.store(new ByteArrayInputStream(bytes), "b.png", "x");
+
+        assertEquals(first.path(), second.path());
+        assertEquals(first.sha256(), second.sha256());
+        assertTrue(second.deduplicated());
+        assertTrue(ImageStore.isContentAddressed(Path.of(first.path()).getFileName().toString()));
+    }
+
+    @Test
+    void variantsOfFallsBackToOriginalUntilGenerated() throws Exception {
+        ImageStore s = store();
+        // 無法解碼的內容：不產生縮圖，各尺寸都回原檔
+        StoredImage stored = s.store(new ByteArrayInputStream("not an image".getBytes(StandardCharsets.UTF_8)),
+                "broken.jpg", "docs");
+        Thread.sleep(200);
+        Map<String, String> variants = s.variantsOf(stored.path());
+        for (ImageVariant v : ImageVariant.values()) assertEquals(stored.path(), variants.get(v.getSuffix()));
+
+        // 非內容定址的舊檔
+        assertEquals("legacy/old.jpg", s.variantsOf("legacy/old.jpg").get("thumb"));
+    }
+}
@@ -0,0 +1,136 @@
+package com.ryanshiun.seniorscare.image.gc;
+
+import com.ryanshiun.seniorscare.image.ImageStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrphanImageCollectorTest {
+
+    // 欄位名稱看起來像存圖片的
+    private static final Pattern IMAGE_LIKE = Pattern.compile("(?i).*(image|photo|img|picture|avatar).*");
+    private static final Pattern INSERT = Pattern.compile("(?is)INSERT\\s+INTO\\s+(\\w+)\\s*\\(([^)]*)\\)");
+    private static final Pattern UPDATE = Pattern.compile("(?is)UPDATE\\s+(\\w+)\\s+SET\\s+(.*?)\\s+WHERE");
+    private static final Pattern ASSIGN = Pattern.compile("(\\w+)\\s*=");
+
+    @TempDir
+    Path dir;
+
+    private ImageStore imageStore;
+
+    @AfterEach
+    void shutdown() {
+        if (imageStore != null) imageStore.shutdown();
+    }
+
+    /**
+     * 掃描所有 DAO 的 INSERT / UPDATE，寫入圖片欄位的 (資料表, 欄位) 都必須列在 IMAGE_COLUMNS，
+     * 避免新增圖片欄位後該欄位的圖片被當成孤兒刪除
+     */
+    @Test
+    void everyImageColumnWrittenBySqlIsReferenced() throws IOException {
+        Set<String> listed = OrphanImageCollector.IMAGE_COLUMNS.stream()
+                .map(c -> c[0] + "." + c[1])
+                .collect(Collectors.toSet());
+
+        Set<String> written = new TreeSet<>();
+        List<Path> sources;
+        try (Stream<Path> files = Files.walk(Path.of("src/main/java"))) {
+            sources = files.filter(p -> p.toString().endsWith(".java")).toList();
+        }
+        for (Path source : sources) {
+            // 接起 "..." + "..." 分段的 SQL
+            String code = Files.readString(source, StandardCharsets.UTF_8).replaceAll("\"\\s*\\+\\s*\"", "");
+            Matcher m = INSERT.matcher(code);
+            while (m.find()) {
+                for (String col : m.group(2).split(",")) addIfImage(written, m.group(1), col.trim());
+            }
+            m = UPDATE.matcher(code);
+            while (m.find()) {
+                Matcher a = ASSIGN.matcher(m.group(2));
+                while (a.find()) addIfImage(written, m.group(1), a.group(1));
+            }
+        }
+
+        assertTrue(written.contains("employee.image_path") && written.contains("member.image_path"), written::toString);
+        Set<String> missing = new TreeSet<>(written);
+        missing.removeAll(listed);
+        assertTrue(missing.isEmpty(), "OrphanImageCollector.IMAGE_COLUMNS 漏列：" + missing);
+    }
+
+    private static void addIfImage(Set<String> out, String table, String column) {
+        if (IMAGE_LIKE.matcher(column).matches()) {
+            out.add(table.toLowerCase(Locale.ROOT) + "." + column.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /** 每個圖片欄位各引用一張圖，整輪回收後都要保留；沒被引用的才隔離 */
+    @Test
+    void fullCycleKeepsImagesReferencedFromEveryColumn() throws Exception {
+        Path root = dir.resolve("images");
+        imageStore = new ImageStore(root.toString(), 1, 4);
+
+        List<String> values = new ArrayList<>();
+        List<Path> kept = new ArrayList<>();
+        for (String[] c : OrphanImageCollector.IMAGE_COLUMNS) {
+            Path file = root.resolve(c[0]).resolve(c[1] + ".jpg");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, c[0]);
+            kept.add(file);
+            // 各模組存的前綴寫法不同
+            values.add(values.size() % 2 == 0 ? "images/" + c[0] + "/" + c[1] + ".jpg" : "/images/" + c[0] + "/" + c[1] + ".JPG");
+        }
+        Path orphan = root.resolve("member").resolve("orphan.jpg");
+        Files.writeString(orphan, "x");
+
+        JdbcTemplate jdbc = new JdbcTemplate() {
+            @Override
+            public void query(String sql, RowCallbackHandler rch) {
+                for (String[] c : OrphanImageCollector.IMAGE_COLUMNS) {
+                    assertTrue(sql.contains("FROM " + c[0] + " "), "引用查詢未包含 " + c[0]);
+                }
+                try {
+                    for (String v : values) {
+                        ResultSet rs = mock(ResultSet.class);
+                        when(rs.getString(1)).thenReturn(v);
+                        rch.processRow(rs);
+                    }
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+
+        OrphanImageCollector collector = new OrphanImageCollector(jdbc, imageStore, true, 1000, 0, 7);
+        ImageGcReport report = collector.runFullCycle();
+
+        assertEquals(OrphanImageCollector.IMAGE_COLUMNS.size(), report.getReferencedPaths());
+        for (Path p : kept) assertTrue(Files.exists(p), "被引用的圖片被回收：" + root.relativize(p));
+        assertFalse(Files.exists(orphan));
+        assertEquals(1, report.getOrphansQuarantined());
+    }
+}
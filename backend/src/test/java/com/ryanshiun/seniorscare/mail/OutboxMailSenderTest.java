@@ -0,0 +1,231 @@
+package com.ryanshiun.seniorscare.mail;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.ryanshiun.seniorscare.mail.dao.MailOutboxDao;
+import com.ryanshiun.seniorscare.mail.model.OutboxMail;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboxMailSenderTest {
+
+    private static final String USER = "noreply@seniorscare.test";
+
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP.dynamicPort())
+            .withConfiguration(GreenMailConfiguration.aConfig().withUser(USER, "secret"));
+
+    private final InMemoryMailOutboxDao dao = new InMemoryMailOutboxDao();
+    private OutboxMailSender sender;
+
+    @AfterEach
+    void stop() {
+        if (sender != null) sender.stop();
+    }
+
+    /** 記憶體版 mail_outbox，claim / lease 規則與 MailOutboxDaoImpl 相同；記錄每次排定的重試時間 */
+    static final class InMemoryMailOutboxDao implements MailOutboxDao {
+        private final Map<Long, OutboxMail> mails = new LinkedHashMap<>();
+        private final Map<Long, LocalDateTime> lockedUntil = new LinkedHashMap<>();
+        final List<Duration> retryDelays = new ArrayList<>();
+        private long nextId = 1;
+
+        @Override
+        public void ensureTable() {
+        }
+
+        @Override
+        public synchronized Long insert(String recipient, String subject, String body, LocalDateTime now) {
+            OutboxMail m = new OutboxMail();
+            m.setId(nextId++);
+            m.setRecipient(recipient);
+            m.setSubject(subject);
+            m.setBody(body);
+            m.setStatus("PENDING");
+            m.setAttempts(0);
+            m.setNextAttemptAt(now);
+            m.setCreatedAt(now);
+            mails.put(m.getId(), m);
+            return m.getId();
+        }
+
+        @Override
+        public synchronized List<OutboxMail> claim(int limit, LocalDateTime now, LocalDateTime until) {
+            List<OutboxMail> out = new ArrayList<>();
+            for (OutboxMail m : mails.values()) {
+                if (out.size() >= limit) break;
+                boolean due = "PENDING".equals(m.getStatus()) && !m.getNextAttemptAt().isAfter(now);
+                boolean leaseExpired = "SENDING".equals(m.getStatus()) && lockedUntil.get(m.getId()).isBefore(now);
+                if (due || leaseExpired) {
+                    m.setStatus("SENDING");
+                    lockedUntil.put(m.getId(), until);
+                    out.add(copy(m));
+                }
+            }
+            return out;
+        }
+
+        @Override
+        public synchronized void markSent(long id, LocalDateTime sentAt) {
+            mails.get(id).setStatus("SENT");
+            mails.get(id).setSentAt(sentAt);
+        }
+
+        @Override
+        public synchronized void markRetry(long id, int attempts, LocalDateTime nextAttemptAt, String error) {
+            OutboxMail m = mails.get(id);
+            retryDelays.add(Duration.between(LocalDateTime.now(), nextAttemptAt));
+            m.setStatus("PENDING");
+            m.setAttempts(attempts);
+            m.setNextAttemptAt(nextAttemptAt);
+            m.setLastError(error);
+        }
+
+        @Override
+        public synchronized void markFailed(long id, int attempts, String error) {
+            OutboxMail m = mails.get(id);
+            m.setStatus("FAILED");
+            m.setAttempts(attempts);
+            m.setLastError(error);
+        }
+
+        @Override
+        public synchronized Map<String, Integer> countByStatus() {
+            Map<String, Integer> out = new LinkedHashMap<>();
+            for (OutboxMail m : mails.values()) out.merge(m.getStatus(), 1, Integer::sum);
+            return out;
+        }
+
+        @Override
+        public synchronized int deleteSentBefore(LocalDateTime before) {
+            return 0;
+        }
+
+        synchronized OutboxMail get(long id) {
+            return copy(mails.get(id));
+        }
+
+        private static OutboxMail copy(OutboxMail m) {
+            OutboxMail c = new OutboxMail();
+            c.setId(m.getId());
+            c.setRecipient(m.getRecipient());
+            c.setSubject(m.getSubject());
+            c.setBody(m.getBody());
+            c.setStatus(m.getStatus());
+            c.setAttempts(m.getAttempts());
+            c.setNextAttemptAt(m.getNextAttemptAt());
+            c.setLastError(m.getLastError());
+            return c;
+        }
+    }
+
+    private OutboxMailSender sender(int port, long pollMs, int maxAttempts, long backoffBaseMs) {
+        sender = new OutboxMailSender(dao, "127.0.0.1", port, USER, "secret", false,
+                1, 20, pollMs, 30_000, 120_000, maxAttempts, backoffBaseMs, 60_000);
+        sender.start();
+        return sender;
+    }
+
+    private static void await(BooleanSupplier condition, String message) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) Thread.sleep(20);
+        assertTrue(condition.getAsBoolean(), message);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket s = new ServerSocket(0)) {
+            return s.getLocalPort();
+        }
+    }
+
+    @Test
+    void enqueuedMailIsClaimedSentAndMarkedSentOverOneConnection() throws Exception {
+        // 輪詢間隔拉長，確保是 enqueue 叫醒 worker 而不是靠輪詢
+        OutboxMailSender s = sender(greenMail.getSmtp().getPort(), 60_000, 8, 30_000);
+        MailOutbox outbox = new MailOutbox(dao, s);
+
+        long first = outbox.enqueue(" member@seniorscare.test ", "預約通知", "您的預約已成立");
+        await(() -> "SENT".equals(dao.get(first).getStatus()), "第一封未寄出");
+        long second = outbox.enqueue("member@seniorscare.test", "提醒", "明天見");
+        await(() -> "SENT".equals(dao.get(second).getStatus()), "第二封未寄出");
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(2, received.length);
+        assertEquals("預約通知", received[0].getSubject());
+        assertEquals("您的預約已成立", ((String) received[0].getContent()).trim());
+        assertEquals("member@seniorscare.test", received[0].getAllRecipients()[0].toString());
+        assertEquals(2L, s.stats().get("sent"));
+        // 同一條 SMTP 連線寄出兩封
+        assertEquals(1L, s.stats().get("connectionsOpened"));
+    }
+
+    @Test
+    void unreachableServerRetriesWithBackoffThenFails() throws Exception {
+        OutboxMailSender s = sender(freePort(), 100, 3, 200);
+        long id = new MailOutbox(dao, s).enqueue("member@seniorscare.test", "subject", "body");
+
+        await(() -> "FAILED".equals(dao.get(id).getStatus()), "未標記為 FAILED");
+
+        OutboxMail mail = dao.get(id);
+        assertEquals(3, mail.getAttempts());
+        assertTrue(mail.getLastError() != null && !mail.getLastError().isBlank());
+        // 前兩次失敗排定重試，間隔 200ms、400ms（指數退避）
+        assertEquals(2, dao.retryDelays.size());
+        assertTrue(dao.retryDelays.get(0).toMillis() > 100 && dao.retryDelays.get(0).toMillis() <= 200,
+                dao.retryDelays::toString);
+        assertTrue(dao.retryDelays.get(1).toMillis() > 300 && dao.retryDelays.get(1).toMillis() <= 400,
+                dao.retryDelays::toString);
+        assertEquals(2L, s.stats().get("retried"));
+        assertEquals(1L, s.stats().get("failed"));
+    }
+
+    @Test
+    void retryAfterServerComesBackIsDelivered() throws Exception {
+        int port = freePort();
+        OutboxMailSender s = sender(port, 100, 8, 300);
+        long id = new MailOutbox(dao, s).enqueue("member@seniorscare.test", "subject", "body");
+
+        await(() -> dao.get(id).getAttempts() >= 1, "未排定重試");
+        assertEquals("PENDING", dao.get(id).getStatus());
+
+        // SMTP 伺服器在同一個 port 恢復
+        GreenMail restarted = new GreenMail(new ServerSetup(port, "127.0.0.1", ServerSetup.PROTOCOL_SMTP));
+        restarted.withConfiguration(GreenMailConfiguration.aConfig().withUser(USER, "secret"));
+        restarted.start();
+        try {
+            await(() -> "SENT".equals(dao.get(id).getStatus()), "伺服器恢復後未寄出");
+            assertEquals(1, restarted.getReceivedMessages().length);
+            assertTrue(dao.get(id).getAttempts() >= 1);
+        } finally {
+            restarted.stop();
+        }
+    }
+
+    @Test
+    void invalidRecipientFailsWithoutRetry() throws Exception {
+        OutboxMailSender s = sender(greenMail.getSmtp().getPort(), 100, 8, 30_000);
+        long id = new MailOutbox(dao, s).enqueue("not an address@@", "subject", "body");
+
+        await(() -> "FAILED".equals(dao.get(id).getStatus()), "未標記為 FAILED");
+        assertEquals(1, dao.get(id).getAttempts());
+        assertTrue(dao.retryDelays.isEmpty());
+    }
+}
@@ -0,0 +1,106 @@
+package com.ryanshiun.seniorscare.member.dao.employee.Impl;
+
+import com.ryanshiun.seniorscare.member.dto.employee.EmpLogQueryDto;
+import com.ryanshiun.seniorscare.member.model.employee.EmpLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EmpLogDaoImplTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 9, 1, 9, 0);
+
+    private final EmpLogDaoImpl dao = new EmpLogDaoImpl();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // H2 的 SQL Server 相容模式，支援 TOP (:limit)
+        DriverManagerDataSource ds = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MSSQLServer;DB_CLOSE_DELAY=-1");
+        NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(ds);
+        jdbc.getJdbcTemplate().execute("CREATE TABLE emp_log (id BIGINT IDENTITY PRIMARY KEY," +
+                " emp_name NVARCHAR(50), action NVARCHAR(50), target_name NVARCHAR(50), created_at DATETIME2)");
+        Field f = EmpLogDaoImpl.class.getDeclaredField("namedParameterJdbcTemplate");
+        f.setAccessible(true);
+        f.set(dao, jdbc);
+    }
+
+    private void insert(String empName, int minute) {
+        EmpLog e = new EmpLog();
+        e.setEmpName(empName);
+        e.setAction("修改員工資料");
+        e.setTargetName("員工");
+        e.setCreatedAt(T0.plusMinutes(minute));
+        dao.insert(e);
+    }
+
+    private List<Long> pageIds(EmpLogQueryDto query, Long cursorId, int limit) {
+        return dao.getLogs(query, cursorId, limit).stream().map(EmpLog::getId).toList();
+    }
+
+    @Test
+    void cursorContinuesAfterLastRowAcrossEqualTimestamps() {
+        // id 1~6；2、3、4 同一時間
+        insert("王小明", 0);
+        insert("王小明", 5);
+        insert("陳大華", 5);
+        insert("王小明", 5);
+        insert("陳大華", 9);
+        insert("王小明", 1);
+
+        EmpLogQueryDto query = new EmpLogQueryDto();
+        assertEquals(List.of(5L, 4L), pageIds(query, null, 2));
+        // 游標停在同一時間的中間：同時間只取 id 較小的，不重複也不漏
+        assertEquals(List.of(3L, 2L), pageIds(query, 4L, 2));
+        assertEquals(List.of(6L, 1L), pageIds(query, 2L, 2));
+        assertEquals(List.of(), pageIds(query, 1L, 2));
+    }
+
+    @Test
+    void walkingAllPagesReturnsEveryRowOnceInOrder() {
+        for (int i = 0; i < 23; i++) insert(i % 2 == 0 ? "王小明" : "陳大華", i / 4);
+
+        EmpLogQueryDto query = new EmpLogQueryDto();
+        query.setEmpName("王小明");
+        List<Long> all = new ArrayList<>();
+        Long cursor = null;
+        while (true) {
+            List<Long> page = pageIds(query, cursor, 5);
+            all.addAll(page);
+            if (page.size() < 5) break;
+            cursor = page.get(page.size() - 1);
+        }
+
+        // 王小明是奇數 id 1,3,...,23；依 created_at DESC, id DESC
+        List<Long> expected = new ArrayList<>();
+        for (int minute = 5; minute >= 0; minute--) {
+            for (long id = 23; id >= 1; id -= 2) {
+                if ((id - 1) / 4 == minute) expected.add(id);
+            }
+        }
+        assertEquals(expected, all);
+    }
+
+    @Test
+    void filtersCombineWithCursor() {
+        insert("王小明", 0);
+        insert("王小明", 10);
+        insert("王小明", 20);
+        insert("王小明", 30);
+
+        EmpLogQueryDto query = new EmpLogQueryDto();
+        query.setFrom(T0.plusMinutes(10));
+        query.setTo(T0.plusMinutes(30));
+        assertEquals(List.of(3L, 2L), pageIds(query, null, 10));
+        assertEquals(List.of(2L), pageIds(query, 3L, 10));
+    }
+}
@@ -0,0 +1,83 @@
+package com.ryanshiun.seniorscare.member.dao.member.Impl;
+
+import com.ryanshiun.seniorscare.member.dto.member.MemberProfileDto;
+import com.ryanshiun.seniorscare.member.dto.member.MemberQueryParamsDto;
+import com.ryanshiun.seniorscare.member.service.member.Impl.MemberSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MemberDaoImplTest {
+
+    private final MemberDaoImpl dao = new MemberDaoImpl();
+    private NamedParameterJdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // H2 的 SQL Server 相容模式（LIKE 的 [] 跳脫與全形 / 半形定序 H2 不支援，不在這裡測）
+        DriverManagerDataSource ds = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MSSQLServer;DB_CLOSE_DELAY=-1");
+        jdbc = new NamedParameterJdbcTemplate(ds);
+        jdbc.getJdbcTemplate().execute("CREATE TABLE member (member_id INT IDENTITY PRIMARY KEY," +
+                " member_name NVARCHAR(50), main_phone NVARCHAR(20), gender BIT, birthday DATE," +
+                " address NVARCHAR(200), email NVARCHAR(100), image_path NVARCHAR(200), is_active BIT," +
+                " ban_reason NVARCHAR(200), created_at DATETIME2, updated_at DATETIME2, login_at DATETIME2)");
+        Field f = MemberDaoImpl.class.getDeclaredField("namedParameterJdbcTemplate");
+        f.setAccessible(true);
+        f.set(dao, jdbc);
+
+        insert("王大明", "臺北市信義區松高路1號", true, true);
+        insert("陳 小美", "台北市大安區復興南路2段", false, true);
+        insert("林明大", "新北市板橋區文化路", true, false);
+        insert("Mary 王", "台中市西屯區台灣大道", false, true);
+        insert("明大明", "臺中市北區三民路", true, true);
+    }
+
+    private void insert(String name, String address, boolean gender, boolean active) {
+        jdbc.update("INSERT INTO member (member_name, address, gender, is_active) VALUES (:name, :address, :gender, :active)",
+                Map.of("name", name, "address", address, "gender", gender, "active", active));
+    }
+
+    private List<Integer> fallback(String name, String address) {
+        MemberQueryParamsDto q = new MemberQueryParamsDto();
+        q.setMemberName(name);
+        q.setAddress(address);
+        return dao.getMembers(q, null, 100).stream().map(MemberProfileDto::getMemberId).toList();
+    }
+
+    @Test
+    void fallbackSplitsKeywordsAndFoldsTaiLikeTheIndex() {
+        assertEquals(List.of(2, 1), fallback(null, "臺北"));
+        assertEquals(List.of(5, 4), fallback(null, "台中"));
+        assertEquals(List.of(1), fallback("明", "台北 信義"));
+        assertEquals(List.of(), fallback("明", "台北 板橋"));
+        // 資料或關鍵字裡的空白都不影響比對
+        assertEquals(List.of(2), fallback("陳小", null));
+        assertEquals(List.of(4), fallback("MARY王", null));
+        // 空白字串不設條件
+        assertEquals(5, fallback(" ", null).size());
+    }
+
+    @Test
+    void fallbackReturnsWhatTheIndexReturns() {
+        MemberSearchIndex index = new MemberSearchIndex(dao);
+        index.rebuild();
+
+        String[][] queries = {
+                {"明", null}, {"大明", null}, {"王", "台"}, {null, "臺中 路"}, {"mary", null},
+                {null, "北市 區"}, {"明 大", "臺"}, {"張", null},
+        };
+        for (String[] q : queries) {
+            assertEquals(index.search(q[0], q[1], null, null, null, 100), fallback(q[0], q[1]),
+                    () -> q[0] + " / " + q[1]);
+        }
+    }
+}
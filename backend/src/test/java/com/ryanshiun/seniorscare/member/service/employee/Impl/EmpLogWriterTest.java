@@ -0,0 +1,159 @@
+package com.ryanshiun.seniorscare.member.service.employee.Impl;
+
+import com.ryanshiun.seniorscare.member.dao.employee.EmpLogDao;
+import com.ryanshiun.seniorscare.member.model.employee.EmpLog;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EmpLogWriterTest {
+
+    private final EmpLogDao empLogDao = mock(EmpLogDao.class);
+    /** 寫進 emp_log 的 targetName（不論批次或直接寫入） */
+    private final Queue<String> table = new ConcurrentLinkedQueue<>();
+
+    private EmpLogWriter writer(int bufferSize, int batchSize, long flushMs) {
+        when(empLogDao.insert(any())).thenAnswer(inv -> {
+            table.add(((EmpLog) inv.getArgument(0)).getTargetName());
+            return 1;
+        });
+        when(empLogDao.insertBatch(anyList())).thenAnswer(inv -> {
+            List<EmpLog> rows = inv.getArgument(0);
+            rows.forEach(r -> table.add(r.getTargetName()));
+            return new int[rows.size()];
+        });
+        return new EmpLogWriter(empLogDao, bufferSize, batchSize, flushMs, 10_000);
+    }
+
+    private static EmpLog entry(String target) {
+        EmpLog e = new EmpLog();
+        e.setEmpName("admin");
+        e.setAction("修改員工資料");
+        e.setTargetName(target);
+        return e;
+    }
+
+    @Test
+    void concurrentProducersLoseAndDuplicateNothing() throws Exception {
+        // buffer 小，逼出一部分直接寫入
+        EmpLogWriter writer = writer(64, 16, 10);
+        writer.start();
+
+        int producers = 8;
+        int perProducer = 5_000;
+        CountDownLatch ready = new CountDownLatch(producers);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int id = p;
+            Thread t = new Thread(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) writer.submit(entry(id + "-" + i));
+            });
+            threads.add(t);
+            t.start();
+        }
+        ready.await();
+        go.countDown();
+        for (Thread t : threads) t.join();
+        writer.stop();
+
+        List<String> rows = new ArrayList<>(table);
+        Set<String> unique = new HashSet<>(rows);
+        assertEquals(producers * perProducer, rows.size());
+        assertEquals(rows.size(), unique.size());
+        Map<String, Object> stats = writer.stats();
+        assertEquals(0L, stats.get("pending"));
+        assertEquals((long) rows.size(), stats.get("written"));
+        assertEquals(0L, stats.get("failed"));
+    }
+
+    @Test
+    void fullBufferFallsBackToDirectWrite() throws Exception {
+        CountDownLatch inBatch = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        EmpLogWriter writer = writer(2, 1, 10);
+        // 第一批卡在 DB，讓 buffer 塞滿
+        doAnswer(inv -> {
+            inBatch.countDown();
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            List<EmpLog> rows = inv.getArgument(0);
+            rows.forEach(r -> table.add(r.getTargetName()));
+            return new int[rows.size()];
+        }).when(empLogDao).insertBatch(anyList());
+        writer.start();
+
+        writer.submit(entry("a"));
+        assertTrue(inBatch.await(10, TimeUnit.SECONDS));
+        writer.submit(entry("b"));
+        writer.submit(entry("c"));
+        assertEquals(2L, writer.stats().get("pending"));
+
+        writer.submit(entry("d"));
+        assertEquals(List.of("d"), new ArrayList<>(table));
+        assertEquals(1L, writer.stats().get("directWrites"));
+
+        release.countDown();
+        writer.stop();
+        assertEquals(Set.of("a", "b", "c", "d"), new HashSet<>(table));
+        assertEquals(4, table.size());
+        assertEquals(4L, writer.stats().get("written"));
+    }
+
+    @Test
+    void stopDrainsPendingEntries() {
+        // 批次大、flush 間隔長：紀錄只會留在 buffer，靠 stop() 寫完
+        EmpLogWriter writer = writer(1024, 1000, 60_000);
+        writer.start();
+        for (int i = 0; i < 300; i++) writer.submit(entry("e-" + i));
+
+        writer.stop();
+
+        assertEquals(300, table.size());
+        assertEquals(0L, writer.stats().get("pending"));
+        assertEquals(0L, writer.stats().get("directWrites"));
+    }
+
+    @Test
+    void failedBatchIsRetriedRowByRow() {
+        EmpLogWriter writer = writer(16, 4, 10);
+        doThrow(new IllegalStateException("deadlock")).when(empLogDao).insertBatch(anyList());
+        doAnswer(inv -> {
+            String target = ((EmpLog) inv.getArgument(0)).getTargetName();
+            if (target.equals("bad")) throw new IllegalStateException("too long");
+            table.add(target);
+            return 1;
+        }).when(empLogDao).insert(any());
+        writer.start();
+        writer.submit(entry("x"));
+        writer.submit(entry("bad"));
+        writer.submit(entry("y"));
+
+        writer.stop();
+
+        assertEquals(Set.of("x", "y"), new HashSet<>(table));
+        assertEquals(1L, writer.stats().get("failed"));
+    }
+}
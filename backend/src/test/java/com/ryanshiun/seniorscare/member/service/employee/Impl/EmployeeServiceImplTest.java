@@ -0,0 +1,109 @@
+package com.ryanshiun.seniorscare.member.service.employee.Impl;
+
+import com.ryanshiun.seniorscare.member.dao.employee.EmployeeDao;
+import com.ryanshiun.seniorscare.member.dto.employee.EmployeeProfileDto;
+import com.ryanshiun.seniorscare.member.service.employee.EmpLogService;
+import com.ryanshiun.seniorscare.security.EmpRoleCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmployeeServiceImplTest {
+
+    private final EmployeeDao employeeDao = mock(EmployeeDao.class);
+    private final EmpLogService empLogService = mock(EmpLogService.class);
+    private final EmployeeServiceImpl employeeService = new EmployeeServiceImpl();
+
+    /** 只負責觸發交易同步（afterCommit / rollback），不連資料庫 */
+    private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+
+    private final TransactionTemplate tx = new TransactionTemplate(new NoOpTransactionManager());
+
+    private EmployeeServiceImpl service() throws Exception {
+        when(employeeDao.getEmployeeById(1)).thenReturn(profile(1, "王經理", true));
+        when(employeeDao.getEmployeeById(7)).thenReturn(profile(7, "陳小美", true));
+        inject(employeeService, "employeeDao", employeeDao);
+        inject(employeeService, "empLogService", empLogService);
+        inject(employeeService, "empRoleCache", mock(EmpRoleCache.class));
+        // 員工 token 的 subject 是 empId
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("1", "", List.of()));
+        return employeeService;
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static EmployeeProfileDto profile(int empId, String empName, boolean active) {
+        EmployeeProfileDto p = new EmployeeProfileDto();
+        p.setEmpId(empId);
+        p.setEmpName(empName);
+        p.setIsActive(active);
+        return p;
+    }
+
+    private static void inject(Object target, String name, Object value) throws Exception {
+        Field f = target.getClass().getDeclaredField(name);
+        f.setAccessible(true);
+        f.set(target, value);
+    }
+
+    @Test
+    void committedChangeIsRecordedWithOperatorAndTarget() throws Exception {
+        EmployeeServiceImpl service = service();
+
+        tx.executeWithoutResult(status -> {
+            service.toggleEmployeeStatus(7);
+            // commit 前不寫紀錄
+            verify(empLogService, never()).record(anyString(), anyString(), any());
+        });
+
+        verify(empLogService).record("王經理", "停用員工", "陳小美");
+    }
+
+    @Test
+    void rolledBackChangeIsNotRecorded() throws Exception {
+        EmployeeServiceImpl service = service();
+
+        tx.executeWithoutResult(status -> {
+            service.updateEmployeeRole(7, List.of(2));
+            status.setRollbackOnly();
+        });
+
+        verify(empLogService, never()).record(anyString(), anyString(), any());
+    }
+}
@@ -0,0 +1,144 @@
+package com.ryanshiun.seniorscare.member.service.employee.Impl;
+
+import com.ryanshiun.seniorscare.member.service.employee.OtpStore.Result;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InMemoryOtpStoreTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private InMemoryOtpStore store(int maxAttempts) {
+        return new InMemoryOtpStore(4, maxAttempts, 1000, 64, now::get);
+    }
+
+    @Test
+    void codeCanOnlyBeUsedOnce() {
+        InMemoryOtpStore store = store(5);
+        store.issue(1, "123456", Duration.ofMinutes(10));
+
+        assertEquals(Result.OK, store.verify(1, "123456"));
+        assertEquals(Result.NOT_FOUND, store.verify(1, "123456"));
+    }
+
+    @Test
+    void reissueReplacesPreviousCode() {
+        InMemoryOtpStore store = store(5);
+        store.issue(1, "111111", Duration.ofMinutes(10));
+        store.issue(1, "222222", Duration.ofMinutes(10));
+
+        assertEquals(Result.MISMATCH, store.verify(1, "111111"));
+        assertEquals(Result.OK, store.verify(1, "222222"));
+    }
+
+    @Test
+    void tooManyAttemptsBurnsCode() {
+        InMemoryOtpStore store = store(3);
+        store.issue(1, "123456", Duration.ofMinutes(10));
+
+        assertEquals(Result.MISMATCH, store.verify(1, "000000"));
+        assertEquals(Result.MISMATCH, store.verify(1, "000001"));
+        assertEquals(Result.MISMATCH, store.verify(1, "000002"));
+        // 次數用完後正確的驗證碼也不能用
+        assertEquals(Result.NOT_FOUND, store.verify(1, "123456"));
+    }
+
+    @Test
+    void expiredCodeIsRejected() {
+        InMemoryOtpStore store = store(5);
+        store.issue(1, "123456", Duration.ofSeconds(30));
+
+        now.addAndGet(30_000);
+        assertEquals(Result.NOT_FOUND, store.verify(1, "123456"));
+    }
+
+    @Test
+    void timingWheelPurgesExpiredEntries() {
+        InMemoryOtpStore store = store(5);
+        store.issue(1, "111111", Duration.ofSeconds(5));
+        // 超過一圈（64 秒）才到期
+        store.issue(2, "222222", Duration.ofSeconds(100));
+        store.advance();
+        assertEquals(2, store.size());
+
+        now.addAndGet(6_000);
+        store.advance();
+        assertEquals(1, store.size());
+
+        now.addAndGet(60_000);
+        store.advance();
+        assertEquals(1, store.size());
+
+        now.addAndGet(40_000);
+        store.advance();
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void concurrentCorrectSubmissionsSucceedOnlyOnce() throws Exception {
+        InMemoryOtpStore store = store(1000);
+        int threads = 64;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 50; round++) {
+                store.issue(7, "654321", Duration.ofMinutes(10));
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Result>> results = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    results.add(pool.submit(() -> {
+                        start.await();
+                        return store.verify(7, "654321");
+                    }));
+                }
+                start.countDown();
+
+                int ok = 0;
+                for (Future<Result> f : results) {
+                    if (f.get(5, TimeUnit.SECONDS) == Result.OK) ok++;
+                }
+                assertEquals(1, ok);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentGuessesNeverExceedAttemptLimit() throws Exception {
+        InMemoryOtpStore store = store(5);
+        store.issue(9, "123456", Duration.ofMinutes(10));
+        int threads = 32;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Result>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return store.verify(9, "000000");
+                }));
+            }
+            start.countDown();
+
+            int mismatches = 0;
+            for (Future<Result> f : results) {
+                if (f.get(5, TimeUnit.SECONDS) == Result.MISMATCH) mismatches++;
+            }
+            assertEquals(5, mismatches);
+            assertEquals(Result.NOT_FOUND, store.verify(9, "123456"));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.ryanshiun.seniorscare.member.service.employee.Impl;
+
+import com.ryanshiun.seniorscare.member.dao.employee.EmployeeDao;
+import com.ryanshiun.seniorscare.member.dto.employee.PwdResetDto;
+import com.ryanshiun.seniorscare.member.model.employee.Employee;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PwdResetServiceImplTest {
+
+    private static final String EMAIL = "staff@seniorscare.test";
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final InMemoryOtpStore otpStore = new InMemoryOtpStore(4, 2, 1000, 64, now::get);
+    private final EmployeeDao employeeDao = mock(EmployeeDao.class);
+
+    /** 可預測的編碼結果，方便驗證寫入的是編碼後的密碼 */
+    private static final PasswordEncoder STUB_ENCODER = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return "encoded:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    };
+
+    private PwdResetServiceImpl service() throws Exception {
+        Employee employee = new Employee();
+        employee.setEmpId(7);
+        employee.setEmail(EMAIL);
+        when(employeeDao.getEmployeeByEmail(EMAIL)).thenReturn(employee);
+
+        PwdResetServiceImpl service = new PwdResetServiceImpl();
+        inject(service, "otpStore", otpStore);
+        inject(service, "passwordEncoder", STUB_ENCODER);
+        inject(service, "employeeDao", employeeDao);
+        return service;
+    }
+
+    private static void inject(Object target, String name, Object value) throws Exception {
+        Field f = target.getClass().getDeclaredField(name);
+        f.setAccessible(true);
+        f.set(target, value);
+    }
+
+    private static PwdResetDto dto(String code) {
+        PwdResetDto dto = new PwdResetDto();
+        dto.setCode(code);
+        dto.setNewPwd("new-password");
+        return dto;
+    }
+
+    private static String failure(PwdResetServiceImpl service, String code) {
+        return assertThrows(IllegalArgumentException.class, () -> service.validateCode(EMAIL, dto(code))).getMessage();
+    }
+
+    /** 查無驗證碼、驗證碼錯誤、次數用完回給呼叫端的訊息都一樣，不洩漏失敗原因 */
+    @Test
+    void everyFailureReasonReturnsTheSameMessage() throws Exception {
+        PwdResetServiceImpl service = service();
+
+        String notFound = failure(service, "123456");
+        otpStore.issue(7, "123456", Duration.ofMinutes(10));
+        String mismatch = failure(service, "000000");
+        String tooMany = failure(service, "000000");
+
+        assertEquals("Invalid or expired code", notFound);
+        assertEquals(notFound, mismatch);
+        assertEquals(notFound, tooMany);
+        verify(employeeDao, never()).updatePwd(anyInt(), anyString());
+    }
+
+    @Test
+    void validCodeUpdatesPassword() throws Exception {
+        PwdResetServiceImpl service = service();
+        otpStore.issue(7, "654321", Duration.ofMinutes(10));
+
+        service.validateCode(EMAIL, dto("654321"));
+
+        verify(employeeDao).updatePwd(7, "encoded:new-password");
+    }
+}
@@ -0,0 +1,127 @@
+package com.ryanshiun.seniorscare.member.service.member.Impl;
+
+import com.ryanshiun.seniorscare.member.dao.member.MemberDao;
+import com.ryanshiun.seniorscare.member.dto.member.MemberProfileDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MemberSearchIndexTest {
+
+    private final MemberDao memberDao = mock(MemberDao.class);
+    /** 模擬 member 表 */
+    private final List<MemberProfileDto> table = new ArrayList<>();
+
+    private MemberSearchIndex index() {
+        when(memberDao.getMemberSearchFields()).thenAnswer(inv -> List.copyOf(table));
+        when(memberDao.getMemberById(anyInt())).thenAnswer(inv -> table.stream()
+                .filter(m -> m.getMemberId() == (int) inv.getArgument(0))
+                .findFirst().orElse(null));
+        MemberSearchIndex index = new MemberSearchIndex(memberDao);
+        index.rebuild();
+        return index;
+    }
+
+    private MemberProfileDto member(int id, String name, String address, boolean gender, boolean active) {
+        MemberProfileDto m = new MemberProfileDto();
+        m.setMemberId(id);
+        m.setMemberName(name);
+        m.setAddress(address);
+        m.setGender(gender);
+        m.setActive(active);
+        table.add(m);
+        return m;
+    }
+
+    private void seed() {
+        member(1, "王大明", "臺北市信義區松高路1號", true, true);
+        member(2, "陳小美", "台北市大安區復興南路２段", false, true);
+        member(3, "林明大", "新北市板橋區文化路", true, false);
+        member(4, "Mary 王", "台中市西屯區台灣大道", false, true);
+        member(5, "明大明", "臺中市北區三民路", true, true);
+    }
+
+    private static List<Integer> search(MemberSearchIndex index, String name, String address) {
+        return index.search(name, address, null, null, null, 100);
+    }
+
+    @Test
+    void bigramsAreVerifiedWithContains() {
+        seed();
+        MemberSearchIndex index = index();
+
+        assertEquals(List.of(1), search(index, "王大明", null));
+        // 「明大明」有「大明」「明大」兩個兩字組，但不含「大明大」
+        assertEquals(List.of(), search(index, "大明大", null));
+        // 單字查單字清單
+        assertEquals(List.of(5, 3, 1), search(index, "明", null));
+        // 沒出現過的兩字組
+        assertEquals(List.of(), search(index, "張三", null));
+    }
+
+    @Test
+    void taiWidthCaseAndSpacesAreFolded() {
+        seed();
+        MemberSearchIndex index = index();
+
+        // 「臺 / 台」互通
+        assertEquals(List.of(2, 1), search(index, null, "臺北市"));
+        assertEquals(List.of(5, 4), search(index, null, "台中"));
+        // 全形數字、英文大小寫
+        assertEquals(List.of(2), search(index, null, "復興南路2段"));
+        assertEquals(List.of(4), search(index, "ＭＡＲＹ王", null));
+        // 資料裡的空白也去掉
+        assertEquals(List.of(4), search(index, "mary王", null));
+    }
+
+    @Test
+    void everyKeywordMustMatch() {
+        seed();
+        MemberSearchIndex index = index();
+
+        assertEquals(List.of(5, 1), search(index, "明", "臺"));
+        assertEquals(List.of(1), search(index, "明", "台北　信義"));
+        assertEquals(List.of(), search(index, "明", "台北 板橋"));
+    }
+
+    @Test
+    void filtersCursorAndLimit() {
+        seed();
+        MemberSearchIndex index = index();
+
+        assertEquals(List.of(3), index.search("明", null, null, false, null, 100));
+        assertEquals(List.of(5, 3, 1), index.search(null, null, true, null, null, 100));
+        assertEquals(List.of(3, 1), index.search("明", null, null, null, 5, 100));
+        assertEquals(List.of(5, 4), index.search(null, null, null, null, null, 2));
+        assertEquals(List.of(2, 1), index.search(null, null, null, null, 3, 10));
+    }
+
+    @Test
+    void changedMemberIsReindexed() {
+        seed();
+        MemberSearchIndex index = index();
+
+        // 沒有交易時直接重新載入
+        table.get(0).setAddress("高雄市前金區");
+        index.onMemberChanged(1);
+        assertEquals(List.of(2), search(index, null, "台北"));
+        assertEquals(List.of(1), search(index, null, "高雄"));
+
+        member(6, "王小華", "高雄市左營區", true, true);
+        index.onMemberChanged(6);
+        assertEquals(List.of(6, 1), search(index, "王", "高雄"));
+    }
+
+    @Test
+    void notReadyUntilBuilt() {
+        MemberSearchIndex index = new MemberSearchIndex(memberDao);
+        assertFalse(index.ready());
+    }
+}
@@ -0,0 +1,24 @@
+package com.ryanshiun.seniorscare.member.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MemberSearchTextTest {
+
+    @Test
+    void normalizeFoldsWidthCaseSpacesAndTai() {
+        assertEquals("台北市信義路5段7號", MemberSearchText.normalize("臺北市 信義路５段 ７號"));
+        assertEquals("mary陳", MemberSearchText.normalize("ＭＡＲＹ　陳"));
+        assertEquals("", MemberSearchText.normalize(null));
+    }
+
+    @Test
+    void termsSplitOnHalfAndFullWidthSpaces() {
+        assertArrayEquals(new String[]{"台中", "西屯"}, MemberSearchText.terms("  臺中　西屯 "));
+        assertArrayEquals(new String[]{"abc"}, MemberSearchText.terms("ＡＢＣ"));
+        assertArrayEquals(new String[0], MemberSearchText.terms(" 　 "));
+        assertArrayEquals(new String[0], MemberSearchText.terms(null));
+    }
+}
@@ -0,0 +1,163 @@
+package com.ryanshiun.seniorscare.roomType.cache;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.ryanshiun.seniorscare.roomType.dao.RoomCommentDao;
+import com.ryanshiun.seniorscare.roomType.model.RoomComment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RoomCommentAggregateStoreTest {
+
+    private static final int ROOM = 7;
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 9, 1, 9, 0);
+
+    /** 模擬 room_comment，查詢排序與 RoomCommentDaoImpl 相同：created_at DESC, id DESC */
+    private final List<RoomComment> table = new ArrayList<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final RoomCommentDao dao = mock(RoomCommentDao.class);
+
+    private RoomCommentAggregateStore store(int latestSize) {
+        when(dao.countByRoomType(eq(ROOM), eq(true))).thenAnswer(inv -> {
+            loads.incrementAndGet();
+            return table.stream().filter(RoomComment::isApproved).count();
+        });
+        when(dao.getLatestApprovedByRoomType(eq(ROOM), anyInt())).thenAnswer(inv -> table.stream()
+                .filter(RoomComment::isApproved)
+                .sorted(Comparator.comparing(RoomComment::getCreatedAt).thenComparing(RoomComment::getId).reversed())
+                .limit((int) inv.getArgument(1))
+                .toList());
+        return new RoomCommentAggregateStore(dao, latestSize);
+    }
+
+    private RoomComment comment(int id, int minute, boolean approved) {
+        RoomComment c = new RoomComment();
+        c.setId(id);
+        c.setRoomTypeId(ROOM);
+        c.setContent("留言 " + id);
+        c.setApproved(approved);
+        c.setCreatedAt(T0.plusMinutes(minute));
+        table.add(c);
+        return c;
+    }
+
+    private void approve(RoomCommentAggregateStore store, RoomComment c) {
+        c.setApproved(true);
+        store.onApproved(c);
+    }
+
+    private static List<Integer> ids(List<RoomComment> comments) {
+        return comments.stream().map(RoomComment::getId).toList();
+    }
+
+    @Test
+    void approvedCommentIsInsertedInDaoOrder() {
+        comment(1, 0, true);
+        comment(2, 5, true);
+        RoomComment sameMinute = comment(3, 5, false);
+        RoomComment older = comment(4, 1, false);
+        RoomCommentAggregateStore store = store(10);
+        assertEquals(List.of(2, 1), ids(store.latestApproved(ROOM, 0, 10)));
+
+        approve(store, sameMinute);
+        approve(store, older);
+
+        // 同一時間以 id 大的在前，與 DB 查詢的順序一致
+        assertEquals(List.of(3, 2, 4, 1), ids(store.latestApproved(ROOM, 0, 10)));
+        assertEquals(ids(dao.getLatestApprovedByRoomType(ROOM, 10)), ids(store.latestApproved(ROOM, 0, 10)));
+        assertEquals(4, store.approvedCount(ROOM));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void duplicateApproveIsCountedOnce() {
+        comment(1, 0, true);
+        RoomComment c = comment(2, 1, false);
+        RoomCommentAggregateStore store = store(10);
+        store.approvedCount(ROOM);
+
+        approve(store, c);
+        store.onApproved(c);
+
+        assertEquals(2, store.approvedCount(ROOM));
+        assertEquals(List.of(2, 1), ids(store.latestApproved(ROOM, 0, 10)));
+    }
+
+    @Test
+    void windowKeepsOnlyTheLatestN() {
+        for (int i = 1; i <= 5; i++) comment(i, i, true);
+        RoomCommentAggregateStore store = store(3);
+        assertEquals(List.of(5, 4, 3), ids(store.latestApproved(ROOM, 0, 3)));
+
+        // 比視窗內都舊：只加計數
+        approve(store, comment(6, 0, false));
+        assertEquals(6, store.approvedCount(ROOM));
+        assertEquals(List.of(5, 4, 3), ids(store.latestApproved(ROOM, 0, 3)));
+
+        // 最新的一筆擠掉視窗最後一筆
+        approve(store, comment(7, 10, false));
+        assertEquals(List.of(7, 5, 4), ids(store.latestApproved(ROOM, 0, 3)));
+        // 超出視窗範圍由呼叫端改查 DB
+        assertNull(store.latestApproved(ROOM, 2, 2));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void removingFromWindowReloadsWhenOlderCommentsExist() {
+        for (int i = 1; i <= 4; i++) comment(i, i, true);
+        RoomCommentAggregateStore store = store(3);
+        store.approvedCount(ROOM);
+
+        RoomComment removed = table.get(3);
+        removed.setApproved(false);
+        store.onRemoved(removed);
+
+        // 視窗少了一筆而 DB 還有更舊的：整筆重新載入，補上第 1 筆
+        assertEquals(List.of(3, 2, 1), ids(store.latestApproved(ROOM, 0, 3)));
+        assertEquals(3, store.approvedCount(ROOM));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void removingOutsideWindowOnlyDecrementsCount() {
+        for (int i = 1; i <= 4; i++) comment(i, i, true);
+        RoomCommentAggregateStore store = store(3);
+        store.approvedCount(ROOM);
+
+        RoomComment removed = table.get(0);
+        removed.setApproved(false);
+        store.onRemoved(removed);
+
+        assertEquals(3, store.approvedCount(ROOM));
+        assertEquals(List.of(4, 3, 2), ids(store.latestApproved(ROOM, 0, 3)));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void updateReplacesCachedCopy() {
+        RoomComment c = comment(1, 0, true);
+        RoomCommentAggregateStore store = store(10);
+        store.approvedCount(ROOM);
+
+        RoomComment edited = new RoomComment();
+        edited.setId(1);
+        edited.setRoomTypeId(ROOM);
+        edited.setApproved(true);
+        edited.setCreatedAt(c.getCreatedAt());
+        edited.setAdminReply("謝謝您的回饋");
+        store.onUpdated(edited);
+
+        assertEquals("謝謝您的回饋", store.latestApproved(ROOM, 0, 1).get(0).getAdminReply());
+    }
+}
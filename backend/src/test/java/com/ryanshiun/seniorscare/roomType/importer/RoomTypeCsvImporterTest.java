@@ -0,0 +1,178 @@
+package com.ryanshiun.seniorscare.roomType.importer;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ryanshiun.seniorscare.roomType.dao.FeatureDao;
+import com.ryanshiun.seniorscare.roomType.dao.RoomTypeDao;
+import com.ryanshiun.seniorscare.roomType.dao.RoomTypeFeatureDao;
+import com.ryanshiun.seniorscare.roomType.dto.RoomTypeImportReport;
+import com.ryanshiun.seniorscare.roomType.model.Feature;
+import com.ryanshiun.seniorscare.roomType.model.RoomType;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RoomTypeCsvImporterTest {
+
+    private final RoomTypeDao roomTypeDao = mock(RoomTypeDao.class);
+    private final RoomTypeFeatureDao roomTypeFeatureDao = mock(RoomTypeFeatureDao.class);
+    private final FeatureDao featureDao = mock(FeatureDao.class);
+
+    /** 模擬 roomtype 表：名稱 → 房型 */
+    private final Map<String, RoomType> table = new HashMap<>();
+    private final List<RoomType> updated = new ArrayList<>();
+    private final Map<Integer, List<Integer>> links = new HashMap<>();
+
+    private RoomTypeCsvImporter importer() {
+        when(featureDao.findAll()).thenReturn(List.of(feature(1), feature(2)));
+        when(roomTypeDao.findIdsByNames(anyCollection())).thenAnswer(inv -> {
+            Map<String, Integer> out = new HashMap<>();
+            for (Object name : (Collection<?>) inv.getArgument(0)) {
+                RoomType r = table.get(name);
+                if (r != null) out.put(r.getName(), r.getId());
+            }
+            return out;
+        });
+        when(roomTypeDao.batchInsert(anyList())).thenAnswer(inv -> {
+            List<RoomType> rows = inv.getArgument(0);
+            for (RoomType r : rows) {
+                r.setId(table.size() + 1);
+                table.put(r.getName(), r);
+            }
+            return new int[rows.size()];
+        });
+        when(roomTypeDao.batchUpdate(anyList())).thenAnswer(inv -> {
+            List<RoomType> rows = inv.getArgument(0);
+            for (RoomType r : rows) table.put(r.getName(), r);
+            updated.addAll(rows);
+            return new int[rows.size()];
+        });
+        when(roomTypeFeatureDao.batchInsert(anyInt(), anyList())).thenAnswer(inv -> {
+            List<Integer> featureIds = inv.getArgument(1);
+            links.put(inv.getArgument(0), List.copyOf(featureIds));
+            return new int[featureIds.size()];
+        });
+        return new RoomTypeCsvImporter(roomTypeDao, roomTypeFeatureDao, featureDao, mock(PlatformTransactionManager.class));
+    }
+
+    private static Feature feature(int id) {
+        Feature f = new Feature();
+        f.setId(id);
+        f.setName("特徵 " + id);
+        return f;
+    }
+
+    private void existing(int id, String name, int price, int capacity) {
+        RoomType r = new RoomType();
+        r.setId(id);
+        r.setName(name);
+        r.setPrice(price);
+        r.setCapacity(capacity);
+        table.put(name, r);
+    }
+
+    private RoomTypeImportReport run(String csv) throws Exception {
+        return importer().importCsv(new StringReader(csv));
+    }
+
+    private static List<String> reasons(RoomTypeImportReport report) {
+        return report.getRejects().stream().map(RoomTypeImportReport.Reject::getReason).toList();
+    }
+
+    @Test
+    void headerColumnsAreMatchedByNameAndAlias() throws Exception {
+        RoomTypeImportReport report = run("""
+                \uFEFFCapacity,Name,Price,Available,Features
+                2,雙人房,3200,否,1|2
+                """);
+
+        assertEquals(1, report.getRowsRead());
+        assertEquals(1, report.getInserted());
+        assertTrue(report.getRejects().isEmpty());
+        RoomType r = table.get("雙人房");
+        assertEquals(3200, r.getPrice());
+        assertEquals(2, r.getCapacity());
+        assertFalse(r.isAvailable());
+        assertEquals(List.of(1, 2), links.get(r.getId()));
+        assertEquals(2, report.getFeatureLinks());
+    }
+
+    @Test
+    void rowsWithoutHeaderUseFixedOrder() throws Exception {
+        RoomTypeImportReport report = run("""
+                單人房,2500,1,採光佳
+                """);
+
+        assertEquals(1, report.getInserted());
+        assertEquals("採光佳", table.get("單人房").getDescription());
+        assertTrue(table.get("單人房").isAvailable());
+    }
+
+    @Test
+    void existingNamesAreUpdatedAndNewNamesInserted() throws Exception {
+        existing(10, "單人房", 2000, 1);
+
+        RoomTypeImportReport report = run("""
+                name,price,capacity
+                單人房,2600,1
+                四人房,5200,4
+                """);
+
+        assertEquals(1, report.getInserted());
+        assertEquals(1, report.getUpdated());
+        assertEquals(10, updated.get(0).getId());
+        assertEquals(2600, table.get("單人房").getPrice());
+        assertEquals(5200, table.get("四人房").getPrice());
+    }
+
+    @Test
+    void missingOrInvalidValuesAreRejectedWithoutTouchingExistingRows() throws Exception {
+        existing(10, "單人房", 2000, 1);
+        existing(11, "雙人房", 3000, 2);
+
+        RoomTypeImportReport report = run("""
+                name,price,capacity,feature_ids
+                單人房,,1,
+                雙人房,3000,,
+                三人房,-1,3,
+                四人房,4000,abc,
+                五人房,5000,5,9
+                ,6000,6,
+                """);
+
+        assertEquals(6, report.getRowsRead());
+        assertEquals(0, report.getInserted() + report.getUpdated());
+        assertEquals(List.of("price 不可為空", "capacity 不可為空", "price 必須為非負整數",
+                "capacity 必須為非負整數", "特徵不存在：9", "name 不可為空"), reasons(report));
+        assertEquals(2, report.getRejects().get(0).getLine());
+        assertEquals(2000, table.get("單人房").getPrice());
+        assertEquals(2, table.get("雙人房").getCapacity());
+    }
+
+    @Test
+    void duplicateNameInOneChunkKeepsTheLastRow() throws Exception {
+        RoomTypeImportReport report = run("""
+                name,price,capacity
+                單人房,2000,1
+                單人房,2100,1
+                """);
+
+        assertEquals(1, report.getInserted());
+        assertEquals(List.of("同批次名稱重複，以後面一筆為準"), reasons(report));
+        assertEquals(2100, table.get("單人房").getPrice());
+    }
+}
@@ -0,0 +1,152 @@
+package com.ryanshiun.seniorscare.security;
+
+import com.ryanshiun.seniorscare.member.dao.employee.EmployeeDao;
+import com.ryanshiun.seniorscare.member.dto.employee.EmployeeProfileDto;
+import com.ryanshiun.seniorscare.member.dto.enums.TokenState;
+import com.ryanshiun.seniorscare.member.service.employee.EmpLogService;
+import com.ryanshiun.seniorscare.member.service.employee.Impl.EmployeeServiceImpl;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Field;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EmpRoleCacheTest {
+
+    private static final int EMP_ID = 7;
+
+    private final EmployeeDao employeeDao = mock(EmployeeDao.class);
+    private final AtomicInteger dbVersion = new AtomicInteger();
+    private final EmpRoleCache roleCache = new EmpRoleCache();
+    private final EmployeeServiceImpl employeeService = new EmployeeServiceImpl();
+
+    /** 只負責觸發交易同步（afterCommit / rollback），不連資料庫 */
+    private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+
+    private final TransactionTemplate tx = new TransactionTemplate(new NoOpTransactionManager());
+
+    private JwtTokenProvider provider() throws Exception {
+        when(employeeDao.getRoleVersions()).thenReturn(Map.of());
+        when(employeeDao.bumpRoleVersion(anyInt())).thenAnswer(inv -> dbVersion.incrementAndGet());
+        EmployeeProfileDto profile = new EmployeeProfileDto();
+        profile.setIsActive(true);
+        when(employeeDao.getEmployeeById(EMP_ID)).thenReturn(profile);
+
+        inject(roleCache, "employeeDao", employeeDao);
+        roleCache.init();
+        inject(employeeService, "employeeDao", employeeDao);
+        inject(employeeService, "empRoleCache", roleCache);
+        inject(employeeService, "empLogService", mock(EmpLogService.class));
+        return JwtTokenProviderTest.provider(roleCache, 100);
+    }
+
+    private static void inject(Object target, String name, Object value) throws Exception {
+        Field f = target.getClass().getDeclaredField(name);
+        f.setAccessible(true);
+        f.set(target, value);
+    }
+
+    private static VerifiedTokenCache<?> cache(JwtTokenProvider provider) throws Exception {
+        Field f = JwtTokenProvider.class.getDeclaredField("verifiedCache");
+        f.setAccessible(true);
+        return (VerifiedTokenCache<?>) f.get(provider);
+    }
+
+    @Test
+    void cachedTokenWithOldVersionIsRejectedAfterRoleUpdateCommits() throws Exception {
+        JwtTokenProvider provider = provider();
+        String token = JwtTokenProviderTest.employeeToken(provider, EMP_ID, "ROLE_MANAGER");
+        assertEquals(TokenState.EMPLOYEE, provider.validateToken(token));
+
+        tx.executeWithoutResult(status -> employeeService.updateEmployeeRole(EMP_ID, List.of(2)));
+
+        long hits = cache(provider).hits();
+        assertEquals(TokenState.INVALID, provider.validateToken(token));
+        // 舊 token 是從快取取出後才被版本比對擋下
+        assertEquals(hits + 1, cache(provider).hits());
+        // 新發的 token 帶新版本
+        String fresh = JwtTokenProviderTest.employeeToken(provider, EMP_ID, "ROLE_EMPLOYEE");
+        assertEquals(TokenState.EMPLOYEE, provider.validateToken(fresh));
+    }
+
+    @Test
+    void tokenIsRejectedAfterStatusToggleCommits() throws Exception {
+        JwtTokenProvider provider = provider();
+        String token = JwtTokenProviderTest.employeeToken(provider, EMP_ID, "ROLE_EMPLOYEE");
+        assertEquals(TokenState.EMPLOYEE, provider.validateToken(token));
+
+        tx.executeWithoutResult(status -> {
+            employeeService.toggleEmployeeStatus(EMP_ID);
+            // commit 前記憶體版本不變
+            assertEquals(0, roleCache.roleVersion(EMP_ID));
+        });
+
+        assertEquals(1, roleCache.roleVersion(EMP_ID));
+        assertEquals(TokenState.INVALID, provider.validateToken(token));
+    }
+
+    @Test
+    void rollbackDoesNotBumpTheInMemoryVersion() throws Exception {
+        JwtTokenProvider provider = provider();
+        String token = JwtTokenProviderTest.employeeToken(provider, EMP_ID, "ROLE_EMPLOYEE");
+
+        tx.executeWithoutResult(status -> {
+            employeeService.updateEmployeeRole(EMP_ID, List.of(2));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, roleCache.roleVersion(EMP_ID));
+        assertEquals(TokenState.EMPLOYEE, provider.validateToken(token));
+    }
+
+    @Test
+    void tokenWithoutRoleVersionCountsAsVersionZero() throws Exception {
+        JwtTokenProvider provider = provider();
+        Instant now = Instant.now();
+        String legacy = Jwts.builder()
+                .subject(String.valueOf(EMP_ID))
+                .claim("roles", List.of("ROLE_EMPLOYEE"))
+                .claim("type", TokenState.EMPLOYEE)
+                .issuedAt(Date.from(now))
+                .expiration(Date.from(now.plusSeconds(3600)))
+                .signWith(Keys.hmacShaKeyFor(Base64.getDecoder().decode(JwtTokenProviderTest.SECRET)))
+                .compact();
+
+        assertEquals(TokenState.EMPLOYEE, provider.validateToken(legacy));
+
+        roleCache.onRolesChanged(EMP_ID);
+        assertEquals(TokenState.INVALID, provider.validateToken(legacy));
+    }
+}
@@ -0,0 +1,122 @@
+package com.ryanshiun.seniorscare.security;
+
+import com.ryanshiun.seniorscare.member.dto.enums.TokenState;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+
+class JwtTokenProviderTest {
+
+    static final String SECRET = Base64.getEncoder().encodeToString(
+            "seniorscare-test-secret-0123456789abcdef".getBytes());
+
+    private final EmpRoleCache empRoleCache = mock(EmpRoleCache.class);
+
+    static JwtTokenProvider provider(EmpRoleCache empRoleCache, int cacheSize) throws Exception {
+        JwtTokenProvider provider = new JwtTokenProvider(empRoleCache);
+        inject(provider, "base64Secret", SECRET);
+        inject(provider, "jwtExpirationInMs", 3_600_000L);
+        inject(provider, "verifiedCacheMaxSize", cacheSize);
+        provider.init();
+        return provider;
+    }
+
+    private static void inject(Object target, String name, Object value) throws Exception {
+        Field f = target.getClass().getDeclaredField(name);
+        f.setAccessible(true);
+        f.set(target, value);
+    }
+
+    static String employeeToken(JwtTokenProvider provider, int empId, String... roles) {
+        List<GrantedAuthority> authorities = Arrays.stream(roles)
+                .map(r -> (GrantedAuthority) new SimpleGrantedAuthority(r)).toList();
+        return provider.generateEmployeeToken(
+                new UsernamePasswordAuthenticationToken(String.valueOf(empId), null, authorities));
+    }
+
+    private static List<String> authorities(Authentication auth) {
+        return auth.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+    }
+
+    private static VerifiedTokenCache<?> cache(JwtTokenProvider provider) throws Exception {
+        Field f = JwtTokenProvider.class.getDeclaredField("verifiedCache");
+        f.setAccessible(true);
+        return (VerifiedTokenCache<?>) f.get(provider);
+    }
+
+    @Test
+    void memberAndEmployeeTokensGetTheirOwnAuthorities() throws Exception {
+        JwtTokenProvider provider = provider(empRoleCache, 100);
+
+        JwtTokenProvider.VerifiedToken member = provider.verify(provider.generateMemberToken("U123"));
+        assertEquals(TokenState.MEMBER, member.state());
+        assertEquals("U123", member.authentication().getName());
+        assertEquals(List.of("ROLE_MEMBER"), authorities(member.authentication()));
+
+        JwtTokenProvider.VerifiedToken employee = provider.verify(employeeToken(provider, 7, "ROLE_MANAGER", "ROLE_ADMIN"));
+        assertEquals(TokenState.EMPLOYEE, employee.state());
+        assertEquals("7", employee.authentication().getName());
+        assertEquals(List.of("ROLE_MANAGER", "ROLE_ADMIN"), authorities(employee.authentication()));
+    }
+
+    @Test
+    void tamperedTokenMissesTheCacheAndIsRejected() throws Exception {
+        JwtTokenProvider provider = provider(empRoleCache, 100);
+        String token = employeeToken(provider, 7, "ROLE_EMPLOYEE");
+        assertEquals(TokenState.EMPLOYEE, provider.validateToken(token));
+
+        // 改掉 payload 裡的權限，簽章不變
+        String[] parts = token.split("\\.");
+        String payload = new String(Base64.getUrlDecoder().decode(parts[1]))
+                .replace("ROLE_EMPLOYEE", "ROLE_ADMIN");
+        String tampered = parts[0] + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes())
+                + "." + parts[2];
+
+        long missesBefore = cache(provider).misses();
+        JwtTokenProvider.VerifiedToken result = provider.verify(tampered);
+        assertEquals(TokenState.INVALID, result.state());
+        assertNull(result.authentication());
+        assertEquals(missesBefore + 1, cache(provider).misses());
+        // 驗證失敗的不會放進快取
+        assertEquals(1, cache(provider).size());
+        assertEquals(TokenState.INVALID, provider.validateToken(tampered));
+    }
+
+    @Test
+    void cachedTokenReturnsTheSameAuthentication() throws Exception {
+        JwtTokenProvider provider = provider(empRoleCache, 100);
+        String token = provider.generateMemberToken("U123");
+
+        Authentication first = provider.getAuthentication(token);
+        Authentication second = provider.getAuthentication(token);
+
+        assertSame(first, second);
+        assertEquals(1, cache(provider).hits());
+    }
+
+    @Test
+    void fullCacheStillVerifiesEveryToken() throws Exception {
+        JwtTokenProvider provider = provider(empRoleCache, 1);
+        String cached = provider.generateMemberToken("U1");
+        String other = provider.generateMemberToken("U2");
+
+        assertEquals(TokenState.MEMBER, provider.validateToken(cached));
+        for (int i = 0; i < 3; i++) {
+            assertEquals("U2", provider.getAuthentication(other).getName());
+        }
+        assertEquals(1, cache(provider).size());
+        assertEquals(TokenState.INVALID, provider.validateToken(other + "x"));
+    }
+}
@@ -0,0 +1,53 @@
+package com.ryanshiun.seniorscare.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class VerifiedTokenCacheTest {
+
+    @Test
+    void expiredEntryIsNotReturnedAndIsDropped() {
+        VerifiedTokenCache<String> cache = new VerifiedTokenCache<>(10);
+        cache.put("token", "emp-7", 2_000, 1_000);
+
+        assertEquals("emp-7", cache.get("token", 1_999));
+        assertNull(cache.get("token", 2_000));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void alreadyExpiredTokenIsNotCached() {
+        VerifiedTokenCache<String> cache = new VerifiedTokenCache<>(10);
+        cache.put("token", "emp-7", 1_000, 1_000);
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void fullCacheSweepsExpiredEntriesThenStopsAdding() {
+        VerifiedTokenCache<String> cache = new VerifiedTokenCache<>(2);
+        cache.put("a", "A", 1_500, 1_000);
+        cache.put("b", "B", 5_000, 1_000);
+
+        // a 已過期，清掉後 c 放得進去
+        cache.put("c", "C", 5_000, 2_000);
+        assertEquals("C", cache.get("c", 2_000));
+
+        // 都沒過期：不再放入
+        cache.put("d", "D", 5_000, 2_000);
+        assertNull(cache.get("d", 2_000));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void zeroSizeDisablesCaching() {
+        VerifiedTokenCache<String> cache = new VerifiedTokenCache<>(0);
+        cache.put("token", "emp-7", 5_000, 1_000);
+
+        assertNull(cache.get("token", 1_000));
+    }
+}